@@ -2,17 +2,37 @@ package efs.task.todoapp;
 
 import com.sun.net.httpserver.HttpServer;
 import efs.task.todoapp.web.WebServerFactory;
+import java.util.List;
 import java.util.logging.Logger;
 
 public class ToDoApplication {
     private static final Logger LOGGER = Logger.getLogger(ToDoApplication.class.getName());
 
+    /**
+     * Starts the application. By default it runs as a single server on port 8080, a cluster is started as several
+     * processes:
+     * <ul>
+     *     <li><code>-Dtodoapp.port=8081 -Dtodoapp.cluster.shard=true</code> - node of the cluster,</li>
+     *     <li><code>-Dtodoapp.port=8080 -Dtodoapp.cluster.nodes=localhost:8081,localhost:8082</code> - router
+     *     forwarding requests to the nodes; nodes are added with <code>POST /todo/cluster/nodes</code>.</li>
+     * </ul>
+     * Replication is set up in the same way: <code>-Dtodoapp.replication.port=9090</code> starts a leader,
+     * <code>-Dtodoapp.replication.leader=localhost:9090</code> a read-only follower.
+     */
     public static void main(String[] args) {
-        var application = new ToDoApplication();
-        var server = application.createServer();
+        var port = Integer.getInteger("todoapp.port", 8080);
+        var nodes = System.getProperty("todoapp.cluster.nodes");
+
+        HttpServer server;
+        if (nodes != null)
+            server = WebServerFactory.createRouter(port, List.of(nodes.split(",")));
+        else if (Boolean.getBoolean("todoapp.cluster.shard"))
+            server = WebServerFactory.createShard(port);
+        else
+            server = WebServerFactory.createServer(port);
         server.start();
 
-        LOGGER.info("ToDoApplication's server started ...");
+        LOGGER.info("ToDoApplication's server started on port " + port + " ...");
     }
 
     public HttpServer createServer() {
@@ -0,0 +1,273 @@
+package efs.task.todoapp.cluster;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import efs.task.todoapp.codec.WireFormat;
+import efs.task.todoapp.service.Exceptions.BadRequestException;
+import efs.task.todoapp.service.Exceptions.PayloadTooLargeException;
+import efs.task.todoapp.service.SessionTokens;
+import efs.task.todoapp.web.HttpMethod;
+import efs.task.todoapp.web.RequestBodies;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static efs.task.todoapp.web.HttpCode.*;
+
+/**
+ * Front end of the cluster. Users and their tasks are partitioned by owner over the nodes with a {@link HashRing},
+ * the router forwards every request to the node owning its user: the one from the credentials or the session token
+ * in the <code>auth</code> header or, for registration, the one from the body. Requests without a recognizable user
+ * go to the first node, which answers them with the proper error.
+ * <p>
+ * Adding a node moves the owners which now hash to it: their accounts and tasks are copied to the new node, the ring
+ * is switched and the copies on the old nodes are removed. Requests are held while owners are being moved, so no
+ * write can land on a copy which is about to be dropped. Session tokens are not moved, users of moved owners have to
+ * log in again.
+ */
+public class ClusterRouter implements HttpHandler {
+
+    private static final Logger LOGGER = Logger.getLogger(ClusterRouter.class.getName());
+    private static final Gson gson = new Gson();
+
+    private static final int VIRTUAL_NODES = 128;
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(2);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final String OWNERS_PATH = "/todo/cluster/owners";
+
+    private static final Set<String> FORWARDED_REQUEST_HEADERS = Set.of("auth", "authorization", "if-match",
+            "content-type", "accept");
+    private static final Set<String> DROPPED_RESPONSE_HEADERS = Set.of("content-length", "transfer-encoding", "date",
+            "connection");
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .build();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile HashRing ring;
+    private final int maxBodyBytes;
+
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder movedOwners = new LongAdder();
+
+    public ClusterRouter(List<String> nodes) {
+        this(nodes, RequestBodies.DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxBodyBytes size of the largest forwarded request body, larger ones get 413 Payload Too Large
+     */
+    public ClusterRouter(List<String> nodes, int maxBodyBytes) {
+        if (nodes.isEmpty())
+            throw new IllegalArgumentException("Cluster needs at least one node");
+        this.ring = new HashRing(nodes, VIRTUAL_NODES);
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            var body = RequestBodies.read(exchange, maxBodyBytes);
+            var owner = ownerOf(exchange, body.bytes(), body.length());
+
+            HttpResponse<byte[]> response;
+            lock.readLock().lock();
+            try {
+                var node = owner != null ? ring.nodeFor(owner) : ring.getNodes().get(0);
+                response = forward(exchange, node, body);
+            } catch (IOException e) {
+                failures.increment();
+                LOGGER.log(Level.WARNING, "Forwarding " + exchange.getRequestURI() + " failed", e);
+                exchange.sendResponseHeaders(BAD_GATEWAY.getCode(), -1);
+                return;
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            forwarded.increment();
+            response.headers().map().forEach((name, values) -> {
+                if (!name.startsWith(":") && !DROPPED_RESPONSE_HEADERS.contains(name.toLowerCase(Locale.ROOT)))
+                    exchange.getResponseHeaders().put(name, values);
+            });
+            var responseBody = response.body();
+            if (responseBody.length == 0) {
+                exchange.sendResponseHeaders(response.statusCode(), -1);
+            } else {
+                exchange.sendResponseHeaders(response.statusCode(), responseBody.length);
+                exchange.getResponseBody().write(responseBody);
+            }
+        } catch (PayloadTooLargeException e) {
+            exchange.sendResponseHeaders(PAYLOAD_TOO_LARGE.getCode(), -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(SERVICE_UNAVAILABLE.getCode(), -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Adds the node to the cluster and moves to it the owners it takes over. If copying fails the ring is left
+     * unchanged and the call may be repeated.
+     *
+     * @param node address of the node, <code>host:port</code>
+     * @return number of owners moved to the node
+     */
+    public int addNode(String node) throws IOException, InterruptedException {
+        lock.writeLock().lock();
+        try {
+            var current = ring;
+            var next = current.withNode(node);
+            if (next == current)
+                return 0;
+
+            List<String[]> moved = new ArrayList<>();
+            for (String source : current.getNodes()) {
+                for (String owner : owners(source)) {
+                    if (!next.nodeFor(owner).equals(source) && copyOwner(owner, source, next.nodeFor(owner)))
+                        moved.add(new String[]{owner, source});
+                }
+            }
+
+            ring = next;
+            for (String[] owner : moved) {
+                var response = send(owner[1], "DELETE", OWNERS_PATH + "/" + encode(owner[0]), null);
+                if (response.statusCode() != OK.getCode())
+                    LOGGER.warning("Owner " + owner[0] + " has not been removed from " + owner[1]);
+            }
+            movedOwners.add(moved.size());
+            LOGGER.info("Node " + node + " joined the cluster, " + moved.size() + " owners moved");
+            return moved.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<String> getNodes() {
+        return ring.getNodes();
+    }
+
+    public long getForwardedCount() {
+        return forwarded.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    public long getMovedOwnersCount() {
+        return movedOwners.sum();
+    }
+
+    private List<String> owners(String node) throws IOException, InterruptedException {
+        var response = send(node, "GET", OWNERS_PATH, null);
+        if (response.statusCode() != OK.getCode())
+            throw new IOException("Listing owners of " + node + " failed with " + response.statusCode());
+        return List.of(gson.fromJson(new String(response.body(), StandardCharsets.UTF_8), String[].class));
+    }
+
+    private boolean copyOwner(String owner, String source, String target) throws IOException, InterruptedException {
+        var path = OWNERS_PATH + "/" + encode(owner);
+        var snapshot = send(source, "GET", path, null);
+        if (snapshot.statusCode() == NOT_FOUND.getCode())
+            return false;
+        if (snapshot.statusCode() != OK.getCode())
+            throw new IOException("Reading owner " + owner + " from " + source + " failed with " + snapshot.statusCode());
+
+        var copy = send(target, "PUT", path, snapshot.body());
+        if (copy.statusCode() != OK.getCode())
+            throw new IOException("Copying owner " + owner + " to " + target + " failed with " + copy.statusCode());
+        return true;
+    }
+
+    private HttpResponse<byte[]> forward(HttpExchange exchange, String node, RequestBodies.Body body)
+            throws IOException, InterruptedException {
+
+        var uri = exchange.getRequestURI();
+        var target = uri.getRawPath() + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+        var request = request(node, exchange.getRequestMethod(), target, body.bytes(), body.length());
+
+        exchange.getRequestHeaders().forEach((name, values) -> {
+            if (FORWARDED_REQUEST_HEADERS.contains(name.toLowerCase(Locale.ROOT)))
+                values.forEach(value -> request.header(name, value));
+        });
+        return send(request.build());
+    }
+
+    private HttpResponse<byte[]> send(String node, String method, String path, byte[] body)
+            throws IOException, InterruptedException {
+        return send(request(node, method, path, body, body == null ? 0 : body.length).build());
+    }
+
+    /**
+     * Sends the request, repeating it once if it is idempotent and fails, which happens when a pooled connection
+     * has just been closed by the node.
+     */
+    private HttpResponse<byte[]> send(HttpRequest request) throws IOException, InterruptedException {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            if (request.method().equals(HttpMethod.POST.name()))
+                throw e;
+            return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        }
+    }
+
+    private static HttpRequest.Builder request(String node, String method, String path, byte[] body, int length) {
+        var publisher = length == 0
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(body, 0, length);
+        return HttpRequest.newBuilder(URI.create("http://" + node + path))
+                .timeout(REQUEST_TIMEOUT)
+                .method(method, publisher);
+    }
+
+    /**
+     * Returns user the request belongs to or <code>null</code> if it cannot be recognized.
+     */
+    static String ownerOf(HttpExchange exchange, byte[] body, int length) {
+        if (exchange.getRequestURI().getPath().startsWith("/todo/user")) {
+            try {
+                var format = WireFormat.ofContentType(exchange.getRequestHeaders().getFirst("Content-Type"));
+                var user = format.readUser(body, length);
+                return user != null ? user.getUsername() : null;
+            } catch (BadRequestException e) {
+                return null;
+            }
+        }
+
+        var auth = exchange.getRequestHeaders().getFirst("auth");
+        if (SessionTokens.isWellFormed(auth))
+            return SessionTokens.ownerOf(auth);
+        if (auth == null || auth.indexOf(':') < 0)
+            return null;
+        try {
+            return new String(Base64.getDecoder().decode(auth.substring(0, auth.indexOf(':'))), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String encode(String owner) {
+        return URLEncoder.encode(owner, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,78 @@
+package efs.task.todoapp.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent hash ring assigning owners to nodes. Every node is placed on the ring at a number of virtual
+ * points, so owners spread evenly and adding a node moves only the owners which land on its points.
+ */
+public final class HashRing {
+
+    private final int virtualNodes;
+    private final List<String> nodes;
+    private final NavigableMap<Long, String> points;
+
+    public HashRing(List<String> nodes, int virtualNodes) {
+        if (virtualNodes < 1)
+            throw new IllegalArgumentException("At least one virtual node per node is required");
+
+        this.virtualNodes = virtualNodes;
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+        this.points = new TreeMap<>();
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++)
+                points.put(hash(node + "#" + i), node);
+        }
+    }
+
+    /**
+     * Returns ring with the node added, the ring itself is not modified.
+     */
+    public HashRing withNode(String node) {
+        if (nodes.contains(node))
+            return this;
+
+        var extended = new ArrayList<>(nodes);
+        extended.add(node);
+        return new HashRing(extended, virtualNodes);
+    }
+
+    /**
+     * Returns node owning the key or <code>null</code> if the ring is empty.
+     */
+    public String nodeFor(String key) {
+        if (points.isEmpty())
+            return null;
+
+        Map.Entry<Long, String> point = points.ceilingEntry(hash(key));
+        return point != null ? point.getValue() : points.firstEntry().getValue();
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * 64-bit FNV-1a of the UTF-8 bytes followed by the MurmurHash3 finalizer, which spreads similar keys
+     * (<code>node#1</code>, <code>node#2</code>) over the whole ring.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
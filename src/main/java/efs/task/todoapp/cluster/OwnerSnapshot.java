@@ -0,0 +1,28 @@
+package efs.task.todoapp.cluster;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.UserEntity;
+
+import java.util.List;
+
+/**
+ * Account and tasks of one owner, the unit of data moved between nodes when the cluster is rebalanced.
+ */
+public class OwnerSnapshot {
+
+    private final UserEntity user;
+    private final List<TaskEntity> tasks;
+
+    public OwnerSnapshot(UserEntity user, List<TaskEntity> tasks) {
+        this.user = user;
+        this.tasks = tasks;
+    }
+
+    public UserEntity getUser() {
+        return user;
+    }
+
+    public List<TaskEntity> getTasks() {
+        return tasks;
+    }
+}
@@ -0,0 +1,106 @@
+package efs.task.todoapp.codec;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.service.Exceptions.BadRequestException;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * CBOR codec of task and user payloads, mirroring {@link JsonCodec}: the same entities are encoded as maps with the
+ * same keys, ids are written as tagged 16-byte UUIDs instead of strings.
+ */
+public final class CborCodec {
+
+    private CborCodec() {
+    }
+
+    /**
+     * Decodes task sent by a client, only <code>description</code> and <code>due</code> are read.
+     *
+     * @return decoded task, <code>null</code> for empty body or CBOR null
+     * @throws BadRequestException if the body is not a valid CBOR map
+     */
+    public static TaskEntity readTask(byte[] body, int length) throws BadRequestException {
+        var input = new CborInput(body, length);
+        if (input.isAtEnd() || input.consumeNull())
+            return checkEnd(input, null);
+
+        String description = null;
+        String due = null;
+        int entries = input.readMapHeader();
+        for (int i = 0; entries < 0 ? !input.consumeBreak() : i < entries; i++) {
+            var key = input.readScalar();
+            if ("description".equals(key))
+                description = input.readScalar();
+            else if ("due".equals(key))
+                due = input.readScalar();
+            else
+                input.skipValue();
+        }
+        return checkEnd(input, new TaskEntity(description, due));
+    }
+
+    /**
+     * Decodes user sent by a client.
+     *
+     * @return decoded user, <code>null</code> for empty body or CBOR null
+     * @throws BadRequestException if the body is not a valid CBOR map
+     */
+    public static UserEntity readUser(byte[] body, int length) throws BadRequestException {
+        var input = new CborInput(body, length);
+        if (input.isAtEnd() || input.consumeNull())
+            return checkEnd(input, null);
+
+        String username = null;
+        String password = null;
+        int entries = input.readMapHeader();
+        for (int i = 0; entries < 0 ? !input.consumeBreak() : i < entries; i++) {
+            var key = input.readScalar();
+            if ("username".equals(key))
+                username = input.readScalar();
+            else if ("password".equals(key))
+                password = input.readScalar();
+            else
+                input.skipValue();
+        }
+        return checkEnd(input, new UserEntity(username, password));
+    }
+
+    /**
+     * Writes <code>{"id": 37(h'...')}</code>.
+     */
+    public static CborOutput writeId(CborOutput output, UUID id) {
+        return output.writeMapHeader(1).writeText("id").writeUuid(id);
+    }
+
+    /**
+     * Writes task as returned to clients: id, description and due date if the task has one.
+     */
+    public static CborOutput writeTask(CborOutput output, TaskEntity task) {
+        output.writeMapHeader(task.getDue() != null ? 3 : 2);
+        output.writeText("id");
+        if (task.getId() == null)
+            output.writeNull();
+        else
+            output.writeUuid(task.getId());
+        output.writeText("description").writeText(task.getDescription());
+        if (task.getDue() != null)
+            output.writeText("due").writeText(task.getDue());
+        return output;
+    }
+
+    public static CborOutput writeTasks(CborOutput output, List<TaskEntity> tasks) {
+        output.writeArrayHeader(tasks.size());
+        for (TaskEntity task : tasks)
+            writeTask(output, task);
+        return output;
+    }
+
+    private static <T> T checkEnd(CborInput input, T entity) throws BadRequestException {
+        if (!input.isAtEnd())
+            throw new BadRequestException("Unexpected content after CBOR item");
+        return entity;
+    }
+}
@@ -0,0 +1,218 @@
+package efs.task.todoapp.codec;
+
+import efs.task.todoapp.service.Exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+
+import static efs.task.todoapp.codec.CborOutput.*;
+
+/**
+ * Minimal pull parser of CBOR data items, the counterpart of {@link JsonInput}: it walks the entries of a map, reads
+ * scalars as strings and skips items of any other type.
+ */
+final class CborInput {
+
+    private static final int INDEFINITE = 31;
+    private static final int BREAK = 0xff;
+    private static final int FALSE = 0xf4;
+    private static final int TRUE = 0xf5;
+    private static final int UNDEFINED = 0xf7;
+    private static final int MAX_DEPTH = 64;
+
+    private final byte[] bytes;
+    private final int limit;
+    private int position;
+
+    CborInput(byte[] bytes, int length) {
+        this.bytes = bytes;
+        this.limit = length;
+    }
+
+    boolean isAtEnd() {
+        return position == limit;
+    }
+
+    boolean consumeNull() throws BadRequestException {
+        if (peek() == NULL) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads header of a map.
+     *
+     * @return number of entries, -1 for a map of indefinite length ended by {@link #consumeBreak()}
+     */
+    int readMapHeader() throws BadRequestException {
+        int initial = read();
+        if (initial >>> 5 != MAJOR_MAP)
+            throw error();
+        if ((initial & 0x1f) == INDEFINITE)
+            return -1;
+        return toInt(readArgument(initial));
+    }
+
+    boolean consumeBreak() throws BadRequestException {
+        if (peek() == BREAK) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads text, integer or boolean item as string, like {@link JsonInput#readScalar()} does for JSON.
+     *
+     * @return value or <code>null</code> for CBOR null or undefined
+     */
+    String readScalar() throws BadRequestException {
+        int initial = read();
+        switch (initial >>> 5) {
+            case MAJOR_TEXT:
+                if ((initial & 0x1f) == INDEFINITE)
+                    return readIndefiniteText();
+                return readText(toInt(readArgument(initial)));
+            case MAJOR_UNSIGNED:
+                return Long.toUnsignedString(readArgument(initial));
+            case MAJOR_NEGATIVE:
+                long argument = readArgument(initial);
+                if (argument < 0)
+                    throw error();
+                return Long.toString(-1 - argument);
+            case MAJOR_SIMPLE:
+                if (initial == NULL || initial == UNDEFINED)
+                    return null;
+                if (initial == TRUE)
+                    return "true";
+                if (initial == FALSE)
+                    return "false";
+                throw error();
+            default:
+                throw error();
+        }
+    }
+
+    void skipValue() throws BadRequestException {
+        skipValue(0);
+    }
+
+    private void skipValue(int depth) throws BadRequestException {
+        if (depth > MAX_DEPTH)
+            throw error();
+
+        int initial = read();
+        int major = initial >>> 5;
+        boolean indefinite = (initial & 0x1f) == INDEFINITE;
+        switch (major) {
+            case MAJOR_UNSIGNED:
+            case MAJOR_NEGATIVE:
+                readArgument(initial);
+                break;
+            case MAJOR_BYTES:
+            case MAJOR_TEXT:
+                if (indefinite) {
+                    while (!consumeBreak())
+                        skipValue(depth + 1);
+                } else {
+                    skip(toInt(readArgument(initial)));
+                }
+                break;
+            case MAJOR_ARRAY:
+            case MAJOR_MAP:
+                int itemsPerEntry = major == MAJOR_MAP ? 2 : 1;
+                if (indefinite) {
+                    while (!consumeBreak()) {
+                        for (int i = 0; i < itemsPerEntry; i++)
+                            skipValue(depth + 1);
+                    }
+                } else {
+                    long items = readArgument(initial) * itemsPerEntry;
+                    if (items < 0 || items > limit - position)
+                        throw error();
+                    for (long i = 0; i < items; i++)
+                        skipValue(depth + 1);
+                }
+                break;
+            case MAJOR_TAG:
+                readArgument(initial);
+                skipValue(depth + 1);
+                break;
+            default:
+                if (indefinite)
+                    throw error();
+                readArgument(initial);
+        }
+    }
+
+    private String readText(int length) throws BadRequestException {
+        if (length > limit - position)
+            throw error();
+        var text = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return text;
+    }
+
+    private String readIndefiniteText() throws BadRequestException {
+        var text = new StringBuilder();
+        while (!consumeBreak()) {
+            int initial = read();
+            if (initial >>> 5 != MAJOR_TEXT || (initial & 0x1f) == INDEFINITE)
+                throw error();
+            text.append(readText(toInt(readArgument(initial))));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Reads the argument following the initial byte; for simple values it is the value itself.
+     */
+    private long readArgument(int initial) throws BadRequestException {
+        int info = initial & 0x1f;
+        if (info < 24)
+            return info;
+        int size;
+        switch (info) {
+            case 24: size = 1; break;
+            case 25: size = 2; break;
+            case 26: size = 4; break;
+            case 27: size = 8; break;
+            default: throw error();
+        }
+        if (size > limit - position)
+            throw error();
+        long value = 0;
+        for (int i = 0; i < size; i++)
+            value = (value << 8) | (bytes[position++] & 0xff);
+        return value;
+    }
+
+    private void skip(int count) throws BadRequestException {
+        if (count > limit - position)
+            throw error();
+        position += count;
+    }
+
+    private int read() throws BadRequestException {
+        int b = peek();
+        position++;
+        return b;
+    }
+
+    private int peek() throws BadRequestException {
+        if (position >= limit)
+            throw error();
+        return bytes[position] & 0xff;
+    }
+
+    private int toInt(long length) throws BadRequestException {
+        if (length < 0 || length > Integer.MAX_VALUE)
+            throw error();
+        return (int) length;
+    }
+
+    private BadRequestException error() {
+        return new BadRequestException("Malformed CBOR at byte " + position);
+    }
+}
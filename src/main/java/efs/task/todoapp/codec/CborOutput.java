@@ -0,0 +1,177 @@
+package efs.task.todoapp.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Growable byte buffer encoding CBOR (RFC 8949) data items. Only definite-length items are written, UUIDs are written
+ * as 16-byte strings tagged with 37, the registered UUID tag.
+ */
+public final class CborOutput implements Payload {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int RETAINED_CAPACITY = 64 * 1024;
+    private static final ThreadLocal<CborOutput> BUFFERS = ThreadLocal.withInitial(CborOutput::new);
+
+    static final int MAJOR_UNSIGNED = 0;
+    static final int MAJOR_NEGATIVE = 1;
+    static final int MAJOR_BYTES = 2;
+    static final int MAJOR_TEXT = 3;
+    static final int MAJOR_ARRAY = 4;
+    static final int MAJOR_MAP = 5;
+    static final int MAJOR_TAG = 6;
+    static final int MAJOR_SIMPLE = 7;
+
+    static final int TAG_UUID = 37;
+    static final int NULL = 0xf6;
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int length;
+
+    /**
+     * Returns the emptied buffer of the current thread. The content is valid until the next call on the same thread.
+     */
+    public static CborOutput forThread() {
+        var output = BUFFERS.get();
+        if (output.bytes.length > RETAINED_CAPACITY)
+            output.bytes = new byte[INITIAL_CAPACITY];
+        output.length = 0;
+        return output;
+    }
+
+    private CborOutput() {
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    @Override
+    public void writeTo(OutputStream stream) throws IOException {
+        stream.write(bytes, 0, length);
+    }
+
+    public CborOutput writeMapHeader(int entries) {
+        writeHead(MAJOR_MAP, entries);
+        return this;
+    }
+
+    public CborOutput writeArrayHeader(int items) {
+        writeHead(MAJOR_ARRAY, items);
+        return this;
+    }
+
+    public CborOutput writeNull() {
+        ensureCapacity(1);
+        bytes[length++] = (byte) NULL;
+        return this;
+    }
+
+    public CborOutput writeLong(long value) {
+        if (value >= 0)
+            writeHead(MAJOR_UNSIGNED, value);
+        else
+            writeHead(MAJOR_NEGATIVE, -1 - value);
+        return this;
+    }
+
+    public CborOutput writeUuid(UUID uuid) {
+        writeHead(MAJOR_TAG, TAG_UUID);
+        writeHead(MAJOR_BYTES, 16);
+        ensureCapacity(16);
+        writeBigEndian(uuid.getMostSignificantBits(), 8);
+        writeBigEndian(uuid.getLeastSignificantBits(), 8);
+        return this;
+    }
+
+    /**
+     * Writes text string encoded as UTF-8, or null. Unpaired surrogates are written as <code>?</code>, as
+     * {@link String#getBytes(java.nio.charset.Charset)} does.
+     */
+    public CborOutput writeText(String value) {
+        if (value == null)
+            return writeNull();
+
+        writeHead(MAJOR_TEXT, utf8Length(value));
+        ensureCapacity(value.length() * 3);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes[length++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[length++] = (byte) (0xc0 | (c >> 6));
+                bytes[length++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[length++] = (byte) (0xf0 | (codePoint >> 18));
+                bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                bytes[length++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                bytes[length++] = '?';
+            } else {
+                bytes[length++] = (byte) (0xe0 | (c >> 12));
+                bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                bytes[length++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return this;
+    }
+
+    private static int utf8Length(String value) {
+        int utf8Length = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80)
+                continue;
+            if (c < 0x800) {
+                utf8Length++;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                utf8Length += 2;
+                i++;
+            } else if (!Character.isSurrogate(c)) {
+                utf8Length += 2;
+            }
+        }
+        return utf8Length;
+    }
+
+    private void writeHead(int major, long value) {
+        ensureCapacity(9);
+        int type = major << 5;
+        if (value < 24) {
+            bytes[length++] = (byte) (type | value);
+        } else if (value < 0x100) {
+            bytes[length++] = (byte) (type | 24);
+            writeBigEndian(value, 1);
+        } else if (value < 0x10000) {
+            bytes[length++] = (byte) (type | 25);
+            writeBigEndian(value, 2);
+        } else if (value < 0x100000000L) {
+            bytes[length++] = (byte) (type | 26);
+            writeBigEndian(value, 4);
+        } else {
+            bytes[length++] = (byte) (type | 27);
+            writeBigEndian(value, 8);
+        }
+    }
+
+    private void writeBigEndian(long value, int size) {
+        for (int shift = (size - 1) * 8; shift >= 0; shift -= 8)
+            bytes[length++] = (byte) (value >>> shift);
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > bytes.length)
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+    }
+}
@@ -0,0 +1,221 @@
+package efs.task.todoapp.codec;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.service.Exceptions.BadRequestException;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reflection-free JSON codec of task and user payloads.
+ * <p>
+ * Request bodies are decoded straight from their UTF-8 bytes into entities, responses are encoded straight into a
+ * {@link JsonOutput} without building a tree. Decoding reads only the fields clients may send and ignores any other
+ * field, encoding produces exactly the bytes Gson produced for the same document.
+ */
+public final class JsonCodec {
+
+    private JsonCodec() {
+    }
+
+    /**
+     * Decodes task sent by a client, only <code>description</code> and <code>due</code> are read.
+     *
+     * @return decoded task, <code>null</code> for empty body or JSON null
+     * @throws BadRequestException if the body is not a valid JSON object
+     */
+    public static TaskEntity readTask(byte[] body, int length) throws BadRequestException {
+        var input = new JsonInput(body, length);
+        if (input.isAtEnd() || input.consumeNull())
+            return checkEnd(input, null);
+
+        String description = null;
+        String due = null;
+        input.beginObject();
+        for (String field = input.nextField(true); field != null; field = input.nextField(false)) {
+            switch (field) {
+                case "description":
+                    description = input.readScalar();
+                    break;
+                case "due":
+                    due = input.readScalar();
+                    break;
+                default:
+                    input.skipValue();
+            }
+        }
+        return checkEnd(input, new TaskEntity(description, due));
+    }
+
+    /**
+     * Decodes user sent by a client.
+     *
+     * @return decoded user, <code>null</code> for empty body or JSON null
+     * @throws BadRequestException if the body is not a valid JSON object
+     */
+    public static UserEntity readUser(byte[] body, int length) throws BadRequestException {
+        var input = new JsonInput(body, length);
+        if (input.isAtEnd() || input.consumeNull())
+            return checkEnd(input, null);
+
+        String username = null;
+        String password = null;
+        input.beginObject();
+        for (String field = input.nextField(true); field != null; field = input.nextField(false)) {
+            switch (field) {
+                case "username":
+                    username = input.readScalar();
+                    break;
+                case "password":
+                    password = input.readScalar();
+                    break;
+                default:
+                    input.skipValue();
+            }
+        }
+        return checkEnd(input, new UserEntity(username, password));
+    }
+
+    /**
+     * Writes <code>{"id":"..."}</code>.
+     */
+    public static JsonOutput writeId(JsonOutput output, UUID id) {
+        return output.writeAscii("{\"id\":").writeUuid(id).writeByte('}');
+    }
+
+    /**
+     * Writes task as returned to clients: id, description and due date if the task has one.
+     */
+    public static JsonOutput writeTask(JsonOutput output, TaskEntity task) {
+        output.writeAscii("{\"id\":");
+        if (task.getId() == null)
+            output.writeString("null");
+        else
+            output.writeUuid(task.getId());
+
+        output.writeAscii(",\"description\":");
+        writeNullable(output, task.getDescription());
+        if (task.getDue() != null)
+            output.writeAscii(",\"due\":").writeString(task.getDue());
+        return output.writeByte('}');
+    }
+
+    /**
+     * Writes JSON array of tasks, tasks which have been encoded when stored are copied as they are.
+     */
+    public static JsonOutput writeTasks(JsonOutput output, List<TaskEntity> tasks) {
+        output.writeByte('[');
+        for (int i = 0; i < tasks.size(); i++) {
+            if (i > 0)
+                output.writeByte(',');
+            var task = tasks.get(i);
+            if (task.getEncoded() != null)
+                output.writeBytes(task.getEncoded());
+            else
+                writeTask(output, task);
+        }
+        return output.writeByte(']');
+    }
+
+    /**
+     * Writes user as a record of the NDJSON export, without the trailing new line.
+     */
+    public static JsonOutput writeUserRecord(JsonOutput output, UserEntity user) {
+        output.writeAscii("{\"type\":\"user\",\"username\":");
+        writeNullable(output, user.getUsername());
+        output.writeAscii(",\"password\":");
+        writeNullable(output, user.getPassword());
+        return output.writeByte('}');
+    }
+
+    /**
+     * Writes task with its owner and version as a record of the NDJSON export, without the trailing new line.
+     */
+    public static JsonOutput writeTaskRecord(JsonOutput output, TaskEntity task) {
+        output.writeAscii("{\"type\":\"task\",\"id\":").writeUuid(task.getId());
+        output.writeAscii(",\"owner\":");
+        writeNullable(output, task.getOwner());
+        output.writeAscii(",\"description\":");
+        writeNullable(output, task.getDescription());
+        if (task.getDue() != null)
+            output.writeAscii(",\"due\":").writeString(task.getDue());
+        return output.writeAscii(",\"version\":").writeLong(task.getVersion()).writeByte('}');
+    }
+
+    /**
+     * Decodes record of the NDJSON export.
+     *
+     * @return {@link UserEntity} or {@link TaskEntity} with id, owner and version, depending on the record type
+     * @throws BadRequestException if the record is not valid JSON, has unknown type or invalid id or version
+     */
+    public static Object readRecord(byte[] line, int offset, int length) throws BadRequestException {
+        var input = new JsonInput(line, offset, length);
+        String type = null;
+        String username = null;
+        String password = null;
+        String id = null;
+        String description = null;
+        String due = null;
+        String version = null;
+
+        input.beginObject();
+        for (String field = input.nextField(true); field != null; field = input.nextField(false)) {
+            switch (field) {
+                case "type":
+                    type = input.readScalar();
+                    break;
+                case "username":
+                case "owner":
+                    username = input.readScalar();
+                    break;
+                case "password":
+                    password = input.readScalar();
+                    break;
+                case "id":
+                    id = input.readScalar();
+                    break;
+                case "description":
+                    description = input.readScalar();
+                    break;
+                case "due":
+                    due = input.readScalar();
+                    break;
+                case "version":
+                    version = input.readScalar();
+                    break;
+                default:
+                    input.skipValue();
+            }
+        }
+        checkEnd(input, null);
+
+        if ("user".equals(type))
+            return new UserEntity(username, password);
+        if (!"task".equals(type) || id == null)
+            throw new BadRequestException("Unknown record");
+
+        var task = new TaskEntity(description, due);
+        task.setOwner(username);
+        try {
+            task.setId(UUID.fromString(id));
+            task.setVersion(version != null ? Long.parseLong(version) : 1);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid task record");
+        }
+        return task;
+    }
+
+    private static void writeNullable(JsonOutput output, String value) {
+        if (value == null)
+            output.writeAscii("null");
+        else
+            output.writeString(value);
+    }
+
+    private static <T> T checkEnd(JsonInput input, T entity) throws BadRequestException {
+        if (!input.isAtEnd())
+            throw new BadRequestException("Unexpected content after JSON document");
+        return entity;
+    }
+}
@@ -0,0 +1,264 @@
+package efs.task.todoapp.codec;
+
+import efs.task.todoapp.service.Exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal pull parser reading JSON directly from UTF-8 bytes. It only offers what entity decoding needs: walking the
+ * fields of an object, reading scalar values as strings and skipping values of any other type.
+ */
+final class JsonInput {
+
+    /**
+     * Maximum nesting of skipped arrays and objects, deeper values are refused instead of exhausting the stack.
+     */
+    private static final int MAX_DEPTH = 64;
+
+    private final byte[] bytes;
+    private final int limit;
+    private int position;
+    private StringBuilder escaped;
+
+    JsonInput(byte[] bytes, int length) {
+        this(bytes, 0, length);
+    }
+
+    JsonInput(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * @return <code>true</code> if there is nothing but whitespace left
+     */
+    boolean isAtEnd() {
+        skipWhitespace();
+        return position == limit;
+    }
+
+    boolean consumeNull() throws BadRequestException {
+        skipWhitespace();
+        if (position < limit && bytes[position] == 'n') {
+            expectLiteral("null");
+            return true;
+        }
+        return false;
+    }
+
+    void beginObject() throws BadRequestException {
+        expect('{');
+    }
+
+    /**
+     * Reads name of the next field of the current object.
+     *
+     * @return field name, <code>null</code> if the object has ended
+     */
+    String nextField(boolean first) throws BadRequestException {
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return null;
+        }
+        if (!first) {
+            expect(',');
+            skipWhitespace();
+        }
+        var name = readString();
+        expect(':');
+        return name;
+    }
+
+    /**
+     * Reads string, number or boolean value as string; numbers and booleans are returned as written, like Gson does
+     * for <code>String</code> fields.
+     *
+     * @return value or <code>null</code> for JSON null
+     */
+    String readScalar() throws BadRequestException {
+        skipWhitespace();
+        byte b = peek();
+        if (b == '"')
+            return readString();
+        if (b == 'n') {
+            expectLiteral("null");
+            return null;
+        }
+        if (b == 't') {
+            expectLiteral("true");
+            return "true";
+        }
+        if (b == 'f') {
+            expectLiteral("false");
+            return "false";
+        }
+        if (b == '-' || (b >= '0' && b <= '9'))
+            return readNumber();
+        throw error();
+    }
+
+    void skipValue() throws BadRequestException {
+        skipValue(0);
+    }
+
+    private void skipValue(int depth) throws BadRequestException {
+        if (depth > MAX_DEPTH)
+            throw error();
+
+        skipWhitespace();
+        byte b = peek();
+        if (b == '{' || b == '[') {
+            position++;
+            byte close = b == '{' ? (byte) '}' : (byte) ']';
+            skipWhitespace();
+            if (peek() == close) {
+                position++;
+                return;
+            }
+            while (true) {
+                if (b == '{') {
+                    skipWhitespace();
+                    readString();
+                    expect(':');
+                }
+                skipValue(depth + 1);
+                skipWhitespace();
+                byte next = peek();
+                position++;
+                if (next == close)
+                    return;
+                if (next != ',')
+                    throw error();
+            }
+        }
+        readScalar();
+    }
+
+    private String readString() throws BadRequestException {
+        expect('"');
+        int start = position;
+        while (position < limit) {
+            byte b = bytes[position];
+            if (b == '"') {
+                var value = new String(bytes, start, position - start, StandardCharsets.UTF_8);
+                position++;
+                return value;
+            }
+            if (b == '\\')
+                return readEscapedString(start);
+            if ((b & 0xff) < 0x20)
+                throw error();
+            position++;
+        }
+        throw error();
+    }
+
+    private String readEscapedString(int start) throws BadRequestException {
+        if (escaped == null)
+            escaped = new StringBuilder();
+        escaped.setLength(0);
+        escaped.append(new String(bytes, start, position - start, StandardCharsets.UTF_8));
+
+        int chunk = position;
+        while (position < limit) {
+            byte b = bytes[position];
+            if (b == '"' || b == '\\') {
+                escaped.append(new String(bytes, chunk, position - chunk, StandardCharsets.UTF_8));
+                position++;
+                if (b == '"')
+                    return escaped.toString();
+                escaped.append(readEscape());
+                chunk = position;
+            } else if ((b & 0xff) < 0x20) {
+                throw error();
+            } else {
+                position++;
+            }
+        }
+        throw error();
+    }
+
+    private char readEscape() throws BadRequestException {
+        if (position >= limit)
+            throw error();
+        byte b = bytes[position++];
+        switch (b) {
+            case '"': return '"';
+            case '\\': return '\\';
+            case '/': return '/';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                if (position + 4 > limit)
+                    throw error();
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(bytes[position++], 16);
+                    if (digit < 0)
+                        throw error();
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            default:
+                throw error();
+        }
+    }
+
+    private String readNumber() throws BadRequestException {
+        int start = position;
+        while (position < limit) {
+            byte b = bytes[position];
+            if ((b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E')
+                position++;
+            else
+                break;
+        }
+        var number = new String(bytes, start, position - start, StandardCharsets.US_ASCII);
+        try {
+            Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            throw error();
+        }
+        return number;
+    }
+
+    private void expectLiteral(String literal) throws BadRequestException {
+        if (position + literal.length() > limit)
+            throw error();
+        for (int i = 0; i < literal.length(); i++) {
+            if (bytes[position++] != literal.charAt(i))
+                throw error();
+        }
+    }
+
+    private void expect(char c) throws BadRequestException {
+        skipWhitespace();
+        if (peek() != c)
+            throw error();
+        position++;
+    }
+
+    private byte peek() throws BadRequestException {
+        if (position >= limit)
+            throw error();
+        return bytes[position];
+    }
+
+    private void skipWhitespace() {
+        while (position < limit) {
+            byte b = bytes[position];
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r')
+                return;
+            position++;
+        }
+    }
+
+    private BadRequestException error() {
+        return new BadRequestException("Malformed JSON at byte " + position);
+    }
+}
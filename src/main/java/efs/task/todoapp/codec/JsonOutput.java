@@ -0,0 +1,199 @@
+package efs.task.todoapp.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Growable byte buffer JSON is encoded into. One instance is kept per thread and reused by {@link #forThread()}, so
+ * encoding a response allocates nothing once the buffer has grown to the usual response size.
+ */
+public final class JsonOutput implements Payload {
+
+    private static final int INITIAL_CAPACITY = 512;
+    private static final int RETAINED_CAPACITY = 64 * 1024;
+    private static final char LINE_SEPARATOR = 0x2028;
+    private static final char PARAGRAPH_SEPARATOR = 0x2029;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final ThreadLocal<JsonOutput> BUFFERS = ThreadLocal.withInitial(JsonOutput::new);
+
+    private byte[] bytes;
+    private int length;
+
+    /**
+     * Returns the emptied buffer of the current thread. The content is valid until the next call on the same thread.
+     */
+    public static JsonOutput forThread() {
+        var output = BUFFERS.get();
+        if (output.bytes.length > RETAINED_CAPACITY)
+            output.bytes = new byte[INITIAL_CAPACITY];
+        output.length = 0;
+        return output;
+    }
+
+    /**
+     * Wraps already encoded bytes, e.g. a stored task, so they can be sent without copying. The wrapped array is never
+     * modified, writing to the returned output first copies it.
+     */
+    public static JsonOutput wrap(byte[] encoded) {
+        var output = new JsonOutput(encoded);
+        output.length = encoded.length;
+        return output;
+    }
+
+    private JsonOutput() {
+        this(new byte[INITIAL_CAPACITY]);
+    }
+
+    private JsonOutput(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    @Override
+    public void writeTo(OutputStream stream) throws IOException {
+        stream.write(bytes, 0, length);
+    }
+
+    public JsonOutput writeByte(int b) {
+        ensureCapacity(1);
+        bytes[length++] = (byte) b;
+        return this;
+    }
+
+    public JsonOutput writeBytes(byte[] source) {
+        ensureCapacity(source.length);
+        System.arraycopy(source, 0, bytes, length, source.length);
+        length += source.length;
+        return this;
+    }
+
+    /**
+     * Writes characters which are known to be plain ASCII and not to need escaping, e.g. field names.
+     */
+    public JsonOutput writeAscii(String ascii) {
+        ensureCapacity(ascii.length());
+        for (int i = 0; i < ascii.length(); i++)
+            bytes[length++] = (byte) ascii.charAt(i);
+        return this;
+    }
+
+    public JsonOutput writeLong(long value) {
+        return writeAscii(Long.toString(value));
+    }
+
+    /**
+     * Writes UUID as a quoted JSON string in its canonical lower case form.
+     */
+    public JsonOutput writeUuid(UUID uuid) {
+        ensureCapacity(38);
+        bytes[length++] = '"';
+        writeHex(uuid.getMostSignificantBits() >>> 32, 8);
+        bytes[length++] = '-';
+        writeHex(uuid.getMostSignificantBits() >>> 16, 4);
+        bytes[length++] = '-';
+        writeHex(uuid.getMostSignificantBits(), 4);
+        bytes[length++] = '-';
+        writeHex(uuid.getLeastSignificantBits() >>> 48, 4);
+        bytes[length++] = '-';
+        writeHex(uuid.getLeastSignificantBits(), 12);
+        bytes[length++] = '"';
+        return this;
+    }
+
+    /**
+     * Writes quoted JSON string encoded as UTF-8. Escaping follows Gson, so that the output is byte-identical to
+     * {@link com.google.gson.JsonElement#toString()}: quotation mark, backslash, control characters and line/paragraph
+     * separators are escaped, everything else is written as is. Unpaired surrogates are written as <code>?</code>, as
+     * {@link String#getBytes(java.nio.charset.Charset)} does.
+     */
+    public JsonOutput writeString(String value) {
+        ensureCapacity(value.length() + 2);
+        bytes[length++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                writeAsciiChar(c);
+            } else if (c < 0x800) {
+                ensureCapacity(2);
+                bytes[length++] = (byte) (0xc0 | (c >> 6));
+                bytes[length++] = (byte) (0x80 | (c & 0x3f));
+            } else if (c == LINE_SEPARATOR || c == PARAGRAPH_SEPARATOR) {
+                writeUnicodeEscape(c);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensureCapacity(4);
+                bytes[length++] = (byte) (0xf0 | (codePoint >> 18));
+                bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                bytes[length++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                writeByte('?');
+            } else {
+                ensureCapacity(3);
+                bytes[length++] = (byte) (0xe0 | (c >> 12));
+                bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                bytes[length++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return writeByte('"');
+    }
+
+    private void writeAsciiChar(char c) {
+        switch (c) {
+            case '"':
+                writeAscii("\\\"");
+                break;
+            case '\\':
+                writeAscii("\\\\");
+                break;
+            case '\t':
+                writeAscii("\\t");
+                break;
+            case '\b':
+                writeAscii("\\b");
+                break;
+            case '\n':
+                writeAscii("\\n");
+                break;
+            case '\r':
+                writeAscii("\\r");
+                break;
+            case '\f':
+                writeAscii("\\f");
+                break;
+            default:
+                if (c < 0x20)
+                    writeUnicodeEscape(c);
+                else
+                    writeByte(c);
+        }
+    }
+
+    private void writeUnicodeEscape(char c) {
+        ensureCapacity(6);
+        bytes[length++] = '\\';
+        bytes[length++] = 'u';
+        writeHex(c, 4);
+    }
+
+    private void writeHex(long value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4)
+            bytes[length++] = HEX[(int) (value >>> shift) & 0xf];
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > bytes.length)
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+    }
+}
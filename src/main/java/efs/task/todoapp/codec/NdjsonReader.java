@@ -0,0 +1,151 @@
+package efs.task.todoapp.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Splits a stream of newline-delimited JSON into lines without decoding them. The stream is read in chunks into one
+ * buffer, which grows only up to the longest line allowed; longer lines are skipped, so memory use does not depend on
+ * the size of the stream.
+ */
+public final class NdjsonReader {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final InputStream input;
+    private final int maxLineLength;
+    private byte[] buffer = new byte[CHUNK_SIZE];
+    private int position;
+    private int end;
+    private int lineStart;
+    private int lineLength;
+    private boolean tooLong;
+    private boolean eof;
+
+    public NdjsonReader(InputStream input, int maxLineLength) {
+        this.input = input;
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Advances to the next non-blank line.
+     *
+     * @return <code>false</code> at the end of the stream
+     */
+    public boolean next() throws IOException {
+        while (advance()) {
+            if (tooLong || !isBlank())
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns buffer holding the current line at {@link #getLineStart()}, valid until the next call of
+     * {@link #next()}.
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public int getLineStart() {
+        return lineStart;
+    }
+
+    public int getLineLength() {
+        return lineLength;
+    }
+
+    /**
+     * Returns whether the current line has been longer than allowed and skipped; its content is not available then.
+     */
+    public boolean isTooLong() {
+        return tooLong;
+    }
+
+    private boolean advance() throws IOException {
+        tooLong = false;
+        int scanned = 0;
+        while (true) {
+            for (int i = position + scanned; i < end; i++) {
+                if (buffer[i] == '\n') {
+                    takeLine(i, i + 1);
+                    return true;
+                }
+            }
+            scanned = end - position;
+            if (scanned > maxLineLength) {
+                skipRestOfLine();
+                return true;
+            }
+            if (eof) {
+                if (scanned == 0)
+                    return false;
+                takeLine(end, end);
+                return true;
+            }
+            fill();
+        }
+    }
+
+    private void takeLine(int lineEnd, int next) {
+        lineStart = position;
+        lineLength = lineEnd - position;
+        if (lineLength > 0 && buffer[lineEnd - 1] == '\r')
+            lineLength--;
+        position = next;
+        if (lineLength > maxLineLength) {
+            tooLong = true;
+            lineLength = 0;
+        }
+    }
+
+    private void skipRestOfLine() throws IOException {
+        tooLong = true;
+        lineStart = 0;
+        lineLength = 0;
+        while (true) {
+            for (int i = position; i < end; i++) {
+                if (buffer[i] == '\n') {
+                    position = i + 1;
+                    return;
+                }
+            }
+            position = end;
+            if (eof)
+                return;
+            fill();
+        }
+    }
+
+    /**
+     * Reads the next chunk, first moving the unconsumed bytes to the start of the buffer or growing it when it is
+     * full.
+     */
+    private void fill() throws IOException {
+        if (end == buffer.length) {
+            if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, end - position);
+                end -= position;
+                position = 0;
+            } else {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length, Math.min(buffer.length * 2,
+                        maxLineLength + CHUNK_SIZE)));
+            }
+        }
+        int read = input.read(buffer, end, buffer.length - end);
+        if (read < 0)
+            eof = true;
+        else
+            end += read;
+    }
+
+    private boolean isBlank() {
+        for (int i = lineStart; i < lineStart + lineLength; i++) {
+            if (buffer[i] != ' ' && buffer[i] != '\t')
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,14 @@
+package efs.task.todoapp.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encoded response body, independent of the wire format it has been encoded in.
+ */
+public interface Payload {
+
+    int length();
+
+    void writeTo(OutputStream stream) throws IOException;
+}
@@ -0,0 +1,141 @@
+package efs.task.todoapp.codec;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.service.Exceptions.BadRequestException;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Encodings of task and user payloads a client may choose with <code>Content-Type</code> and <code>Accept</code>
+ * headers. JSON is the default, both formats encode the same entities.
+ */
+public enum WireFormat {
+
+    JSON("application/json") {
+        @Override
+        public TaskEntity readTask(byte[] body, int length) throws BadRequestException {
+            return JsonCodec.readTask(body, length);
+        }
+
+        @Override
+        public UserEntity readUser(byte[] body, int length) throws BadRequestException {
+            return JsonCodec.readUser(body, length);
+        }
+
+        @Override
+        public Payload writeId(UUID id) {
+            return JsonCodec.writeId(JsonOutput.forThread(), id);
+        }
+
+        @Override
+        public Payload writeTask(TaskEntity task) {
+            if (task.getEncoded() != null)
+                return JsonOutput.wrap(task.getEncoded());
+            return JsonCodec.writeTask(JsonOutput.forThread(), task);
+        }
+
+        @Override
+        public Payload writeTasks(List<TaskEntity> tasks) {
+            return JsonCodec.writeTasks(JsonOutput.forThread(), tasks);
+        }
+    },
+
+    CBOR("application/cbor") {
+        @Override
+        public TaskEntity readTask(byte[] body, int length) throws BadRequestException {
+            return CborCodec.readTask(body, length);
+        }
+
+        @Override
+        public UserEntity readUser(byte[] body, int length) throws BadRequestException {
+            return CborCodec.readUser(body, length);
+        }
+
+        @Override
+        public Payload writeId(UUID id) {
+            return CborCodec.writeId(CborOutput.forThread(), id);
+        }
+
+        @Override
+        public Payload writeTask(TaskEntity task) {
+            return CborCodec.writeTask(CborOutput.forThread(), task);
+        }
+
+        @Override
+        public Payload writeTasks(List<TaskEntity> tasks) {
+            return CborCodec.writeTasks(CborOutput.forThread(), tasks);
+        }
+    };
+
+    private final String contentType;
+
+    WireFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public abstract TaskEntity readTask(byte[] body, int length) throws BadRequestException;
+
+    public abstract UserEntity readUser(byte[] body, int length) throws BadRequestException;
+
+    public abstract Payload writeId(UUID id);
+
+    /**
+     * Writes task as returned to clients, JSON tasks which have been encoded when stored are used as they are.
+     */
+    public abstract Payload writeTask(TaskEntity task);
+
+    public abstract Payload writeTasks(List<TaskEntity> tasks);
+
+    /**
+     * Returns format of a request body, JSON unless the <code>Content-Type</code> header names CBOR.
+     */
+    public static WireFormat ofContentType(String contentType) {
+        return contentType != null && mediaType(contentType).equals(CBOR.contentType) ? CBOR : JSON;
+    }
+
+    /**
+     * Returns format of the response, CBOR only if the <code>Accept</code> header lists it before JSON and does not
+     * refuse it with <code>q=0</code>.
+     */
+    public static WireFormat ofAccept(String accept) {
+        if (accept == null)
+            return JSON;
+
+        for (String range : accept.split(",")) {
+            if (isRefused(range))
+                continue;
+            var mediaType = mediaType(range);
+            if (mediaType.equals(CBOR.contentType))
+                return CBOR;
+            if (mediaType.equals(JSON.contentType))
+                return JSON;
+        }
+        return JSON;
+    }
+
+    private static boolean isRefused(String range) {
+        for (String parameter : range.split(";")) {
+            var trimmed = parameter.trim();
+            if (trimmed.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(trimmed.substring(2)) <= 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String mediaType(String header) {
+        int parameters = header.indexOf(';');
+        return (parameters < 0 ? header : header.substring(0, parameters)).trim().toLowerCase(Locale.ROOT);
+    }
+}
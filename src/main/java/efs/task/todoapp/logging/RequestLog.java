@@ -0,0 +1,222 @@
+package efs.task.todoapp.logging;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous structured request log.
+ * <p>
+ * Request threads claim a slot of a bounded ring buffer with a single compare-and-set and copy the event fields into
+ * the preallocated slot, so logging a request allocates nothing and never does I/O. One background thread drains the
+ * buffer and writes every event as a JSON line. What happens when the buffer is full is decided by
+ * {@link OverflowPolicy}.
+ */
+public class RequestLog implements AutoCloseable {
+
+    public enum OverflowPolicy {
+        /** The event which does not fit is discarded and counted, the request thread never waits. */
+        DROP,
+        /** The request thread waits until the writer frees a slot, no event is lost. */
+        BLOCK
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(RequestLog.class.getName());
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final Event[] events;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final OverflowPolicy overflowPolicy;
+
+    private final Writer output;
+    private final StringBuilder line = new StringBuilder(256);
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile long head;
+
+    /**
+     * @param capacity number of events the buffer holds, rounded up to a power of two
+     * @param overflowPolicy behaviour when the buffer is full
+     * @param output destination of JSON lines, used by the writer thread only
+     */
+    public RequestLog(int capacity, OverflowPolicy overflowPolicy, Writer output) {
+        int size = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        this.events = new Event[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            events[i] = new Event();
+            sequences.set(i, i);
+        }
+        this.overflowPolicy = overflowPolicy;
+        this.output = output;
+
+        this.writer = new Thread(this::drainLoop, "request-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Enqueues request event.
+     *
+     * @param method HTTP method of the request
+     * @param route path of the context which handled the request
+     * @param status response status code
+     * @param user user who sent the request, <code>null</code> if unknown
+     * @param latencyNanos time spent handling the request
+     * @return <code>true</code> if the event has been enqueued, <code>false</code> if it has been dropped
+     */
+    public boolean log(String method, String route, int status, String user, long latencyNanos) {
+        long position;
+        while (true) {
+            position = tail.get();
+            long available = sequences.get((int) position & mask) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1))
+                    break;
+            } else if (available < 0) {
+                if (overflowPolicy == OverflowPolicy.DROP || !running) {
+                    dropped.incrementAndGet();
+                    return false;
+                }
+                Thread.onSpinWait();
+            }
+        }
+
+        Event event = events[(int) position & mask];
+        event.timestamp = System.currentTimeMillis();
+        event.method = method;
+        event.route = route;
+        event.status = status;
+        event.user = user;
+        event.latencyNanos = latencyNanos;
+        sequences.lazySet((int) position & mask, position + 1);
+        return true;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return number of events discarded because writing them to the output failed
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getPendingCount() {
+        return tail.get() - head;
+    }
+
+    /**
+     * Stops the writer thread after it has written all enqueued events.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            if (drain() == 0)
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+        drain();
+    }
+
+    /**
+     * Writes all published events. An event which cannot be written is discarded and counted, its slot is released
+     * anyway so that a broken output does not stall the request threads.
+     */
+    private int drain() {
+        int written = 0;
+        while (true) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1)
+                break;
+
+            try {
+                write(events[index]);
+                written++;
+            } catch (IOException e) {
+                failed.incrementAndGet();
+                LOGGER.log(Level.WARNING, "Writing request log failed", e);
+            }
+            events[index].clear();
+            sequences.lazySet(index, head + events.length);
+            head++;
+        }
+        if (written > 0) {
+            try {
+                output.flush();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Flushing request log failed", e);
+            }
+        }
+        return written;
+    }
+
+    private void write(Event event) throws IOException {
+        line.setLength(0);
+        line.append("{\"ts\":").append(event.timestamp)
+                .append(",\"method\":");
+        appendQuoted(event.method);
+        line.append(",\"route\":");
+        appendQuoted(event.route);
+        line.append(",\"status\":").append(event.status)
+                .append(",\"user\":");
+        if (event.user == null)
+            line.append("null");
+        else
+            appendQuoted(event.user);
+        line.append(",\"latencyMicros\":").append(TimeUnit.NANOSECONDS.toMicros(event.latencyNanos))
+                .append("}\n");
+        output.append(line);
+    }
+
+    private void appendQuoted(String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                line.append(String.format("\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private static final class Event {
+        long timestamp;
+        String method;
+        String route;
+        int status;
+        String user;
+        long latencyNanos;
+
+        void clear() {
+            method = null;
+            route = null;
+            user = null;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package efs.task.todoapp.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative values with log-linear buckets: every power of two is split into eight linear
+ * sub-buckets, so a recorded value is known with a relative error below 12.5% over the whole range of <code>long</code>.
+ * Recording a value costs one atomic increment and never allocates.
+ */
+public class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(64 << SUB_BUCKET_BITS);
+
+    public void record(long value) {
+        counts.incrementAndGet(indexOf(Math.max(0, value)));
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++)
+            count += counts.get(i);
+        return count;
+    }
+
+    /**
+     * Returns value below which specified fraction of recorded values lies.
+     *
+     * @param quantile fraction between 0 and 1, e.g. 0.99 for the 99th percentile
+     * @return upper bound of the bucket containing the quantile, <code>0</code> if nothing has been recorded
+     */
+    public long getValueAtQuantile(double quantile) {
+        long count = getCount();
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank)
+                return lowerBound(i + 1) - 1;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        int exponent = (index >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        long subBucket = index & (SUB_BUCKETS - 1);
+        return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+}
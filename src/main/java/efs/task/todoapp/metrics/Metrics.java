@@ -0,0 +1,35 @@
+package efs.task.todoapp.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registry of named gauges. Components register suppliers once, values are read only when metrics are requested, so
+ * registering a gauge adds no cost to the request path.
+ */
+public class Metrics {
+
+    private final Map<String, DoubleSupplier> gauges = new ConcurrentSkipListMap<>();
+
+    /**
+     * Registers gauge under specified name, replacing previous gauge with the same name.
+     *
+     * @param name name of the gauge, dot separated, e.g. <code>admission.limit</code>
+     * @param gauge supplier of the current value
+     */
+    public void register(String name, DoubleSupplier gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * Returns current values of all gauges ordered by name.
+     *
+     * @return map of gauge names and their values
+     */
+    public Map<String, Double> snapshot() {
+        Map<String, Double> values = new ConcurrentSkipListMap<>();
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getAsDouble()));
+        return values;
+    }
+}
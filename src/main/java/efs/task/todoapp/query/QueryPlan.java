@@ -0,0 +1,145 @@
+package efs.task.todoapp.query;
+
+import efs.task.todoapp.repository.OwnedTaskRepository;
+import efs.task.todoapp.repository.TaskEntity;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Way of answering a task list query, created by {@link QueryPlanner}. {@link #explain()} describes the plan in one
+ * ASCII line, e.g. <code>IndexScan(due, 2021-06-01..) filter description~"mleko"</code>.
+ */
+public abstract class QueryPlan {
+
+    private QueryPlan() {
+    }
+
+    public abstract List<TaskEntity> execute(OwnedTaskRepository repository);
+
+    public abstract String explain();
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+
+    static List<TaskEntity> filter(List<TaskEntity> tasks, TaskFilter residual) {
+        if (residual == null)
+            return tasks;
+        List<TaskEntity> matching = new ArrayList<>();
+        for (TaskEntity task : tasks) {
+            if (residual.test(task))
+                matching.add(task);
+        }
+        return matching;
+    }
+
+    static String explainFilter(TaskFilter residual) {
+        return residual == null ? "" : " filter " + residual;
+    }
+
+    /**
+     * Query which cannot match any task, answered without touching the repository.
+     */
+    static final class Empty extends QueryPlan {
+        private final String reason;
+
+        Empty(String reason) {
+            this.reason = reason;
+        }
+
+        @Override
+        public List<TaskEntity> execute(OwnedTaskRepository repository) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public String explain() {
+            return "Empty(" + reason + ")";
+        }
+    }
+
+    /**
+     * Walks all tasks of the owner, testing the residual filter on each.
+     */
+    static final class OwnerScan extends QueryPlan {
+        private final String owner;
+        private final TaskFilter residual;
+
+        OwnerScan(String owner, TaskFilter residual) {
+            this.owner = owner;
+            this.residual = residual;
+        }
+
+        @Override
+        public List<TaskEntity> execute(OwnedTaskRepository repository) {
+            return filter(repository.queryByOwner(owner), residual);
+        }
+
+        @Override
+        public String explain() {
+            return "OwnerScan" + explainFilter(residual);
+        }
+    }
+
+    /**
+     * Reads the range of the owner's due date index, testing the residual filter only on the tasks in the range.
+     */
+    static final class DueIndexScan extends QueryPlan {
+        private final String owner;
+        private final LocalDate from;
+        private final LocalDate to;
+        private final TaskFilter residual;
+
+        DueIndexScan(String owner, LocalDate from, LocalDate to, TaskFilter residual) {
+            this.owner = owner;
+            this.from = from;
+            this.to = to;
+            this.residual = residual;
+        }
+
+        @Override
+        public List<TaskEntity> execute(OwnedTaskRepository repository) {
+            return filter(repository.queryByOwnerAndDue(owner, from, to), residual);
+        }
+
+        @Override
+        public String explain() {
+            return "IndexScan(due, " + (from == null ? "" : from) + ".." + (to == null ? "" : to) + ")"
+                    + explainFilter(residual);
+        }
+    }
+
+    /**
+     * Runs the plans of the alternatives one after another, returning every task once, in order of first appearance.
+     */
+    static final class Union extends QueryPlan {
+        private final List<QueryPlan> plans;
+
+        Union(List<QueryPlan> plans) {
+            this.plans = List.copyOf(plans);
+        }
+
+        @Override
+        public List<TaskEntity> execute(OwnedTaskRepository repository) {
+            Map<UUID, TaskEntity> tasks = new LinkedHashMap<>();
+            for (QueryPlan plan : plans) {
+                for (TaskEntity task : plan.execute(repository))
+                    tasks.putIfAbsent(task.getId(), task);
+            }
+            return new ArrayList<>(tasks.values());
+        }
+
+        @Override
+        public String explain() {
+            return plans.stream().map(QueryPlan::explain).collect(Collectors.joining(", ", "Union(", ")"));
+        }
+    }
+}
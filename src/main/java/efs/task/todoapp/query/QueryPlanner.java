@@ -0,0 +1,70 @@
+package efs.task.todoapp.query;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles filters of one owner's task list into plans. A conjunction restricting the due date, or requiring one, is
+ * answered from the owner's due date index with the remaining conditions tested on the tasks in the range; other
+ * conjunctions scan all tasks of the owner. Alternatives are answered by a union of index scans when every one of
+ * them can use the index, otherwise by a single scan. Conditions on another owner make the plan empty, as users
+ * only ever see their own tasks.
+ */
+public final class QueryPlanner {
+
+    private QueryPlanner() {
+    }
+
+    public static QueryPlan plan(TaskFilter filter, String owner) {
+        if (!(filter instanceof TaskFilter.Or))
+            return planConjunction(conjuncts(filter), owner);
+
+        List<QueryPlan> alternatives = new ArrayList<>();
+        for (TaskFilter operand : ((TaskFilter.Or) filter).operands) {
+            var plan = planConjunction(conjuncts(operand), owner);
+            if (plan instanceof QueryPlan.OwnerScan)
+                return new QueryPlan.OwnerScan(owner, filter);
+            if (!(plan instanceof QueryPlan.Empty))
+                alternatives.add(plan);
+        }
+        if (alternatives.isEmpty())
+            return new QueryPlan.Empty("no alternative can match");
+        return alternatives.size() == 1 ? alternatives.get(0) : new QueryPlan.Union(alternatives);
+    }
+
+    private static QueryPlan planConjunction(List<TaskFilter> conjuncts, String owner) {
+        LocalDate from = null;
+        LocalDate to = null;
+        boolean indexed = false;
+        List<TaskFilter> residual = new ArrayList<>();
+
+        for (TaskFilter conjunct : conjuncts) {
+            if (conjunct instanceof TaskFilter.Owner) {
+                if (!((TaskFilter.Owner) conjunct).owner.equals(owner))
+                    return new QueryPlan.Empty("tasks of another owner");
+            } else if (conjunct instanceof TaskFilter.DueRange) {
+                var range = (TaskFilter.DueRange) conjunct;
+                if (range.from != null && (from == null || range.from.isAfter(from)))
+                    from = range.from;
+                if (range.to != null && (to == null || range.to.isBefore(to)))
+                    to = range.to;
+                indexed = true;
+            } else if (conjunct instanceof TaskFilter.HasDue && ((TaskFilter.HasDue) conjunct).hasDue) {
+                indexed = true;
+            } else {
+                residual.add(conjunct);
+            }
+        }
+
+        if (from != null && to != null && from.isAfter(to))
+            return new QueryPlan.Empty("empty due range");
+        var remaining = residual.isEmpty() ? null : TaskFilter.and(residual);
+        return indexed ? new QueryPlan.DueIndexScan(owner, from, to, remaining)
+                : new QueryPlan.OwnerScan(owner, remaining);
+    }
+
+    private static List<TaskFilter> conjuncts(TaskFilter filter) {
+        return filter instanceof TaskFilter.And ? ((TaskFilter.And) filter).operands : List.of(filter);
+    }
+}
@@ -0,0 +1,244 @@
+package efs.task.todoapp.query;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.service.Exceptions.BadRequestException;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Condition on tasks of a list query. Filters are built by the factory methods or parsed from the expression language
+ * described in {@link #parse(String)}, and {@link QueryPlanner} turns them into plans using the repository indexes.
+ * {@link #toString()} returns the filter in the expression language.
+ */
+public abstract class TaskFilter {
+
+    private TaskFilter() {
+    }
+
+    public abstract boolean test(TaskEntity task);
+
+    public static TaskFilter owner(String owner) {
+        return new Owner(owner);
+    }
+
+    /**
+     * Matches tasks due between the dates, both inclusive, <code>null</code> meaning no bound.
+     */
+    public static TaskFilter dueBetween(LocalDate from, LocalDate to) {
+        return new DueRange(from, to);
+    }
+
+    /**
+     * Matches tasks whose description contains the text, ignoring case.
+     */
+    public static TaskFilter descriptionContains(String text) {
+        return new DescriptionContains(text);
+    }
+
+    public static TaskFilter hasDue(boolean hasDue) {
+        return new HasDue(hasDue);
+    }
+
+    /**
+     * Combines the filters with AND, operands which are conjunctions themselves are flattened.
+     */
+    public static TaskFilter and(List<TaskFilter> operands) {
+        List<TaskFilter> flat = new ArrayList<>(operands.size());
+        for (TaskFilter operand : operands) {
+            if (operand instanceof And)
+                flat.addAll(((And) operand).operands);
+            else
+                flat.add(operand);
+        }
+        return flat.size() == 1 ? flat.get(0) : new And(flat);
+    }
+
+    /**
+     * Combines the filters with OR, operands which are alternatives themselves are flattened.
+     */
+    public static TaskFilter or(List<TaskFilter> operands) {
+        List<TaskFilter> flat = new ArrayList<>(operands.size());
+        for (TaskFilter operand : operands) {
+            if (operand instanceof Or)
+                flat.addAll(((Or) operand).operands);
+            else
+                flat.add(operand);
+        }
+        return flat.size() == 1 ? flat.get(0) : new Or(flat);
+    }
+
+    /**
+     * Parses filter expression. Conditions are <code>owner=NAME</code>, <code>due</code> compared to an ISO date
+     * with <code>=</code>, <code>&lt;</code>, <code>&lt;=</code>, <code>&gt;</code> or <code>&gt;=</code>,
+     * <code>description~TEXT</code> and <code>hasDue</code>, optionally <code>hasDue=false</code>. Conditions are
+     * combined with <code>and</code>, binding stronger, and <code>or</code>, and grouped with parentheses. Values
+     * containing spaces or parentheses are written in double quotes with <code>\"</code>, <code>\\</code> and
+     * <code>\\uXXXX</code> escapes, e.g. <code>due&gt;=2021-06-01 and (description~"kup mleko" or owner=ala)</code>.
+     *
+     * @throws BadRequestException if the expression is not valid
+     */
+    public static TaskFilter parse(String expression) throws BadRequestException {
+        return new TaskFilterParser(expression).parse();
+    }
+
+    static LocalDate dueDate(TaskEntity task) {
+        if (task.getDue() == null)
+            return null;
+        try {
+            return LocalDate.from(DateTimeFormatter.ISO_DATE.parse(task.getDue()));
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    static String quote(String value) {
+        var quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+                quoted.append('\\').append(c);
+            else if (c < 0x20 || c > 0x7e)
+                quoted.append(String.format("\\u%04x", (int) c));
+            else
+                quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+
+    static final class Owner extends TaskFilter {
+        final String owner;
+
+        private Owner(String owner) {
+            this.owner = Objects.requireNonNull(owner);
+        }
+
+        @Override
+        public boolean test(TaskEntity task) {
+            return owner.equals(task.getOwner());
+        }
+
+        @Override
+        public String toString() {
+            return "owner=" + quote(owner);
+        }
+    }
+
+    static final class DueRange extends TaskFilter {
+        final LocalDate from;
+        final LocalDate to;
+
+        private DueRange(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean test(TaskEntity task) {
+            var due = dueDate(task);
+            return due != null && (from == null || !due.isBefore(from)) && (to == null || !due.isAfter(to));
+        }
+
+        @Override
+        public String toString() {
+            if (from != null && from.equals(to))
+                return "due=" + from;
+            List<String> bounds = new ArrayList<>(2);
+            if (from != null)
+                bounds.add("due>=" + from);
+            if (to != null)
+                bounds.add("due<=" + to);
+            return bounds.isEmpty() ? "hasDue" : String.join(" and ", bounds);
+        }
+    }
+
+    static final class DescriptionContains extends TaskFilter {
+        final String text;
+        private final String lowerCase;
+
+        private DescriptionContains(String text) {
+            this.text = text;
+            this.lowerCase = text.toLowerCase(Locale.ROOT);
+        }
+
+        @Override
+        public boolean test(TaskEntity task) {
+            return task.getDescription() != null && task.getDescription().toLowerCase(Locale.ROOT).contains(lowerCase);
+        }
+
+        @Override
+        public String toString() {
+            return "description~" + quote(text);
+        }
+    }
+
+    static final class HasDue extends TaskFilter {
+        final boolean hasDue;
+
+        private HasDue(boolean hasDue) {
+            this.hasDue = hasDue;
+        }
+
+        @Override
+        public boolean test(TaskEntity task) {
+            return (dueDate(task) != null) == hasDue;
+        }
+
+        @Override
+        public String toString() {
+            return hasDue ? "hasDue" : "hasDue=false";
+        }
+    }
+
+    static final class And extends TaskFilter {
+        final List<TaskFilter> operands;
+
+        private And(List<TaskFilter> operands) {
+            this.operands = List.copyOf(operands);
+        }
+
+        @Override
+        public boolean test(TaskEntity task) {
+            for (TaskFilter operand : operands) {
+                if (!operand.test(task))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return operands.stream()
+                    .map(operand -> operand instanceof Or ? "(" + operand + ")" : operand.toString())
+                    .collect(Collectors.joining(" and "));
+        }
+    }
+
+    static final class Or extends TaskFilter {
+        final List<TaskFilter> operands;
+
+        private Or(List<TaskFilter> operands) {
+            this.operands = List.copyOf(operands);
+        }
+
+        @Override
+        public boolean test(TaskEntity task) {
+            for (TaskFilter operand : operands) {
+                if (operand.test(task))
+                    return true;
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return operands.stream().map(TaskFilter::toString).collect(Collectors.joining(" or "));
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package efs.task.todoapp.query;
+
+import efs.task.todoapp.service.Exceptions.BadRequestException;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive descent parser of the filter expressions, see {@link TaskFilter#parse(String)}.
+ */
+final class TaskFilterParser {
+
+    static final int MAX_LENGTH = 1024;
+    static final int MAX_DEPTH = 16;
+
+    private final String expression;
+    private int position;
+    private int depth;
+
+    TaskFilterParser(String expression) {
+        this.expression = expression;
+    }
+
+    TaskFilter parse() throws BadRequestException {
+        if (expression.length() > MAX_LENGTH)
+            throw new BadRequestException("Filter is longer than " + MAX_LENGTH + " characters");
+        var filter = parseOr();
+        skipSpaces();
+        if (position < expression.length())
+            throw error("Unexpected input");
+        return filter;
+    }
+
+    private TaskFilter parseOr() throws BadRequestException {
+        List<TaskFilter> operands = new ArrayList<>();
+        operands.add(parseAnd());
+        while (consumeKeyword("or"))
+            operands.add(parseAnd());
+        return TaskFilter.or(operands);
+    }
+
+    private TaskFilter parseAnd() throws BadRequestException {
+        List<TaskFilter> operands = new ArrayList<>();
+        operands.add(parseOperand());
+        while (consumeKeyword("and"))
+            operands.add(parseOperand());
+        return TaskFilter.and(operands);
+    }
+
+    private TaskFilter parseOperand() throws BadRequestException {
+        skipSpaces();
+        if (consume('(')) {
+            if (++depth > MAX_DEPTH)
+                throw error("Filter is nested too deeply");
+            var filter = parseOr();
+            skipSpaces();
+            if (!consume(')'))
+                throw error("Expected )");
+            depth--;
+            return filter;
+        }
+
+        var field = readWord();
+        skipSpaces();
+        switch (field) {
+            case "owner":
+                expect('=');
+                return TaskFilter.owner(readValue());
+            case "description":
+                expect('~');
+                return TaskFilter.descriptionContains(readValue());
+            case "hasDue":
+                if (!consume('='))
+                    return TaskFilter.hasDue(true);
+                var value = readValue();
+                if (!value.equals("true") && !value.equals("false"))
+                    throw error("Expected true or false");
+                return TaskFilter.hasDue(Boolean.parseBoolean(value));
+            case "due":
+                return parseDue();
+            default:
+                throw error("Unknown field \"" + field + "\"");
+        }
+    }
+
+    private TaskFilter parseDue() throws BadRequestException {
+        String operator;
+        if (consume('<'))
+            operator = consume('=') ? "<=" : "<";
+        else if (consume('>'))
+            operator = consume('=') ? ">=" : ">";
+        else if (consume('='))
+            operator = "=";
+        else
+            throw error("Expected comparison");
+
+        try {
+            var date = LocalDate.parse(readValue());
+            switch (operator) {
+                case "<":
+                    return TaskFilter.dueBetween(null, date.minusDays(1));
+                case "<=":
+                    return TaskFilter.dueBetween(null, date);
+                case ">":
+                    return TaskFilter.dueBetween(date.plusDays(1), null);
+                case ">=":
+                    return TaskFilter.dueBetween(date, null);
+                default:
+                    return TaskFilter.dueBetween(date, date);
+            }
+        } catch (DateTimeException e) {
+            // also the day before or after a date at the end of the supported range
+            throw error("Invalid date");
+        }
+    }
+
+    private String readValue() throws BadRequestException {
+        skipSpaces();
+        if (!consume('"'))
+            return readWord();
+
+        var value = new StringBuilder();
+        while (position < expression.length()) {
+            char c = expression.charAt(position++);
+            if (c == '"')
+                return value.toString();
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (position >= expression.length())
+                break;
+            char escaped = expression.charAt(position++);
+            if (escaped == 'u') {
+                if (position + 4 > expression.length())
+                    throw error("Invalid escape");
+                try {
+                    value.append((char) Integer.parseInt(expression.substring(position, position + 4), 16));
+                } catch (NumberFormatException e) {
+                    throw error("Invalid escape");
+                }
+                position += 4;
+            } else if (escaped == '"' || escaped == '\\') {
+                value.append(escaped);
+            } else {
+                throw error("Invalid escape");
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private String readWord() throws BadRequestException {
+        skipSpaces();
+        int start = position;
+        while (position < expression.length() && isWordCharacter(expression.charAt(position)))
+            position++;
+        if (start == position)
+            throw error("Expected a word");
+        return expression.substring(start, position);
+    }
+
+    private boolean consumeKeyword(String keyword) {
+        skipSpaces();
+        int end = position + keyword.length();
+        if (end <= expression.length() && expression.regionMatches(true, position, keyword, 0, keyword.length())
+                && (end == expression.length() || !isWordCharacter(expression.charAt(end)))) {
+            position = end;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) throws BadRequestException {
+        skipSpaces();
+        if (!consume(c))
+            throw error("Expected " + c);
+    }
+
+    private boolean consume(char c) {
+        if (position < expression.length() && expression.charAt(position) == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipSpaces() {
+        while (position < expression.length() && Character.isWhitespace(expression.charAt(position)))
+            position++;
+    }
+
+    private BadRequestException error(String message) {
+        return new BadRequestException(message + " at position " + position + " of the filter");
+    }
+
+    private static boolean isWordCharacter(char c) {
+        return c > ' ' && c != '(' && c != ')' && c != '"' && c != '=' && c != '<' && c != '>' && c != '~';
+    }
+}
@@ -0,0 +1,18 @@
+package efs.task.todoapp.reminder;
+
+import efs.task.todoapp.repository.TaskEntity;
+
+import java.util.logging.Logger;
+
+/**
+ * Writes every reminder to the application log.
+ */
+public class LoggingReminderSink implements ReminderSink {
+
+    private static final Logger LOGGER = Logger.getLogger(LoggingReminderSink.class.getName());
+
+    @Override
+    public void remind(TaskEntity task) {
+        LOGGER.info("Task " + task.getId() + " of user \"" + task.getOwner() + "\" is due " + task.getDue());
+    }
+}
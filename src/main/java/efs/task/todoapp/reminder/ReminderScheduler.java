@@ -0,0 +1,220 @@
+package efs.task.todoapp.reminder;
+
+import efs.task.todoapp.metrics.Metrics;
+import efs.task.todoapp.repository.MutationListener;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.UserEntity;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends a reminder to the sinks when a task becomes due, at the start of its due date. Dates without an offset are
+ * taken in the zone given to the constructor. The scheduler listens to the task repository, so saving, updating,
+ * moving and deleting a task reschedule or cancel its reminder; tasks whose due time has already passed are not
+ * scheduled.
+ * <p>
+ * Due times are kept on a {@link TimingWheel} with ticks of the given length. Its thread sleeps until the next
+ * occupied slot of the wheel and is woken up only when an earlier reminder is scheduled, so an idle scheduler does
+ * not use the CPU regardless of the number of scheduled tasks.
+ */
+public class ReminderScheduler implements MutationListener, AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(ReminderScheduler.class.getName());
+
+    private final ZoneId zone;
+    private final long tickMillis;
+    private final List<ReminderSink> sinks = new CopyOnWriteArrayList<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition wakeUp = lock.newCondition();
+    private final TimingWheel<TaskEntity> wheel;
+    private final Map<UUID, TimingWheel.Timer<TaskEntity>> timers = new HashMap<>();
+    private long wakeUpTick = Long.MAX_VALUE;
+    private boolean closed;
+
+    private final Thread thread;
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public ReminderScheduler(ZoneId zone, long tickMillis) {
+        this.zone = zone;
+        this.tickMillis = tickMillis;
+        this.wheel = new TimingWheel<>(currentTick());
+        this.thread = new Thread(this::run, "reminders");
+        this.thread.setDaemon(true);
+    }
+
+    public void addSink(ReminderSink sink) {
+        sinks.add(sink);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public void registerMetrics(Metrics metrics) {
+        metrics.register("reminders.scheduled", this::getScheduledCount);
+        metrics.register("reminders.fired", fired::sum);
+        metrics.register("reminders.sinkFailures", failed::sum);
+    }
+
+    public int getScheduledCount() {
+        lock.lock();
+        try {
+            return wheel.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getFiredCount() {
+        return fired.sum();
+    }
+
+    @Override
+    public void userSaved(UserEntity user) {
+    }
+
+    @Override
+    public void userDeleted(UserEntity user) {
+    }
+
+    @Override
+    public void taskSaved(TaskEntity task) {
+        schedule(task, dueMillis(task.getDue()));
+    }
+
+    @Override
+    public void taskDeleted(TaskEntity task) {
+        schedule(task, -1);
+    }
+
+    /**
+     * Replaces the reminder of the task with one due at the given time, or just cancels it if the time is not in
+     * the future.
+     */
+    void schedule(TaskEntity task, long dueMillis) {
+        long deadline = dueMillis > System.currentTimeMillis() ? (dueMillis + tickMillis - 1) / tickMillis : -1;
+        lock.lock();
+        try {
+            var previous = timers.remove(task.getId());
+            if (previous != null)
+                wheel.cancel(previous);
+            if (deadline < 0 || closed)
+                return;
+
+            timers.put(task.getId(), wheel.schedule(deadline, task));
+            if (deadline < wakeUpTick)
+                wakeUp.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the start of the due date in epoch milliseconds, or -1 if the task has no valid due date.
+     */
+    long dueMillis(String due) {
+        if (due == null)
+            return -1;
+        try {
+            var parsed = DateTimeFormatter.ISO_DATE.parse(due);
+            var dueZone = parsed.isSupported(ChronoField.OFFSET_SECONDS) ? ZoneOffset.from(parsed) : zone;
+            return LocalDate.from(parsed).atStartOfDay(dueZone).toInstant().toEpochMilli();
+        } catch (DateTimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Stops the scheduler and waits for its thread to finish. If the caller is interrupted while waiting, the thread is
+     * left to finish on its own and the interrupt status is restored.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            wakeUp.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (thread.isAlive())
+                thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<TaskEntity> due = new ArrayList<>();
+        try {
+            while (true) {
+                lock.lock();
+                try {
+                    while (!closed && due.isEmpty()) {
+                        wheel.advance(currentTick(), task -> {
+                            timers.remove(task.getId());
+                            due.add(task);
+                        });
+                        if (!due.isEmpty())
+                            break;
+
+                        wakeUpTick = wheel.nextTick();
+                        if (wakeUpTick == Long.MAX_VALUE) {
+                            wakeUp.await();
+                        } else {
+                            long delay = wakeUpTick * tickMillis - System.currentTimeMillis();
+                            wakeUp.await(Math.max(1, delay), TimeUnit.MILLISECONDS);
+                        }
+                        wakeUpTick = Long.MAX_VALUE;
+                    }
+                    if (closed)
+                        return;
+                } finally {
+                    lock.unlock();
+                }
+
+                for (TaskEntity task : due)
+                    deliver(task);
+                fired.add(due.size());
+                due.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliver(TaskEntity task) {
+        for (ReminderSink sink : sinks) {
+            try {
+                sink.remind(task);
+            } catch (RuntimeException e) {
+                failed.increment();
+                LOGGER.log(Level.WARNING, "Reminder sink failed", e);
+            }
+        }
+    }
+
+    private long currentTick() {
+        return System.currentTimeMillis() / tickMillis;
+    }
+}
@@ -0,0 +1,12 @@
+package efs.task.todoapp.reminder;
+
+import efs.task.todoapp.repository.TaskEntity;
+
+/**
+ * Receives tasks whose due time has come. Sinks are called one after another by the thread of the scheduler, so they
+ * should hand slow work off rather than block it.
+ */
+public interface ReminderSink {
+
+    void remind(TaskEntity task);
+}
@@ -0,0 +1,185 @@
+package efs.task.todoapp.reminder;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel of 64-slot levels, level <code>n</code> holding timers which differ from the current tick
+ * first at the <code>n</code>-th group of six bits. Scheduling and cancelling a timer take constant time. When the
+ * wheel reaches the start of an occupied slot of a higher level, its timers are moved to lower levels, every timer
+ * is moved at most once per level.
+ * <p>
+ * Every level keeps a bitmap of its occupied slots, so {@link #advance} jumps straight to the next occupied slot
+ * instead of visiting every tick, and {@link #nextTick} tells how long the caller may sleep. The wheel is not
+ * thread-safe.
+ *
+ * @param <T> type of the values carried by the timers
+ */
+public final class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = (Long.SIZE + BITS - 1) / BITS;
+
+    private final Timer<T>[][] slots;
+    private final long[] occupied = new long[LEVELS];
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long currentTick) {
+        this.slots = (Timer<T>[][]) new Timer<?>[LEVELS][SLOTS];
+        this.currentTick = currentTick;
+    }
+
+    /**
+     * Schedules the value to expire at the given tick. A tick which is not after the current one expires on the next
+     * {@link #advance}.
+     *
+     * @return handle of the timer, for cancelling it
+     */
+    public Timer<T> schedule(long deadline, T value) {
+        var timer = new Timer<>(deadline, value);
+        add(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * @return <code>true</code> if the timer has been cancelled, <code>false</code> if it has already expired or been
+     * cancelled
+     */
+    public boolean cancel(Timer<T> timer) {
+        if (timer.level < 0)
+            return false;
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns the first tick after the current one at which {@link #advance} has some work to do, which is either the
+     * deadline of a timer or the start of a slot whose timers have to be moved to a lower level.
+     *
+     * @return the tick, {@link Long#MAX_VALUE} if the wheel is empty
+     */
+    public long nextTick() {
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = level * BITS;
+            int position = (int) (currentTick >>> shift) & MASK;
+            long later = position == MASK ? 0 : occupied[level] & (-1L << (position + 1));
+            if (later != 0) {
+                int rotationShift = shift + BITS;
+                long rotation = rotationShift >= Long.SIZE ? 0 : (currentTick >>> rotationShift) << rotationShift;
+                return rotation | ((long) Long.numberOfTrailingZeros(later) << shift);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Moves the wheel to the given tick, passing values of all timers with deadlines up to that tick to the consumer
+     * in the order of their deadlines.
+     */
+    public void advance(long tick, Consumer<? super T> expired) {
+        for (long next = nextTick(); next <= tick; next = nextTick()) {
+            currentTick = next;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                int slot = (int) (currentTick >>> (level * BITS)) & MASK;
+                for (Timer<T> timer = detach(level, slot); timer != null; ) {
+                    var following = timer.next;
+                    if (timer.deadline <= currentTick) {
+                        expire(timer, expired);
+                    } else {
+                        add(timer);
+                    }
+                    timer = following;
+                }
+            }
+            for (Timer<T> timer = detach(0, (int) currentTick & MASK); timer != null; ) {
+                var following = timer.next;
+                expire(timer, expired);
+                timer = following;
+            }
+        }
+        currentTick = Math.max(currentTick, tick);
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void add(Timer<T> timer) {
+        long tick = Math.max(timer.deadline, currentTick + 1);
+        int level = (Long.SIZE - 1 - Long.numberOfLeadingZeros(tick ^ currentTick)) / BITS;
+        int slot = (int) (tick >>> (level * BITS)) & MASK;
+
+        var head = slots[level][slot];
+        timer.previous = null;
+        timer.next = head;
+        if (head != null)
+            head.previous = timer;
+        slots[level][slot] = timer;
+        occupied[level] |= 1L << slot;
+        timer.level = level;
+        timer.slot = slot;
+    }
+
+    private void unlink(Timer<T> timer) {
+        if (timer.previous != null) {
+            timer.previous.next = timer.next;
+        } else {
+            slots[timer.level][timer.slot] = timer.next;
+            if (timer.next == null)
+                occupied[timer.level] &= ~(1L << timer.slot);
+        }
+        if (timer.next != null)
+            timer.next.previous = timer.previous;
+        timer.previous = null;
+        timer.next = null;
+        timer.level = -1;
+    }
+
+    private Timer<T> detach(int level, int slot) {
+        if ((occupied[level] & (1L << slot)) == 0)
+            return null;
+        var head = slots[level][slot];
+        slots[level][slot] = null;
+        occupied[level] &= ~(1L << slot);
+        return head;
+    }
+
+    private void expire(Timer<T> timer, Consumer<? super T> expired) {
+        timer.previous = null;
+        timer.next = null;
+        timer.level = -1;
+        size--;
+        expired.accept(timer.value);
+    }
+
+    public static final class Timer<T> {
+        private final long deadline;
+        private final T value;
+        private Timer<T> previous;
+        private Timer<T> next;
+        private int level = -1;
+        private int slot;
+
+        private Timer(long deadline, T value) {
+            this.deadline = deadline;
+            this.value = value;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        public T getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package efs.task.todoapp.replication;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.UserEntity;
+
+/**
+ * Entry of the replication log: the state of one user or task after a change. Applying entries of one key in log
+ * order reproduces the state of the leader, applying an entry again does no harm.
+ */
+final class Mutation {
+
+    static final byte USER_SAVED = 1;
+    static final byte USER_DELETED = 2;
+    static final byte TASK_SAVED = 3;
+    static final byte TASK_DELETED = 4;
+
+    private final long offset;
+    private final byte type;
+    private final UserEntity user;
+    private final TaskEntity task;
+
+    private Mutation(long offset, byte type, UserEntity user, TaskEntity task) {
+        this.offset = offset;
+        this.type = type;
+        this.user = user;
+        this.task = task;
+    }
+
+    static Mutation ofUser(long offset, byte type, UserEntity user) {
+        return new Mutation(offset, type, user, null);
+    }
+
+    static Mutation ofTask(long offset, byte type, TaskEntity task) {
+        return new Mutation(offset, type, null, task);
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    byte getType() {
+        return type;
+    }
+
+    UserEntity getUser() {
+        return user;
+    }
+
+    TaskEntity getTask() {
+        return task;
+    }
+}
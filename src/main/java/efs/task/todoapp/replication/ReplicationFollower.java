@@ -0,0 +1,156 @@
+package efs.task.todoapp.replication;
+
+import efs.task.todoapp.service.ToDoService;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Follower side of the replication. A background thread keeps a connection to the leader, applies the received
+ * entries to the local service in log order and reconnects from the last applied offset when the connection breaks.
+ * <p>
+ * The follower is fresh when it has received a heartbeat proving it had everything the leader had at most
+ * <code>maxStalenessMillis</code> ago; reads must not be served otherwise.
+ */
+public class ReplicationFollower implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(ReplicationFollower.class.getName());
+    private static final int CONNECT_TIMEOUT_MILLIS = 1_000;
+    private static final long RECONNECT_DELAY_MILLIS = 200;
+
+    private final String leaderHost;
+    private final int leaderPort;
+    private final ToDoService service;
+    private final long maxStalenessNanos;
+
+    private volatile long appliedOffset = -1;
+    private volatile long caughtUpAtNanos;
+    private volatile boolean caughtUp;
+    private volatile boolean closed;
+    private volatile Socket socket;
+    private Thread thread;
+
+    public ReplicationFollower(String leaderHost, int leaderPort, ToDoService service, long maxStalenessMillis) {
+        this.leaderHost = leaderHost;
+        this.leaderPort = leaderPort;
+        this.service = service;
+        this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(maxStalenessMillis);
+    }
+
+    public void start() {
+        thread = new Thread(this::run, "replication-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean isFresh() {
+        return caughtUp && System.nanoTime() - caughtUpAtNanos <= maxStalenessNanos;
+    }
+
+    public long getAppliedOffset() {
+        return appliedOffset;
+    }
+
+    /**
+     * Returns time since the follower has last been known to have everything the leader had, -1 if it has never been.
+     */
+    public long getStalenessMillis() {
+        return caughtUp ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - caughtUpAtNanos) : -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        var current = socket;
+        if (current != null)
+            current.close();
+        if (thread != null)
+            thread.interrupt();
+    }
+
+    private void run() {
+        while (!closed) {
+            try (var connection = new Socket()) {
+                socket = connection;
+                connection.connect(new InetSocketAddress(leaderHost, leaderPort), CONNECT_TIMEOUT_MILLIS);
+                connection.setTcpNoDelay(true);
+                replicate(connection);
+            } catch (IOException e) {
+                if (!closed)
+                    LOGGER.log(Level.FINE, "Replication from " + leaderHost + ":" + leaderPort + " interrupted", e);
+            }
+
+            try {
+                Thread.sleep(RECONNECT_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void replicate(Socket connection) throws IOException {
+        var out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+        out.writeInt(ReplicationProtocol.MAGIC);
+        out.writeLong(appliedOffset);
+        out.flush();
+
+        var in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+        long snapshotOffset = -1;
+        while (!closed) {
+            byte frame = in.readByte();
+            switch (frame) {
+                case ReplicationProtocol.SNAPSHOT:
+                    caughtUp = false;
+                    appliedOffset = -1;
+                    snapshotOffset = in.readLong();
+                    service.clearReplica();
+                    break;
+                case ReplicationProtocol.SNAPSHOT_END:
+                    appliedOffset = snapshotOffset;
+                    LOGGER.info("Snapshot at offset " + snapshotOffset + " loaded");
+                    break;
+                case ReplicationProtocol.MUTATION:
+                    var mutation = ReplicationProtocol.readMutation(in);
+                    apply(mutation);
+                    if (mutation.getOffset() > 0)
+                        appliedOffset = mutation.getOffset();
+                    break;
+                case ReplicationProtocol.HEARTBEAT:
+                    if (in.readLong() == appliedOffset) {
+                        caughtUpAtNanos = System.nanoTime();
+                        caughtUp = true;
+                    }
+                    break;
+                default:
+                    throw new IOException("Unknown frame " + frame);
+            }
+        }
+    }
+
+    private void apply(Mutation mutation) {
+        switch (mutation.getType()) {
+            case Mutation.USER_SAVED:
+                service.applyReplicatedUser(mutation.getUser());
+                break;
+            case Mutation.USER_DELETED:
+                service.applyReplicatedUserDeletion(mutation.getUser().getUsername());
+                break;
+            case Mutation.TASK_SAVED:
+                service.applyReplicatedTask(mutation.getTask());
+                break;
+            case Mutation.TASK_DELETED:
+                service.applyReplicatedTaskDeletion(mutation.getTask().getId(), mutation.getTask().getOwner());
+                break;
+            default:
+                throw new IllegalStateException("Unknown mutation " + mutation.getType());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package efs.task.todoapp.replication;
+
+import efs.task.todoapp.repository.MutationListener;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.UserEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ordered log of the leader's repository changes. Every change gets the next offset, starting with 1. Only the latest
+ * <code>capacity</code> entries are retained; a follower which is further behind has to start over from a snapshot.
+ */
+public class ReplicationLog implements MutationListener {
+
+    private final Mutation[] entries;
+    private long lastOffset;
+
+    public ReplicationLog(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be positive");
+        this.entries = new Mutation[capacity];
+    }
+
+    @Override
+    public void userSaved(UserEntity user) {
+        append(Mutation.USER_SAVED, user, null);
+    }
+
+    @Override
+    public void userDeleted(UserEntity user) {
+        append(Mutation.USER_DELETED, user, null);
+    }
+
+    @Override
+    public void taskSaved(TaskEntity task) {
+        append(Mutation.TASK_SAVED, null, task);
+    }
+
+    @Override
+    public void taskDeleted(TaskEntity task) {
+        append(Mutation.TASK_DELETED, null, task);
+    }
+
+    public synchronized long getLastOffset() {
+        return lastOffset;
+    }
+
+    /**
+     * Returns entries following the offset, at most <code>max</code> of them.
+     *
+     * @param offset offset of the last entry the reader has, negative if it has none
+     * @param max maximal number of returned entries
+     * @return entries in log order, empty if there is none yet, <code>null</code> if some of them are not retained
+     * anymore
+     */
+    synchronized List<Mutation> readAfter(long offset, int max) {
+        if (offset < 0 || offset < lastOffset - entries.length || offset > lastOffset)
+            return null;
+
+        int count = (int) Math.min(max, lastOffset - offset);
+        List<Mutation> result = new ArrayList<>(count);
+        for (long next = offset + 1; next <= offset + count; next++)
+            result.add(entries[(int) (next % entries.length)]);
+        return result;
+    }
+
+    /**
+     * Waits at most <code>timeoutMillis</code> for an entry following the offset.
+     */
+    synchronized void awaitAfter(long offset, long timeoutMillis) throws InterruptedException {
+        if (lastOffset <= offset)
+            wait(timeoutMillis);
+    }
+
+    private synchronized void append(byte type, UserEntity user, TaskEntity task) {
+        long offset = ++lastOffset;
+        entries[(int) (offset % entries.length)] = user != null
+                ? Mutation.ofUser(offset, type, user)
+                : Mutation.ofTask(offset, type, task);
+        notifyAll();
+    }
+}
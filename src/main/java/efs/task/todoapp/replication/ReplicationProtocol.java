@@ -0,0 +1,123 @@
+package efs.task.todoapp.replication;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.UserEntity;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Binary protocol between the leader and a follower. The follower opens the connection and sends {@link #MAGIC} and
+ * the offset of the last entry it has applied, then the leader sends frames:
+ * <ul>
+ *     <li><code>S offset</code> - snapshot taken at the offset follows, the follower drops its state,</li>
+ *     <li><code>M offset type data</code> - log entry; entries of a snapshot have offset 0,</li>
+ *     <li><code>E</code> - end of the snapshot,</li>
+ *     <li><code>H offset</code> - heartbeat, the follower has been sent every entry up to the leader's last offset.</li>
+ * </ul>
+ * Numbers are big-endian, strings are UTF-8 prefixed with their length, -1 for <code>null</code>.
+ */
+final class ReplicationProtocol {
+
+    static final int MAGIC = 0x746f646f;
+    private static final int MAX_STRING_LENGTH = 16 << 20;
+
+    static final byte SNAPSHOT = 'S';
+    static final byte MUTATION = 'M';
+    static final byte SNAPSHOT_END = 'E';
+    static final byte HEARTBEAT = 'H';
+
+    private ReplicationProtocol() {
+    }
+
+    static void writeMutation(DataOutputStream out, Mutation mutation) throws IOException {
+        out.writeByte(MUTATION);
+        out.writeLong(mutation.getOffset());
+        out.writeByte(mutation.getType());
+        switch (mutation.getType()) {
+            case Mutation.USER_SAVED:
+                writeString(out, mutation.getUser().getUsername());
+                writeString(out, mutation.getUser().getPassword());
+                break;
+            case Mutation.USER_DELETED:
+                writeString(out, mutation.getUser().getUsername());
+                break;
+            case Mutation.TASK_SAVED:
+                var task = mutation.getTask();
+                writeUuid(out, task.getId());
+                writeString(out, task.getOwner());
+                writeString(out, task.getDescription());
+                writeString(out, task.getDue());
+                out.writeLong(task.getVersion());
+                break;
+            case Mutation.TASK_DELETED:
+                writeUuid(out, mutation.getTask().getId());
+                writeString(out, mutation.getTask().getOwner());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mutation " + mutation.getType());
+        }
+    }
+
+    /**
+     * Reads log entry following the {@link #MUTATION} frame type.
+     */
+    static Mutation readMutation(DataInputStream in) throws IOException {
+        long offset = in.readLong();
+        byte type = in.readByte();
+        switch (type) {
+            case Mutation.USER_SAVED:
+                return Mutation.ofUser(offset, type, new UserEntity(readString(in), readString(in)));
+            case Mutation.USER_DELETED:
+                return Mutation.ofUser(offset, type, new UserEntity(readString(in), null));
+            case Mutation.TASK_SAVED:
+                var id = readUuid(in);
+                var owner = readString(in);
+                var task = new TaskEntity(readString(in), readString(in));
+                task.setId(id);
+                task.setOwner(owner);
+                task.setVersion(in.readLong());
+                return Mutation.ofTask(offset, type, task);
+            case Mutation.TASK_DELETED:
+                var deleted = new TaskEntity(null);
+                deleted.setId(readUuid(in));
+                deleted.setOwner(readString(in));
+                return Mutation.ofTask(offset, type, deleted);
+            default:
+                throw new IOException("Unknown mutation " + type);
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            return null;
+        if (length > MAX_STRING_LENGTH)
+            throw new IOException("String of " + length + " bytes exceeds the limit");
+        var bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,144 @@
+package efs.task.todoapp.replication;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.OwnedTaskRepository;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.repository.UserRepository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Leader side of the replication. Every connected follower is served by its own thread, which sends a snapshot if the
+ * follower's offset is not retained by the {@link ReplicationLog} anymore and then streams the log, with a heartbeat
+ * whenever the follower has received everything.
+ */
+public class ReplicationServer implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(ReplicationServer.class.getName());
+    private static final int BATCH_SIZE = 1024;
+    private static final long HEARTBEAT_MILLIS = 100;
+
+    private final ReplicationLog log;
+    private final UserRepository userRepository;
+    private final OwnedTaskRepository taskRepository;
+    private final ServerSocket serverSocket;
+    private final Set<Socket> followers = ConcurrentHashMap.newKeySet();
+    private final LongAdder snapshots = new LongAdder();
+    private volatile boolean closed;
+
+    public ReplicationServer(String hostname, int port, ReplicationLog log, UserRepository userRepository,
+                             OwnedTaskRepository taskRepository) throws IOException {
+        this.log = log;
+        this.userRepository = userRepository;
+        this.taskRepository = taskRepository;
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(hostname, port));
+    }
+
+    public void start() {
+        var acceptor = new Thread(this::accept, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getFollowerCount() {
+        return followers.size();
+    }
+
+    public long getSnapshotCount() {
+        return snapshots.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        for (Socket follower : followers)
+            follower.close();
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                var socket = serverSocket.accept();
+                var sender = new Thread(() -> serve(socket), "replication-sender-" + socket.getPort());
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException e) {
+                if (!closed)
+                    LOGGER.log(Level.WARNING, "Accepting follower failed", e);
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        followers.add(socket);
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            var in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            var out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            if (in.readInt() != ReplicationProtocol.MAGIC)
+                throw new IOException("Not a follower");
+
+            long sent = in.readLong();
+            LOGGER.info("Follower " + socket.getRemoteSocketAddress() + " connected at offset " + sent);
+            while (!closed) {
+                var batch = log.readAfter(sent, BATCH_SIZE);
+                if (batch == null) {
+                    sent = sendSnapshot(out);
+                    continue;
+                }
+
+                for (Mutation mutation : batch) {
+                    ReplicationProtocol.writeMutation(out, mutation);
+                    sent = mutation.getOffset();
+                }
+                if (batch.size() < BATCH_SIZE) {
+                    out.writeByte(ReplicationProtocol.HEARTBEAT);
+                    out.writeLong(sent);
+                    out.flush();
+                }
+                if (batch.isEmpty())
+                    log.awaitAfter(sent, HEARTBEAT_MILLIS);
+            }
+        } catch (IOException e) {
+            if (!closed)
+                LOGGER.log(Level.INFO, "Follower " + socket.getRemoteSocketAddress() + " disconnected", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            followers.remove(socket);
+        }
+    }
+
+    /**
+     * Sends all users and tasks. The repositories are read after the offset has been taken, so the snapshot contains
+     * every change up to the offset and possibly some later ones, which the follower receives again from the log.
+     *
+     * @return offset of the snapshot
+     */
+    private long sendSnapshot(DataOutputStream out) throws IOException {
+        snapshots.increment();
+        long offset = log.getLastOffset();
+        out.writeByte(ReplicationProtocol.SNAPSHOT);
+        out.writeLong(offset);
+        for (UserEntity user : userRepository.query(user -> true))
+            ReplicationProtocol.writeMutation(out, Mutation.ofUser(0, Mutation.USER_SAVED, user));
+        for (TaskEntity task : taskRepository.query(task -> true))
+            ReplicationProtocol.writeMutation(out, Mutation.ofTask(0, Mutation.TASK_SAVED, task));
+        out.writeByte(ReplicationProtocol.SNAPSHOT_END);
+        return offset;
+    }
+}
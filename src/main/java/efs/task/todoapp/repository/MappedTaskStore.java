@@ -0,0 +1,506 @@
+package efs.task.todoapp.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Durable task store kept in a single memory-mapped file. Nothing is loaded when the store is opened: lookups probe
+ * the hash index and read the record straight from the mapping, comparing ids in place and decoding strings directly
+ * from the mapped pages.
+ * <p>
+ * The file has four regions:
+ * <ul>
+ *     <li>header with the geometry of the file and the heads of the free lists,</li>
+ *     <li>hash index, an open addressing table of slot numbers probed linearly,</li>
+ *     <li>slots, one fixed-size record per task holding the id, version and the owner, due date and description,</li>
+ *     <li>overflow chunks, chains of fixed-size chunks holding strings longer than their inline space.</li>
+ * </ul>
+ * Deleted slots and chunks are linked into free lists and reused before the unused tail of their region. A change
+ * writes a complete record into a free slot and only then publishes it with a single write to the index, so a record
+ * reachable from the index is always complete. A crash may leak the slots or chunks being freed at that moment, but
+ * never corrupts a stored task. Writes reach the file when the operating system flushes the pages, or on
+ * {@link #flush()} and {@link #close()}.
+ * <p>
+ * The capacity is fixed when the file is created; {@link #save(TaskEntity)} returns <code>null</code> when the store
+ * is full.
+ */
+public class MappedTaskStore implements Repository<UUID, TaskEntity>, Closeable {
+
+    private static final int MAGIC = 0x746f6d73;
+    private static final int FORMAT = 1;
+
+    static final int HEADER_BYTES = 64;
+    private static final int H_MAGIC = 0;
+    private static final int H_FORMAT = 4;
+    private static final int H_SLOTS = 8;
+    static final int H_BUCKETS = 12;
+    private static final int H_CHUNKS = 16;
+    static final int H_FREE_SLOT = 20;
+    private static final int H_SLOT_HIGH_WATER = 24;
+    private static final int H_FREE_CHUNK = 28;
+    private static final int H_CHUNK_HIGH_WATER = 32;
+    private static final int H_SIZE = 36;
+    private static final int H_TOMBSTONES = 40;
+    static final int H_INDEX_DIRTY = 44;
+
+    static final int SLOT_BYTES = 256;
+    static final int S_STATE = 0;
+    private static final int S_NEXT_FREE = 4;
+    private static final int S_ID_HIGH = 8;
+    private static final int S_ID_LOW = 16;
+    private static final int S_VERSION = 24;
+    private static final int S_OWNER = 32;
+    private static final int S_DUE = 88;
+    private static final int S_DESCRIPTION = 128;
+    private static final int OWNER_INLINE = 48;
+    private static final int DUE_INLINE = 32;
+    static final int DESCRIPTION_INLINE = 120;
+
+    static final int CHUNK_BYTES = 256;
+    private static final int CHUNK_PAYLOAD = CHUNK_BYTES - 4;
+
+    private static final byte FREE = 0;
+    static final byte USED = 1;
+    private static final int EMPTY_BUCKET = 0;
+    private static final int TOMBSTONE = -1;
+    private static final int NONE = -1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slots;
+    private final int buckets;
+    private final int chunks;
+    private final int indexStart;
+    private final int slotsStart;
+    private final int chunksStart;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Opens the store in the file, creating it if it does not exist. An existing store keeps the capacity it has been
+     * created with.
+     *
+     * @param capacity maximum number of tasks of a new store; one more slot is allocated, so that a full store can
+     *                 still be updated, and two overflow chunks per slot
+     */
+    public MappedTaskStore(Path path, int capacity) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            boolean created = channel.size() == 0;
+            if (created) {
+                if (capacity < 1)
+                    throw new IllegalArgumentException("Capacity must be positive");
+                this.slots = capacity + 1;
+                this.buckets = Integer.highestOneBit(slots) << 2;
+                this.chunks = 2 * slots;
+            } else {
+                var header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+                if (header.getInt(H_MAGIC) != MAGIC || header.getInt(H_FORMAT) != FORMAT)
+                    throw new IOException(path + " is not a task store");
+                this.slots = header.getInt(H_SLOTS);
+                this.buckets = header.getInt(H_BUCKETS);
+                this.chunks = header.getInt(H_CHUNKS);
+            }
+
+            this.indexStart = HEADER_BYTES;
+            this.slotsStart = indexStart + 4 * buckets;
+            long length = slotsStart + (long) SLOT_BYTES * slots + (long) CHUNK_BYTES * chunks;
+            if (length > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Capacity " + slots + " does not fit into a mapped file");
+            this.chunksStart = slotsStart + SLOT_BYTES * slots;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+
+            if (created) {
+                buffer.putInt(H_SLOTS, slots);
+                buffer.putInt(H_BUCKETS, buckets);
+                buffer.putInt(H_CHUNKS, chunks);
+                buffer.putInt(H_FREE_SLOT, NONE);
+                buffer.putInt(H_FREE_CHUNK, NONE);
+                buffer.putInt(H_FORMAT, FORMAT);
+                buffer.putInt(H_MAGIC, MAGIC);
+            } else if (buffer.getInt(H_INDEX_DIRTY) != 0) {
+                rebuildIndex();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Stores the task with version 1.
+     *
+     * @return id of the task, <code>null</code> if a task with the id is already stored or the store is full
+     */
+    @Override
+    public UUID save(TaskEntity taskEntity) {
+        var id = taskEntity.getId();
+        lock.writeLock().lock();
+        try {
+            if (size() >= getCapacity() || find(id) >= 0)
+                return null;
+            taskEntity.setVersion(1);
+            int slot = write(taskEntity);
+            if (slot < 0)
+                return null;
+            insert(id, slot);
+            return id;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public TaskEntity query(UUID id) {
+        lock.readLock().lock();
+        try {
+            int bucket = find(id);
+            return bucket < 0 ? null : read(slotAt(bucket));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<TaskEntity> query(Predicate<TaskEntity> condition) {
+        List<TaskEntity> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            int highWater = buffer.getInt(H_SLOT_HIGH_WATER);
+            for (int slot = 0; slot < highWater; slot++) {
+                if (buffer.get(slotOffset(slot) + S_STATE) != USED)
+                    continue;
+                var task = read(slot);
+                int bucket = find(task.getId());
+                if (bucket < 0 || slotAt(bucket) != slot)
+                    continue;
+                if (condition.test(task))
+                    result.add(task);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the task, storing it with the version following the stored one. The new record is written into a free
+     * slot and replaces the old one in the index, so a crash leaves either the old or the new task; if it leaves both
+     * slots used, rebuilding the index keeps the new one by its higher version.
+     *
+     * @return <code>entity</code>, <code>null</code> if the store does not contain the task or it is full
+     */
+    @Override
+    public TaskEntity update(UUID id, TaskEntity entity) {
+        lock.writeLock().lock();
+        try {
+            int bucket = find(id);
+            if (bucket < 0)
+                return null;
+            int previous = slotAt(bucket);
+            entity.setId(id);
+            entity.setVersion(buffer.getLong(slotOffset(previous) + S_VERSION) + 1);
+            int slot = write(entity);
+            if (slot < 0)
+                return null;
+            buffer.putInt(indexStart + 4 * bucket, slot + 1);
+            freeSlot(previous);
+            return entity;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean delete(UUID id) {
+        lock.writeLock().lock();
+        try {
+            int bucket = find(id);
+            if (bucket < 0)
+                return false;
+            int slot = slotAt(bucket);
+            buffer.putInt(indexStart + 4 * bucket, TOMBSTONE);
+            buffer.putInt(H_SIZE, buffer.getInt(H_SIZE) - 1);
+            buffer.putInt(H_TOMBSTONES, buffer.getInt(H_TOMBSTONES) + 1);
+            freeSlot(slot);
+            if (buffer.getInt(H_TOMBSTONES) > buckets / 4)
+                rebuildIndex();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        return buffer.getInt(H_SIZE);
+    }
+
+    public int getCapacity() {
+        return slots - 1;
+    }
+
+    /**
+     * Returns number of slots ever used, free slots below it are reused before the store grows past it.
+     */
+    int getSlotHighWater() {
+        return buffer.getInt(H_SLOT_HIGH_WATER);
+    }
+
+    int getChunkHighWater() {
+        return buffer.getInt(H_CHUNK_HIGH_WATER);
+    }
+
+    /**
+     * Writes changed pages of the mapping to the file.
+     */
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            buffer.force();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    /**
+     * Returns bucket holding the task, -1 if there is none.
+     */
+    private int find(UUID id) {
+        long high = id.getMostSignificantBits();
+        long low = id.getLeastSignificantBits();
+        int mask = buckets - 1;
+        for (int bucket = hash(high, low) & mask, probes = 0; probes < buckets; bucket = (bucket + 1) & mask, probes++) {
+            int entry = buffer.getInt(indexStart + 4 * bucket);
+            if (entry == EMPTY_BUCKET)
+                return -1;
+            if (entry != TOMBSTONE) {
+                int offset = slotOffset(entry - 1);
+                if (buffer.getLong(offset + S_ID_HIGH) == high && buffer.getLong(offset + S_ID_LOW) == low)
+                    return bucket;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(UUID id, int slot) {
+        int mask = buckets - 1;
+        int bucket = hash(id.getMostSignificantBits(), id.getLeastSignificantBits()) & mask;
+        int entry;
+        while ((entry = buffer.getInt(indexStart + 4 * bucket)) != EMPTY_BUCKET && entry != TOMBSTONE)
+            bucket = (bucket + 1) & mask;
+        if (entry == TOMBSTONE)
+            buffer.putInt(H_TOMBSTONES, buffer.getInt(H_TOMBSTONES) - 1);
+        buffer.putInt(indexStart + 4 * bucket, slot + 1);
+        buffer.putInt(H_SIZE, buffer.getInt(H_SIZE) + 1);
+    }
+
+    /**
+     * Rebuilds the index from the used slots, dropping its tombstones. Of two slots with the same task, left by a crash
+     * during an update, the later version is kept. The dirty flag makes the next open repeat the rebuild if it is
+     * interrupted by a crash.
+     */
+    private void rebuildIndex() {
+        buffer.putInt(H_INDEX_DIRTY, 1);
+        for (int bucket = 0; bucket < buckets; bucket++)
+            buffer.putInt(indexStart + 4 * bucket, EMPTY_BUCKET);
+        buffer.putInt(H_SIZE, 0);
+        buffer.putInt(H_TOMBSTONES, 0);
+
+        int highWater = buffer.getInt(H_SLOT_HIGH_WATER);
+        for (int slot = 0; slot < highWater; slot++) {
+            int offset = slotOffset(slot);
+            if (buffer.get(offset + S_STATE) != USED)
+                continue;
+            var id = new UUID(buffer.getLong(offset + S_ID_HIGH), buffer.getLong(offset + S_ID_LOW));
+            int bucket = find(id);
+            if (bucket < 0) {
+                insert(id, slot);
+                continue;
+            }
+            int other = slotAt(bucket);
+            if (buffer.getLong(offset + S_VERSION) > buffer.getLong(slotOffset(other) + S_VERSION)) {
+                buffer.putInt(indexStart + 4 * bucket, slot + 1);
+                freeSlot(other);
+            } else {
+                freeSlot(slot);
+            }
+        }
+        buffer.putInt(H_INDEX_DIRTY, 0);
+    }
+
+    private int slotAt(int bucket) {
+        return buffer.getInt(indexStart + 4 * bucket) - 1;
+    }
+
+    private int slotOffset(int slot) {
+        return slotsStart + SLOT_BYTES * slot;
+    }
+
+    private int chunkOffset(int chunk) {
+        return chunksStart + CHUNK_BYTES * chunk;
+    }
+
+    /**
+     * Writes the task into a free slot, which is not yet reachable from the index.
+     *
+     * @return the slot, -1 if there is no free slot or chunk left
+     */
+    private int write(TaskEntity task) {
+        int slot = allocate(H_FREE_SLOT, H_SLOT_HIGH_WATER, slots, this::slotOffset, S_NEXT_FREE);
+        if (slot < 0)
+            return -1;
+        int offset = slotOffset(slot);
+        buffer.putInt(offset + S_OWNER, -1);
+        buffer.putInt(offset + S_DUE, -1);
+        buffer.putInt(offset + S_DESCRIPTION, -1);
+        if (!writeString(offset + S_OWNER, OWNER_INLINE, task.getOwner())
+                || !writeString(offset + S_DUE, DUE_INLINE, task.getDue())
+                || !writeString(offset + S_DESCRIPTION, DESCRIPTION_INLINE, task.getDescription())) {
+            freeSlot(slot);
+            return -1;
+        }
+        buffer.putLong(offset + S_ID_HIGH, task.getId().getMostSignificantBits());
+        buffer.putLong(offset + S_ID_LOW, task.getId().getLeastSignificantBits());
+        buffer.putLong(offset + S_VERSION, task.getVersion());
+        buffer.put(offset + S_STATE, USED);
+        return slot;
+    }
+
+    private TaskEntity read(int slot) {
+        int offset = slotOffset(slot);
+        var task = new TaskEntity(readString(offset + S_DESCRIPTION, DESCRIPTION_INLINE),
+                readString(offset + S_DUE, DUE_INLINE));
+        task.setId(new UUID(buffer.getLong(offset + S_ID_HIGH), buffer.getLong(offset + S_ID_LOW)));
+        task.setOwner(readString(offset + S_OWNER, OWNER_INLINE));
+        task.setVersion(buffer.getLong(offset + S_VERSION));
+        return task;
+    }
+
+    /**
+     * Writes string field: its UTF-8 length, -1 for <code>null</code>, the head of its overflow chain, and the bytes,
+     * inline if they fit, otherwise in the chain.
+     *
+     * @return <code>false</code> if there are not enough free chunks
+     */
+    private boolean writeString(int field, int inline, String value) {
+        buffer.putInt(field + 4, NONE);
+        if (value == null) {
+            buffer.putInt(field, -1);
+            return true;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= inline) {
+            view(field + 8).put(bytes);
+            buffer.putInt(field, bytes.length);
+            return true;
+        }
+
+        int head = NONE;
+        int previous = NONE;
+        for (int written = 0; written < bytes.length; written += CHUNK_PAYLOAD) {
+            int chunk = allocate(H_FREE_CHUNK, H_CHUNK_HIGH_WATER, chunks, this::chunkOffset, 0);
+            if (chunk < 0) {
+                freeChunks(head);
+                return false;
+            }
+            buffer.putInt(chunkOffset(chunk), NONE);
+            view(chunkOffset(chunk) + 4).put(bytes, written, Math.min(CHUNK_PAYLOAD, bytes.length - written));
+            if (previous == NONE)
+                head = chunk;
+            else
+                buffer.putInt(chunkOffset(previous), chunk);
+            previous = chunk;
+        }
+        buffer.putInt(field + 4, head);
+        buffer.putInt(field, bytes.length);
+        return true;
+    }
+
+    private String readString(int field, int inline) {
+        int length = buffer.getInt(field);
+        if (length < 0)
+            return null;
+        if (length <= inline)
+            return StandardCharsets.UTF_8.decode(view(field + 8).limit(field + 8 + length)).toString();
+
+        var bytes = new byte[length];
+        int chunk = buffer.getInt(field + 4);
+        for (int read = 0; read < length; read += CHUNK_PAYLOAD) {
+            view(chunkOffset(chunk) + 4).get(bytes, read, Math.min(CHUNK_PAYLOAD, length - read));
+            chunk = buffer.getInt(chunkOffset(chunk));
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns view of the mapping positioned at the offset, sharing its pages, for relative bulk access.
+     */
+    private ByteBuffer view(int offset) {
+        return buffer.duplicate().position(offset);
+    }
+
+    private void freeSlot(int slot) {
+        int offset = slotOffset(slot);
+        buffer.put(offset + S_STATE, FREE);
+        for (int field : new int[]{S_OWNER, S_DUE, S_DESCRIPTION}) {
+            if (buffer.getInt(offset + field) >= 0)
+                freeChunks(buffer.getInt(offset + field + 4));
+        }
+        buffer.putInt(offset + S_NEXT_FREE, buffer.getInt(H_FREE_SLOT));
+        buffer.putInt(H_FREE_SLOT, slot);
+    }
+
+    private void freeChunks(int chunk) {
+        while (chunk != NONE) {
+            int next = buffer.getInt(chunkOffset(chunk));
+            buffer.putInt(chunkOffset(chunk), buffer.getInt(H_FREE_CHUNK));
+            buffer.putInt(H_FREE_CHUNK, chunk);
+            chunk = next;
+        }
+    }
+
+    /**
+     * Takes the head of a free list, or the first never used entry of the region if the list is empty.
+     *
+     * @return the entry, -1 if the region is full
+     */
+    private int allocate(int freeHead, int highWater, int capacity, IntOffset offsetOf, int nextField) {
+        int free = buffer.getInt(freeHead);
+        if (free != NONE) {
+            buffer.putInt(freeHead, buffer.getInt(offsetOf.apply(free) + nextField));
+            return free;
+        }
+        int next = buffer.getInt(highWater);
+        if (next >= capacity)
+            return -1;
+        buffer.putInt(highWater, next + 1);
+        return next;
+    }
+
+    private static int hash(long high, long low) {
+        long hash = (high ^ low) * 0x9e3779b97f4a7c15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private interface IntOffset {
+        int apply(int entry);
+    }
+}
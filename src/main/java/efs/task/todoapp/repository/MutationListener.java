@@ -0,0 +1,76 @@
+package efs.task.todoapp.repository;
+
+/**
+ * Receives every change of a repository. It is called while the changed entry is still locked, so notifications
+ * concerning one key arrive in the order in which the changes have been applied. Implementations must be short and
+ * must not call back into the repository.
+ */
+public interface MutationListener {
+
+    MutationListener NONE = new MutationListener() {
+        @Override
+        public void userSaved(UserEntity user) {
+        }
+
+        @Override
+        public void userDeleted(UserEntity user) {
+        }
+
+        @Override
+        public void taskSaved(TaskEntity task) {
+        }
+
+        @Override
+        public void taskDeleted(TaskEntity task) {
+        }
+    };
+
+    /**
+     * Returns listener passing every change to the first listener and then to the second one.
+     */
+    static MutationListener compose(MutationListener first, MutationListener second) {
+        if (first == NONE)
+            return second;
+        if (second == NONE)
+            return first;
+        return new MutationListener() {
+            @Override
+            public void userSaved(UserEntity user) {
+                first.userSaved(user);
+                second.userSaved(user);
+            }
+
+            @Override
+            public void userDeleted(UserEntity user) {
+                first.userDeleted(user);
+                second.userDeleted(user);
+            }
+
+            @Override
+            public void taskSaved(TaskEntity task) {
+                first.taskSaved(task);
+                second.taskSaved(task);
+            }
+
+            @Override
+            public void taskDeleted(TaskEntity task) {
+                first.taskDeleted(task);
+                second.taskDeleted(task);
+            }
+        };
+    }
+
+    /**
+     * Called when the user has been stored or replaced.
+     */
+    void userSaved(UserEntity user);
+
+    void userDeleted(UserEntity user);
+
+    /**
+     * Called when the task has been stored or replaced, the task carries its id, owner and version.
+     */
+    void taskSaved(TaskEntity task);
+
+    void taskDeleted(TaskEntity task);
+}
@@ -0,0 +1,70 @@
+package efs.task.todoapp.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository of tasks which belong to owners. Besides the generic operations it offers the operations of a single
+ * owner's tasks which check the ownership and change the task atomically.
+ */
+public interface OwnedTaskRepository extends Repository<UUID, TaskEntity> {
+
+    /**
+     * Returns tasks of the specified owner in the order they were first stored. The list is a snapshot, it is not
+     * affected by later changes and it is not copied, so it must not be modified.
+     *
+     * @param owner user whose tasks are requested
+     * @return unmodifiable list of the owner's tasks, empty if there are none
+     */
+    List<TaskEntity> queryByOwner(String owner);
+
+    /**
+     * Looks the owner's tasks up in the due date index.
+     *
+     * @param owner user whose tasks are requested
+     * @param from first due date, inclusive, <code>null</code> for no lower bound
+     * @param to last due date, inclusive, <code>null</code> for no upper bound
+     * @return unmodifiable snapshot of the owner's tasks with a due date in the range, ordered by the due date
+     */
+    List<TaskEntity> queryByOwnerAndDue(String owner, LocalDate from, LocalDate to);
+
+    /**
+     * Returns live view of all tasks. Iterating it does not copy the repository and reflects some, but not
+     * necessarily all, changes made during the iteration.
+     */
+    Collection<TaskEntity> values();
+
+    /**
+     * Atomically replaces the task with specified identifier, provided it belongs to specified owner and, unless
+     * <code>expectedVersion</code> is negative, still has the expected version. The check and the replacement happen
+     * atomically, so a concurrent update or delete is never overwritten.
+     *
+     * @param uuid identifier of the task to be updated
+     * @param owner user who has to own the task
+     * @param expectedVersion version the stored task must have, negative value matches any version
+     * @param taskEntity task with new data, its id, owner and version are assigned on success
+     * @return task stored before the call or <code>null</code> if the repository does not contain such task;
+     * <code>taskEntity</code> has been stored only if the returned task satisfied both conditions
+     */
+    TaskEntity update(UUID uuid, String owner, long expectedVersion, TaskEntity taskEntity);
+
+    /**
+     * Atomically deletes the task with specified identifier, provided it belongs to specified owner.
+     *
+     * @return task stored before the call or <code>null</code> if the repository does not contain such task; the task
+     * has been deleted only if it belongs to <code>owner</code>
+     */
+    TaskEntity delete(UUID uuid, String owner);
+
+    /**
+     * Stores the task as it is, keeping its id, owner and version, and replacing a task with the same id. Used when
+     * tasks are moved from another node.
+     */
+    void restore(TaskEntity taskEntity);
+
+    MutationListener getMutationListener();
+
+    void setMutationListener(MutationListener listener);
+}
@@ -0,0 +1,223 @@
+package efs.task.todoapp.repository;
+
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Task repository storing each owner's tasks in a partition of its own, a small map guarded by the partition's lock
+ * together with an immutable {@link TaskSnapshot} for lock-free listing and due date lookups. Operations on tasks of one owner lock only that
+ * owner's partition, so owners never contend with each other, and checking the ownership and changing a task is a
+ * single step under one lock.
+ * <p>
+ * A shared index maps every task id to its owner, so a task can be found by id alone. It changes only when a task is
+ * created, deleted or moved to another owner; updates do not touch it.
+ */
+public class PartitionedTaskRepository implements OwnedTaskRepository {
+
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+    private final Map<UUID, String> owners = new ConcurrentHashMap<>();
+    private volatile MutationListener listener = MutationListener.NONE;
+
+    @Override
+    public MutationListener getMutationListener() {
+        return listener;
+    }
+
+    @Override
+    public void setMutationListener(MutationListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public UUID save(TaskEntity taskEntity) {
+        if (owners.putIfAbsent(taskEntity.getId(), taskEntity.getOwner()) != null)
+            return null;
+
+        taskEntity.setVersion(1);
+        TaskRepository.encode(taskEntity);
+        var partition = partition(taskEntity.getOwner());
+        synchronized (partition) {
+            partition.put(taskEntity);
+            listener.taskSaved(taskEntity);
+        }
+        return taskEntity.getId();
+    }
+
+    @Override
+    public TaskEntity query(UUID uuid) {
+        var owner = owners.get(uuid);
+        if (owner == null)
+            return null;
+        var partition = partitions.get(owner);
+        if (partition == null)
+            return null;
+        synchronized (partition) {
+            return partition.tasks.get(uuid);
+        }
+    }
+
+    @Override
+    public List<TaskEntity> query(Predicate<TaskEntity> condition) {
+        return values().stream().filter(condition).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<TaskEntity> queryByOwner(String owner) {
+        var partition = partitions.get(owner);
+        return partition == null ? Collections.emptyList() : partition.snapshot.list();
+    }
+
+    @Override
+    public List<TaskEntity> queryByOwnerAndDue(String owner, LocalDate from, LocalDate to) {
+        var partition = partitions.get(owner);
+        return partition == null ? Collections.emptyList() : partition.snapshot.dueBetween(from, to);
+    }
+
+    @Override
+    public Collection<TaskEntity> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<TaskEntity> iterator() {
+                return partitions.values().stream()
+                        .flatMap(partition -> partition.snapshot.list().stream())
+                        .iterator();
+            }
+
+            @Override
+            public int size() {
+                return owners.size();
+            }
+        };
+    }
+
+    @Override
+    public TaskEntity update(UUID uuid, TaskEntity taskEntity) {
+        var previous = query(uuid);
+        if (previous == null)
+            return null;
+        if (previous.getOwner().equals(taskEntity.getOwner())) {
+            TaskRepository.encode(taskEntity);
+            var partition = partition(previous.getOwner());
+            synchronized (partition) {
+                if (!partition.tasks.containsKey(uuid))
+                    return null;
+                partition.put(taskEntity);
+                listener.taskSaved(taskEntity);
+            }
+        } else {
+            restore(taskEntity);
+        }
+        return taskEntity;
+    }
+
+    @Override
+    public TaskEntity update(UUID uuid, String owner, long expectedVersion, TaskEntity taskEntity) {
+        var partition = partitions.get(owner);
+        if (partition != null) {
+            synchronized (partition) {
+                var current = partition.tasks.get(uuid);
+                if (current != null) {
+                    if (expectedVersion >= 0 && current.getVersion() != expectedVersion)
+                        return current;
+
+                    taskEntity.setId(uuid);
+                    taskEntity.setOwner(owner);
+                    taskEntity.setVersion(current.getVersion() + 1);
+                    TaskRepository.encode(taskEntity);
+                    partition.put(taskEntity);
+                    listener.taskSaved(taskEntity);
+                    return current;
+                }
+            }
+        }
+        return query(uuid);
+    }
+
+    @Override
+    public void restore(TaskEntity taskEntity) {
+        TaskRepository.encode(taskEntity);
+        var uuid = taskEntity.getId();
+        var previousOwner = owners.put(uuid, taskEntity.getOwner());
+        if (previousOwner != null && !previousOwner.equals(taskEntity.getOwner()))
+            remove(partition(previousOwner), uuid, false);
+
+        var partition = partition(taskEntity.getOwner());
+        synchronized (partition) {
+            partition.put(taskEntity);
+            listener.taskSaved(taskEntity);
+        }
+    }
+
+    @Override
+    public boolean delete(UUID uuid) {
+        var owner = owners.get(uuid);
+        var partition = owner == null ? null : partitions.get(owner);
+        return partition != null && remove(partition, uuid, true) != null;
+    }
+
+    @Override
+    public TaskEntity delete(UUID uuid, String owner) {
+        var partition = partitions.get(owner);
+        var deleted = partition == null ? null : remove(partition, uuid, true);
+        return deleted != null ? deleted : query(uuid);
+    }
+
+    /**
+     * Removes the task from the partition, also from the index if the task has been deleted rather than moved.
+     *
+     * @return the removed task, <code>null</code> if the partition does not contain it
+     */
+    private TaskEntity remove(Partition partition, UUID uuid, boolean deleted) {
+        synchronized (partition) {
+            var current = partition.remove(uuid);
+            if (current != null && deleted) {
+                owners.remove(uuid, partition.owner);
+                listener.taskDeleted(current);
+            }
+            return current;
+        }
+    }
+
+    private Partition partition(String owner) {
+        return partitions.computeIfAbsent(owner, Partition::new);
+    }
+
+    /**
+     * Tasks of one owner. The map and the snapshot are changed only while holding the partition's monitor, the
+     * snapshot is read without it.
+     */
+    private static final class Partition {
+        private final String owner;
+        private final Map<UUID, TaskEntity> tasks = new HashMap<>();
+        private volatile TaskSnapshot snapshot = TaskSnapshot.EMPTY;
+
+        private Partition(String owner) {
+            this.owner = owner;
+        }
+
+        private void put(TaskEntity task) {
+            tasks.put(task.getId(), task);
+            snapshot = snapshot.with(task);
+        }
+
+        private TaskEntity remove(UUID uuid) {
+            var current = tasks.remove(uuid);
+            if (current != null) {
+                var remaining = snapshot.without(uuid);
+                snapshot = remaining == null ? TaskSnapshot.EMPTY : remaining;
+            }
+            return current;
+        }
+    }
+}
@@ -9,6 +9,9 @@ public class TaskEntity {
     private String due;
 
     private String owner;
+    private long version;
+
+    private transient byte[] encoded;
 
     public TaskEntity(String description) {
         this.description = description;
@@ -25,6 +28,7 @@ public class TaskEntity {
 
     public void setOwner(String owner) {
         this.owner = owner;
+        this.encoded = null;
     }
 
     public UUID getId() {
@@ -33,6 +37,7 @@ public class TaskEntity {
 
     public void setId(UUID id) {
         this.id = id;
+        this.encoded = null;
     }
 
     public String getDescription() {
@@ -41,6 +46,7 @@ public class TaskEntity {
 
     public void setDescription(String description) {
         this.description = description;
+        this.encoded = null;
     }
 
     public String getDue() {
@@ -49,5 +55,29 @@ public class TaskEntity {
 
     public void setDue(String due) {
         this.due = due;
+        this.encoded = null;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+        this.encoded = null;
+    }
+
+    /**
+     * Returns JSON representation of the task as sent to clients, encoded as UTF-8 when the task has been stored.
+     * Every setter discards it, so the bytes never describe other values than the fields.
+     *
+     * @return encoded task, <code>null</code> if the task has not been stored or has changed since
+     */
+    public byte[] getEncoded() {
+        return encoded;
+    }
+
+    public void setEncoded(byte[] encoded) {
+        this.encoded = encoded;
     }
 }
@@ -1,5 +1,11 @@
 package efs.task.todoapp.repository;
 
+import efs.task.todoapp.codec.JsonCodec;
+import efs.task.todoapp.codec.JsonOutput;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -7,18 +13,45 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
-public class TaskRepository implements Repository<UUID, TaskEntity> {
+/**
+ * In-memory task repository. Every stored task carries its JSON representation, encoded once when the task is saved
+ * or updated, so reads never serialize tasks again.
+ * <p>
+ * Besides the map of tasks by id, the repository keeps an immutable {@link TaskSnapshot} of each owner's tasks, which
+ * also indexes them by due date. Every write replaces the owner's snapshot with a modified copy while the task entry
+ * is still locked, so a listing is a single read of the current snapshot and always reflects a consistent state of
+ * the owner's tasks.
+ */
+public class TaskRepository implements OwnedTaskRepository {
 
     private final Map<UUID,TaskEntity> tasks;
+    private final Map<String,TaskSnapshot> snapshots = new ConcurrentHashMap<>();
+    private volatile MutationListener listener = MutationListener.NONE;
 
     public TaskRepository() {
         this.tasks= new ConcurrentHashMap<>();
     }
 
+    @Override
+    public MutationListener getMutationListener() {
+        return listener;
+    }
+
+    @Override
+    public void setMutationListener(MutationListener listener) {
+        this.listener = listener;
+    }
+
     @Override
     public UUID save(TaskEntity taskEntity) {
-        TaskEntity result = tasks.putIfAbsent(taskEntity.getId(), taskEntity);
-        if (result == null) {
+        taskEntity.setVersion(1);
+        encode(taskEntity);
+        TaskEntity result = tasks.computeIfAbsent(taskEntity.getId(), id -> {
+            replaceInSnapshot(null, taskEntity);
+            listener.taskSaved(taskEntity);
+            return taskEntity;
+        });
+        if (result == taskEntity) {
             return taskEntity.getId();
         } else {
             return null;
@@ -35,18 +68,105 @@ public class TaskRepository implements Repository<UUID, TaskEntity> {
         return tasks.values().stream().filter(condition).collect(Collectors.toList());
     }
 
+    @Override
+    public List<TaskEntity> queryByOwner(String owner) {
+        return snapshots.getOrDefault(owner, TaskSnapshot.EMPTY).list();
+    }
+
+    @Override
+    public List<TaskEntity> queryByOwnerAndDue(String owner, LocalDate from, LocalDate to) {
+        return snapshots.getOrDefault(owner, TaskSnapshot.EMPTY).dueBetween(from, to);
+    }
+
+    @Override
+    public Collection<TaskEntity> values() {
+        return Collections.unmodifiableCollection(tasks.values());
+    }
+
     @Override
     public TaskEntity update(UUID uuid, TaskEntity taskEntity) {
-        if (tasks.containsKey(uuid)) {
-            tasks.replace(uuid, taskEntity);
+        encode(taskEntity);
+        return tasks.computeIfPresent(uuid, (id, current) -> {
+            replaceInSnapshot(current, taskEntity);
+            listener.taskSaved(taskEntity);
             return taskEntity;
-        } else {
+        }) != null ? taskEntity : null;
+    }
+
+    @Override
+    public TaskEntity update(UUID uuid, String owner, long expectedVersion, TaskEntity taskEntity) {
+        TaskEntity[] previous = new TaskEntity[1];
+        tasks.computeIfPresent(uuid, (id, current) -> {
+            previous[0] = current;
+            if (!current.getOwner().equals(owner)
+                    || (expectedVersion >= 0 && current.getVersion() != expectedVersion)) {
+                return current;
+            }
+
+            taskEntity.setId(uuid);
+            taskEntity.setOwner(owner);
+            taskEntity.setVersion(current.getVersion() + 1);
+            encode(taskEntity);
+            replaceInSnapshot(current, taskEntity);
+            listener.taskSaved(taskEntity);
+            return taskEntity;
+        });
+        return previous[0];
+    }
+
+    @Override
+    public void restore(TaskEntity taskEntity) {
+        encode(taskEntity);
+        tasks.compute(taskEntity.getId(), (id, current) -> {
+            replaceInSnapshot(current, taskEntity);
+            listener.taskSaved(taskEntity);
+            return taskEntity;
+        });
+    }
+
+    @Override
+    public boolean delete(UUID uuid) {
+        boolean[] deleted = new boolean[1];
+        tasks.computeIfPresent(uuid, (id, current) -> {
+            deleted[0] = true;
+            replaceInSnapshot(current, null);
+            listener.taskDeleted(current);
             return null;
+        });
+        return deleted[0];
+    }
+
+    /**
+     * Replaces <code>previous</code> with <code>next</code> in the owners' snapshots. Either of them may be
+     * <code>null</code> when a task is added or removed. Called while the task entry is locked, so writes of the same
+     * task reach the snapshots in the order they reach the map.
+     */
+    private void replaceInSnapshot(TaskEntity previous, TaskEntity next) {
+        if (previous != null && previous.getOwner() != null
+                && (next == null || !previous.getOwner().equals(next.getOwner()))) {
+            snapshots.computeIfPresent(previous.getOwner(), (owner, snapshot) -> snapshot.without(previous.getId()));
+        }
+        if (next != null && next.getOwner() != null) {
+            snapshots.compute(next.getOwner(), (owner, snapshot) -> (snapshot == null ? TaskSnapshot.EMPTY : snapshot).with(next));
         }
     }
 
     @Override
-    public boolean delete(UUID uuid) {
-        return tasks.remove(uuid) != null;
+    public TaskEntity delete(UUID uuid, String owner) {
+        TaskEntity[] previous = new TaskEntity[1];
+        tasks.computeIfPresent(uuid, (id, current) -> {
+            previous[0] = current;
+            if (!current.getOwner().equals(owner))
+                return current;
+
+            replaceInSnapshot(current, null);
+            listener.taskDeleted(current);
+            return null;
+        });
+        return previous[0];
+    }
+
+    static void encode(TaskEntity taskEntity) {
+        taskEntity.setEncoded(JsonCodec.writeTask(JsonOutput.forThread(), taskEntity).toByteArray());
     }
 }
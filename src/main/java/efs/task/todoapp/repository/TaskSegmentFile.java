@@ -0,0 +1,209 @@
+package efs.task.todoapp.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Append-only file holding the tasks of cold owners, one record per owner. A record is the number of tasks followed by
+ * the id, description, due date and version of every task in the order they were first stored; strings are UTF-8
+ * prefixed with their length, -1 for <code>null</code>. The JSON representation and the due date index are rebuilt
+ * when the tasks are read back.
+ * <p>
+ * A record becomes garbage when its owner is read back into memory. Once garbage takes more than half of the file,
+ * the live records are copied to a new file which replaces the old one. The file only extends memory of the running
+ * server, it is truncated when opened and deleted when closed.
+ */
+final class TaskSegmentFile implements Closeable {
+
+    private static final long MIN_COMPACTION_BYTES = 1 << 20;
+
+    private final Path path;
+    private final Map<String, Record> records = new HashMap<>();
+    private FileChannel channel;
+    private long end;
+    private long liveBytes;
+    private long compactions;
+
+    TaskSegmentFile(Path path) throws IOException {
+        this.path = path;
+        this.channel = open(path);
+    }
+
+    /**
+     * Appends record of the owner's tasks, replacing the owner's previous record.
+     */
+    synchronized void write(String owner, List<TaskEntity> tasks) throws IOException {
+        var bytes = encode(tasks);
+        writeFully(channel, ByteBuffer.wrap(bytes), end);
+        drop(records.put(owner, new Record(end, bytes.length)));
+        end += bytes.length;
+        liveBytes += bytes.length;
+    }
+
+    /**
+     * Returns tasks of the owner's record, keeping the record.
+     *
+     * @return tasks in the order they were first stored, <code>null</code> if the owner has no record
+     */
+    synchronized List<TaskEntity> read(String owner) throws IOException {
+        var record = records.get(owner);
+        return record == null ? null : decode(owner, readFully(record));
+    }
+
+    /**
+     * Returns tasks of the owner's record and drops the record.
+     *
+     * @return tasks in the order they were first stored, <code>null</code> if the owner has no record
+     */
+    synchronized List<TaskEntity> remove(String owner) throws IOException {
+        var record = records.get(owner);
+        if (record == null)
+            return null;
+        var tasks = decode(owner, readFully(record));
+        records.remove(owner);
+        drop(record);
+        return tasks;
+    }
+
+    synchronized long getFileBytes() {
+        return end;
+    }
+
+    synchronized long getLiveBytes() {
+        return liveBytes;
+    }
+
+    synchronized int getOwnerCount() {
+        return records.size();
+    }
+
+    synchronized long getCompactionCount() {
+        return compactions;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    private void drop(Record record) throws IOException {
+        if (record == null)
+            return;
+        liveBytes -= record.length;
+        if (end > MIN_COMPACTION_BYTES && liveBytes < end / 2)
+            compact();
+    }
+
+    private void compact() throws IOException {
+        var compacted = path.resolveSibling(path.getFileName() + ".compacting");
+        long position = 0;
+        try (var target = open(compacted)) {
+            for (Record record : records.values()) {
+                var bytes = readFully(record);
+                writeFully(target, ByteBuffer.wrap(bytes), position);
+                record.offset = position;
+                position += bytes.length;
+            }
+        }
+        channel.close();
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        end = position;
+        liveBytes = position;
+        compactions++;
+    }
+
+    private byte[] readFully(Record record) throws IOException {
+        var buffer = ByteBuffer.allocate(record.length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, record.offset + buffer.position()) < 0)
+                throw new IOException("Segment file " + path + " is truncated");
+        }
+        return buffer.array();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer, position + buffer.position());
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    static byte[] encode(List<TaskEntity> tasks) throws IOException {
+        var bytes = new ByteArrayOutputStream(64 * tasks.size() + 4);
+        var out = new DataOutputStream(bytes);
+        out.writeInt(tasks.size());
+        for (TaskEntity task : tasks) {
+            out.writeLong(task.getId().getMostSignificantBits());
+            out.writeLong(task.getId().getLeastSignificantBits());
+            writeString(out, task.getDescription());
+            writeString(out, task.getDue());
+            out.writeLong(task.getVersion());
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<TaskEntity> decode(String owner, byte[] record) throws IOException {
+        var in = new DataInputStream(new ByteArrayInputStream(record));
+        int count = in.readInt();
+        List<TaskEntity> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            var id = new UUID(in.readLong(), in.readLong());
+            var task = new TaskEntity(readString(in), readString(in));
+            task.setId(id);
+            task.setOwner(owner);
+            task.setVersion(in.readLong());
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            return null;
+        var bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Record {
+        private long offset;
+        private final int length;
+
+        private Record(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package efs.task.todoapp.repository;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable state of one owner's tasks: the tasks in the order they were first stored, and the tasks having a due
+ * date sorted by that date, which serves as the due date index. Changes return modified copies, so readers use a
+ * snapshot without locking while writers replace it.
+ */
+final class TaskSnapshot {
+
+    static final TaskSnapshot EMPTY = new TaskSnapshot(new TaskEntity[0], new TaskEntity[0], new long[0]);
+
+    private final TaskEntity[] tasks;
+    private final TaskEntity[] dated;
+    private final long[] days;
+
+    private TaskSnapshot(TaskEntity[] tasks, TaskEntity[] dated, long[] days) {
+        this.tasks = tasks;
+        this.dated = dated;
+        this.days = days;
+    }
+
+    /**
+     * Returns snapshot of the tasks in the given order, built at once rather than by adding the tasks one by one.
+     */
+    static TaskSnapshot of(List<TaskEntity> tasks) {
+        if (tasks.isEmpty())
+            return EMPTY;
+        var all = tasks.toArray(new TaskEntity[0]);
+        var allDays = new long[all.length];
+        List<Integer> order = new ArrayList<>(all.length);
+        for (int i = 0; i < all.length; i++) {
+            allDays[i] = dueDay(all[i]);
+            if (allDays[i] != Long.MIN_VALUE)
+                order.add(i);
+        }
+        order.sort(Comparator.comparingLong(i -> allDays[i]));
+
+        var dated = new TaskEntity[order.size()];
+        var days = new long[order.size()];
+        for (int i = 0; i < dated.length; i++) {
+            dated[i] = all[order.get(i)];
+            days[i] = allDays[order.get(i)];
+        }
+        return new TaskSnapshot(all, dated, days);
+    }
+
+    List<TaskEntity> list() {
+        return Collections.unmodifiableList(Arrays.asList(tasks));
+    }
+
+    /**
+     * Returns tasks due between the given dates, both inclusive, ordered by the due date.
+     */
+    List<TaskEntity> dueBetween(LocalDate from, LocalDate to) {
+        int start = from == null ? 0 : lowerBound(from.toEpochDay());
+        int end = to == null ? days.length : lowerBound(to.toEpochDay() + 1);
+        return start >= end ? Collections.emptyList()
+                : Collections.unmodifiableList(Arrays.asList(dated).subList(start, end));
+    }
+
+    /**
+     * Returns copy of the snapshot with the task replacing the one with the same id, or appended if there is none.
+     */
+    TaskSnapshot with(TaskEntity task) {
+        int index = indexOf(tasks, task.getId());
+        TaskEntity[] copy;
+        if (index < 0) {
+            copy = Arrays.copyOf(tasks, tasks.length + 1);
+            index = tasks.length;
+        } else {
+            copy = tasks.clone();
+        }
+        copy[index] = task;
+
+        var withoutDated = removeDated(task.getId());
+        long day = dueDay(task);
+        if (day == Long.MIN_VALUE)
+            return new TaskSnapshot(copy, withoutDated.dated, withoutDated.days);
+        return withoutDated.insertDated(copy, task, day);
+    }
+
+    /**
+     * Returns copy of the snapshot without the task, the snapshot itself if it does not contain the task and
+     * <code>null</code> if the task was the only one.
+     */
+    TaskSnapshot without(UUID id) {
+        int index = indexOf(tasks, id);
+        if (index < 0)
+            return this;
+        if (tasks.length == 1)
+            return null;
+        var copy = new TaskEntity[tasks.length - 1];
+        System.arraycopy(tasks, 0, copy, 0, index);
+        System.arraycopy(tasks, index + 1, copy, index, copy.length - index);
+        var withoutDated = removeDated(id);
+        return new TaskSnapshot(copy, withoutDated.dated, withoutDated.days);
+    }
+
+    /**
+     * Returns the due date of the task as epoch day, {@link Long#MIN_VALUE} if the task has no valid due date.
+     */
+    static long dueDay(TaskEntity task) {
+        if (task.getDue() == null)
+            return Long.MIN_VALUE;
+        try {
+            return LocalDate.from(DateTimeFormatter.ISO_DATE.parse(task.getDue())).toEpochDay();
+        } catch (DateTimeException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private TaskSnapshot removeDated(UUID id) {
+        int index = indexOf(dated, id);
+        if (index < 0)
+            return this;
+        var datedCopy = new TaskEntity[dated.length - 1];
+        var daysCopy = new long[days.length - 1];
+        System.arraycopy(dated, 0, datedCopy, 0, index);
+        System.arraycopy(dated, index + 1, datedCopy, index, datedCopy.length - index);
+        System.arraycopy(days, 0, daysCopy, 0, index);
+        System.arraycopy(days, index + 1, daysCopy, index, daysCopy.length - index);
+        return new TaskSnapshot(tasks, datedCopy, daysCopy);
+    }
+
+    private TaskSnapshot insertDated(TaskEntity[] newTasks, TaskEntity task, long day) {
+        int index = lowerBound(day + 1);
+        var datedCopy = new TaskEntity[dated.length + 1];
+        var daysCopy = new long[days.length + 1];
+        System.arraycopy(dated, 0, datedCopy, 0, index);
+        System.arraycopy(dated, index, datedCopy, index + 1, dated.length - index);
+        System.arraycopy(days, 0, daysCopy, 0, index);
+        System.arraycopy(days, index, daysCopy, index + 1, days.length - index);
+        datedCopy[index] = task;
+        daysCopy[index] = day;
+        return new TaskSnapshot(newTasks, datedCopy, daysCopy);
+    }
+
+    /**
+     * Returns index of the first due date not before the given day.
+     */
+    private int lowerBound(long day) {
+        int low = 0;
+        int high = days.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (days[middle] < day)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    private static int indexOf(TaskEntity[] tasks, UUID id) {
+        for (int i = 0; i < tasks.length; i++) {
+            if (tasks[i].getId().equals(id))
+                return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,459 @@
+package efs.task.todoapp.repository;
+
+import efs.task.todoapp.metrics.Histogram;
+import efs.task.todoapp.metrics.Metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Task repository keeping only recently active owners' tasks in memory. Tasks are partitioned by owner as in
+ * {@link PartitionedTaskRepository}; resident partitions are kept in LRU order together with an estimate of the memory
+ * their tasks take. When the estimate exceeds the budget, the least recently used partitions are spilled to a
+ * {@link TaskSegmentFile} and dropped from memory, and the first access to a spilled owner faults the tasks back in.
+ * <p>
+ * A spilled partition keeps only the owner's name. The index of task ids stays in memory for all owners, so finding a
+ * task by id faults in only the partition of its owner. Partitions are spilled after the lock of the accessed
+ * partition has been released, so a thread never holds two partition locks.
+ */
+public class TieredTaskRepository implements OwnedTaskRepository, Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(TieredTaskRepository.class.getName());
+
+    /**
+     * Estimated memory taken by a task besides its strings and JSON: the entity, its id, map entry and snapshot slots.
+     */
+    private static final int TASK_OVERHEAD_BYTES = 192;
+
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+    private final Map<UUID, String> owners = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, Partition> hot = new LinkedHashMap<>(16, 0.75f, true);
+    private final TaskSegmentFile segment;
+    private final long budgetBytes;
+    private long residentBytes;
+    private volatile MutationListener listener = MutationListener.NONE;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder faults = new LongAdder();
+    private final LongAdder spills = new LongAdder();
+    private final Histogram faultNanos = new Histogram();
+
+    /**
+     * @param segmentPath file for spilled tasks, truncated now and deleted on {@link #close()}
+     * @param budgetBytes estimated memory the resident tasks may take
+     */
+    public TieredTaskRepository(Path segmentPath, long budgetBytes) throws IOException {
+        if (budgetBytes < 0)
+            throw new IllegalArgumentException("Budget must not be negative");
+        this.segment = new TaskSegmentFile(segmentPath);
+        this.budgetBytes = budgetBytes;
+    }
+
+    @Override
+    public MutationListener getMutationListener() {
+        return listener;
+    }
+
+    @Override
+    public void setMutationListener(MutationListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public UUID save(TaskEntity taskEntity) {
+        if (owners.putIfAbsent(taskEntity.getId(), taskEntity.getOwner()) != null)
+            return null;
+
+        taskEntity.setVersion(1);
+        TaskRepository.encode(taskEntity);
+        return locked(partition(taskEntity.getOwner()), partition -> {
+            partition.put(taskEntity);
+            listener.taskSaved(taskEntity);
+            return taskEntity.getId();
+        });
+    }
+
+    @Override
+    public TaskEntity query(UUID uuid) {
+        var owner = owners.get(uuid);
+        var partition = owner == null ? null : partitions.get(owner);
+        return partition == null ? null : locked(partition, resident -> resident.tasks.get(uuid));
+    }
+
+    @Override
+    public List<TaskEntity> query(Predicate<TaskEntity> condition) {
+        return values().stream().filter(condition).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<TaskEntity> queryByOwner(String owner) {
+        var partition = partitions.get(owner);
+        return partition == null ? Collections.emptyList() : snapshot(partition).list();
+    }
+
+    @Override
+    public List<TaskEntity> queryByOwnerAndDue(String owner, LocalDate from, LocalDate to) {
+        var partition = partitions.get(owner);
+        return partition == null ? Collections.emptyList() : snapshot(partition).dueBetween(from, to);
+    }
+
+    /**
+     * Returns live view of all tasks. Spilled owners' tasks are read from the segment file without faulting them in,
+     * so a full iteration does not evict the hot set.
+     */
+    @Override
+    public Collection<TaskEntity> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<TaskEntity> iterator() {
+                return partitions.values().stream()
+                        .flatMap(partition -> peek(partition).stream())
+                        .iterator();
+            }
+
+            @Override
+            public int size() {
+                return owners.size();
+            }
+        };
+    }
+
+    @Override
+    public TaskEntity update(UUID uuid, TaskEntity taskEntity) {
+        var previous = query(uuid);
+        if (previous == null)
+            return null;
+        if (!previous.getOwner().equals(taskEntity.getOwner())) {
+            restore(taskEntity);
+            return taskEntity;
+        }
+        TaskRepository.encode(taskEntity);
+        return locked(partition(previous.getOwner()), partition -> {
+            if (!partition.tasks.containsKey(uuid))
+                return null;
+            partition.put(taskEntity);
+            listener.taskSaved(taskEntity);
+            return taskEntity;
+        });
+    }
+
+    @Override
+    public TaskEntity update(UUID uuid, String owner, long expectedVersion, TaskEntity taskEntity) {
+        var partition = partitions.get(owner);
+        var current = partition == null ? null : locked(partition, resident -> {
+            var stored = resident.tasks.get(uuid);
+            if (stored == null || (expectedVersion >= 0 && stored.getVersion() != expectedVersion))
+                return stored;
+
+            taskEntity.setId(uuid);
+            taskEntity.setOwner(owner);
+            taskEntity.setVersion(stored.getVersion() + 1);
+            TaskRepository.encode(taskEntity);
+            resident.put(taskEntity);
+            listener.taskSaved(taskEntity);
+            return stored;
+        });
+        return current != null ? current : query(uuid);
+    }
+
+    @Override
+    public void restore(TaskEntity taskEntity) {
+        TaskRepository.encode(taskEntity);
+        var uuid = taskEntity.getId();
+        var previousOwner = owners.put(uuid, taskEntity.getOwner());
+        if (previousOwner != null && !previousOwner.equals(taskEntity.getOwner()))
+            remove(partition(previousOwner), uuid, false);
+
+        locked(partition(taskEntity.getOwner()), partition -> {
+            partition.put(taskEntity);
+            listener.taskSaved(taskEntity);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean delete(UUID uuid) {
+        var owner = owners.get(uuid);
+        var partition = owner == null ? null : partitions.get(owner);
+        return partition != null && remove(partition, uuid, true) != null;
+    }
+
+    @Override
+    public TaskEntity delete(UUID uuid, String owner) {
+        var partition = partitions.get(owner);
+        var deleted = partition == null ? null : remove(partition, uuid, true);
+        return deleted != null ? deleted : query(uuid);
+    }
+
+    public void registerMetrics(Metrics metrics) {
+        metrics.register("tieredRepository.hits", hits::sum);
+        metrics.register("tieredRepository.faults", faults::sum);
+        metrics.register("tieredRepository.hitRatio", () -> {
+            double accesses = hits.sum() + faults.sum();
+            return accesses == 0 ? 0 : hits.sum() / accesses;
+        });
+        metrics.register("tieredRepository.faultIn.p50Micros", () -> faultNanos.getValueAtQuantile(0.5) / 1_000.0);
+        metrics.register("tieredRepository.faultIn.p99Micros", () -> faultNanos.getValueAtQuantile(0.99) / 1_000.0);
+        metrics.register("tieredRepository.spills", spills::sum);
+        metrics.register("tieredRepository.residentBytes", this::getResidentBytes);
+        metrics.register("tieredRepository.residentOwners", this::getResidentOwnerCount);
+        metrics.register("tieredRepository.spilledOwners", segment::getOwnerCount);
+        metrics.register("tieredRepository.segmentBytes", segment::getFileBytes);
+        metrics.register("tieredRepository.segmentLiveBytes", segment::getLiveBytes);
+        metrics.register("tieredRepository.compactions", segment::getCompactionCount);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getFaultCount() {
+        return faults.sum();
+    }
+
+    public long getResidentBytes() {
+        synchronized (hot) {
+            return residentBytes;
+        }
+    }
+
+    public int getResidentOwnerCount() {
+        synchronized (hot) {
+            return hot.size();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        segment.close();
+    }
+
+    /**
+     * Removes the task from the partition, also from the index if the task has been deleted rather than moved.
+     *
+     * @return the removed task, <code>null</code> if the partition does not contain it
+     */
+    private TaskEntity remove(Partition partition, UUID uuid, boolean deleted) {
+        return locked(partition, resident -> {
+            var current = resident.remove(uuid);
+            if (current != null && deleted) {
+                owners.remove(uuid, resident.owner);
+                listener.taskDeleted(current);
+            }
+            return current;
+        });
+    }
+
+    private Partition partition(String owner) {
+        return partitions.computeIfAbsent(owner, Partition::new);
+    }
+
+    /**
+     * Returns current snapshot of the partition, read without locking while the partition is resident.
+     */
+    private TaskSnapshot snapshot(Partition partition) {
+        var snapshot = partition.snapshot;
+        if (snapshot == null)
+            return locked(partition, resident -> resident.snapshot);
+
+        hits.increment();
+        spill(touch(partition));
+        return snapshot;
+    }
+
+    /**
+     * Returns the partition's tasks without faulting them in or changing the LRU order.
+     */
+    private List<TaskEntity> peek(Partition partition) {
+        var snapshot = partition.snapshot;
+        if (snapshot != null)
+            return snapshot.list();
+        synchronized (partition) {
+            if (partition.snapshot != null)
+                return partition.snapshot.list();
+            try {
+                var tasks = segment.read(partition.owner);
+                return tasks == null ? Collections.emptyList() : tasks;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Runs the action on the partition while holding its lock, faulting the partition in first if it has been
+     * spilled. Afterwards the partition becomes the most recently used one and partitions over the budget are spilled.
+     */
+    private <T> T locked(Partition partition, Function<Partition, T> action) {
+        T result;
+        List<Partition> victims;
+        synchronized (partition) {
+            faultIn(partition);
+            result = action.apply(partition);
+            victims = touch(partition);
+        }
+        spill(victims);
+        return result;
+    }
+
+    private void faultIn(Partition partition) {
+        if (partition.tasks != null) {
+            hits.increment();
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<TaskEntity> tasks;
+        try {
+            tasks = segment.remove(partition.owner);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (tasks == null)
+            tasks = Collections.emptyList();
+        partition.load(tasks);
+        faults.increment();
+        faultNanos.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Moves the partition to the most recently used end and charges its current size to the budget.
+     *
+     * @return least recently used partitions which no longer fit into the budget, already removed from the hot set
+     */
+    private List<Partition> touch(Partition partition) {
+        synchronized (hot) {
+            hot.put(partition.owner, partition);
+            long bytes = partition.bytes;
+            residentBytes += bytes - partition.chargedBytes;
+            partition.chargedBytes = bytes;
+            if (residentBytes <= budgetBytes)
+                return Collections.emptyList();
+
+            List<Partition> victims = new ArrayList<>();
+            var iterator = hot.values().iterator();
+            while (residentBytes > budgetBytes && iterator.hasNext()) {
+                var eldest = iterator.next();
+                if (eldest == partition)
+                    break;
+                iterator.remove();
+                residentBytes -= eldest.chargedBytes;
+                eldest.chargedBytes = 0;
+                victims.add(eldest);
+            }
+            return victims;
+        }
+    }
+
+    /**
+     * Writes the partitions to the segment file and drops their tasks from memory. A partition used again since it
+     * has been chosen is back in the hot set and stays resident.
+     */
+    private void spill(List<Partition> victims) {
+        for (Partition victim : victims) {
+            synchronized (victim) {
+                if (victim.tasks == null)
+                    continue;
+                synchronized (hot) {
+                    if (hot.containsKey(victim.owner))
+                        continue;
+                }
+                try {
+                    if (!victim.tasks.isEmpty())
+                        segment.write(victim.owner, victim.snapshot.list());
+                    victim.unload();
+                    spills.increment();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Could not spill tasks of " + victim.owner, e);
+                    synchronized (hot) {
+                        hot.put(victim.owner, victim);
+                        residentBytes += victim.bytes;
+                        victim.chargedBytes = victim.bytes;
+                    }
+                }
+            }
+        }
+    }
+
+    static long sizeOf(TaskEntity task) {
+        long bytes = TASK_OVERHEAD_BYTES;
+        if (task.getDescription() != null)
+            bytes += 2L * task.getDescription().length();
+        if (task.getDue() != null)
+            bytes += 2L * task.getDue().length();
+        if (task.getEncoded() != null)
+            bytes += task.getEncoded().length;
+        return bytes;
+    }
+
+    /**
+     * Tasks of one owner. The map, the snapshot and the size are changed only while holding the partition's monitor,
+     * the snapshot and the size are read without it. While the partition is spilled, the map and the snapshot are
+     * <code>null</code>. The size charged to the budget is guarded by the hot set's monitor.
+     */
+    private static final class Partition {
+        private final String owner;
+        private Map<UUID, TaskEntity> tasks = new HashMap<>();
+        private volatile TaskSnapshot snapshot = TaskSnapshot.EMPTY;
+        private volatile long bytes;
+        private long chargedBytes;
+
+        private Partition(String owner) {
+            this.owner = owner;
+        }
+
+        private void put(TaskEntity task) {
+            var previous = tasks.put(task.getId(), task);
+            snapshot = snapshot.with(task);
+            bytes += sizeOf(task) - (previous == null ? 0 : sizeOf(previous));
+        }
+
+        private TaskEntity remove(UUID uuid) {
+            var current = tasks.remove(uuid);
+            if (current != null) {
+                var remaining = snapshot.without(uuid);
+                snapshot = remaining == null ? TaskSnapshot.EMPTY : remaining;
+                bytes -= sizeOf(current);
+            }
+            return current;
+        }
+
+        private void load(List<TaskEntity> stored) {
+            long size = 0;
+            tasks = new HashMap<>();
+            for (TaskEntity task : stored) {
+                TaskRepository.encode(task);
+                tasks.put(task.getId(), task);
+                size += sizeOf(task);
+            }
+            snapshot = TaskSnapshot.of(stored);
+            bytes = size;
+        }
+
+        private void unload() {
+            tasks = null;
+            snapshot = null;
+            bytes = 0;
+        }
+    }
+}
@@ -1,24 +1,34 @@
 package efs.task.todoapp.repository;
 
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class UserRepository implements Repository<String, UserEntity> {
 
     private final Map<String,UserEntity> users;
+    private volatile MutationListener listener = MutationListener.NONE;
 
     public UserRepository() {
-        this.users= new HashMap<>();
+        this.users= new ConcurrentHashMap<>();
+    }
+
+    public void setMutationListener(MutationListener listener) {
+        this.listener = listener;
     }
 
     @Override
     public String save(UserEntity userEntity) {
 
-        UserEntity result = users.putIfAbsent(userEntity.getUsername(),userEntity);
-        if (result==null)
+        UserEntity result = users.computeIfAbsent(userEntity.getUsername(), username -> {
+            listener.userSaved(userEntity);
+            return userEntity;
+        });
+        if (result==userEntity)
         {
             return userEntity.getUsername();
         }
@@ -37,24 +47,30 @@ public class UserRepository implements Repository<String, UserEntity> {
         return users.values().stream().filter(condition).collect(Collectors.toList());
     }
 
+    /**
+     * Returns live view of all users, see {@link TaskRepository#values()}.
+     */
+    public Collection<UserEntity> values() {
+        return Collections.unmodifiableCollection(users.values());
+    }
+
     @Override
     public UserEntity update(String s, UserEntity userEntity) {
-        if (users.containsKey(s)) {
-            users.put(s, userEntity);
+        return users.computeIfPresent(s, (username, current) -> {
+            listener.userSaved(userEntity);
             return userEntity;
-        } else {
-            return null;
-        }
+        }) != null ? userEntity : null;
     }
 
     @Override
     public boolean delete(String s) {
-        if(users.containsKey(s)) {
-            users.remove(s);
-            return true;
-        } else {
-            return false;
-        }
+        boolean[] deleted = new boolean[1];
+        users.computeIfPresent(s, (username, current) -> {
+            deleted[0] = true;
+            listener.userDeleted(current);
+            return null;
+        });
+        return deleted[0];
     }
 
     public boolean doesUserExists(String s) {
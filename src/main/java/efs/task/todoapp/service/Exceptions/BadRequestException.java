@@ -1,6 +1,6 @@
 package efs.task.todoapp.service.Exceptions;
 
-public class BadRequestException extends Exception{
+public class BadRequestException extends ServiceException {
     public BadRequestException(String s) {
         super(s);
     }
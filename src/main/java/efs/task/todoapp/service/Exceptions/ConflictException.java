@@ -1,6 +1,6 @@
 package efs.task.todoapp.service.Exceptions;
 
-public class ConflictException extends Exception{
+public class ConflictException extends ServiceException {
     public ConflictException(String s) {
         super(s);
     }
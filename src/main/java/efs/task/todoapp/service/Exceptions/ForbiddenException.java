@@ -1,6 +1,6 @@
 package efs.task.todoapp.service.Exceptions;
 
-public class ForbiddenException extends Exception{
+public class ForbiddenException extends ServiceException {
     public ForbiddenException(String s) {
         super(s);
     }
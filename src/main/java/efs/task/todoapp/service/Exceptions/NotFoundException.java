@@ -1,6 +1,6 @@
 package efs.task.todoapp.service.Exceptions;
 
-public class NotFoundException extends Exception{
+public class NotFoundException extends ServiceException {
     public NotFoundException(String s) {
         super(s);
     }
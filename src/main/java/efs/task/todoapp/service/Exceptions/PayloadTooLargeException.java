@@ -0,0 +1,7 @@
+package efs.task.todoapp.service.Exceptions;
+
+public class PayloadTooLargeException extends ServiceException {
+    public PayloadTooLargeException(String s) {
+        super(s);
+    }
+}
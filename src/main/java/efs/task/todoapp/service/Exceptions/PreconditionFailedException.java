@@ -0,0 +1,7 @@
+package efs.task.todoapp.service.Exceptions;
+
+public class PreconditionFailedException extends ServiceException {
+    public PreconditionFailedException(String s) {
+        super(s);
+    }
+}
@@ -0,0 +1,7 @@
+package efs.task.todoapp.service.Exceptions;
+
+public class QuotaExceededException extends ServiceException {
+    public QuotaExceededException(String s) {
+        super(s);
+    }
+}
@@ -1,6 +1,6 @@
 package efs.task.todoapp.service.Exceptions;
 
-public class SavingEntityFailedException extends Exception {
+public class SavingEntityFailedException extends ServiceException {
     public SavingEntityFailedException(String s) {
         super(s);
     }
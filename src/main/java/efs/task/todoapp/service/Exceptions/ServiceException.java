@@ -0,0 +1,13 @@
+package efs.task.todoapp.service.Exceptions;
+
+/**
+ * Expected failure of a request, turned into an HTTP status by the handlers. Such failures are frequent (wrong
+ * credentials, missing tasks, malformed bodies) and are never logged with their origin, so they neither capture a
+ * stack trace nor record suppressed exceptions, which makes throwing one about as cheap as returning a status.
+ */
+public abstract class ServiceException extends Exception {
+
+    protected ServiceException(String message) {
+        super(message, null, false, false);
+    }
+}
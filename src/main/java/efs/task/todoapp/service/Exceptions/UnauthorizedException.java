@@ -1,6 +1,6 @@
 package efs.task.todoapp.service.Exceptions;
 
-public class UnauthorizedException extends Exception{
+public class UnauthorizedException extends ServiceException {
     public UnauthorizedException(String s) {
         super(s);
     }
@@ -0,0 +1,249 @@
+package efs.task.todoapp.service;
+
+import efs.task.todoapp.metrics.Metrics;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Table of session tokens issued after a successful login. A token is 32 random bytes, URL safe base64 encoded, which
+ * maps to its user and expiry, so checking it is a single hash lookup instead of decoding and comparing a password.
+ * The random part is followed by a dot and the URL safe base64 encoded username, so that the cluster router can send
+ * the token to the node of its owner; the username only routes, the whole token is still looked up.
+ * <p>
+ * Expired tokens are refused when they are looked up, the sweeper started by {@link #start()} only removes the ones
+ * nobody asks for anymore. A user holds at most <code>maxTokensPerUser</code> live tokens, logging in once more
+ * revokes the oldest one, so repeated logins cannot grow the table without bound.
+ */
+public class SessionTokens implements AutoCloseable {
+
+    public static final Duration DEFAULT_TTL = Duration.ofHours(1);
+    public static final int DEFAULT_MAX_TOKENS_PER_USER = 16;
+
+    private static final int TOKEN_BYTES = 32;
+    private static final int RANDOM_LENGTH = 43;
+    private static final int MAX_TOKEN_LENGTH = 1024;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final long ttlNanos;
+    private final long sweepMillis;
+    private final int maxTokensPerUser;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<String, ArrayDeque<String>> tokensByUser = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sweeper;
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public SessionTokens(Duration ttl, long sweepMillis) {
+        this(ttl, sweepMillis, DEFAULT_MAX_TOKENS_PER_USER);
+    }
+
+    /**
+     * @param ttl time a token stays valid after it has been issued
+     * @param sweepMillis period of removing expired tokens
+     * @param maxTokensPerUser number of live tokens of one user, the oldest one is revoked when another is issued
+     */
+    public SessionTokens(Duration ttl, long sweepMillis, int maxTokensPerUser) {
+        this.ttlNanos = ttl.toNanos();
+        this.sweepMillis = sweepMillis;
+        this.maxTokensPerUser = Math.max(1, maxTokensPerUser);
+    }
+
+    /**
+     * Tells whether the value has the shape of a token, without looking it up.
+     */
+    public static boolean isWellFormed(String value) {
+        if (value == null || value.length() <= RANDOM_LENGTH + 1 || value.length() > MAX_TOKEN_LENGTH
+                || value.charAt(RANDOM_LENGTH) != '.')
+            return false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (i != RANDOM_LENGTH
+                    && !(c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '-' || c == '_'))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the user a well formed token claims to belong to, without looking it up; only for routing.
+     *
+     * @return username, <code>null</code> if the token is not well formed
+     */
+    public static String ownerOf(String token) {
+        if (!isWellFormed(token))
+            return null;
+        try {
+            return new String(DECODER.decode(token.substring(RANDOM_LENGTH + 1)), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public synchronized void start() {
+        if (sweeper != null)
+            return;
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void registerMetrics(Metrics metrics) {
+        metrics.register("sessions.active", sessions::size);
+        metrics.register("sessions.issued", issued::sum);
+        metrics.register("sessions.expired", expired::sum);
+        metrics.register("sessions.evicted", evicted::sum);
+    }
+
+    /**
+     * @return new token of the user
+     */
+    public String issue(String username) {
+        return issue(username, System.nanoTime());
+    }
+
+    /**
+     * @return user of the token, <code>null</code> if the token is unknown or has expired
+     */
+    public String lookup(String token) {
+        return lookup(token, System.nanoTime());
+    }
+
+    public void revoke(String token) {
+        var session = sessions.get(token);
+        if (session != null)
+            remove(token, session);
+    }
+
+    /**
+     * Revokes all tokens of the user, e.g. when the account is removed from this node.
+     */
+    public void revokeUser(String username) {
+        var tokens = tokensByUser.remove(username);
+        if (tokens == null)
+            return;
+        synchronized (tokens) {
+            for (String token : tokens)
+                sessions.remove(token);
+        }
+    }
+
+    /**
+     * Removes expired tokens.
+     *
+     * @return number of removed tokens
+     */
+    public int sweep() {
+        return sweep(System.nanoTime());
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public long getTtlSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(ttlNanos);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (sweeper != null)
+            sweeper.shutdownNow();
+    }
+
+    String issue(String username, long nowNanos) {
+        var bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        var token = ENCODER.encodeToString(bytes) + '.'
+                + ENCODER.encodeToString(username.getBytes(StandardCharsets.UTF_8));
+        sessions.put(token, new Session(username, nowNanos + ttlNanos));
+        tokensByUser.compute(username, (user, tokens) -> {
+            if (tokens == null)
+                tokens = new ArrayDeque<>();
+            synchronized (tokens) {
+                tokens.addLast(token);
+                while (tokens.size() > maxTokensPerUser) {
+                    sessions.remove(tokens.pollFirst());
+                    evicted.increment();
+                }
+            }
+            return tokens;
+        });
+        issued.increment();
+        return token;
+    }
+
+    String lookup(String token, long nowNanos) {
+        var session = sessions.get(token);
+        if (session == null)
+            return null;
+        if (session.expiresAt - nowNanos <= 0) {
+            if (remove(token, session))
+                expired.increment();
+            return null;
+        }
+        return session.username;
+    }
+
+    int sweep(long nowNanos) {
+        int removed = 0;
+        for (var entry : sessions.entrySet()) {
+            if (entry.getValue().expiresAt - nowNanos <= 0 && remove(entry.getKey(), entry.getValue()))
+                removed++;
+        }
+        expired.add(removed);
+        return removed;
+    }
+
+    int getTokenCount(String username) {
+        var tokens = tokensByUser.get(username);
+        if (tokens == null)
+            return 0;
+        synchronized (tokens) {
+            return tokens.size();
+        }
+    }
+
+    /**
+     * Removes the token from the table and from the tokens of its user.
+     *
+     * @return <code>false</code> if the token has already been removed
+     */
+    private boolean remove(String token, Session session) {
+        if (!sessions.remove(token, session))
+            return false;
+        tokensByUser.computeIfPresent(session.username, (user, tokens) -> {
+            synchronized (tokens) {
+                tokens.remove(token);
+                return tokens.isEmpty() ? null : tokens;
+            }
+        });
+        return true;
+    }
+
+    private static final class Session {
+        private final String username;
+        private final long expiresAt;
+
+        private Session(String username, long expiresAt) {
+            this.username = username;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
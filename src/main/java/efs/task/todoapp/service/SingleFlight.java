@@ -0,0 +1,82 @@
+package efs.task.todoapp.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Lets concurrent identical reads share one computation. The first caller for a key runs the computation, callers
+ * arriving while it runs wait for its result instead of repeating the work.
+ * <p>
+ * A write to the data behind a key has to call {@link #forget(Object)} after it has been applied. Callers arriving
+ * after that start a new computation, so they always observe the write; the computation already running still
+ * completes for the callers that joined it, as they were concurrent with the write anyway.
+ *
+ * @param <K> key identifying identical reads
+ * @param <V> shared result
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    /**
+     * Returns result of the computation for the key, running it unless an identical one is already running.
+     *
+     * @param key key of the read
+     * @param computation computation of the result, run on the calling thread
+     * @return result of the computation run by this or a concurrent caller
+     */
+    public V execute(K key, Function<K, V> computation) {
+        var flight = new CompletableFuture<V>();
+        var running = flights.putIfAbsent(key, flight);
+        if (running != null) {
+            shared.increment();
+            return await(running);
+        }
+
+        executed.increment();
+        try {
+            V result = computation.apply(key);
+            flight.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // errors too, callers waiting for the flight would hang otherwise
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * Detaches the running computation of the key, if any, so that later callers do not join it.
+     */
+    public void forget(K key) {
+        flights.remove(key);
+    }
+
+    public long getExecutedCount() {
+        return executed.sum();
+    }
+
+    public long getSharedCount() {
+        return shared.sum();
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package efs.task.todoapp.service;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates time-ordered task identifiers in the layout of version 7 UUIDs: 48 bits of Unix time in milliseconds,
+ * a 12-bit sequence and 62 random bits. Every thread keeps its own last timestamp and sequence, so generating an id
+ * takes no lock and draws from {@link ThreadLocalRandom} rather than the shared <code>SecureRandom</code> of
+ * {@link UUID#randomUUID()}.
+ * <p>
+ * Ids of one thread strictly increase: within one millisecond the sequence is incremented, and when it overflows or
+ * the clock goes back the timestamp is advanced past the last one. Ids of different threads are ordered by
+ * millisecond and kept apart by the random bits. Identifiers are not secret, access to tasks is checked by owner.
+ */
+public final class TaskIds {
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int MAX_SEQUENCE = (1 << SEQUENCE_BITS) - 1;
+    private static final long VERSION = 7L << SEQUENCE_BITS;
+    private static final long VARIANT = 1L << 63;
+    private static final long RANDOM_MASK = (1L << 62) - 1;
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private TaskIds() {
+    }
+
+    public static UUID next() {
+        var state = STATE.get();
+        var random = ThreadLocalRandom.current();
+        long millis = System.currentTimeMillis();
+
+        if (millis > state.millis) {
+            state.millis = millis;
+            state.sequence = random.nextInt(MAX_SEQUENCE / 2 + 1);
+        } else if (state.sequence < MAX_SEQUENCE) {
+            state.sequence++;
+        } else {
+            state.millis++;
+            state.sequence = 0;
+        }
+
+        long mostSignificant = (state.millis << 16) | VERSION | state.sequence;
+        long leastSignificant = VARIANT | (random.nextLong() & RANDOM_MASK);
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    /**
+     * Returns the creation time encoded in an id generated by {@link #next()}.
+     */
+    public static long timestampOf(UUID id) {
+        return id.getMostSignificantBits() >>> 16;
+    }
+
+    private static final class State {
+        private long millis;
+        private int sequence;
+    }
+}
@@ -0,0 +1,142 @@
+package efs.task.todoapp.service;
+
+import efs.task.todoapp.metrics.Metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of encoded task lists, one entry per owner.
+ * <p>
+ * Entries are kept in LRU order in segments with their own locks, so owners hashed to different segments never
+ * contend. Concurrent misses for the same owner are coalesced by {@link SingleFlight}. Every write to an owner's tasks
+ * has to call {@link #invalidate(String)}, which drops the entry and lets later readers start a new computation
+ * instead of joining one which may have missed the write. A computation which overlapped a write still returns its
+ * result to the readers it serves, but it is not cached.
+ */
+public class TaskListCache {
+
+    private static final int SEGMENTS = 16;
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final SingleFlight<String, byte[]> inFlight = new SingleFlight<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * @param capacity maximum number of owners whose lists are cached
+     */
+    public TaskListCache(int capacity) {
+        int segmentCapacity = Math.max(1, capacity / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++)
+            segments[i] = new Segment(segmentCapacity);
+    }
+
+    /**
+     * Returns cached list of the owner or computes it.
+     *
+     * @param owner owner of the tasks
+     * @param loader function encoding the current list of the owner's tasks
+     * @return encoded list, must not be modified
+     */
+    public byte[] get(String owner, Function<String, byte[]> loader) {
+        var segment = segmentOf(owner);
+        byte[] cached = segment.get(owner);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+
+        return inFlight.execute(owner, key -> {
+            long generation = generationOf(key);
+            byte[] encoded = loader.apply(key);
+            segment.putIfNotInvalidated(key, encoded, generation);
+            return encoded;
+        });
+    }
+
+    /**
+     * Drops the cached list of the owner, has to be called after every change of the owner's tasks.
+     */
+    public void invalidate(String owner) {
+        segmentOf(owner).invalidate(owner);
+        inFlight.forget(owner);
+        invalidations.increment();
+    }
+
+    public void registerMetrics(Metrics metrics) {
+        metrics.register("taskListCache.hits", hits::sum);
+        metrics.register("taskListCache.misses", misses::sum);
+        metrics.register("taskListCache.coalesced", inFlight::getSharedCount);
+        metrics.register("taskListCache.evictions", evictions::sum);
+        metrics.register("taskListCache.invalidations", invalidations::sum);
+        metrics.register("taskListCache.size", this::size);
+        metrics.register("taskListCache.hitRatio", () -> {
+            double lookups = hits.sum() + misses.sum();
+            return lookups == 0 ? 0 : hits.sum() / lookups;
+        });
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments)
+            size += segment.size();
+        return size;
+    }
+
+    private long generationOf(String owner) {
+        return generations.get(stripeOf(owner));
+    }
+
+    private Segment segmentOf(String owner) {
+        return segments[(owner.hashCode() & 0x7fffffff) % SEGMENTS];
+    }
+
+    private static int stripeOf(String owner) {
+        int hash = owner.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private final class Segment {
+        private final LinkedHashMap<String, byte[]> entries;
+
+        Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                    if (size() <= capacity)
+                        return false;
+                    evictions.increment();
+                    return true;
+                }
+            };
+        }
+
+        synchronized byte[] get(String owner) {
+            return entries.get(owner);
+        }
+
+        synchronized void putIfNotInvalidated(String owner, byte[] encoded, long generation) {
+            if (generationOf(owner) == generation)
+                entries.put(owner, encoded);
+        }
+
+        synchronized void invalidate(String owner) {
+            generations.incrementAndGet(stripeOf(owner));
+            entries.remove(owner);
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
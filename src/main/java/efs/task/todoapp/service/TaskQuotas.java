@@ -0,0 +1,147 @@
+package efs.task.todoapp.service;
+
+import efs.task.todoapp.metrics.Metrics;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.service.Exceptions.QuotaExceededException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits of stored tasks: number of tasks and bytes per user, and bytes of all users together. Usage is counted
+ * incrementally as tasks are written and deleted, so a check costs the same no matter how many tasks are stored.
+ * <p>
+ * A write first {@link #reserve reserves} what it adds, which fails if a limit would be exceeded, and afterwards
+ * {@link #adjust adjusts} the usage by the difference between the reservation and what it has actually changed.
+ * Data which has been accepted elsewhere, replicated or imported, is only counted, never refused.
+ */
+public class TaskQuotas {
+
+    public static final TaskQuotas UNLIMITED = new TaskQuotas(Integer.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+
+    /**
+     * Estimated memory taken by a task besides its strings: the entity, its id, map entries and snapshot slots.
+     */
+    private static final int TASK_OVERHEAD_BYTES = 256;
+
+    private final int maxTasksPerUser;
+    private final long maxBytesPerUser;
+    private final long budgetBytes;
+
+    private final Map<String, Usage> usages = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param maxTasksPerUser maximum number of tasks of a user
+     * @param maxBytesPerUser maximum estimated size of a user's tasks, see {@link #sizeOf(TaskEntity)}
+     * @param budgetBytes maximum estimated size of all stored tasks
+     */
+    public TaskQuotas(int maxTasksPerUser, long maxBytesPerUser, long budgetBytes) {
+        this.maxTasksPerUser = maxTasksPerUser;
+        this.maxBytesPerUser = maxBytesPerUser;
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Returns estimated memory taken by the stored task: its strings, stored as UTF-16 and once more as pre-encoded
+     * JSON, and a fixed overhead.
+     */
+    public static long sizeOf(TaskEntity task) {
+        long chars = 0;
+        if (task.getDescription() != null)
+            chars += task.getDescription().length();
+        if (task.getDue() != null)
+            chars += task.getDue().length();
+        return TASK_OVERHEAD_BYTES + 3 * chars;
+    }
+
+    /**
+     * Adds the tasks and bytes to the user's usage, provided neither the user's limits nor the global budget are
+     * exceeded.
+     *
+     * @throws QuotaExceededException if a limit would be exceeded, the usage is left unchanged
+     */
+    public void reserve(String owner, int tasks, long bytes) throws QuotaExceededException {
+        var usage = usageOf(owner);
+        synchronized (usage) {
+            if (tasks > 0 && usage.tasks + tasks > maxTasksPerUser) {
+                rejected.increment();
+                throw new QuotaExceededException("User \"" + owner + "\" cannot have more than " + maxTasksPerUser + " tasks");
+            }
+            if (bytes > 0 && usage.bytes + bytes > maxBytesPerUser) {
+                rejected.increment();
+                throw new QuotaExceededException("Tasks of user \"" + owner + "\" cannot take more than " + maxBytesPerUser + " bytes");
+            }
+            if (bytes > 0 && !reserveGlobal(bytes)) {
+                rejected.increment();
+                throw new QuotaExceededException("Memory budget for tasks is exhausted");
+            }
+            usage.tasks += tasks;
+            usage.bytes += bytes;
+        }
+    }
+
+    /**
+     * Changes the user's usage unconditionally, by negative amounts when tasks are removed or shrink.
+     */
+    public void adjust(String owner, int tasks, long bytes) {
+        if (tasks == 0 && bytes == 0)
+            return;
+        var usage = usageOf(owner);
+        synchronized (usage) {
+            usage.tasks += tasks;
+            usage.bytes += bytes;
+        }
+        usedBytes.addAndGet(bytes);
+    }
+
+    public int getTaskCount(String owner) {
+        var usage = usages.get(owner);
+        if (usage == null)
+            return 0;
+        synchronized (usage) {
+            return usage.tasks;
+        }
+    }
+
+    public long getBytes(String owner) {
+        var usage = usages.get(owner);
+        if (usage == null)
+            return 0;
+        synchronized (usage) {
+            return usage.bytes;
+        }
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    public void registerMetrics(Metrics metrics) {
+        metrics.register("quota.usedBytes", usedBytes::get);
+        metrics.register("quota.budgetBytes", () -> budgetBytes);
+        metrics.register("quota.rejected", rejected::sum);
+    }
+
+    private boolean reserveGlobal(long bytes) {
+        long used;
+        do {
+            used = usedBytes.get();
+            if (used + bytes > budgetBytes)
+                return false;
+        } while (!usedBytes.compareAndSet(used, used + bytes));
+        return true;
+    }
+
+    private Usage usageOf(String owner) {
+        return usages.computeIfAbsent(owner, name -> new Usage());
+    }
+
+    private static final class Usage {
+        private int tasks;
+        private long bytes;
+    }
+}
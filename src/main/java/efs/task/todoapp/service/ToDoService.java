@@ -1,21 +1,54 @@
 package efs.task.todoapp.service;
 
+import efs.task.todoapp.codec.JsonCodec;
+import efs.task.todoapp.codec.JsonOutput;
+import efs.task.todoapp.query.QueryPlan;
+import efs.task.todoapp.query.QueryPlanner;
+import efs.task.todoapp.query.TaskFilter;
 import efs.task.todoapp.repository.TaskEntity;
-import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.OwnedTaskRepository;
 import efs.task.todoapp.repository.UserEntity;
 import efs.task.todoapp.repository.UserRepository;
 import efs.task.todoapp.service.Exceptions.*;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 public class ToDoService {
+    private static final int DEFAULT_LIST_CACHE_CAPACITY = 10_000;
+
     private final UserRepository userRepository;
-    private final TaskRepository taskRepository;
-    public ToDoService(UserRepository userRepository, TaskRepository taskRepository) {
+    private final OwnedTaskRepository taskRepository;
+    private final TaskListCache taskListCache;
+    private final TaskQuotas quotas;
+    private final SessionTokens sessions;
+
+    public ToDoService(UserRepository userRepository, OwnedTaskRepository taskRepository) {
+        this(userRepository, taskRepository, new TaskListCache(DEFAULT_LIST_CACHE_CAPACITY));
+    }
+
+    public ToDoService(UserRepository userRepository, OwnedTaskRepository taskRepository, TaskListCache taskListCache) {
+        this(userRepository, taskRepository, taskListCache, TaskQuotas.UNLIMITED);
+    }
+
+    public ToDoService(UserRepository userRepository, OwnedTaskRepository taskRepository, TaskListCache taskListCache,
+                       TaskQuotas quotas) {
+        this(userRepository, taskRepository, taskListCache, quotas,
+                new SessionTokens(SessionTokens.DEFAULT_TTL, SessionTokens.DEFAULT_TTL.toMillis()));
+    }
+
+    public ToDoService(UserRepository userRepository, OwnedTaskRepository taskRepository, TaskListCache taskListCache,
+                       TaskQuotas quotas, SessionTokens sessions) {
         this.userRepository = userRepository;
         this.taskRepository = taskRepository;
+        this.taskListCache = taskListCache;
+        this.quotas = quotas;
+        this.sessions = sessions;
     }
 
     public void saveUser(UserEntity user) throws BadRequestException, ConflictException {
@@ -25,44 +58,245 @@ public class ToDoService {
 
         String idUser = user.getUsername();
 
-        if (userRepository.doesUserExists(idUser)) {
+        if (userRepository.save(user) == null)
             throw new ConflictException("User \"" + idUser + "\" already exists, cannot be added to repository.");
-        } else {
-           userRepository.save(user);
-        }
     }
 
-    public UUID saveTask(TaskEntity task, String username) {
+    public UUID saveTask(TaskEntity task, String username) throws QuotaExceededException {
 
-        UUID idTask = UUID.randomUUID();
+        UUID idTask = TaskIds.next();
         task.setId(idTask);
         task.setOwner(username);
 
+        quotas.reserve(username, 1, TaskQuotas.sizeOf(task));
         taskRepository.save(task);
+        taskListCache.invalidate(username);
 
         return idTask;
     }
 
-    public TaskEntity updateTask(TaskEntity task,List<String> userData,UUID uuid){
+    /**
+     * Replaces the task if it belongs to the user and, unless <code>expectedVersion</code> is negative, has the
+     * expected version. Ownership is checked first, so a missing or foreign task is reported as such whatever the
+     * quota. Growth of the task is reserved against the user's quota before the task is replaced, using its size at
+     * that moment, and the usage is corrected by what the replacement has actually changed.
+     */
+    public TaskEntity updateTask(TaskEntity task, String username, UUID uuid, long expectedVersion)
+            throws NotFoundException, ForbiddenException, PreconditionFailedException, QuotaExceededException {
 
-        var updatedTask=taskRepository.update(uuid,task);
-        task.setId(uuid);
-        task.setOwner(userData.get(0));
-        return updatedTask;
+        var current = taskRepository.query(uuid);
+        check_taskExists_belongsToUser(current, username);
+        long newSize = TaskQuotas.sizeOf(task);
+        long reserved = Math.max(0, newSize - TaskQuotas.sizeOf(current));
+        quotas.reserve(username, 0, reserved);
+
+        var previousTask = taskRepository.update(uuid, username, expectedVersion, task);
+        boolean replaced = previousTask != null && previousTask.getOwner().equals(username)
+                && (expectedVersion < 0 || previousTask.getVersion() == expectedVersion);
+        quotas.adjust(username, 0, (replaced ? newSize - TaskQuotas.sizeOf(previousTask) : 0) - reserved);
+
+        check_taskExists_belongsToUser(previousTask, username);
+
+        if (expectedVersion >= 0 && previousTask.getVersion() != expectedVersion)
+            throw new PreconditionFailedException("Task \"" + uuid + "\" has been modified in the meantime.");
+
+        taskListCache.invalidate(username);
+        return task;
     }
 
-    public void deleteTask(UUID uuid){
-        taskRepository.delete(uuid);
+    /**
+     * Deletes the task if it belongs to the user, checking the ownership and deleting atomically.
+     */
+    public void deleteTask(UUID uuid, String username) throws NotFoundException, ForbiddenException {
+        var previousTask = taskRepository.delete(uuid, username);
+
+        check_taskExists_belongsToUser(previousTask, username);
+
+        quotas.adjust(username, -1, -TaskQuotas.sizeOf(previousTask));
+        taskListCache.invalidate(username);
     }
 
     public List<TaskEntity> getTasks(String username) {
-        return taskRepository.query(alwaysTrue(username));
+        return taskRepository.queryByOwner(username);
+    }
+
+    /**
+     * Compiles the filter of the user's task list into a plan, which can be explained before it is run by
+     * {@link #getTasks(QueryPlan)}.
+     */
+    public QueryPlan planTaskQuery(TaskFilter filter, String username) {
+        return QueryPlanner.plan(filter, username);
+    }
+
+    public List<TaskEntity> getTasks(QueryPlan plan) {
+        return plan.execute(taskRepository);
+    }
+
+    /**
+     * Returns JSON array of the user's tasks, served from the list cache when possible.
+     *
+     * @param username owner of the tasks
+     * @return encoded list, must not be modified
+     */
+    public byte[] getEncodedTasks(String username) {
+        return taskListCache.get(username,
+                owner -> JsonCodec.writeTasks(JsonOutput.forThread(), getTasks(owner)).toByteArray());
     }
 
     public TaskEntity getTask(String uuid){
         return taskRepository.query(UUID.fromString(uuid));
     }
 
+    public UserEntity getUser(String username) {
+        return userRepository.query(username);
+    }
+
+    public List<String> getUsernames() {
+        return userRepository.query(user -> true).stream().map(UserEntity::getUsername).collect(Collectors.toList());
+    }
+
+    /**
+     * Replaces account and tasks of the user with the given ones, keeping ids and versions of the tasks.
+     */
+    public void restoreOwner(UserEntity user, List<TaskEntity> tasks) throws BadRequestException {
+        if (!isUserValid(user))
+            throw new BadRequestException("User data are not valid");
+
+        var username = user.getUsername();
+        for (TaskEntity task : getTasks(username))
+            deleteCounted(task.getId());
+
+        if (userRepository.update(username, user) == null)
+            userRepository.save(user);
+        for (TaskEntity task : tasks) {
+            if (task == null || task.getId() == null)
+                throw new BadRequestException("Task without id cannot be restored");
+            task.setOwner(username);
+            restoreCounted(task);
+        }
+        taskListCache.invalidate(username);
+    }
+
+    /**
+     * Removes account and all tasks of the user.
+     *
+     * @return <code>true</code> if the user existed
+     */
+    public boolean deleteOwner(String username) {
+        for (TaskEntity task : getTasks(username))
+            deleteCounted(task.getId());
+        taskListCache.invalidate(username);
+        sessions.revokeUser(username);
+        return userRepository.delete(username);
+    }
+
+    /**
+     * Stores user received from the leader or an import; when it replaces the password of an existing account, the
+     * session tokens issued for the old one are revoked.
+     */
+    public void applyReplicatedUser(UserEntity user) {
+        var previous = userRepository.query(user.getUsername());
+        if (previous != null && !previous.getPassword().equals(user.getPassword()))
+            sessions.revokeUser(user.getUsername());
+        if (userRepository.update(user.getUsername(), user) == null)
+            userRepository.save(user);
+    }
+
+    public void applyReplicatedUserDeletion(String username) {
+        sessions.revokeUser(username);
+        userRepository.delete(username);
+    }
+
+    /**
+     * Stores task received from the leader as it is, keeping its id, owner and version.
+     */
+    public void applyReplicatedTask(TaskEntity task) {
+        restoreCounted(task);
+        taskListCache.invalidate(task.getOwner());
+    }
+
+    public void applyReplicatedTaskDeletion(UUID uuid, String owner) {
+        deleteCounted(uuid);
+        taskListCache.invalidate(owner);
+    }
+
+    /**
+     * Removes all users and tasks before a snapshot from the leader is loaded.
+     */
+    public void clearReplica() {
+        for (TaskEntity task : taskRepository.query(task -> true))
+            applyReplicatedTaskDeletion(task.getId(), task.getOwner());
+        for (UserEntity user : userRepository.query(user -> true))
+            userRepository.delete(user.getUsername());
+    }
+
+    /**
+     * Returns live view of all users, for streaming them out without copying.
+     */
+    public Collection<UserEntity> getAllUsers() {
+        return userRepository.values();
+    }
+
+    /**
+     * Returns live view of all tasks, for streaming them out without copying.
+     */
+    public Collection<TaskEntity> getAllTasks() {
+        return taskRepository.values();
+    }
+
+    /**
+     * Stores a batch of imported users and tasks, replacing existing ones and keeping ids and versions of the tasks.
+     * Users are stored first, so tasks may belong to users of the same batch; the list cache of every affected owner
+     * is invalidated once per batch.
+     *
+     * @return number of tasks which have been rejected as invalid or belonging to an unknown user
+     */
+    public int importBatch(List<UserEntity> users, List<TaskEntity> tasks) {
+        for (UserEntity user : users)
+            applyReplicatedUser(user);
+
+        int rejected = 0;
+        Set<String> owners = new HashSet<>();
+        for (TaskEntity task : tasks) {
+            if (task.getOwner() == null || task.getVersion() < 1 || !userRepository.doesUserExists(task.getOwner())
+                    || !isTaskValid(task)) {
+                rejected++;
+                continue;
+            }
+            restoreCounted(task);
+            owners.add(task.getOwner());
+        }
+        for (String owner : owners)
+            taskListCache.invalidate(owner);
+        return rejected;
+    }
+
+    /**
+     * Stores the task as it is and counts it in the owner's usage without checking the quota.
+     */
+    private void restoreCounted(TaskEntity task) {
+        var previous = taskRepository.query(task.getId());
+        taskRepository.restore(task);
+        if (previous != null)
+            quotas.adjust(previous.getOwner(), -1, -TaskQuotas.sizeOf(previous));
+        quotas.adjust(task.getOwner(), 1, TaskQuotas.sizeOf(task));
+    }
+
+    private void deleteCounted(UUID uuid) {
+        var previous = taskRepository.query(uuid);
+        if (previous != null && taskRepository.delete(uuid))
+            quotas.adjust(previous.getOwner(), -1, -TaskQuotas.sizeOf(previous));
+    }
+
+    private boolean isTaskValid(TaskEntity task) {
+        try {
+            validateTask(task);
+            return true;
+        } catch (BadRequestException e) {
+            return false;
+        }
+    }
+
     public static Predicate<TaskEntity> alwaysTrue(String username) {
         return p -> p.getOwner().equals(username);
     }
@@ -80,6 +314,29 @@ public class ToDoService {
             throw new UnauthorizedException("User not found/ user's password doesnt match!");
     }
 
+    /**
+     * Checks the credentials once and issues a session token which can be used instead of them until it expires.
+     */
+    public String login(List<String> userData) throws UnauthorizedException {
+        validateUser(userData);
+        return sessions.issue(userData.get(0));
+    }
+
+    /**
+     * @return user of the session token
+     * @throws UnauthorizedException if the token is unknown or has expired
+     */
+    public String authenticate(String token) throws UnauthorizedException {
+        var username = sessions.lookup(token);
+        if (username == null)
+            throw new UnauthorizedException("Session token is unknown or has expired");
+        return username;
+    }
+
+    public long getSessionTtlSeconds() {
+        return sessions.getTtlSeconds();
+    }
+
     public void validateTask(TaskEntity task) throws BadRequestException {
         if(task != null && task.getDescription() != null && !task.getDescription().equals(""))
         {
@@ -0,0 +1,178 @@
+package efs.task.todoapp.web;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control combining an adaptive concurrency limit with CoDel style shedding on queueing delay.
+ * <p>
+ * The concurrency limit grows additively while admitted requests finish within the latency target and shrinks
+ * multiplicatively when they do not, so the server settles at the concurrency it can sustain. Independently, queueing
+ * delay is watched as in CoDel: when no request of a whole interval got through the queue within the target, the
+ * queue is standing and requests which waited longer than the target are shed until one gets below it again.
+ * Rejecting them early keeps the latency of admitted requests bounded, while a single slow request never triggers
+ * shedding. Slow and shed requests decrease the concurrency limit at most once per interval, so a burst of them does
+ * not collapse it to the minimum.
+ */
+public class AdmissionController {
+
+    static final long INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final double DECREASE_FACTOR = 0.9;
+
+    private final long queueDelayTargetNanos;
+    private final long latencyTargetNanos;
+    private final int minLimit;
+    private final int maxLimit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong shed = new AtomicLong();
+    private final AtomicLong admitted = new AtomicLong();
+
+    private final AtomicLong firstAboveTarget = new AtomicLong();
+    private final AtomicLong lastDecrease = new AtomicLong();
+    // bits of the double concurrency limit, updated with compare-and-set
+    private final AtomicLong limitBits = new AtomicLong();
+
+    private volatile boolean dropping;
+    private volatile long lastQueueDelay;
+
+    /**
+     * @param queueDelayTargetMillis queueing delay above which the queue is considered standing
+     * @param latencyTargetMillis processing time admitted requests should meet
+     * @param minLimit lower bound of the concurrency limit
+     * @param maxLimit upper bound and initial value of the concurrency limit
+     */
+    public AdmissionController(long queueDelayTargetMillis, long latencyTargetMillis, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit)
+            throw new IllegalArgumentException("Invalid concurrency limits");
+
+        this.queueDelayTargetNanos = TimeUnit.MILLISECONDS.toNanos(queueDelayTargetMillis);
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(latencyTargetMillis);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limitBits.set(Double.doubleToRawLongBits(maxLimit));
+    }
+
+    /**
+     * Decides whether a request which has waited specified time in the queue may be processed. Every successful call
+     * has to be paired with {@link #release(long)}.
+     *
+     * @param queueDelayNanos time the request spent waiting for a worker thread
+     * @return <code>true</code> if the request has been admitted
+     */
+    public boolean tryAcquire(long queueDelayNanos) {
+        return tryAcquire(queueDelayNanos, System.nanoTime());
+    }
+
+    /**
+     * @param nowNanos current {@link System#nanoTime()}
+     */
+    boolean tryAcquire(long queueDelayNanos, long nowNanos) {
+        if (shouldDrop(queueDelayNanos, nowNanos)) {
+            shed.incrementAndGet();
+            decreaseOncePerInterval(nowNanos | 1);
+            return false;
+        }
+
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                shed.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                admitted.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases the slot of an admitted request and adapts the concurrency limit to its latency.
+     *
+     * @param latencyNanos time spent processing the request
+     */
+    public void release(long latencyNanos) {
+        release(latencyNanos, System.nanoTime());
+    }
+
+    /**
+     * @param nowNanos current {@link System#nanoTime()}
+     */
+    void release(long latencyNanos, long nowNanos) {
+        inFlight.decrementAndGet();
+
+        if (latencyNanos > latencyTargetNanos) {
+            decreaseOncePerInterval(nowNanos | 1);
+            return;
+        }
+        while (true) {
+            long bits = limitBits.get();
+            double current = Double.longBitsToDouble(bits);
+            if (current >= maxLimit)
+                return;
+            double increased = Math.min(maxLimit, current + 1 / current);
+            if (limitBits.compareAndSet(bits, Double.doubleToRawLongBits(increased)))
+                return;
+        }
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getShedCount() {
+        return shed.get();
+    }
+
+    public long getAdmittedCount() {
+        return admitted.get();
+    }
+
+    public long getQueueDelayNanos() {
+        return lastQueueDelay;
+    }
+
+    public boolean isDropping() {
+        return dropping;
+    }
+
+    private boolean shouldDrop(long queueDelayNanos, long nowNanos) {
+        lastQueueDelay = queueDelayNanos;
+
+        if (queueDelayNanos <= queueDelayTargetNanos) {
+            if (firstAboveTarget.get() != 0)
+                firstAboveTarget.set(0);
+            if (dropping)
+                dropping = false;
+            return false;
+        }
+
+        long now = nowNanos | 1;
+        long firstAbove = firstAboveTarget.get();
+        if (firstAbove == 0) {
+            firstAboveTarget.compareAndSet(0, now);
+            return dropping;
+        }
+        if (now - firstAbove >= INTERVAL_NANOS)
+            dropping = true;
+        return dropping;
+    }
+
+    private void decreaseOncePerInterval(long now) {
+        long last = lastDecrease.get();
+        if ((last == 0 || now - last >= INTERVAL_NANOS) && lastDecrease.compareAndSet(last, now)) {
+            while (true) {
+                long bits = limitBits.get();
+                double decreased = Math.max(minLimit, Double.longBitsToDouble(bits) * DECREASE_FACTOR);
+                if (limitBits.compareAndSet(bits, Double.doubleToRawLongBits(decreased)))
+                    return;
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+
+import static efs.task.todoapp.web.HttpCode.SERVICE_UNAVAILABLE;
+
+/**
+ * Rejects requests with 503 when {@link AdmissionController} decides the server is overloaded.
+ */
+public class AdmissionFilter extends Filter {
+
+    private final AdmissionController controller;
+
+    public AdmissionFilter(AdmissionController controller) {
+        this.controller = controller;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (!controller.tryAcquire(TimedExecutor.queueDelayNanos())) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            exchange.sendResponseHeaders(SERVICE_UNAVAILABLE.getCode(), -1);
+            exchange.close();
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            controller.release(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Adaptive admission control";
+    }
+}
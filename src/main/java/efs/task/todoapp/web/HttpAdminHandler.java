@@ -0,0 +1,167 @@
+package efs.task.todoapp.web;
+
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import efs.task.todoapp.codec.JsonCodec;
+import efs.task.todoapp.codec.JsonOutput;
+import efs.task.todoapp.codec.NdjsonReader;
+import efs.task.todoapp.metrics.Metrics;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.service.Exceptions.BadRequestException;
+import efs.task.todoapp.service.ToDoService;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import static efs.task.todoapp.web.HttpCode.*;
+
+/**
+ * Bulk transfer of the whole data set as newline-delimited JSON, one user or task per line:
+ * <ul>
+ *     <li><code>GET /todo/admin/export</code> - streams all users, then all tasks,</li>
+ *     <li><code>POST /todo/admin/import</code> - stores the records of the body in batches, replacing existing users
+ *     and tasks, and answers with the number of imported and rejected records.</li>
+ * </ul>
+ * Both directions work record by record with buffers of fixed size, so memory use does not depend on the data set.
+ * Requests have to carry the admin token in the <code>X-Admin-Token</code> header.
+ */
+public class HttpAdminHandler implements HttpHandler {
+
+    private static final Logger LOGGER = Logger.getLogger(HttpAdminHandler.class.getName());
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_RECORD_LENGTH = 1024 * 1024;
+    private static final int BATCH_SIZE = 1_000;
+
+    private final ToDoService service;
+    private final byte[] token;
+
+    private final LongAdder exported = new LongAdder();
+    private final LongAdder imported = new LongAdder();
+    private volatile double exportRecordsPerSecond;
+    private volatile double importRecordsPerSecond;
+
+    public HttpAdminHandler(ToDoService service, String token) {
+        this.service = service;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public void registerMetrics(Metrics metrics) {
+        metrics.register("admin.exportedRecords", exported::sum);
+        metrics.register("admin.importedRecords", imported::sum);
+        metrics.register("admin.exportRecordsPerSecond", () -> exportRecordsPerSecond);
+        metrics.register("admin.importRecordsPerSecond", () -> importRecordsPerSecond);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            var presented = exchange.getRequestHeaders().getFirst("X-Admin-Token");
+            if (presented == null || !MessageDigest.isEqual(token, presented.getBytes(StandardCharsets.UTF_8))) {
+                exchange.sendResponseHeaders(UNAUTHORIZED.getCode(), -1);
+                return;
+            }
+
+            var path = exchange.getRequestURI().getPath();
+            var method = exchange.getRequestMethod();
+            if (path.equals("/todo/admin/export") && method.equals(HttpMethod.GET.name()))
+                handleExport(exchange);
+            else if (path.equals("/todo/admin/import") && method.equals(HttpMethod.POST.name()))
+                handleImport(exchange);
+            else
+                exchange.sendResponseHeaders(NOT_FOUND.getCode(), -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleExport(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        long records = 0;
+
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(OK.getCode(), 0);
+        try (OutputStream output = new BufferedOutputStream(exchange.getResponseBody(), OUTPUT_BUFFER_SIZE)) {
+            for (UserEntity user : service.getAllUsers()) {
+                JsonCodec.writeUserRecord(JsonOutput.forThread(), user).writeByte('\n').writeTo(output);
+                records++;
+            }
+            for (TaskEntity task : service.getAllTasks()) {
+                JsonCodec.writeTaskRecord(JsonOutput.forThread(), task).writeByte('\n').writeTo(output);
+                records++;
+            }
+        }
+
+        exported.add(records);
+        exportRecordsPerSecond = perSecond(records, System.nanoTime() - start);
+        LOGGER.info("Exported " + records + " records, " + Math.round(exportRecordsPerSecond) + " records/s");
+    }
+
+    private void handleImport(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        long users = 0;
+        long tasks = 0;
+        long rejected = 0;
+
+        var reader = new NdjsonReader(exchange.getRequestBody(), MAX_RECORD_LENGTH);
+        List<UserEntity> userBatch = new ArrayList<>(BATCH_SIZE);
+        List<TaskEntity> taskBatch = new ArrayList<>(BATCH_SIZE);
+        while (reader.next()) {
+            var record = reader.isTooLong() ? null : readRecord(reader);
+            if (record instanceof UserEntity && service.isUserValid((UserEntity) record)) {
+                userBatch.add((UserEntity) record);
+                users++;
+            } else if (record instanceof TaskEntity) {
+                taskBatch.add((TaskEntity) record);
+                tasks++;
+            } else {
+                rejected++;
+            }
+
+            if (userBatch.size() + taskBatch.size() >= BATCH_SIZE) {
+                int rejectedTasks = service.importBatch(userBatch, taskBatch);
+                tasks -= rejectedTasks;
+                rejected += rejectedTasks;
+                userBatch.clear();
+                taskBatch.clear();
+            }
+        }
+        int rejectedTasks = service.importBatch(userBatch, taskBatch);
+        tasks -= rejectedTasks;
+        rejected += rejectedTasks;
+
+        imported.add(users + tasks);
+        importRecordsPerSecond = perSecond(users + tasks, System.nanoTime() - start);
+        LOGGER.info("Imported " + (users + tasks) + " records, " + Math.round(importRecordsPerSecond) + " records/s");
+
+        var summary = new JsonObject();
+        summary.addProperty("users", users);
+        summary.addProperty("tasks", tasks);
+        summary.addProperty("rejected", rejected);
+        summary.addProperty("recordsPerSecond", Math.round(importRecordsPerSecond));
+        var response = summary.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(OK.getCode(), response.length);
+        exchange.getResponseBody().write(response);
+    }
+
+    private static Object readRecord(NdjsonReader reader) {
+        try {
+            return JsonCodec.readRecord(reader.getBuffer(), reader.getLineStart(), reader.getLineLength());
+        } catch (BadRequestException e) {
+            return null;
+        }
+    }
+
+    private static double perSecond(long records, long nanos) {
+        return nanos > 0 ? records * 1e9 / nanos : 0;
+    }
+}
@@ -0,0 +1,120 @@
+package efs.task.todoapp.web;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import efs.task.todoapp.cluster.OwnerSnapshot;
+import efs.task.todoapp.service.Exceptions.BadRequestException;
+import efs.task.todoapp.service.Exceptions.PayloadTooLargeException;
+import efs.task.todoapp.service.ToDoService;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static efs.task.todoapp.web.HttpCode.*;
+
+/**
+ * Internal endpoint of a cluster node, used by the router to move owners between nodes:
+ * <ul>
+ *     <li><code>GET /todo/cluster/owners</code> - usernames stored on the node,</li>
+ *     <li><code>GET /todo/cluster/owners/{username}</code> - account and tasks of the owner,</li>
+ *     <li><code>PUT /todo/cluster/owners/{username}</code> - replaces account and tasks of the owner,</li>
+ *     <li><code>DELETE /todo/cluster/owners/{username}</code> - removes the owner from the node.</li>
+ * </ul>
+ * Usernames in the path are URL encoded. Snapshots are parsed straight from the request stream, so a large owner is
+ * never held as a whole body besides the parsed snapshot.
+ */
+public class HttpClusterHandler implements HttpHandler {
+
+    private static final String OWNERS_PATH = "/todo/cluster/owners";
+    private static final Gson gson = new Gson();
+
+    static final int DEFAULT_MAX_SNAPSHOT_BYTES = 64 * 1024 * 1024;
+
+    private final ToDoService service;
+    private final int maxSnapshotBytes;
+
+    public HttpClusterHandler(ToDoService service) {
+        this(service, DEFAULT_MAX_SNAPSHOT_BYTES);
+    }
+
+    /**
+     * @param maxSnapshotBytes size of the largest accepted owner snapshot, larger ones get 413 Payload Too Large
+     */
+    public HttpClusterHandler(ToDoService service, int maxSnapshotBytes) {
+        this.service = service;
+        this.maxSnapshotBytes = maxSnapshotBytes;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            var path = exchange.getRequestURI().getRawPath();
+            var method = exchange.getRequestMethod();
+
+            if (path.equals(OWNERS_PATH) && method.equals(HttpMethod.GET.name())) {
+                send(exchange, OK, gson.toJson(service.getUsernames()));
+            } else if (path.startsWith(OWNERS_PATH + "/")) {
+                var username = URLDecoder.decode(path.substring(OWNERS_PATH.length() + 1), StandardCharsets.UTF_8);
+                handleOwner(exchange, method, username);
+            } else {
+                exchange.sendResponseHeaders(NOT_FOUND.getCode(), -1);
+            }
+        } catch (BadRequestException | JsonParseException | IllegalArgumentException e) {
+            exchange.sendResponseHeaders(BAD_REQUEST.getCode(), -1);
+        } catch (PayloadTooLargeException e) {
+            exchange.sendResponseHeaders(PAYLOAD_TOO_LARGE.getCode(), -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleOwner(HttpExchange exchange, String method, String username)
+            throws IOException, BadRequestException, PayloadTooLargeException {
+
+        switch (HttpMethod.valueOf(method)) {
+            case GET:
+                var user = service.getUser(username);
+                if (user == null)
+                    exchange.sendResponseHeaders(NOT_FOUND.getCode(), -1);
+                else
+                    send(exchange, OK, gson.toJson(new OwnerSnapshot(user, service.getTasks(username))));
+                break;
+            case PUT:
+                var snapshot = readSnapshot(exchange);
+                if (snapshot == null || snapshot.getUser() == null
+                        || !username.equals(snapshot.getUser().getUsername()))
+                    throw new BadRequestException("Snapshot does not match the owner");
+
+                service.restoreOwner(snapshot.getUser(), snapshot.getTasks() != null ? snapshot.getTasks() : List.of());
+                exchange.sendResponseHeaders(OK.getCode(), -1);
+                break;
+            case DELETE:
+                exchange.sendResponseHeaders(service.deleteOwner(username) ? OK.getCode() : NOT_FOUND.getCode(), -1);
+                break;
+            default:
+                exchange.sendResponseHeaders(BAD_REQUEST.getCode(), -1);
+        }
+    }
+
+    private OwnerSnapshot readSnapshot(HttpExchange exchange) throws IOException, PayloadTooLargeException {
+        var body = RequestBodies.stream(exchange, maxSnapshotBytes);
+        try {
+            return gson.fromJson(new InputStreamReader(body, StandardCharsets.UTF_8), OwnerSnapshot.class);
+        } catch (JsonParseException e) {
+            body.checkLimit();
+            throw e;
+        }
+    }
+
+    private static void send(HttpExchange exchange, HttpCode status, String json) throws IOException {
+        var response = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status.getCode(), response.length);
+        exchange.getResponseBody().write(response);
+    }
+}
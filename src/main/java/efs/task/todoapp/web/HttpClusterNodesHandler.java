@@ -0,0 +1,89 @@
+package efs.task.todoapp.web;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import efs.task.todoapp.cluster.ClusterRouter;
+import efs.task.todoapp.service.Exceptions.PayloadTooLargeException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static efs.task.todoapp.web.HttpCode.*;
+
+/**
+ * Membership endpoint of the router: <code>GET /todo/cluster/nodes</code> lists the nodes,
+ * <code>POST /todo/cluster/nodes</code> with <code>host:port</code> as the body adds a node and rebalances owners.
+ * Adding a node copies whole owners, passwords included, to it, so requests have to carry the admin token in the
+ * <code>X-Admin-Token</code> header.
+ */
+public class HttpClusterNodesHandler implements HttpHandler {
+
+    private static final String NODE_PATTERN = "[A-Za-z0-9.\\-]+:[0-9]{1,5}";
+    private static final int MAX_BODY_BYTES = 1024;
+    private static final Logger LOGGER = Logger.getLogger(HttpClusterNodesHandler.class.getName());
+    private static final Gson gson = new Gson();
+
+    private final ClusterRouter router;
+    private final byte[] token;
+
+    public HttpClusterNodesHandler(ClusterRouter router, String token) {
+        this.router = router;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            var presented = exchange.getRequestHeaders().getFirst("X-Admin-Token");
+            if (presented == null || !MessageDigest.isEqual(token, presented.getBytes(StandardCharsets.UTF_8))) {
+                exchange.sendResponseHeaders(UNAUTHORIZED.getCode(), -1);
+                return;
+            }
+            if (!exchange.getRequestURI().getPath().equals("/todo/cluster/nodes")) {
+                exchange.sendResponseHeaders(NOT_FOUND.getCode(), -1);
+                return;
+            }
+
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                    send(exchange, gson.toJson(router.getNodes()));
+                    break;
+                case "POST":
+                    var node = RequestBodies.read(exchange, MAX_BODY_BYTES).asString().trim();
+                    if (!node.matches(NODE_PATTERN)) {
+                        exchange.sendResponseHeaders(BAD_REQUEST.getCode(), -1);
+                        return;
+                    }
+
+                    var response = new JsonObject();
+                    response.addProperty("moved", router.addNode(node));
+                    send(exchange, response.toString());
+                    break;
+                default:
+                    exchange.sendResponseHeaders(BAD_REQUEST.getCode(), -1);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Adding node failed", e);
+            exchange.sendResponseHeaders(BAD_GATEWAY.getCode(), -1);
+        } catch (PayloadTooLargeException e) {
+            exchange.sendResponseHeaders(PAYLOAD_TOO_LARGE.getCode(), -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(SERVICE_UNAVAILABLE.getCode(), -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void send(HttpExchange exchange, String json) throws IOException {
+        var response = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(OK.getCode(), response.length);
+        exchange.getResponseBody().write(response);
+    }
+}
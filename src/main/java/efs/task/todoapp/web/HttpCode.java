@@ -7,7 +7,14 @@ public enum HttpCode {
     UNAUTHORIZED(401),
     FORBIDDEN(403),
     NOT_FOUND(404),
-    CONFLICT(409);
+    METHOD_NOT_ALLOWED(405),
+    CONFLICT(409),
+    PRECONDITION_FAILED(412),
+    PAYLOAD_TOO_LARGE(413),
+    TOO_MANY_REQUESTS(429),
+    BAD_GATEWAY(502),
+    SERVICE_UNAVAILABLE(503),
+    INSUFFICIENT_STORAGE(507);
 
     private final int code;
 
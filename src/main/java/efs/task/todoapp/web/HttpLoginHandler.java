@@ -0,0 +1,55 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import efs.task.todoapp.codec.JsonOutput;
+import efs.task.todoapp.service.Exceptions.BadRequestException;
+import efs.task.todoapp.service.Exceptions.UnauthorizedException;
+import efs.task.todoapp.service.ToDoService;
+
+import java.io.IOException;
+
+import static efs.task.todoapp.web.HttpCode.*;
+
+/**
+ * <code>POST /todo/login</code> with the usual <code>auth</code> header of base64 encoded
+ * <code>username:password</code> checks the credentials once and answers with a session token,
+ * <code>{"token":"...","expiresIn":seconds}</code>. Until it expires the token can be sent as the <code>auth</code>
+ * header instead of the credentials.
+ */
+public class HttpLoginHandler implements HttpHandler {
+
+    private final ToDoService service;
+
+    public HttpLoginHandler(ToDoService service) {
+        this.service = service;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals(HttpMethod.POST.name())) {
+                exchange.sendResponseHeaders(METHOD_NOT_ALLOWED.getCode(), -1);
+                return;
+            }
+            var userData = HttpTaskHandler.validateAuthHeader(exchange.getRequestHeaders().getFirst("auth"));
+            exchange.setAttribute(RequestLogFilter.USER_ATTRIBUTE, userData.get(0));
+            var token = service.login(userData);
+
+            var response = JsonOutput.forThread()
+                    .writeAscii("{\"token\":").writeString(token)
+                    .writeAscii(",\"expiresIn\":").writeLong(service.getSessionTtlSeconds())
+                    .writeByte('}');
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("Cache-Control", "no-store");
+            exchange.sendResponseHeaders(OK.getCode(), response.length());
+            response.writeTo(exchange.getResponseBody());
+        } catch (BadRequestException e) {
+            exchange.sendResponseHeaders(BAD_REQUEST.getCode(), -1);
+        } catch (UnauthorizedException e) {
+            exchange.sendResponseHeaders(UNAUTHORIZED.getCode(), -1);
+        } finally {
+            exchange.close();
+        }
+    }
+}
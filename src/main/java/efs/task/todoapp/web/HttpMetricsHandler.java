@@ -0,0 +1,38 @@
+package efs.task.todoapp.web;
+
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import efs.task.todoapp.metrics.Metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static efs.task.todoapp.web.HttpCode.*;
+
+public class HttpMetricsHandler implements HttpHandler {
+
+    private final Metrics metrics;
+
+    public HttpMetricsHandler(Metrics metrics) { this.metrics = metrics; }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!HttpMethod.GET.name().equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(BAD_REQUEST.getCode(), -1);
+                return;
+            }
+
+            var responseJson = new JsonObject();
+            metrics.snapshot().forEach(responseJson::addProperty);
+
+            var response = responseJson.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(OK.getCode(), response.length);
+            exchange.getResponseBody().write(response);
+        } finally {
+            exchange.close();
+        }
+    }
+}
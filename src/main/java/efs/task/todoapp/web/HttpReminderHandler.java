@@ -0,0 +1,185 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import efs.task.todoapp.reminder.ReminderSink;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.service.Exceptions.BadRequestException;
+import efs.task.todoapp.service.Exceptions.UnauthorizedException;
+import efs.task.todoapp.service.ToDoService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static efs.task.todoapp.web.HttpCode.*;
+
+/**
+ * Streams reminders of the authenticated user as server-sent events, <code>GET /todo/reminders</code>. Every due task
+ * is sent as a <code>reminder</code> event carrying the task in JSON. The response stays open after the handler
+ * returns, so subscribers do not occupy worker threads; a subscriber is dropped when writing to it fails or when the
+ * user opens more than {@link #MAX_SUBSCRIPTIONS_PER_USER} streams.
+ * <p>
+ * {@link #remind} runs on the scheduler thread, so it only queues the event. Every subscriber has a bounded queue,
+ * drained by a writer thread taken from a pool while there is something to send, so a client which stops reading
+ * blocks only its own writer. A subscriber whose queue overflows is not keeping up and is dropped.
+ */
+public class HttpReminderHandler implements HttpHandler, ReminderSink, AutoCloseable {
+
+    static final int MAX_SUBSCRIPTIONS_PER_USER = 8;
+    static final int MAX_PENDING_EVENTS = 64;
+
+    private static final byte[] CONNECTED = ": connected\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EVENT_PREFIX = "event: reminder\ndata: ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EVENT_SUFFIX = "\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ToDoService service;
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService writers = Executors.newCachedThreadPool(runnable -> {
+        var thread = new Thread(runnable, "reminder-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public HttpReminderHandler(ToDoService service) {
+        this.service = service;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals(HttpMethod.GET.name())) {
+                exchange.sendResponseHeaders(METHOD_NOT_ALLOWED.getCode(), -1);
+                exchange.close();
+                return;
+            }
+            var userData = HttpTaskHandler.resolveAuthHeader(service, exchange.getRequestHeaders().getFirst("auth"));
+            HttpTaskHandler.validateUser(service, userData);
+            exchange.setAttribute(RequestLogFilter.USER_ATTRIBUTE, userData.get(0));
+
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(OK.getCode(), 0);
+            var output = exchange.getResponseBody();
+            output.write(CONNECTED);
+            output.flush();
+            subscribe(userData.get(0), exchange);
+        } catch (BadRequestException e) {
+            exchange.sendResponseHeaders(BAD_REQUEST.getCode(), -1);
+            exchange.close();
+        } catch (UnauthorizedException e) {
+            exchange.sendResponseHeaders(UNAUTHORIZED.getCode(), -1);
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void remind(TaskEntity task) {
+        var streams = subscribers.get(task.getOwner());
+        if (streams == null || task.getEncoded() == null)
+            return;
+        for (Subscriber subscriber : streams)
+            subscriber.offer(task.getEncoded());
+    }
+
+    /**
+     * Ends all streams.
+     */
+    @Override
+    public void close() {
+        for (var streams : subscribers.values()) {
+            for (Subscriber subscriber : streams)
+                unsubscribe(subscriber);
+        }
+        writers.shutdown();
+    }
+
+    int getSubscriberCount(String username) {
+        var streams = subscribers.get(username);
+        return streams == null ? 0 : streams.size();
+    }
+
+    private void subscribe(String username, HttpExchange exchange) {
+        var streams = subscribers.computeIfAbsent(username, u -> new CopyOnWriteArrayList<>());
+        streams.add(new Subscriber(username, exchange));
+        while (streams.size() > MAX_SUBSCRIPTIONS_PER_USER)
+            unsubscribe(streams.get(0));
+    }
+
+    /**
+     * Removes the subscriber and lets its writer end the stream, so the caller never waits for the client.
+     */
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.username, (u, streams) -> {
+            streams.remove(subscriber);
+            return streams.isEmpty() ? null : streams;
+        });
+        subscriber.closed = true;
+        subscriber.schedule();
+    }
+
+    private final class Subscriber implements Runnable {
+
+        private final String username;
+        private final HttpExchange exchange;
+        private final Queue<byte[]> pending = new ArrayBlockingQueue<>(MAX_PENDING_EVENTS);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(String username, HttpExchange exchange) {
+            this.username = username;
+            this.exchange = exchange;
+        }
+
+        void offer(byte[] encodedTask) {
+            if (closed)
+                return;
+            if (pending.offer(encodedTask))
+                schedule();
+            else
+                unsubscribe(this);
+        }
+
+        void schedule() {
+            if (!scheduled.compareAndSet(false, true))
+                return;
+            try {
+                writers.execute(this);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                byte[] encodedTask;
+                while (!closed && (encodedTask = pending.poll()) != null) {
+                    OutputStream output = exchange.getResponseBody();
+                    output.write(EVENT_PREFIX);
+                    output.write(encodedTask);
+                    output.write(EVENT_SUFFIX);
+                    output.flush();
+                }
+            } catch (IOException e) {
+                unsubscribe(this);
+            } finally {
+                scheduled.set(false);
+            }
+            if (closed)
+                exchange.close();
+            else if (!pending.isEmpty())
+                schedule();
+        }
+    }
+}
@@ -1,56 +1,89 @@
 package efs.task.todoapp.web;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import efs.task.todoapp.codec.JsonOutput;
+import efs.task.todoapp.codec.Payload;
+import efs.task.todoapp.codec.WireFormat;
+import efs.task.todoapp.query.TaskFilter;
 import efs.task.todoapp.repository.TaskEntity;
 import efs.task.todoapp.service.Exceptions.BadRequestException;
 import efs.task.todoapp.service.Exceptions.ForbiddenException;
 import efs.task.todoapp.service.Exceptions.NotFoundException;
+import efs.task.todoapp.service.Exceptions.PayloadTooLargeException;
+import efs.task.todoapp.service.Exceptions.PreconditionFailedException;
+import efs.task.todoapp.service.Exceptions.QuotaExceededException;
 import efs.task.todoapp.service.Exceptions.UnauthorizedException;
+import efs.task.todoapp.service.SessionTokens;
 import efs.task.todoapp.service.ToDoService;
+import efs.task.todoapp.web.RequestTimings.Stage;
+import efs.task.todoapp.web.RequestTimings.Timer;
 import static efs.task.todoapp.web.HttpCode.*;
 
 import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class HttpTaskHandler implements HttpHandler {
 
     private final ToDoService service;
+    private final RequestTimings timings;
+    private final int maxBodyBytes;
 
     private static final Logger LOGGER = Logger.getLogger(HttpTaskHandler.class.getName());
     private static final Base64.Decoder decoder = Base64.getDecoder();
-    private static final Gson gson = new Gson();
-    private static final String uuidPattern = "/todo/task/[0-9a-f]{8}-[0-9a-f]{4}-[1-5][0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}";
+    private static final String uuidPattern = "/todo/task/[0-9a-f]{8}-[0-9a-f]{4}-[1-8][0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}";
     private static final String base64Pattern = "^(?:[A-Za-z0-9+/]{4})*(?:[A-Za-z0-9+/]{2}==|[A-Za-z0-9+/]{3}=|[A-Za-z0-9+/]{4})$";
 
     public HttpTaskHandler(ToDoService service) {
+        this(service, new RequestTimings(Long.MAX_VALUE, false));
+    }
+
+    public HttpTaskHandler(ToDoService service, RequestTimings timings) {
+        this(service, timings, RequestBodies.DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxBodyBytes size of the largest accepted request body, larger ones get 413 Payload Too Large
+     */
+    public HttpTaskHandler(ToDoService service, RequestTimings timings, int maxBodyBytes) {
         this.service = service;
+        this.timings = timings;
+        this.maxBodyBytes = maxBodyBytes;
     }
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
+        var timer = timings.start();
         try {
-            var uri = exchange.getRequestURI().toString();
+            var uri = exchange.getRequestURI().getPath();
             var method = exchange.getRequestMethod();
             var auth = exchange.getRequestHeaders().getFirst("auth");
-            var userData = validateAuthHeader(auth);
-            var body = new String(exchange.getRequestBody().readAllBytes());
+            var userData = resolveAuthHeader(service, auth);
+            exchange.setAttribute(RequestLogFilter.USER_ATTRIBUTE, userData.get(0));
+            timer.mark(Stage.AUTH);
+
+            var body = RequestBodies.read(exchange, maxBodyBytes);
+            var requestFormat = WireFormat.ofContentType(exchange.getRequestHeaders().getFirst("Content-Type"));
+            var responseFormat = WireFormat.ofAccept(exchange.getRequestHeaders().getFirst("Accept"));
+            timer.mark(Stage.PARSE);
 
-            String response = "";
+            Payload response = null;
+            int status = OK.getCode();
 
             if (uri.matches("/todo/task/?")) {
                 switch (HttpMethod.valueOf(method)) {
                     case POST:
-                        response = handlePOST(userData,body);
-                        exchange.sendResponseHeaders(CREATED.getCode(), response.length());
+                        response = handlePOST(userData,body,requestFormat,responseFormat,timer);
+                        status = CREATED.getCode();
                         break;
                     case GET:
-                        response = handleGET(userData);
-                        exchange.sendResponseHeaders(OK.getCode(), response.length());
+                        var filter = queryParameter(exchange.getRequestURI().getRawQuery(), "filter");
+                        response = filter == null ? handleGET(userData,responseFormat,timer)
+                                : handleGET_filtered(userData,filter,responseFormat,exchange,timer);
                         break;
                 }
             }
@@ -61,127 +94,201 @@ public class HttpTaskHandler implements HttpHandler {
 
                 switch (HttpMethod.valueOf(method)) {
                     case GET:
-                        response=handleGET_ID(userData,id);
-                        exchange.sendResponseHeaders(OK.getCode(), response.length());
+                        response=handleGET_ID(userData,id,responseFormat,exchange,timer);
                         break;
                     case PUT:
-                        response=handlePUT_ID(userData,body,id);
-                        exchange.sendResponseHeaders(OK.getCode(), response.length());
+                        var ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+                        response=handlePUT_ID(userData,body,id,ifMatch,requestFormat,responseFormat,exchange,timer);
                         break;
                     case DELETE:
-                        response = handleDELETE_ID(userData,id);
-                        exchange.sendResponseHeaders(OK.getCode(), response.length());
+                        response = handleDELETE_ID(userData,id,timer);
                         break;
                 }
             }
 
-            if(!response.isEmpty()) {
+            if(response != null) {
+                if (!HttpMethod.DELETE.name().equals(method))
+                    exchange.getResponseHeaders().set("Content-Type", responseFormat.getContentType());
+                timer.mark(Stage.SERIALIZE);
+                timings.addServerTiming(exchange, timer);
+                exchange.sendResponseHeaders(status, response.length());
                 var responseBody = exchange.getResponseBody();
-                responseBody.write(response.getBytes());
+                response.writeTo(responseBody);
                 responseBody.close();
+                timer.mark(Stage.SERIALIZE);
                 exchange.close();
             }
             else {
-                LOGGER.warning("URI doesnt match!");
                 exchange.sendResponseHeaders(BAD_REQUEST.getCode(), 0);
             }
 
         } catch (BadRequestException | IOException e ) {
-            LOGGER.warning(e.getMessage());
             exchange.sendResponseHeaders(BAD_REQUEST.getCode(), 0);
         } catch (UnauthorizedException  e) {
-            LOGGER.warning(e.getMessage());
             exchange.sendResponseHeaders(UNAUTHORIZED.getCode(), 0);
         }catch (ForbiddenException  e) {
-            LOGGER.warning(e.getMessage());
             exchange.sendResponseHeaders(FORBIDDEN.getCode(), 0);
         }catch (NotFoundException  e) {
-            LOGGER.warning(e.getMessage());
             exchange.sendResponseHeaders(NOT_FOUND.getCode(), 0);
+        }catch (PreconditionFailedException  e) {
+            exchange.sendResponseHeaders(PRECONDITION_FAILED.getCode(), 0);
+        } catch (PayloadTooLargeException e) {
+            exchange.sendResponseHeaders(PAYLOAD_TOO_LARGE.getCode(), 0);
+        } catch (QuotaExceededException e) {
+            exchange.sendResponseHeaders(INSUFFICIENT_STORAGE.getCode(), 0);
         } catch (Exception e) {
-            LOGGER.warning("UNCATCHED PROBLEM");
-            LOGGER.warning(e.getMessage());
+            LOGGER.log(Level.WARNING, "UNCATCHED PROBLEM", e);
         } finally {
             exchange.close();
+            timings.finish(timer, exchange.getRequestMethod(), exchange.getRequestURI().getPath());
         }
     }
 
-    private String handlePOST(List<String> userData,String body)
-            throws IOException, BadRequestException, UnauthorizedException {
+    private Payload handlePOST(List<String> userData,RequestBodies.Body body,WireFormat requestFormat,WireFormat responseFormat,
+                               Timer timer)
+            throws IOException, BadRequestException, UnauthorizedException, QuotaExceededException {
 
-        var task = gson.fromJson(body, TaskEntity.class);
+        var task = requestFormat.readTask(body.bytes(), body.length());
 
         service.validateTask(task);
-        service.validateUser(userData);
-        
+        timer.mark(Stage.PARSE);
+
+        validateUser(service, userData);
+        timer.mark(Stage.AUTH);
+
         UUID taskId = service.saveTask(task, userData.get(0));
+        timer.mark(Stage.REPOSITORY);
+
+        return responseFormat.writeId(taskId);
+    }
 
-        var responseJson = new JsonObject();
-        responseJson.addProperty("id", String.valueOf(taskId));
+    private Payload handleGET(List<String> userData,WireFormat responseFormat,Timer timer) throws IOException, BadRequestException, UnauthorizedException {
+
+        validateUser(service, userData);
+        timer.mark(Stage.AUTH);
+
+        if (responseFormat == WireFormat.JSON) {
+            var listOfTasks = service.getEncodedTasks(userData.get(0));
+            timer.mark(Stage.REPOSITORY);
+            return JsonOutput.wrap(listOfTasks);
+        }
 
-        LOGGER.info("SERVER: Task \"" + task.getId() + "\" has been added to task-repository.");
-        return responseJson.toString();
+        var listOfTasks = service.getTasks(userData.get(0));
+        timer.mark(Stage.REPOSITORY);
+        return responseFormat.writeTasks(listOfTasks);
     }
 
-    private String handleGET(List<String> userData) throws IOException, BadRequestException, UnauthorizedException {
+    /**
+     * Lists tasks matching the filter expression, see {@link TaskFilter#parse(String)}. The chosen plan is reported
+     * in the <code>X-Query-Plan</code> header.
+     */
+    private Payload handleGET_filtered(List<String> userData,String filter,WireFormat responseFormat,
+                                       HttpExchange exchange,Timer timer)
+            throws BadRequestException, UnauthorizedException {
 
-        service.validateUser(userData);
+        validateUser(service, userData);
+        timer.mark(Stage.AUTH);
 
-        List<TaskEntity> listOfTasks = service.getTasks(userData.get(0));
+        var plan = service.planTaskQuery(TaskFilter.parse(filter), userData.get(0));
+        exchange.getResponseHeaders().set("X-Query-Plan", plan.explain());
+        timer.mark(Stage.PARSE);
 
-        LOGGER.info("SERVER: List of tasks \"" + userData.get(0) + "\" has been sent.");
-        return SendResponseListOfTasks(listOfTasks);
+        var listOfTasks = service.getTasks(plan);
+        timer.mark(Stage.REPOSITORY);
+        return responseFormat.writeTasks(listOfTasks);
     }
 
-    private String handleGET_ID(List<String> userData,String id)
+    private Payload handleGET_ID(List<String> userData,String id,WireFormat responseFormat,HttpExchange exchange,
+                                 Timer timer)
             throws BadRequestException, UnauthorizedException, NotFoundException, ForbiddenException, IOException {
 
-        service.validateUser(userData);
+        validateUser(service, userData);
+        timer.mark(Stage.AUTH);
 
         TaskEntity task = service.getTask(id);
 
         service.check_taskExists_belongsToUser(task,userData.get(0));
+        timer.mark(Stage.REPOSITORY);
 
-        LOGGER.info("SERVER: Task \"" + id + "\" has been sent.");
-        return SendResponseTask(task);
+        exchange.getResponseHeaders().set("ETag", toETag(task.getVersion()));
+
+        return responseFormat.writeTask(task);
     }
 
-    private String handlePUT_ID(List<String> userData,String body,String id)
-            throws BadRequestException, UnauthorizedException, NotFoundException, ForbiddenException, IOException {
+    private Payload handlePUT_ID(List<String> userData,RequestBodies.Body body,String id,String ifMatch,WireFormat requestFormat,
+                                 WireFormat responseFormat,HttpExchange exchange,Timer timer)
+            throws BadRequestException, UnauthorizedException, NotFoundException, ForbiddenException,
+            PreconditionFailedException, QuotaExceededException, IOException {
 
-        var task = gson.fromJson(body, TaskEntity.class);
+        var task = requestFormat.readTask(body.bytes(), body.length());
         var uuid = UUID.fromString(id);
+        var expectedVersion = parseIfMatch(ifMatch);
 
         service.validateTask(task);
-        service.validateUser(userData);
+        timer.mark(Stage.PARSE);
 
-        TaskEntity taskToUpdate = service.getTask(id);
+        validateUser(service, userData);
+        timer.mark(Stage.AUTH);
 
-        service.check_taskExists_belongsToUser(taskToUpdate,userData.get(0));
+        var updatedTask=service.updateTask(task,userData.get(0),uuid,expectedVersion);
+        timer.mark(Stage.REPOSITORY);
 
-        var updatedTask=service.updateTask(task,userData,uuid);
+        exchange.getResponseHeaders().set("ETag", toETag(updatedTask.getVersion()));
 
-        LOGGER.info("SERVER: Task \"" + id + "\" has been updated.");
-        return SendResponseTask(updatedTask);
+        return responseFormat.writeTask(updatedTask);
     }
     
-    private String handleDELETE_ID(List<String> userData,String id) throws BadRequestException, IOException, NotFoundException, ForbiddenException, UnauthorizedException {
+    private Payload handleDELETE_ID(List<String> userData,String id,Timer timer) throws BadRequestException, IOException, NotFoundException, ForbiddenException, UnauthorizedException {
 
         var uuid =UUID.fromString(id);
 
-        service.validateUser(userData);
+        validateUser(service, userData);
+        timer.mark(Stage.AUTH);
 
-        TaskEntity taskToDelete = service.getTask(id);
+        service.deleteTask(uuid,userData.get(0));
+        timer.mark(Stage.REPOSITORY);
 
-        service.check_taskExists_belongsToUser(taskToDelete,userData.get(0));
+        return JsonOutput.forThread().writeAscii("Task \" "+ id + "\" has been deleted.");
+    }
 
-        service.deleteTask(uuid);
+    /**
+     * Returns decoded value of the first query parameter with the given name, <code>null</code> if there is none.
+     */
+    static String queryParameter(String rawQuery, String name) {
+        if (rawQuery == null)
+            return null;
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            var key = separator < 0 ? parameter : parameter.substring(0, separator);
+            if (key.equals(name))
+                return separator < 0 ? "" : URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8);
+        }
+        return null;
+    }
 
-        LOGGER.info("SERVER: \nTask \"" + id + "\" has been deleted.");
-        return "Task \" "+ id + "\" has been deleted.";
+    /**
+     * Reads the <code>auth</code> header, which carries either base64 encoded <code>username:password</code> or a
+     * session token issued by {@link HttpLoginHandler}. A token is checked right away, being a single lookup.
+     *
+     * @return username and password, or only the username of a valid session token
+     */
+    static List<String> resolveAuthHeader(ToDoService service, String auth)
+            throws BadRequestException, UnauthorizedException {
+
+        if (SessionTokens.isWellFormed(auth))
+            return List.of(service.authenticate(auth));
+        return validateAuthHeader(auth);
     }
 
-    private List<String> validateAuthHeader(String auth) throws BadRequestException {
+    /**
+     * Checks the password of credentials from {@link #resolveAuthHeader}, a session token has been checked already.
+     */
+    static void validateUser(ToDoService service, List<String> userData) throws UnauthorizedException {
+        if (userData.size() > 1)
+            service.validateUser(userData);
+    }
+
+    static List<String> validateAuthHeader(String auth) throws BadRequestException {
 
         if (auth == null)
             throw new BadRequestException("header==null");
@@ -204,27 +311,27 @@ public class HttpTaskHandler implements HttpHandler {
         return userDecodedData;
     }
 
-    private String SendResponseTask(TaskEntity task){
-        var responseJson = new JsonObject();
-        responseJson.addProperty("id", String.valueOf(task.getId()));
-        responseJson.addProperty("description", task.getDescription());
-        if(task.getDue()!=null)
-            responseJson.addProperty("due", task.getDue());
+    private long parseIfMatch(String ifMatch) throws BadRequestException {
 
-        return responseJson.toString();
-    }
+        if (ifMatch == null || ifMatch.trim().equals("*"))
+            return -1;
 
-    private String SendResponseListOfTasks(List<TaskEntity> listOfTasks) {
+        var tag = ifMatch.trim();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"')
+            throw new BadRequestException("Invalid If-Match header");
 
-        var responseJsonArray = new JsonArray();
-        for (TaskEntity task : listOfTasks) {
-            var responseJson = new JsonObject();
-            responseJson.addProperty("id", String.valueOf(task.getId()));
-            responseJson.addProperty("description", task.getDescription());
-            if (task.getDue() != null)
-                responseJson.addProperty("due", task.getDue());
-            responseJsonArray.add(responseJson);
+        long version;
+        try {
+            version = Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid If-Match header");
         }
-        return responseJsonArray.toString();
+        if (version < 0)
+            throw new BadRequestException("Invalid If-Match header");
+        return version;
+    }
+
+    private static String toETag(long version) {
+        return "\"" + version + "\"";
     }
 }
@@ -1,45 +1,53 @@
 package efs.task.todoapp.web;
 
-import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
-import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.codec.WireFormat;
 import efs.task.todoapp.service.Exceptions.BadRequestException;
 import efs.task.todoapp.service.Exceptions.ConflictException;
+import efs.task.todoapp.service.Exceptions.PayloadTooLargeException;
 import efs.task.todoapp.service.ToDoService;
 import static efs.task.todoapp.web.HttpCode.*;
 
 import java.io.IOException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class HttpUserHandler implements HttpHandler {
 
      private final ToDoService service;
+     private final int maxBodyBytes;
      private static final Logger LOGGER = Logger.getLogger(HttpUserHandler.class.getName());
-     private static final Gson gson = new Gson();
 
-     public HttpUserHandler(ToDoService service) { this.service = service; }
+     public HttpUserHandler(ToDoService service) { this(service, RequestBodies.DEFAULT_MAX_BYTES); }
+
+     public HttpUserHandler(ToDoService service, int maxBodyBytes) {
+         this.service = service;
+         this.maxBodyBytes = maxBodyBytes;
+     }
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         try {
-            var body = new String(exchange.getRequestBody().readAllBytes());
-            var user = gson.fromJson(body, UserEntity.class);
+            var body = RequestBodies.read(exchange, maxBodyBytes);
+            var format = WireFormat.ofContentType(exchange.getRequestHeaders().getFirst("Content-Type"));
+            var user = format.readUser(body.bytes(), body.length());
+
+            if (user != null && user.getUsername() != null)
+                exchange.setAttribute(RequestLogFilter.USER_ATTRIBUTE, user.getUsername());
 
             service.saveUser(user);
 
-            LOGGER.info("User \"" + user.getUsername() + "\" has been added to repository.");
             exchange.sendResponseHeaders(CREATED.getCode(), 0);
 
         } catch (BadRequestException | IOException e) {
-            LOGGER.warning(e.getMessage());
             exchange.sendResponseHeaders(BAD_REQUEST.getCode(), 0);
         } catch (ConflictException e) {
-            LOGGER.warning(e.getMessage());
             exchange.sendResponseHeaders(CONFLICT.getCode(), 0);
+        } catch (PayloadTooLargeException e) {
+            exchange.sendResponseHeaders(PAYLOAD_TOO_LARGE.getCode(), 0);
         } catch (Exception e) {
-            LOGGER.warning("UNCACHED PROBLEM/USER");
-            LOGGER.warning(e.getMessage());
+            LOGGER.log(Level.WARNING, "UNCACHED PROBLEM/USER", e);
         } finally {
             exchange.close();
         }
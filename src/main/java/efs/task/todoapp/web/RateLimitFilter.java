@@ -0,0 +1,72 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import efs.task.todoapp.service.SessionTokens;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static efs.task.todoapp.web.HttpCode.TOO_MANY_REQUESTS;
+
+/**
+ * Rejects requests exceeding the rate limit of the route with 429 and a <code>Retry-After</code> header.
+ * <p>
+ * Routes limited per user key the bucket on the <code>auth</code> header as it is, without verifying it, so the limit
+ * is checked before any decoding or password comparison. A session token is its own key, it cannot be guessed. The
+ * still encoded username of credentials is unverified, so it is only charged together with the remote address;
+ * sending another user's name from a different host never drains that user's bucket. All other requests are limited
+ * per remote address.
+ */
+public class RateLimitFilter extends Filter {
+
+    private final RateLimiter limiter;
+    private final boolean perUser;
+
+    /**
+     * Limits requests per remote address.
+     */
+    public RateLimitFilter(RateLimiter limiter) {
+        this(limiter, false);
+    }
+
+    /**
+     * @param perUser whether requests carrying an <code>auth</code> header are limited per user
+     */
+    public RateLimitFilter(RateLimiter limiter, boolean perUser) {
+        this.limiter = limiter;
+        this.perUser = perUser;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        long wait = limiter.tryAcquire(clientKey(exchange));
+        if (wait == 0) {
+            chain.doFilter(exchange);
+            return;
+        }
+
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+        exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfter));
+        exchange.sendResponseHeaders(TOO_MANY_REQUESTS.getCode(), -1);
+        exchange.close();
+    }
+
+    @Override
+    public String description() {
+        return "Token bucket rate limiting";
+    }
+
+    private String clientKey(HttpExchange exchange) {
+        var address = exchange.getRemoteAddress().getAddress().getHostAddress();
+        if (perUser) {
+            var auth = exchange.getRequestHeaders().getFirst("auth");
+            if (SessionTokens.isWellFormed(auth))
+                return "token:" + auth;
+            int separator = auth == null ? -1 : auth.indexOf(':');
+            if (separator > 0)
+                return "user:" + auth.substring(0, separator) + "@" + address;
+        }
+        return "@" + address;
+    }
+}
@@ -0,0 +1,73 @@
+package efs.task.todoapp.web;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-key token bucket rate limiter of a single route.
+ * <p>
+ * Buckets live in a map bounded by <code>maxBuckets</code>. When the map is full, buckets which have refilled
+ * completely are evicted, as they carry no more information than a freshly created one. Keys which still cannot get
+ * their own bucket share one overflow bucket, so a flood of distinct keys cannot bypass the limit.
+ */
+public class RateLimiter {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final TokenBucket overflowBucket;
+    private final AtomicLong lastSweep;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxBuckets;
+
+    /**
+     * @param capacity maximum number of requests a key may send at once
+     * @param permitsPerSecond rate at which the bucket of a key is refilled
+     * @param maxBuckets maximum number of keys tracked individually
+     */
+    public RateLimiter(int capacity, double permitsPerSecond, int maxBuckets) {
+        if (capacity < 1 || permitsPerSecond <= 0 || maxBuckets < 1)
+            throw new IllegalArgumentException("Invalid rate limit");
+
+        long now = System.nanoTime();
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burstNanos = intervalNanos * capacity;
+        this.maxBuckets = maxBuckets;
+        this.overflowBucket = new TokenBucket(now);
+        this.lastSweep = new AtomicLong(now - SWEEP_INTERVAL_NANOS);
+    }
+
+    /**
+     * Takes one permit for the key.
+     *
+     * @param key client identifier, e.g. username or remote address
+     * @return <code>0</code> if the request is allowed, otherwise nanoseconds the client should wait before retrying
+     */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null)
+            bucket = createBucket(key, now);
+        return bucket.tryAcquire(now, intervalNanos, burstNanos);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private TokenBucket createBucket(String key, long now) {
+        if (buckets.size() >= maxBuckets && !evictFullBuckets(now))
+            return overflowBucket;
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(now));
+    }
+
+    private boolean evictFullBuckets(long now) {
+        long last = lastSweep.get();
+        if (now - last >= SWEEP_INTERVAL_NANOS && lastSweep.compareAndSet(last, now))
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+        return buckets.size() < maxBuckets;
+    }
+}
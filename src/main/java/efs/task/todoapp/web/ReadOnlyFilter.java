@@ -0,0 +1,45 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.util.function.BooleanSupplier;
+
+import static efs.task.todoapp.web.HttpCode.METHOD_NOT_ALLOWED;
+import static efs.task.todoapp.web.HttpCode.SERVICE_UNAVAILABLE;
+
+/**
+ * Guards a replica: writes are rejected with 405, reads are rejected with 503 while the replica is too stale.
+ */
+public class ReadOnlyFilter extends Filter {
+
+    private final BooleanSupplier fresh;
+
+    public ReadOnlyFilter(BooleanSupplier fresh) {
+        this.fresh = fresh;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (!HttpMethod.GET.name().equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", HttpMethod.GET.name());
+            exchange.sendResponseHeaders(METHOD_NOT_ALLOWED.getCode(), -1);
+            exchange.close();
+            return;
+        }
+        if (!fresh.getAsBoolean()) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            exchange.sendResponseHeaders(SERVICE_UNAVAILABLE.getCode(), -1);
+            exchange.close();
+            return;
+        }
+
+        chain.doFilter(exchange);
+    }
+
+    @Override
+    public String description() {
+        return "Read-only replica";
+    }
+}
@@ -0,0 +1,172 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.HttpExchange;
+import efs.task.todoapp.service.Exceptions.PayloadTooLargeException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads request bodies up to a size limit. A body whose declared length exceeds the limit is refused before any of it
+ * is read, a body without a declared length is refused as soon as the limit is passed, so an oversized request never
+ * buffers more than the limit.
+ * <p>
+ * Bodies decoded in one piece are read into a buffer kept per thread and reused, like
+ * {@link efs.task.todoapp.codec.JsonOutput#forThread()}, so reading a body allocates nothing once the buffer has grown
+ * to the usual body size. Bodies too large to be worth buffering are read through {@link #stream} instead.
+ */
+public final class RequestBodies {
+
+    public static final int DEFAULT_MAX_BYTES = 64 * 1024;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int RETAINED_CAPACITY = 64 * 1024;
+    private static final ThreadLocal<Body> BUFFERS = ThreadLocal.withInitial(Body::new);
+
+    private RequestBodies() {
+    }
+
+    /**
+     * Reads the whole body into the calling thread's buffer.
+     *
+     * @return the body, valid until the thread reads the next one
+     */
+    public static Body read(HttpExchange exchange, int maxBytes) throws IOException, PayloadTooLargeException {
+        long declared = declaredLength(exchange, maxBytes);
+        return read(exchange.getRequestBody(), maxBytes, declared);
+    }
+
+    static Body read(InputStream body, int maxBytes) throws IOException, PayloadTooLargeException {
+        return read(body, maxBytes, -1);
+    }
+
+    /**
+     * Returns the body as a stream which fails once more than <code>maxBytes</code> are read from it, for parsers
+     * consuming it incrementally.
+     */
+    static LimitedStream stream(HttpExchange exchange, int maxBytes) throws IOException, PayloadTooLargeException {
+        declaredLength(exchange, maxBytes);
+        return new LimitedStream(exchange.getRequestBody(), maxBytes);
+    }
+
+    private static Body read(InputStream in, int maxBytes, long declared)
+            throws IOException, PayloadTooLargeException {
+
+        var body = BUFFERS.get();
+        // room for one byte more than expected, so the end of the body is seen without growing the buffer
+        long expected = declared >= 0 ? Math.min(declared + 1, maxBytes + 1L) : INITIAL_CAPACITY;
+        if (body.bytes.length > RETAINED_CAPACITY || body.bytes.length < expected)
+            body.bytes = new byte[(int) Math.max(INITIAL_CAPACITY, expected)];
+        body.length = 0;
+
+        int read;
+        while ((read = in.read(body.bytes, body.length, body.bytes.length - body.length)) >= 0) {
+            body.length += read;
+            if (body.length > maxBytes)
+                throw tooLarge(maxBytes);
+            if (body.length == body.bytes.length) {
+                var grown = new byte[(int) Math.min(maxBytes + 1L, 2L * body.bytes.length)];
+                System.arraycopy(body.bytes, 0, grown, 0, body.length);
+                body.bytes = grown;
+            }
+        }
+        return body;
+    }
+
+    /**
+     * @return length from the <code>Content-Length</code> header, -1 if there is none
+     */
+    private static long declaredLength(HttpExchange exchange, int maxBytes)
+            throws IOException, PayloadTooLargeException {
+
+        var declared = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (declared == null)
+            return -1;
+        long length;
+        try {
+            length = Long.parseLong(declared.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid Content-Length " + declared);
+        }
+        if (length > maxBytes)
+            throw tooLarge(maxBytes);
+        return length;
+    }
+
+    private static PayloadTooLargeException tooLarge(int maxBytes) {
+        return new PayloadTooLargeException("Request body exceeds " + maxBytes + " bytes");
+    }
+
+    /**
+     * Request body held in a reused buffer: its first {@link #length()} bytes.
+     */
+    public static final class Body {
+
+        private byte[] bytes = new byte[INITIAL_CAPACITY];
+        private int length;
+
+        public byte[] bytes() {
+            return bytes;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public String asString() {
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Body stream counting what is read from it. Parsers usually wrap the failure of a stream into their own
+     * exceptions, so after a parser fails {@link #checkLimit()} tells whether the limit was the cause.
+     */
+    static final class LimitedStream extends InputStream {
+
+        private final InputStream in;
+        private final int maxBytes;
+        private long read;
+
+        private LimitedStream(InputStream in, int maxBytes) {
+            this.in = in;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = in.read();
+            if (value >= 0)
+                count(1);
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = in.read(buffer, offset, length);
+            if (count > 0)
+                count(count);
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        /**
+         * @throws PayloadTooLargeException if more than the limit has been read
+         */
+        void checkLimit() throws PayloadTooLargeException {
+            if (read > maxBytes)
+                throw tooLarge(maxBytes);
+        }
+
+        private void count(int bytes) throws IOException {
+            read += bytes;
+            if (read > maxBytes)
+                throw new IOException("Request body exceeds " + maxBytes + " bytes");
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import efs.task.todoapp.logging.RequestLog;
+
+import java.io.IOException;
+
+/**
+ * Records every exchange of the context in the {@link RequestLog} after it has been handled.
+ */
+public class RequestLogFilter extends Filter {
+
+    /** Exchange attribute under which handlers store the name of the user who sent the request. */
+    public static final String USER_ATTRIBUTE = "efs.task.todoapp.user";
+
+    private final RequestLog requestLog;
+
+    public RequestLogFilter(RequestLog requestLog) {
+        this.requestLog = requestLog;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            requestLog.log(exchange.getRequestMethod(), exchange.getHttpContext().getPath(),
+                    exchange.getResponseCode(), (String) exchange.getAttribute(USER_ATTRIBUTE),
+                    System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Asynchronous request log";
+    }
+}
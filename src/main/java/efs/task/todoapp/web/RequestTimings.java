@@ -0,0 +1,141 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.HttpExchange;
+import efs.task.todoapp.metrics.Histogram;
+import efs.task.todoapp.metrics.Metrics;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Breaks the handling time of requests down into stages and aggregates every stage into a histogram.
+ * <p>
+ * A handler takes the {@link Timer} of its thread with {@link #start()} and calls {@link Timer#mark(Stage)} after each
+ * step; the time since the previous mark is charged to the given stage. Timers are reused per thread, so timing a
+ * request costs a few {@link System#nanoTime()} calls and no allocation. Requests slower than the configured threshold
+ * are written with their whole breakdown to the slow request log.
+ */
+public class RequestTimings {
+
+    public enum Stage {
+        AUTH("auth"),
+        PARSE("parse"),
+        REPOSITORY("repository"),
+        SERIALIZE("serialize");
+
+        private final String metricName;
+
+        Stage(String metricName) { this.metricName = metricName; }
+
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    private static final Logger SLOW_REQUESTS = Logger.getLogger(RequestTimings.class.getName() + ".slow");
+    private static final Stage[] STAGES = Stage.values();
+
+    private final Histogram[] histograms = new Histogram[STAGES.length];
+    private final Histogram total = new Histogram();
+    private final ThreadLocal<Timer> timers = ThreadLocal.withInitial(Timer::new);
+    private final long slowRequestNanos;
+    private final boolean serverTiming;
+
+    /**
+     * @param slowRequestMillis handling time above which the request is written to the slow request log
+     * @param serverTiming whether the breakdown is returned in the <code>Server-Timing</code> response header
+     */
+    public RequestTimings(long slowRequestMillis, boolean serverTiming) {
+        for (int i = 0; i < STAGES.length; i++)
+            histograms[i] = new Histogram();
+        this.slowRequestNanos = TimeUnit.MILLISECONDS.toNanos(slowRequestMillis);
+        this.serverTiming = serverTiming;
+    }
+
+    /**
+     * Registers 50th and 99th percentile of every stage and of the whole request, in microseconds.
+     */
+    public void registerMetrics(Metrics metrics) {
+        for (Stage stage : STAGES)
+            register(metrics, "timing." + stage.getMetricName(), histograms[stage.ordinal()]);
+        register(metrics, "timing.total", total);
+    }
+
+    /**
+     * Starts timing the request handled by the current thread.
+     */
+    public Timer start() {
+        var timer = timers.get();
+        timer.reset();
+        return timer;
+    }
+
+    /**
+     * Adds the <code>Server-Timing</code> header with stages measured so far, if enabled. Has to be called before
+     * response headers are sent.
+     */
+    public void addServerTiming(HttpExchange exchange, Timer timer) {
+        if (!serverTiming)
+            return;
+
+        var header = new StringBuilder();
+        for (Stage stage : STAGES) {
+            if (header.length() > 0)
+                header.append(", ");
+            header.append(stage.getMetricName()).append(";dur=")
+                    .append(String.format(Locale.ROOT, "%.3f", timer.nanos[stage.ordinal()] / 1_000_000.0));
+        }
+        exchange.getResponseHeaders().set("Server-Timing", header.toString());
+    }
+
+    /**
+     * Records stages of the finished request in the histograms.
+     */
+    public void finish(Timer timer, String method, String uri) {
+        long elapsed = System.nanoTime() - timer.start;
+        for (int i = 0; i < STAGES.length; i++)
+            histograms[i].record(timer.nanos[i]);
+        total.record(elapsed);
+
+        if (elapsed > slowRequestNanos)
+            logSlowRequest(timer, method, uri, elapsed);
+    }
+
+    private void logSlowRequest(Timer timer, String method, String uri, long elapsed) {
+        var message = new StringBuilder("Slow request ").append(method).append(' ').append(uri)
+                .append(" took ").append(TimeUnit.NANOSECONDS.toMicros(elapsed)).append(" us:");
+        for (Stage stage : STAGES)
+            message.append(' ').append(stage.getMetricName()).append('=')
+                    .append(TimeUnit.NANOSECONDS.toMicros(timer.nanos[stage.ordinal()])).append("us");
+        SLOW_REQUESTS.warning(message.toString());
+    }
+
+    private static void register(Metrics metrics, String name, Histogram histogram) {
+        metrics.register(name + ".count", histogram::getCount);
+        metrics.register(name + ".p50Micros", () -> histogram.getValueAtQuantile(0.5) / 1_000.0);
+        metrics.register(name + ".p99Micros", () -> histogram.getValueAtQuantile(0.99) / 1_000.0);
+    }
+
+    public static final class Timer {
+        private final long[] nanos = new long[STAGES.length];
+        private long start;
+        private long last;
+
+        /**
+         * Charges the time elapsed since the previous mark to specified stage.
+         */
+        public void mark(Stage stage) {
+            long now = System.nanoTime();
+            nanos[stage.ordinal()] += now - last;
+            last = now;
+        }
+
+        private void reset() {
+            Arrays.fill(nanos, 0);
+            start = System.nanoTime();
+            last = start;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package efs.task.todoapp.web;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor of the HTTP server which remembers when each exchange has been queued, so that filters running on the
+ * worker thread can tell how long the exchange waited for it.
+ */
+public class TimedExecutor implements Executor {
+
+    private static final ThreadLocal<long[]> QUEUED_AT = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final ExecutorService workers;
+
+    public TimedExecutor(ExecutorService workers) {
+        this.workers = workers;
+    }
+
+    @Override
+    public void execute(Runnable exchange) {
+        long queuedAt = System.nanoTime();
+        workers.execute(() -> {
+            QUEUED_AT.get()[0] = queuedAt;
+            exchange.run();
+        });
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Returns time the exchange processed by the current thread has waited in the queue.
+     *
+     * @return queueing delay in nanoseconds, <code>0</code> outside of the executor
+     */
+    public static long queueDelayNanos() {
+        long queuedAt = QUEUED_AT.get()[0];
+        return queuedAt == 0 ? 0 : System.nanoTime() - queuedAt;
+    }
+}
@@ -0,0 +1,93 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link HttpServer} which releases resources of the application (worker threads, background tasks) when stopped.
+ */
+public class ToDoServer extends HttpServer {
+
+    private static final Logger LOGGER = Logger.getLogger(ToDoServer.class.getName());
+
+    private final HttpServer server;
+    private final List<AutoCloseable> resources = new CopyOnWriteArrayList<>();
+
+    public ToDoServer(HttpServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Registers resource to be closed after the server stops. Resources are closed in reverse order of registration.
+     */
+    public void closeOnStop(AutoCloseable resource) {
+        resources.add(0, resource);
+    }
+
+    @Override
+    public void stop(int delay) {
+        server.stop(delay);
+        for (AutoCloseable resource : resources) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Closing resource failed", e);
+            }
+        }
+        resources.clear();
+    }
+
+    @Override
+    public void bind(InetSocketAddress addr, int backlog) throws IOException {
+        server.bind(addr, backlog);
+    }
+
+    @Override
+    public void start() {
+        server.start();
+    }
+
+    @Override
+    public void setExecutor(Executor executor) {
+        server.setExecutor(executor);
+    }
+
+    @Override
+    public Executor getExecutor() {
+        return server.getExecutor();
+    }
+
+    @Override
+    public HttpContext createContext(String path, HttpHandler handler) {
+        return server.createContext(path, handler);
+    }
+
+    @Override
+    public HttpContext createContext(String path) {
+        return server.createContext(path);
+    }
+
+    @Override
+    public void removeContext(String path) throws IllegalArgumentException {
+        server.removeContext(path);
+    }
+
+    @Override
+    public void removeContext(HttpContext context) {
+        server.removeContext(context);
+    }
+
+    @Override
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+}
@@ -0,0 +1,41 @@
+package efs.task.todoapp.web;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. Instead of a token count the bucket keeps the theoretical arrival time of the next request
+ * (generic cell rate algorithm), so the whole state fits in one {@link AtomicLong} and a permit is taken with a single
+ * compare-and-set. A bucket whose theoretical arrival time lies in the past is full.
+ */
+class TokenBucket {
+
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(long nowNanos) {
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Tries to take one permit.
+     *
+     * @param nowNanos current {@link System#nanoTime()}
+     * @param intervalNanos time needed to refill one permit
+     * @param burstNanos time needed to refill the whole bucket, i.e. capacity * interval
+     * @return <code>0</code> if the permit has been taken, otherwise nanoseconds until a permit becomes available
+     */
+    long tryAcquire(long nowNanos, long intervalNanos, long burstNanos) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long next = Math.max(arrival, nowNanos) + intervalNanos;
+            long wait = next - burstNanos - nowNanos;
+            if (wait > 0)
+                return wait;
+            if (theoreticalArrival.compareAndSet(arrival, next))
+                return 0;
+        }
+    }
+
+    boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() - nowNanos <= 0;
+    }
+}
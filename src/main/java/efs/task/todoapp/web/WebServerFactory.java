@@ -1,29 +1,390 @@
 package efs.task.todoapp.web;
 
 import com.sun.net.httpserver.HttpServer;
+import efs.task.todoapp.cluster.ClusterRouter;
+import efs.task.todoapp.logging.RequestLog;
+import efs.task.todoapp.metrics.Metrics;
+import efs.task.todoapp.reminder.LoggingReminderSink;
+import efs.task.todoapp.reminder.ReminderScheduler;
+import efs.task.todoapp.replication.ReplicationFollower;
+import efs.task.todoapp.replication.ReplicationLog;
+import efs.task.todoapp.replication.ReplicationServer;
+import efs.task.todoapp.repository.MutationListener;
+import efs.task.todoapp.repository.OwnedTaskRepository;
+import efs.task.todoapp.repository.PartitionedTaskRepository;
 import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.TieredTaskRepository;
 import efs.task.todoapp.repository.UserRepository;
+import efs.task.todoapp.service.SessionTokens;
+import efs.task.todoapp.service.TaskListCache;
+import efs.task.todoapp.service.TaskQuotas;
 import efs.task.todoapp.service.ToDoService;
+import efs.task.todoapp.webhook.WebhookDispatcher;
 
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
 
 public class WebServerFactory {
 
     private static final String HOSTNAME = "localhost";
     private static final int PORT = 8080;
 
+    private static final int MAX_RATE_LIMITED_CLIENTS = 100_000;
+    private static final int REQUEST_LOG_CAPACITY = 8192;
+    private static final int WORKERS = Integer.getInteger("todoapp.workers",
+            Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+
     public static HttpServer createServer() {
-        InetSocketAddress address = new InetSocketAddress(HOSTNAME, PORT);
-        ToDoService service = new ToDoService(new UserRepository(),new TaskRepository());
+        return createServer(PORT);
+    }
+
+    public static HttpServer createServer(int port) {
+        return createServer(port, false);
+    }
+
+    /**
+     * Creates node of a cluster, which serves the owners routed to it by {@link #createRouter(int, List)} and exposes
+     * the internal <code>/todo/cluster</code> endpoint used to move owners between nodes. Rate limits are applied by
+     * the router.
+     */
+    public static HttpServer createShard(int port) {
+        return createServer(port, true);
+    }
+
+    /**
+     * Creates front end of a cluster which forwards requests to the given nodes, <code>host:port</code> each. The
+     * membership endpoint <code>/todo/cluster/nodes</code> is only exposed when <code>todoapp.admin.token</code> is
+     * set.
+     */
+    public static HttpServer createRouter(int port, List<String> nodes) {
+        InetSocketAddress address = new InetSocketAddress(HOSTNAME, port);
+        var router = new ClusterRouter(nodes,
+                Integer.getInteger("todoapp.maxRequestBytes", RequestBodies.DEFAULT_MAX_BYTES));
+        Metrics metrics = new Metrics();
         try {
-            HttpServer httpServer = HttpServer.create(address,0);
-            httpServer.createContext("/todo/user", new HttpUserHandler(service));
-            httpServer.createContext("/todo/task", new HttpTaskHandler(service));
+            ToDoServer httpServer = new ToDoServer(HttpServer.create(address,0));
+
+            var executor = new TimedExecutor(Executors.newFixedThreadPool(WORKERS));
+            httpServer.setExecutor(executor);
+            httpServer.closeOnStop(executor::shutdown);
+
+            var requestLog = requestLog(httpServer);
+            metrics.register("cluster.nodes", () -> router.getNodes().size());
+            metrics.register("cluster.forwarded", router::getForwardedCount);
+            metrics.register("cluster.failures", router::getFailureCount);
+            metrics.register("cluster.movedOwners", router::getMovedOwnersCount);
+            metrics.register("requestLog.dropped", requestLog::getDroppedCount);
+            metrics.register("requestLog.failed", requestLog::getFailedCount);
+            metrics.register("requestLog.pending", requestLog::getPendingCount);
+
+            var userContext = httpServer.createContext("/todo/user", router);
+            userContext.getFilters().add(new RequestLogFilter(requestLog));
+            userContext.getFilters().add(new RateLimitFilter(rateLimiter("user", 20, 5)));
+
+            var loginContext = httpServer.createContext("/todo/login", router);
+            loginContext.getFilters().add(new RequestLogFilter(requestLog));
+            loginContext.getFilters().add(new RateLimitFilter(rateLimiter("login", 20, 5)));
+
+            var taskContext = httpServer.createContext("/todo/task", router);
+            taskContext.getFilters().add(new RequestLogFilter(requestLog));
+            taskContext.getFilters().add(new RateLimitFilter(rateLimiter("task", 200, 100), true));
+
+            var adminToken = System.getProperty("todoapp.admin.token");
+            if (adminToken != null && !adminToken.isEmpty())
+                httpServer.createContext("/todo/cluster/nodes", new HttpClusterNodesHandler(router, adminToken));
+            httpServer.createContext("/todo/metrics", new HttpMetricsHandler(metrics));
             return httpServer;
         } catch (IOException e) {
             e.printStackTrace();
         }
         return null;
     }
+
+    private static HttpServer createServer(int port, boolean shard) {
+        InetSocketAddress address = new InetSocketAddress(HOSTNAME, port);
+        TaskListCache taskListCache = new TaskListCache(Integer.getInteger("todoapp.listCache.capacity", 10_000));
+        UserRepository userRepository = new UserRepository();
+        OwnedTaskRepository taskRepository = taskRepository();
+        TaskQuotas quotas = quotas();
+        SessionTokens sessions = sessions();
+        ToDoService service = new ToDoService(userRepository,taskRepository,taskListCache,quotas,sessions);
+        Metrics metrics = new Metrics();
+        taskListCache.registerMetrics(metrics);
+        quotas.registerMetrics(metrics);
+        sessions.registerMetrics(metrics);
+        int maxBodyBytes = Integer.getInteger("todoapp.maxRequestBytes", 64 * 1024);
+        try {
+            ToDoServer httpServer = new ToDoServer(HttpServer.create(address,0));
+
+            var executor = new TimedExecutor(Executors.newFixedThreadPool(WORKERS));
+            httpServer.setExecutor(executor);
+            httpServer.closeOnStop(executor::shutdown);
+            sessions.start();
+            httpServer.closeOnStop(sessions);
+
+            if (taskRepository instanceof TieredTaskRepository) {
+                ((TieredTaskRepository) taskRepository).registerMetrics(metrics);
+                httpServer.closeOnStop((TieredTaskRepository) taskRepository);
+            }
+
+            var requestLog = requestLog(httpServer);
+            var admission = admissionController();
+            registerMetrics(metrics, admission, requestLog);
+            var readOnly = replication(httpServer, userRepository, taskRepository, service, metrics);
+
+            var timings = new RequestTimings(Long.getLong("todoapp.slowRequestMillis", 500),
+                    Boolean.getBoolean("todoapp.serverTiming"));
+            timings.registerMetrics(metrics);
+
+            var userContext = httpServer.createContext("/todo/user", new HttpUserHandler(service, maxBodyBytes));
+            userContext.getFilters().add(new RequestLogFilter(requestLog));
+            if (readOnly != null)
+                userContext.getFilters().add(readOnly);
+            if (!shard)
+                userContext.getFilters().add(new RateLimitFilter(rateLimiter("user", 20, 5)));
+            userContext.getFilters().add(new AdmissionFilter(admission));
+
+            var loginContext = httpServer.createContext("/todo/login", new HttpLoginHandler(service));
+            loginContext.getFilters().add(new RequestLogFilter(requestLog));
+            if (!shard)
+                loginContext.getFilters().add(new RateLimitFilter(rateLimiter("login", 20, 5)));
+            loginContext.getFilters().add(new AdmissionFilter(admission));
+
+            var taskContext = httpServer.createContext("/todo/task", new HttpTaskHandler(service, timings, maxBodyBytes));
+            taskContext.getFilters().add(new RequestLogFilter(requestLog));
+            if (readOnly != null)
+                taskContext.getFilters().add(readOnly);
+            if (!shard)
+                taskContext.getFilters().add(new RateLimitFilter(rateLimiter("task", 200, 100), true));
+            taskContext.getFilters().add(new AdmissionFilter(admission));
+
+            if (shard)
+                httpServer.createContext("/todo/cluster", new HttpClusterHandler(service,
+                        Integer.getInteger("todoapp.cluster.maxSnapshotBytes", HttpClusterHandler.DEFAULT_MAX_SNAPSHOT_BYTES)));
+
+            if (readOnly == null) {
+                var reminderHandler = new HttpReminderHandler(service);
+                var reminders = reminders(httpServer, taskRepository, metrics);
+                reminders.addSink(reminderHandler);
+                var webhooks = webhooks(httpServer, taskRepository, metrics);
+                if (webhooks != null)
+                    reminders.addSink(webhooks);
+                httpServer.closeOnStop(reminderHandler);
+                var reminderContext = httpServer.createContext("/todo/reminders", reminderHandler);
+                reminderContext.getFilters().add(new RequestLogFilter(requestLog));
+            }
+
+            var adminToken = System.getProperty("todoapp.admin.token");
+            if (adminToken != null && !adminToken.isEmpty()) {
+                var adminHandler = new HttpAdminHandler(service, adminToken);
+                adminHandler.registerMetrics(metrics);
+                var adminContext = httpServer.createContext("/todo/admin", adminHandler);
+                adminContext.getFilters().add(new RequestLogFilter(requestLog));
+                if (readOnly != null)
+                    adminContext.getFilters().add(readOnly);
+            }
+            httpServer.createContext("/todo/metrics", new HttpMetricsHandler(metrics));
+            return httpServer;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Creates task repository of the kind given by <code>todoapp.taskRepository</code> system property:
+     * <code>shared</code> (default) keeps all tasks in one concurrent map, <code>partitioned</code> gives every owner
+     * a partition with its own lock, <code>tiered</code> keeps only recently active owners in memory, within
+     * <code>todoapp.tiered.budgetBytes</code>, and spills the others to the file given by
+     * <code>todoapp.tiered.segmentFile</code>, a temporary file by default.
+     */
+    private static OwnedTaskRepository taskRepository() {
+        var kind = System.getProperty("todoapp.taskRepository", "shared");
+        switch (kind) {
+            case "shared":
+                return new TaskRepository();
+            case "partitioned":
+                return new PartitionedTaskRepository();
+            case "tiered":
+                try {
+                    var segmentFile = System.getProperty("todoapp.tiered.segmentFile");
+                    var path = segmentFile == null ? Files.createTempFile("todoapp-tasks", ".segment") : Path.of(segmentFile);
+                    return new TieredTaskRepository(path, Long.getLong("todoapp.tiered.budgetBytes", 256L << 20));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown task repository \"" + kind + "\"");
+        }
+    }
+
+    /**
+     * Creates limits of stored tasks, overridable with <code>todoapp.quota.maxTasksPerUser</code>,
+     * <code>todoapp.quota.maxBytesPerUser</code> and <code>todoapp.quota.budgetBytes</code> system properties. The
+     * global budget defaults to half of the maximum heap.
+     */
+    private static TaskQuotas quotas() {
+        return new TaskQuotas(Integer.getInteger("todoapp.quota.maxTasksPerUser", 10_000),
+                Long.getLong("todoapp.quota.maxBytesPerUser", 16L << 20),
+                Long.getLong("todoapp.quota.budgetBytes", Runtime.getRuntime().maxMemory() / 2));
+    }
+
+    /**
+     * Creates the session token table, tokens stay valid for <code>todoapp.session.ttlSeconds</code> (an hour by
+     * default) and expired ones are swept every <code>todoapp.session.sweepMillis</code>. A user holds at most
+     * <code>todoapp.session.maxPerUser</code> tokens.
+     */
+    private static SessionTokens sessions() {
+        return new SessionTokens(Duration.ofSeconds(Long.getLong("todoapp.session.ttlSeconds",
+                SessionTokens.DEFAULT_TTL.toSeconds())), Long.getLong("todoapp.session.sweepMillis", 60_000),
+                Integer.getInteger("todoapp.session.maxPerUser", SessionTokens.DEFAULT_MAX_TOKENS_PER_USER));
+    }
+
+    /**
+     * Sets up replication of the repositories. With <code>todoapp.replication.port</code> system property the server
+     * is a leader streaming its changes to followers connecting to that port. With
+     * <code>todoapp.replication.leader</code> (<code>host:port</code>) it is a read-only follower of that leader,
+     * serving reads only while it is at most <code>todoapp.replication.maxStalenessMillis</code> behind.
+     *
+     * @return filter guarding the follower, <code>null</code> if the server accepts writes
+     */
+    private static ReadOnlyFilter replication(ToDoServer httpServer, UserRepository userRepository,
+                                              OwnedTaskRepository taskRepository, ToDoService service, Metrics metrics)
+            throws IOException {
+        var replicationPort = Integer.getInteger("todoapp.replication.port");
+        var leader = System.getProperty("todoapp.replication.leader");
+
+        if (replicationPort != null) {
+            var log = new ReplicationLog(Integer.getInteger("todoapp.replication.logCapacity", 100_000));
+            userRepository.setMutationListener(log);
+            taskRepository.setMutationListener(log);
+
+            var replicationServer = new ReplicationServer(HOSTNAME, replicationPort, log, userRepository,
+                    taskRepository);
+            replicationServer.start();
+            httpServer.closeOnStop(replicationServer);
+            metrics.register("replication.offset", log::getLastOffset);
+            metrics.register("replication.followers", replicationServer::getFollowerCount);
+            metrics.register("replication.snapshots", replicationServer::getSnapshotCount);
+            return null;
+        }
+        if (leader != null) {
+            var hostAndPort = leader.split(":");
+            var follower = new ReplicationFollower(hostAndPort[0], Integer.parseInt(hostAndPort[1]), service,
+                    Long.getLong("todoapp.replication.maxStalenessMillis", 1_000));
+            follower.start();
+            httpServer.closeOnStop(follower);
+            metrics.register("replication.offset", follower::getAppliedOffset);
+            metrics.register("replication.stalenessMillis", follower::getStalenessMillis);
+            return new ReadOnlyFilter(follower::isFresh);
+        }
+        return null;
+    }
+
+    /**
+     * Starts reminders of due tasks, following the changes of the task repository. Due dates without an offset are
+     * taken in the zone given by <code>todoapp.reminders.zone</code> system property, the system zone by default;
+     * reminders are also logged when <code>todoapp.reminders.log</code> is set.
+     */
+    private static ReminderScheduler reminders(ToDoServer httpServer, OwnedTaskRepository taskRepository, Metrics metrics) {
+        var zone = System.getProperty("todoapp.reminders.zone");
+        var reminders = new ReminderScheduler(zone == null ? ZoneId.systemDefault() : ZoneId.of(zone),
+                Long.getLong("todoapp.reminders.tickMillis", 1_000));
+        if (Boolean.getBoolean("todoapp.reminders.log"))
+            reminders.addSink(new LoggingReminderSink());
+        reminders.registerMetrics(metrics);
+        taskRepository.setMutationListener(MutationListener.compose(taskRepository.getMutationListener(), reminders));
+        reminders.start();
+        httpServer.closeOnStop(reminders);
+        return reminders;
+    }
+
+    /**
+     * Sends task events to the comma separated URLs of <code>todoapp.webhooks</code> system property. Batching and
+     * retries can be tuned with <code>todoapp.webhooks.batchSize</code>, <code>.bufferCapacity</code>,
+     * <code>.lingerMillis</code>, <code>.minBackoffMillis</code> and <code>.maxBackoffMillis</code>.
+     *
+     * @return the dispatcher, <code>null</code> if no webhook is configured
+     */
+    private static WebhookDispatcher webhooks(ToDoServer httpServer, OwnedTaskRepository taskRepository, Metrics metrics) {
+        var urls = System.getProperty("todoapp.webhooks");
+        if (urls == null || urls.isBlank())
+            return null;
+
+        List<URI> endpoints = new ArrayList<>();
+        for (String url : urls.split(","))
+            endpoints.add(URI.create(url.trim()));
+        var webhooks = new WebhookDispatcher(endpoints,
+                Integer.getInteger("todoapp.webhooks.batchSize", 100),
+                Integer.getInteger("todoapp.webhooks.bufferCapacity", 10_000),
+                Long.getLong("todoapp.webhooks.lingerMillis", 50),
+                Long.getLong("todoapp.webhooks.minBackoffMillis", 100),
+                Long.getLong("todoapp.webhooks.maxBackoffMillis", 60_000));
+        webhooks.registerMetrics(metrics);
+        taskRepository.setMutationListener(MutationListener.compose(taskRepository.getMutationListener(), webhooks));
+        httpServer.closeOnStop(webhooks);
+        return webhooks;
+    }
+
+    /**
+     * Creates rate limiter of the route, limits can be overridden with <code>todoapp.rateLimit.{route}.capacity</code>
+     * and <code>todoapp.rateLimit.{route}.perSecond</code> system properties.
+     */
+    private static RateLimiter rateLimiter(String route, int capacity, int perSecond) {
+        var prefix = "todoapp.rateLimit." + route;
+        return new RateLimiter(Integer.getInteger(prefix + ".capacity", capacity),
+                Integer.getInteger(prefix + ".perSecond", perSecond), MAX_RATE_LIMITED_CLIENTS);
+    }
+
+    /**
+     * Creates admission controller shared by all routes, targets can be overridden with
+     * <code>todoapp.admission.queueDelayTargetMillis</code> and <code>todoapp.admission.latencyTargetMillis</code>
+     * system properties.
+     */
+    private static AdmissionController admissionController() {
+        return new AdmissionController(Long.getLong("todoapp.admission.queueDelayTargetMillis", 20),
+                Long.getLong("todoapp.admission.latencyTargetMillis", 100), 1, WORKERS);
+    }
+
+    /**
+     * Creates request log writing JSON lines to the file given by <code>todoapp.requestLog</code> system property or
+     * to the standard output. Events which do not fit into the buffer are dropped.
+     */
+    private static RequestLog requestLog(ToDoServer httpServer) throws IOException {
+        var path = System.getProperty("todoapp.requestLog");
+        OutputStream stream = path == null ? System.out : new FileOutputStream(path, true);
+
+        var output = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+        var requestLog = new RequestLog(REQUEST_LOG_CAPACITY, RequestLog.OverflowPolicy.DROP, output);
+        if (path != null)
+            httpServer.closeOnStop(output);
+        httpServer.closeOnStop(requestLog);
+        return requestLog;
+    }
+
+    private static void registerMetrics(Metrics metrics, AdmissionController admission, RequestLog requestLog) {
+        metrics.register("admission.limit", admission::getLimit);
+        metrics.register("admission.inFlight", admission::getInFlight);
+        metrics.register("admission.admitted", admission::getAdmittedCount);
+        metrics.register("admission.shed", admission::getShedCount);
+        metrics.register("admission.queueDelayMicros", () -> admission.getQueueDelayNanos() / 1_000.0);
+        metrics.register("admission.dropping", () -> admission.isDropping() ? 1 : 0);
+        metrics.register("requestLog.dropped", requestLog::getDroppedCount);
+        metrics.register("requestLog.failed", requestLog::getFailedCount);
+        metrics.register("requestLog.pending", requestLog::getPendingCount);
+    }
 }
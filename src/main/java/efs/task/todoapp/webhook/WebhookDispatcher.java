@@ -0,0 +1,116 @@
+package efs.task.todoapp.webhook;
+
+import efs.task.todoapp.metrics.Metrics;
+import efs.task.todoapp.reminder.ReminderSink;
+import efs.task.todoapp.repository.MutationListener;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.UserEntity;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Posts task events to the configured endpoints: <code>saved</code> and <code>deleted</code> for every change of the
+ * task repository and <code>due</code> for reminders. Each endpoint has its own bounded queue, see
+ * {@link WebhookSubscriber}; a change only appends to the queues, requests are sent asynchronously by a small pool of
+ * HTTP clients sharing two threads, so a slow endpoint never delays the thread which changed the task.
+ */
+public class WebhookDispatcher implements MutationListener, ReminderSink, AutoCloseable {
+
+    private static final int CLIENTS = 2;
+    private static final int THREADS = 2;
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timer;
+    private final List<WebhookSubscriber> subscribers = new ArrayList<>();
+
+    public WebhookDispatcher(List<URI> endpoints, int batchSize, int capacity, long lingerMillis,
+                             long minBackoffMillis, long maxBackoffMillis) {
+        this.executor = Executors.newFixedThreadPool(THREADS, daemon("webhook-client"));
+        this.timer = Executors.newSingleThreadScheduledExecutor(daemon("webhooks"));
+
+        var clients = new HttpClient[Math.min(CLIENTS, endpoints.size())];
+        for (int i = 0; i < clients.length; i++)
+            clients[i] = HttpClient.newBuilder().executor(executor).connectTimeout(CONNECT_TIMEOUT).build();
+        for (int i = 0; i < endpoints.size(); i++) {
+            subscribers.add(new WebhookSubscriber(endpoints.get(i), clients[i % clients.length], timer, batchSize,
+                    capacity, lingerMillis, minBackoffMillis, maxBackoffMillis));
+        }
+    }
+
+    public void registerMetrics(Metrics metrics) {
+        metrics.register("webhooks.delivered", this::getDeliveredCount);
+        metrics.register("webhooks.failedAttempts", this::getFailedAttemptCount);
+        metrics.register("webhooks.dropped", this::getDroppedCount);
+        metrics.register("webhooks.pending", this::getPendingCount);
+    }
+
+    public long getDeliveredCount() {
+        return subscribers.stream().mapToLong(subscriber -> subscriber.delivered.sum()).sum();
+    }
+
+    public long getFailedAttemptCount() {
+        return subscribers.stream().mapToLong(subscriber -> subscriber.failedAttempts.sum()).sum();
+    }
+
+    public long getDroppedCount() {
+        return subscribers.stream().mapToLong(subscriber -> subscriber.dropped.sum()).sum();
+    }
+
+    public long getPendingCount() {
+        return subscribers.stream().mapToLong(WebhookSubscriber::getPendingCount).sum();
+    }
+
+    @Override
+    public void userSaved(UserEntity user) {
+    }
+
+    @Override
+    public void userDeleted(UserEntity user) {
+    }
+
+    @Override
+    public void taskSaved(TaskEntity task) {
+        offer(new WebhookEvent(WebhookEvent.SAVED, task));
+    }
+
+    @Override
+    public void taskDeleted(TaskEntity task) {
+        offer(new WebhookEvent(WebhookEvent.DELETED, task));
+    }
+
+    @Override
+    public void remind(TaskEntity task) {
+        offer(new WebhookEvent(WebhookEvent.DUE, task));
+    }
+
+    /**
+     * Stops sending, events still queued are dropped.
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private void offer(WebhookEvent event) {
+        for (WebhookSubscriber subscriber : subscribers)
+            subscriber.offer(event);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            var thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
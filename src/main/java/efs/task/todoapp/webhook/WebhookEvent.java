@@ -0,0 +1,37 @@
+package efs.task.todoapp.webhook;
+
+import efs.task.todoapp.codec.JsonCodec;
+import efs.task.todoapp.codec.JsonOutput;
+import efs.task.todoapp.repository.TaskEntity;
+
+/**
+ * Change of a task waiting for delivery. Stored tasks are replaced rather than modified, so the event keeps the task
+ * itself and encodes it only when its batch is sent.
+ */
+final class WebhookEvent {
+
+    static final String SAVED = "saved";
+    static final String DELETED = "deleted";
+    static final String DUE = "due";
+
+    private final String type;
+    private final long timestamp;
+    private final TaskEntity task;
+
+    WebhookEvent(String type, TaskEntity task) {
+        this.type = type;
+        this.timestamp = System.currentTimeMillis();
+        this.task = task;
+    }
+
+    /**
+     * Writes the event as <code>{"event":type,"timestamp":millis,"task":record}</code>, the task in the format of the
+     * NDJSON export.
+     */
+    JsonOutput writeTo(JsonOutput output) {
+        output.writeAscii("{\"event\":").writeString(type);
+        output.writeAscii(",\"timestamp\":").writeLong(timestamp);
+        output.writeAscii(",\"task\":");
+        return JsonCodec.writeTaskRecord(output, task).writeByte('}');
+    }
+}
@@ -0,0 +1,177 @@
+package efs.task.todoapp.webhook;
+
+import efs.task.todoapp.codec.JsonOutput;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Queue of events for one endpoint. Events are sent as JSON arrays of up to <code>batchSize</code> events, at most one
+ * request at a time; the first event of a batch waits <code>lingerMillis</code> for others to join it. A batch which
+ * fails with an I/O error, a timeout or a 408, 429 or 5xx status is put back and retried with exponential backoff,
+ * other statuses drop it. The queue holds at most <code>capacity</code> events, the oldest ones are dropped when it
+ * is full, so an endpoint which is down cannot exhaust the memory.
+ */
+final class WebhookSubscriber {
+
+    private static final Logger LOGGER = Logger.getLogger(WebhookSubscriber.class.getName());
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final int MAX_BACKOFF_SHIFT = 20;
+
+    private final URI endpoint;
+    private final HttpClient client;
+    private final ScheduledExecutorService timer;
+    private final int batchSize;
+    private final int capacity;
+    private final long lingerMillis;
+    private final long minBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final ArrayDeque<WebhookEvent> queue = new ArrayDeque<>();
+    private boolean busy;
+    private int failures;
+
+    final LongAdder delivered = new LongAdder();
+    final LongAdder failedAttempts = new LongAdder();
+    final LongAdder dropped = new LongAdder();
+
+    WebhookSubscriber(URI endpoint, HttpClient client, ScheduledExecutorService timer, int batchSize, int capacity,
+                      long lingerMillis, long minBackoffMillis, long maxBackoffMillis) {
+        this.endpoint = endpoint;
+        this.client = client;
+        this.timer = timer;
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+        this.lingerMillis = lingerMillis;
+        this.minBackoffMillis = minBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Queues the event, never blocks.
+     */
+    synchronized void offer(WebhookEvent event) {
+        if (queue.size() >= capacity) {
+            queue.pollFirst();
+            dropped.increment();
+        }
+        queue.addLast(event);
+        if (!busy) {
+            busy = true;
+            schedule(this::flush, lingerMillis);
+        }
+    }
+
+    synchronized int getPendingCount() {
+        return queue.size();
+    }
+
+    private void flush() {
+        List<WebhookEvent> batch;
+        synchronized (this) {
+            if (queue.isEmpty()) {
+                busy = false;
+                return;
+            }
+            batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+            while (batch.size() < batchSize && !queue.isEmpty())
+                batch.add(queue.pollFirst());
+        }
+
+        boolean sent = false;
+        try {
+            var output = JsonOutput.forThread().writeByte('[');
+            for (int i = 0; i < batch.size(); i++) {
+                if (i > 0)
+                    output.writeByte(',');
+                batch.get(i).writeTo(output);
+            }
+            var request = HttpRequest.newBuilder(endpoint)
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(output.writeByte(']').toByteArray()))
+                    .build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> completed(batch, error == null ? response.statusCode() : -1));
+            sent = true;
+        } finally {
+            if (!sent)
+                abandoned(batch);
+        }
+    }
+
+    /**
+     * Drops a batch which could not even be sent, e.g. because one of its events failed to encode, and carries on
+     * with the rest of the queue so that the subscriber is not left busy forever.
+     */
+    private void abandoned(List<WebhookEvent> batch) {
+        synchronized (this) {
+            LOGGER.warning("Webhook " + endpoint + " dropped " + batch.size() + " events which could not be sent");
+            dropped.add(batch.size());
+            if (queue.isEmpty()) {
+                busy = false;
+                return;
+            }
+        }
+        schedule(this::flush, 0);
+    }
+
+    private void completed(List<WebhookEvent> batch, int status) {
+        long delay = 0;
+        synchronized (this) {
+            if (status / 100 == 2) {
+                delivered.add(batch.size());
+                failures = 0;
+            } else if (status < 0 || status == 408 || status == 429 || status >= 500) {
+                failedAttempts.increment();
+                for (int i = batch.size() - 1; i >= 0; i--) {
+                    if (queue.size() < capacity)
+                        queue.addFirst(batch.get(i));
+                    else
+                        dropped.increment();
+                }
+                failures++;
+                delay = backoffMillis();
+            } else {
+                LOGGER.warning("Webhook " + endpoint + " rejected " + batch.size() + " events with status " + status);
+                dropped.add(batch.size());
+                failures = 0;
+            }
+
+            if (queue.isEmpty()) {
+                busy = false;
+                return;
+            }
+        }
+        schedule(this::flush, delay);
+    }
+
+    /**
+     * Doubles the delay with every consecutive failure, randomizing its upper half so that subscribers of a recovered
+     * endpoint do not retry in lockstep.
+     */
+    private long backoffMillis() {
+        long ceiling = Math.min(maxBackoffMillis, minBackoffMillis << Math.min(failures - 1, MAX_BACKOFF_SHIFT));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    private void schedule(Runnable task, long delayMillis) {
+        try {
+            timer.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // the dispatcher has been closed
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package efs.task.todoapp.benchmark;
+
+import efs.task.todoapp.repository.PartitionedTaskRepository;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.repository.UserRepository;
+import efs.task.todoapp.service.Exceptions.UnauthorizedException;
+import efs.task.todoapp.service.ToDoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a rejected login, comparing the stackless service exceptions with exceptions capturing their stack trace
+ * as they did before. Failures are thrown {@link #DEPTH} frames below the catch, roughly the depth of a handler
+ * running on a server thread. Run with <code>main</code> from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    private static final int DEPTH = 30;
+
+    private ToDoService service;
+    private List<String> wrongPassword;
+
+    @Setup
+    public void setUp() throws Exception {
+        service = new ToDoService(new UserRepository(), new PartitionedTaskRepository());
+        service.saveUser(new UserEntity("username", "password"));
+        wrongPassword = List.of("username", "guess");
+    }
+
+    @Benchmark
+    public int rejectedLoginStackless() {
+        try {
+            validateAt(DEPTH, false);
+            return 0;
+        } catch (UnauthorizedException | WithStackTraceException e) {
+            return e.getMessage().length();
+        }
+    }
+
+    @Benchmark
+    public int rejectedLoginWithStackTrace() {
+        try {
+            validateAt(DEPTH, true);
+            return 0;
+        } catch (UnauthorizedException | WithStackTraceException e) {
+            return e.getMessage().length();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ErrorPathBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private void validateAt(int depth, boolean withStackTrace) throws UnauthorizedException, WithStackTraceException {
+        if (depth > 0) {
+            validateAt(depth - 1, withStackTrace);
+            return;
+        }
+        try {
+            service.validateUser(wrongPassword);
+        } catch (UnauthorizedException e) {
+            if (withStackTrace)
+                throw new WithStackTraceException(e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Service exception as it was before, filling in its stack trace.
+     */
+    private static final class WithStackTraceException extends Exception {
+        private WithStackTraceException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package efs.task.todoapp.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import efs.task.todoapp.codec.JsonCodec;
+import efs.task.todoapp.codec.JsonOutput;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.service.Exceptions.BadRequestException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hand-written codec with the Gson based encoding and decoding it replaced.
+ * Run with <code>main</code> from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+    private static final Gson gson = new Gson();
+
+    private byte[] requestBody;
+    private TaskEntity task;
+    private List<TaskEntity> tasks;
+
+    @Setup
+    public void setUp() {
+        requestBody = "{\"description\":\"Kup mleko i chleb\",\"due\":\"2021-06-30\"}".getBytes(StandardCharsets.UTF_8);
+        task = newTask(0);
+        tasks = new ArrayList<>();
+        for (int i = 0; i < 50; i++)
+            tasks.add(newTask(i));
+    }
+
+    @Benchmark
+    public TaskEntity decodeGson() {
+        return gson.fromJson(new String(requestBody), TaskEntity.class);
+    }
+
+    @Benchmark
+    public TaskEntity decodeCodec() throws BadRequestException {
+        return JsonCodec.readTask(requestBody, requestBody.length);
+    }
+
+    @Benchmark
+    public byte[] encodeTaskGson() {
+        return toJsonObject(task).toString().getBytes();
+    }
+
+    @Benchmark
+    public int encodeTaskCodec() {
+        return JsonCodec.writeTask(JsonOutput.forThread(), task).length();
+    }
+
+    @Benchmark
+    public byte[] encodeListGson() {
+        var array = new JsonArray();
+        for (TaskEntity t : tasks)
+            array.add(toJsonObject(t));
+        return array.toString().getBytes();
+    }
+
+    @Benchmark
+    public int encodeListCodec() {
+        return JsonCodec.writeTasks(JsonOutput.forThread(), tasks).length();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JsonCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static TaskEntity newTask(int i) {
+        var task = new TaskEntity("Kup mleko " + i, "2021-06-30");
+        task.setId(UUID.randomUUID());
+        return task;
+    }
+
+    private static JsonObject toJsonObject(TaskEntity task) {
+        var responseJson = new JsonObject();
+        responseJson.addProperty("id", String.valueOf(task.getId()));
+        responseJson.addProperty("description", task.getDescription());
+        if (task.getDue() != null)
+            responseJson.addProperty("due", task.getDue());
+        return responseJson;
+    }
+}
@@ -0,0 +1,88 @@
+package efs.task.todoapp.benchmark;
+
+import efs.task.todoapp.repository.OwnedTaskRepository;
+import efs.task.todoapp.repository.PartitionedTaskRepository;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures owners bulk-editing their own tasks at the same time, each benchmark thread being one owner, in the shared
+ * map and in the partitioned repository. Run with <code>main</code> from the test classpath, the number of owners can
+ * be changed with <code>-t</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class OwnedTaskRepositoryBenchmark {
+
+    private static final int TASKS_PER_OWNER = 100;
+
+    @Param({"shared", "partitioned"})
+    public String kind;
+
+    private OwnedTaskRepository repository;
+    private final AtomicInteger owners = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        repository = kind.equals("shared") ? new TaskRepository() : new PartitionedTaskRepository();
+    }
+
+    @State(Scope.Thread)
+    public static class Owner {
+        private String name;
+        private UUID[] ids;
+
+        @Setup
+        public void setUp(OwnedTaskRepositoryBenchmark benchmark) {
+            name = "user" + benchmark.owners.incrementAndGet();
+            ids = new UUID[TASKS_PER_OWNER];
+            for (int i = 0; i < ids.length; i++) {
+                var task = new TaskEntity("Kup mleko " + i, "2021-06-30");
+                task.setId(UUID.randomUUID());
+                task.setOwner(name);
+                benchmark.repository.save(task);
+                ids[i] = task.getId();
+            }
+        }
+    }
+
+    @Benchmark
+    public TaskEntity update(Owner owner) {
+        int i = ThreadLocalRandom.current().nextInt(TASKS_PER_OWNER);
+        return repository.update(owner.ids[i], owner.name, -1, new TaskEntity("Kup chleb " + i));
+    }
+
+    @Benchmark
+    public TaskEntity query(Owner owner) {
+        return repository.query(owner.ids[ThreadLocalRandom.current().nextInt(TASKS_PER_OWNER)]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OwnedTaskRepositoryBenchmark.class.getSimpleName()).build()).run();
+    }
+}
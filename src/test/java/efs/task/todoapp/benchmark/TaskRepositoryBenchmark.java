@@ -0,0 +1,103 @@
+package efs.task.todoapp.benchmark;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures listing an owner's tasks while another thread keeps updating tasks, comparing the per-owner snapshot
+ * with filtering the whole repository. Run with <code>main</code> from the test classpath.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskRepositoryBenchmark {
+
+    private static final int OWNERS = 100;
+    private static final int TASKS_PER_OWNER = 50;
+
+    private TaskRepository repository;
+    private UUID[] ids;
+
+    @Setup
+    public void setUp() {
+        repository = new TaskRepository();
+        ids = new UUID[OWNERS * TASKS_PER_OWNER];
+        for (int i = 0; i < ids.length; i++) {
+            var task = new TaskEntity("Kup mleko " + i, "2021-06-30");
+            task.setId(UUID.randomUUID());
+            task.setOwner(owner(i % OWNERS));
+            repository.save(task);
+            ids[i] = task.getId();
+        }
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    @GroupThreads(3)
+    public int readSnapshot() {
+        return sum(repository.queryByOwner(owner(ThreadLocalRandom.current().nextInt(OWNERS))));
+    }
+
+    @Benchmark
+    @Group("snapshot")
+    public TaskEntity writeSnapshot() {
+        return write();
+    }
+
+    @Benchmark
+    @Group("scan")
+    @GroupThreads(3)
+    public int readScan() {
+        var owner = owner(ThreadLocalRandom.current().nextInt(OWNERS));
+        return sum(repository.query(task -> task.getOwner().equals(owner)));
+    }
+
+    @Benchmark
+    @Group("scan")
+    public TaskEntity writeScan() {
+        return write();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TaskRepositoryBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private TaskEntity write() {
+        int i = ThreadLocalRandom.current().nextInt(ids.length);
+        return repository.update(ids[i], owner(i % OWNERS), -1, new TaskEntity("Kup chleb " + i));
+    }
+
+    private static int sum(List<TaskEntity> tasks) {
+        int sum = 0;
+        for (TaskEntity task : tasks)
+            sum += task.getDescription().length();
+        return sum;
+    }
+
+    private static String owner(int i) {
+        return "user" + i;
+    }
+}
@@ -0,0 +1,68 @@
+package efs.task.todoapp.benchmark;
+
+import efs.task.todoapp.reminder.TimingWheel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rescheduling a reminder, cancelling one timer and scheduling another, on a wheel already holding a million
+ * timers spread over a year of one-second ticks. Run with <code>main</code> from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimingWheelBenchmark {
+
+    private static final int TIMERS = 1_000_000;
+    private static final long YEAR = 365L * 24 * 3600;
+
+    private TimingWheel<Integer> wheel;
+    private TimingWheel.Timer<Integer>[] timers;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        wheel = new TimingWheel<>(System.currentTimeMillis() / 1_000);
+        timers = new TimingWheel.Timer[TIMERS];
+        for (int i = 0; i < TIMERS; i++)
+            timers[i] = wheel.schedule(randomDeadline(), i);
+    }
+
+    @Benchmark
+    public long reschedule() {
+        int i = ThreadLocalRandom.current().nextInt(TIMERS);
+        wheel.cancel(timers[i]);
+        timers[i] = wheel.schedule(randomDeadline(), i);
+        return timers[i].getDeadline();
+    }
+
+    @Benchmark
+    public long nextTick() {
+        return wheel.nextTick();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TimingWheelBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private long randomDeadline() {
+        return wheel.getCurrentTick() + 1 + ThreadLocalRandom.current().nextLong(YEAR);
+    }
+}
@@ -0,0 +1,91 @@
+package efs.task.todoapp.benchmark;
+
+import efs.task.todoapp.codec.CborCodec;
+import efs.task.todoapp.codec.CborOutput;
+import efs.task.todoapp.codec.JsonCodec;
+import efs.task.todoapp.codec.JsonOutput;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.service.Exceptions.BadRequestException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JSON and CBOR wire formats on the same task bodies and lists.
+ * Run with <code>main</code> from the test classpath; payload sizes are printed first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    private byte[] jsonBody;
+    private byte[] cborBody;
+    private List<TaskEntity> tasks;
+
+    @Setup
+    public void setUp() {
+        jsonBody = "{\"description\":\"Kup mleko i chleb\",\"due\":\"2021-06-30\"}".getBytes(StandardCharsets.UTF_8);
+        cborBody = CborOutput.forThread().writeMapHeader(2)
+                .writeText("description").writeText("Kup mleko i chleb")
+                .writeText("due").writeText("2021-06-30")
+                .toByteArray();
+        tasks = newTasks();
+    }
+
+    @Benchmark
+    public TaskEntity decodeJson() throws BadRequestException {
+        return JsonCodec.readTask(jsonBody, jsonBody.length);
+    }
+
+    @Benchmark
+    public TaskEntity decodeCbor() throws BadRequestException {
+        return CborCodec.readTask(cborBody, cborBody.length);
+    }
+
+    @Benchmark
+    public int encodeListJson() {
+        return JsonCodec.writeTasks(JsonOutput.forThread(), tasks).length();
+    }
+
+    @Benchmark
+    public int encodeListCbor() {
+        return CborCodec.writeTasks(CborOutput.forThread(), tasks).length();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        var tasks = newTasks();
+        System.out.println("50 tasks: json " + JsonCodec.writeTasks(JsonOutput.forThread(), tasks).length()
+                + " bytes, cbor " + CborCodec.writeTasks(CborOutput.forThread(), tasks).length() + " bytes");
+        new Runner(new OptionsBuilder().include(WireFormatBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static List<TaskEntity> newTasks() {
+        var tasks = new ArrayList<TaskEntity>();
+        for (int i = 0; i < 50; i++) {
+            var task = new TaskEntity("Kup mleko " + i, "2021-06-30");
+            task.setId(UUID.randomUUID());
+            tasks.add(task);
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,207 @@
+package efs.task.todoapp.cluster;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpServer;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.web.WebServerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Properties;
+
+import static efs.task.todoapp.web.HttpCode.*;
+import static java.net.http.HttpResponse.BodyHandlers.ofString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClusterRouterTest {
+
+    private static final String ROUTER_PATH = "http://localhost:8090/todo/";
+    private static final List<String> NODES = List.of("localhost:8091", "localhost:8092");
+    private static final String NEW_NODE = "localhost:8093";
+    private static final int USERS = 20;
+    private static final String ADMIN_TOKEN = "admin-secret";
+    private static final Gson gson = new Gson();
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private HttpClient httpClient;
+
+    @BeforeEach
+    void setUp() {
+        System.setProperty("todoapp.admin.token", ADMIN_TOKEN);
+        for (String node : List.of("localhost:8091", "localhost:8092", NEW_NODE))
+            servers.add(WebServerFactory.createShard(Integer.parseInt(node.split(":")[1])));
+        servers.add(WebServerFactory.createRouter(8090, NODES));
+        servers.forEach(HttpServer::start);
+        httpClient = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        servers.forEach(server -> server.stop(0));
+        System.clearProperty("todoapp.admin.token");
+    }
+
+    @Test
+    @Timeout(5)
+    void requestsThroughRouter_shouldReach_OwnersNode() throws IOException, InterruptedException {
+        //given
+        var createUser = post("user", null, gson.toJson(new UserEntity("username", "password")));
+        var createTask = post("task", auth("username", "password"), gson.toJson(new TaskEntity("Kup mleko")));
+        var id = gson.fromJson(createTask.body(), Properties.class).getProperty("id");
+
+        //when
+        var getTask = httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create(ROUTER_PATH + "task/" + id))
+                .header("auth", auth("username", "password"))
+                .GET()
+                .build(), ofString());
+
+        //then
+        assertThat(createUser.statusCode()).isEqualTo(CREATED.getCode());
+        assertThat(createTask.statusCode()).isEqualTo(CREATED.getCode());
+        assertThat(getTask.statusCode()).isEqualTo(OK.getCode());
+        assertThat(getTask.headers().firstValue("ETag")).hasValue("\"1\"");
+        assertThat(ownersOf(new HashRing(NODES, 128).nodeFor("username"))).containsExactly("username");
+    }
+
+    @Test
+    @Timeout(5)
+    void addingNode_shouldMove_OwnersWithTheirTasks() throws IOException, InterruptedException {
+        //given
+        for (int i = 0; i < USERS; i++) {
+            post("user", null, gson.toJson(new UserEntity("user" + i, "password")));
+            post("task", auth("user" + i, "password"), gson.toJson(new TaskEntity("task of user" + i)));
+        }
+
+        //when
+        var addNode = httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create(ROUTER_PATH + "cluster/nodes"))
+                .header("X-Admin-Token", ADMIN_TOKEN)
+                .POST(HttpRequest.BodyPublishers.ofString(NEW_NODE))
+                .build(), ofString());
+
+        //then
+        assertThat(addNode.statusCode()).isEqualTo(OK.getCode());
+        var moved = ownersOf(NEW_NODE);
+        assertThat(moved).isNotEmpty();
+        assertThat(gson.fromJson(addNode.body(), Properties.class).getProperty("moved"))
+                .isEqualTo(String.valueOf(moved.size()));
+        for (String node : NODES)
+            assertThat(ownersOf(node)).doesNotContainAnyElementsOf(moved);
+
+        for (int i = 0; i < USERS; i++) {
+            var tasks = httpClient.send(HttpRequest.newBuilder()
+                    .uri(URI.create(ROUTER_PATH + "task"))
+                    .header("auth", auth("user" + i, "password"))
+                    .GET()
+                    .build(), ofString());
+            assertThat(tasks.statusCode()).isEqualTo(OK.getCode());
+            assertThat(tasks.body()).contains("task of user" + i);
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void sessionToken_shouldBe_IssuedAndAccepted_ThroughRouter() throws IOException, InterruptedException {
+        //given
+        for (int i = 0; i < USERS; i++) {
+            post("user", null, gson.toJson(new UserEntity("user" + i, "password")));
+            post("task", auth("user" + i, "password"), gson.toJson(new TaskEntity("task of user" + i)));
+        }
+
+        //when
+        for (int i = 0; i < USERS; i++) {
+            var login = post("login", auth("user" + i, "password"), "");
+            var token = gson.fromJson(login.body(), Properties.class).getProperty("token");
+            var tasks = httpClient.send(HttpRequest.newBuilder()
+                    .uri(URI.create(ROUTER_PATH + "task"))
+                    .header("auth", token)
+                    .GET()
+                    .build(), ofString());
+
+            //then
+            assertThat(login.statusCode()).isEqualTo(OK.getCode());
+            assertThat(tasks.statusCode()).isEqualTo(OK.getCode());
+            assertThat(tasks.body()).contains("task of user" + i);
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void addingNode_withoutAdminToken_shouldBe_Unauthorized() throws IOException, InterruptedException {
+        //given
+        for (int i = 0; i < USERS; i++)
+            post("user", null, gson.toJson(new UserEntity("user" + i, "password")));
+
+        //when
+        var withoutToken = httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create(ROUTER_PATH + "cluster/nodes"))
+                .POST(HttpRequest.BodyPublishers.ofString(NEW_NODE))
+                .build(), ofString());
+        var withWrongToken = httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create(ROUTER_PATH + "cluster/nodes"))
+                .header("X-Admin-Token", "guess")
+                .POST(HttpRequest.BodyPublishers.ofString(NEW_NODE))
+                .build(), ofString());
+
+        //then
+        assertThat(withoutToken.statusCode()).isEqualTo(UNAUTHORIZED.getCode());
+        assertThat(withWrongToken.statusCode()).isEqualTo(UNAUTHORIZED.getCode());
+        assertThat(ownersOf(NEW_NODE)).isEmpty();
+        var nodes = httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create(ROUTER_PATH + "cluster/nodes"))
+                .header("X-Admin-Token", ADMIN_TOKEN)
+                .GET()
+                .build(), ofString());
+        assertThat(List.of(gson.fromJson(nodes.body(), String[].class))).containsExactlyElementsOf(NODES);
+    }
+
+    @Test
+    @Timeout(5)
+    void oversizedBody_shouldBe_RefusedByRouter() throws IOException, InterruptedException {
+        //given
+        post("user", null, gson.toJson(new UserEntity("username", "password")));
+
+        //when
+        var createTask = post("task", auth("username", "password"),
+                gson.toJson(new TaskEntity("Kup mleko ".repeat(7_000))));
+
+        //then
+        assertThat(createTask.statusCode()).isEqualTo(PAYLOAD_TOO_LARGE.getCode());
+    }
+
+    private java.net.http.HttpResponse<String> post(String path, String auth, String body)
+            throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder()
+                .uri(URI.create(ROUTER_PATH + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (auth != null)
+            request.header("auth", auth);
+        return httpClient.send(request.build(), ofString());
+    }
+
+    private List<String> ownersOf(String node) throws IOException, InterruptedException {
+        var response = httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://" + node + "/todo/cluster/owners"))
+                .GET()
+                .build(), ofString());
+        return List.of(gson.fromJson(response.body(), String[].class));
+    }
+
+    private static String auth(String username, String password) {
+        var encoder = Base64.getEncoder();
+        return encoder.encodeToString(username.getBytes(StandardCharsets.UTF_8)) + ":"
+                + encoder.encodeToString(password.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,54 @@
+package efs.task.todoapp.cluster;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashRingTest {
+
+    private static final int OWNERS = 10_000;
+
+    @Test
+    @Timeout(1)
+    void owners_shouldBe_SpreadEvenlyOverNodes() {
+        //given
+        var ring = new HashRing(List.of("localhost:8081", "localhost:8082", "localhost:8083"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+
+        //when
+        for (int i = 0; i < OWNERS; i++)
+            counts.merge(ring.nodeFor("user" + i), 1, Integer::sum);
+
+        //then
+        assertThat(counts).hasSize(3);
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(OWNERS / 4, OWNERS / 2));
+    }
+
+    @Test
+    @Timeout(1)
+    void addingNode_shouldMove_OnlyOwnersTakenOverByIt() {
+        //given
+        var ring = new HashRing(List.of("localhost:8081", "localhost:8082"), 128);
+        var extended = ring.withNode("localhost:8083");
+        int moved = 0;
+
+        //when
+        for (int i = 0; i < OWNERS; i++) {
+            var before = ring.nodeFor("user" + i);
+            var after = extended.nodeFor("user" + i);
+            if (!before.equals(after)) {
+                assertThat(after).isEqualTo("localhost:8083");
+                moved++;
+            }
+        }
+
+        //then
+        assertThat(moved).isBetween(OWNERS / 5, OWNERS / 2);
+        assertThat(ring.getNodes()).hasSize(2);
+    }
+}
@@ -0,0 +1,116 @@
+package efs.task.todoapp.codec;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.service.Exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CborCodecTest {
+
+    @Test
+    @Timeout(1)
+    void encodedId_shouldBe_TaggedUuid() {
+        //given
+        var id = UUID.fromString("237e9877-e79b-42d4-a765-321741963000");
+
+        //when
+        var encoded = CborCodec.writeId(CborOutput.forThread(), id).toByteArray();
+
+        //then
+        assertThat(hex(encoded)).isEqualTo("a1626964d82550237e9877e79b42d4a765321741963000");
+    }
+
+    @ParameterizedTest(name = "{index}: description={0}")
+    @ValueSource(strings = {"buy milk", "kup mleko żółte", "emoji 😀", "", "a description longer than twenty three"})
+    @Timeout(1)
+    void encodedTask_shouldBe_DecodedToSameTask(String description) throws BadRequestException {
+        //given
+        var task = new TaskEntity(description, "2021-06-30");
+        task.setId(UUID.randomUUID());
+        var encoded = CborCodec.writeTask(CborOutput.forThread(), task).toByteArray();
+
+        //when
+        var decoded = CborCodec.readTask(encoded, encoded.length);
+
+        //then
+        assertThat(decoded.getDescription()).isEqualTo(description);
+        assertThat(decoded.getDue()).isEqualTo("2021-06-30");
+    }
+
+    @Test
+    @Timeout(1)
+    void indefiniteLengthMap_shouldBe_Decoded() throws BadRequestException {
+        //given
+        // {_ "tags": [1, -2, 3.5], "description": (_ "Kup ", "mleko"), "due": null}
+        var body = bytes("bf" + "6474616773" + "8301" + "21" + "f94300"
+                + "6b6465736372697074696f6e" + "7f644b757020656d6c656b6fff"
+                + "63647565" + "f6" + "ff");
+
+        //when
+        var task = CborCodec.readTask(body, body.length);
+
+        //then
+        assertThat(task.getDescription()).isEqualTo("Kup mleko");
+        assertThat(task.getDue()).isNull();
+    }
+
+    @ParameterizedTest(name = "{index}: body={0}")
+    @ValueSource(strings = {"a1", "a16b6465736372697074696f6e", "a1616164", "8101", "a0a0", "1f", "a161617b0fffffffffffffff"})
+    @Timeout(1)
+    void malformedBody_shouldThrow_BadRequestException(String body) {
+        var bytes = bytes(body);
+
+        assertThatThrownBy(() -> CborCodec.readTask(bytes, bytes.length)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    @Timeout(1)
+    void encodedList_shouldBe_SmallerThanJson() {
+        //given
+        var task = new TaskEntity("Kup mleko", "2021-06-30");
+        task.setId(UUID.randomUUID());
+
+        //when
+        var cbor = CborCodec.writeTasks(CborOutput.forThread(), List.of(task, task)).length();
+        var json = JsonCodec.writeTasks(JsonOutput.forThread(), List.of(task, task)).length();
+
+        //then
+        assertThat(cbor).isLessThan(json);
+    }
+
+    @ParameterizedTest(name = "{index}: accept={0}")
+    @CsvSource(delimiter = '|', value = {
+            "application/cbor|CBOR",
+            "application/cbor, application/json|CBOR",
+            "application/json, application/cbor|JSON",
+            "application/cbor;q=0, application/json|JSON",
+            "APPLICATION/CBOR; q=0.5|CBOR",
+            "*/*|JSON"})
+    @Timeout(1)
+    void acceptHeader_shouldSelect_Format(String accept, WireFormat format) {
+        assertThat(WireFormat.ofAccept(accept)).isEqualTo(format);
+    }
+
+    private static byte[] bytes(String hex) {
+        var bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        return bytes;
+    }
+
+    private static String hex(byte[] bytes) {
+        var hex = new StringBuilder();
+        for (byte b : bytes)
+            hex.append(String.format("%02x", b));
+        return hex.toString();
+    }
+}
@@ -0,0 +1,191 @@
+package efs.task.todoapp.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.service.Exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonCodecTest {
+
+    private static final Gson gson = new Gson();
+
+    @ParameterizedTest(name = "{index}: description={0}")
+    @ValueSource(strings = {"buy milk", "kup mleko żółte", "quote \" backslash \\ slash /",
+            "tab\tnew line\ncarriage\rform\fback\b", "control \u0001\u001f", "separators   ",
+            "<html> & 'quotes' =", "emoji 😀", "lone \ud83d surrogate", ""})
+    @Timeout(1)
+    void encodedTask_shouldBe_ByteIdenticalToGson(String description) {
+        //given
+        var task = new TaskEntity(description, "2021-06-30");
+        task.setId(UUID.randomUUID());
+        var taskWithoutDue = new TaskEntity(description);
+        taskWithoutDue.setId(new UUID(0x0123456789abcdefL, 0xfedcba9876543210L));
+
+        //when
+        var encodedTask = JsonCodec.writeTask(JsonOutput.forThread(), task).toByteArray();
+        var encodedTaskWithoutDue = JsonCodec.writeTask(JsonOutput.forThread(), taskWithoutDue).toByteArray();
+        var encodedList = JsonCodec.writeTasks(JsonOutput.forThread(), List.of(task, taskWithoutDue)).toByteArray();
+        var encodedId = JsonCodec.writeId(JsonOutput.forThread(), task.getId()).toByteArray();
+
+        //then
+        assertThat(encodedTask).isEqualTo(gsonTask(task).toString().getBytes(StandardCharsets.UTF_8));
+        assertThat(encodedTaskWithoutDue).isEqualTo(gsonTask(taskWithoutDue).toString().getBytes(StandardCharsets.UTF_8));
+        assertThat(encodedList).isEqualTo(gsonTasks(List.of(task, taskWithoutDue)).getBytes(StandardCharsets.UTF_8));
+        assertThat(encodedId).isEqualTo(gsonId(task.getId()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @Timeout(1)
+    void encodedEmptyList_shouldBe_ByteIdenticalToGson() {
+        assertThat(JsonCodec.writeTasks(JsonOutput.forThread(), List.of()).toByteArray())
+                .isEqualTo(gsonTasks(List.of()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @ParameterizedTest(name = "{index}: body={0}")
+    @ValueSource(strings = {"{\"description\":\"buy milk\",\"due\":\"2021-06-30\"}",
+            "  {\"due\" : null , \"description\" : \"esc \\\"\\\\\\/\\b\\f\\n\\r\\t\\u017c\" }  ",
+            "{\"id\":\"237e9877-e79b-12d4-a765-321741963000\",\"nested\":{\"a\":[1,2,{\"b\":null}],\"c\":true},\"description\":\"d\",\"owner\":\"o\"}",
+            "{\"description\":123.5e2,\"due\":false}", "{\"description\":\"żółw 😀\"}",
+            "{}", "null", ""})
+    @Timeout(1)
+    void decodedTask_shouldEqual_GsonDecodedTask(String body) throws BadRequestException {
+        //given
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        //when
+        var task = JsonCodec.readTask(bytes, bytes.length);
+        var expected = gson.fromJson(body, TaskEntity.class);
+
+        //then
+        if (expected == null) {
+            assertThat(task).isNull();
+        } else {
+            assertThat(task.getDescription()).isEqualTo(expected.getDescription());
+            assertThat(task.getDue()).isEqualTo(expected.getDue());
+        }
+    }
+
+    @Test
+    @Timeout(1)
+    void decodedUser_shouldEqual_GsonDecodedUser() throws BadRequestException {
+        //given
+        var body = gson.toJson(new UserEntity("jan\"Kowalski", "am!sK#123"));
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        //when
+        var user = JsonCodec.readUser(bytes, bytes.length);
+
+        //then
+        assertThat(user.getUsername()).isEqualTo("jan\"Kowalski");
+        assertThat(user.getPassword()).isEqualTo("am!sK#123");
+    }
+
+    @ParameterizedTest(name = "{index}: body={0}")
+    @ValueSource(strings = {"{", "{\"description\":}", "{\"description\":\"unterminated}", "[1,2]",
+            "{\"description\":\"a\"} trailing", "{\"description\":\"a\",}", "{\"description\":\"bad \\x escape\"}"})
+    @Timeout(1)
+    void malformedBody_shouldThrow_BadRequestException(String body) {
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> JsonCodec.readTask(bytes, bytes.length)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    @Timeout(1)
+    void deeplyNestedUnknownField_shouldThrow_BadRequestException() {
+        var body = "{\"extra\":" + "[".repeat(5_000) + "]".repeat(5_000) + ",\"description\":\"a\"}";
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> JsonCodec.readTask(bytes, bytes.length)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    @Timeout(1)
+    void listOfPreEncodedTasks_shouldBe_ByteIdenticalToGson() {
+        //given
+        var task = new TaskEntity("buy milk", "2021-06-30");
+        task.setId(UUID.randomUUID());
+        task.setEncoded(JsonCodec.writeTask(JsonOutput.forThread(), task).toByteArray());
+        var anotherTask = new TaskEntity("new description");
+        anotherTask.setId(UUID.randomUUID());
+
+        //when
+        var encodedList = JsonCodec.writeTasks(JsonOutput.forThread(), List.of(task, anotherTask)).toByteArray();
+
+        //then
+        assertThat(encodedList).isEqualTo(gsonTasks(List.of(task, anotherTask)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @Timeout(1)
+    void changedTask_shouldNotBe_WrittenFromStaleBytes() {
+        //given
+        var task = new TaskEntity("buy milk", "2021-06-30");
+        task.setId(UUID.randomUUID());
+        task.setEncoded(JsonCodec.writeTask(JsonOutput.forThread(), task).toByteArray());
+
+        //when
+        task.setDescription("buy bread");
+        var encodedList = JsonCodec.writeTasks(JsonOutput.forThread(), List.of(task)).toByteArray();
+
+        //then
+        assertThat(task.getEncoded()).isNull();
+        assertThat(encodedList).isEqualTo(gsonTasks(List.of(task)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @Timeout(1)
+    void exportedRecords_shouldBe_DecodedWithOwnerAndVersion() throws BadRequestException {
+        //given
+        var user = new UserEntity("username", "password");
+        var task = new TaskEntity("kup \"mleko\"", "2021-06-30");
+        task.setId(UUID.randomUUID());
+        task.setOwner("username");
+        task.setVersion(7);
+        var userLine = JsonCodec.writeUserRecord(JsonOutput.forThread(), user).toByteArray();
+        var taskLine = JsonCodec.writeTaskRecord(JsonOutput.forThread(), task).toByteArray();
+
+        //when
+        var decodedUser = JsonCodec.readRecord(userLine, 0, userLine.length);
+        var decodedTask = JsonCodec.readRecord(taskLine, 0, taskLine.length);
+
+        //then
+        assertThat(decodedUser).usingRecursiveComparison().isEqualTo(user);
+        assertThat(decodedTask).usingRecursiveComparison().ignoringFields("encoded").isEqualTo(task);
+    }
+
+    private static JsonObject gsonTask(TaskEntity task) {
+        var responseJson = new JsonObject();
+        responseJson.addProperty("id", String.valueOf(task.getId()));
+        responseJson.addProperty("description", task.getDescription());
+        if (task.getDue() != null)
+            responseJson.addProperty("due", task.getDue());
+        return responseJson;
+    }
+
+    private static String gsonTasks(List<TaskEntity> tasks) {
+        var responseJsonArray = new JsonArray();
+        for (TaskEntity task : tasks)
+            responseJsonArray.add(gsonTask(task));
+        return responseJsonArray.toString();
+    }
+
+    private static String gsonId(UUID id) {
+        var responseJson = new JsonObject();
+        responseJson.addProperty("id", String.valueOf(id));
+        return responseJson.toString();
+    }
+}
@@ -0,0 +1,73 @@
+package efs.task.todoapp.codec;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NdjsonReaderTest {
+
+    @Test
+    @Timeout(1)
+    void lines_shouldBe_SplitAcrossReads() throws IOException {
+        //given
+        var content = new StringBuilder();
+        for (int i = 0; i < 10_000; i++)
+            content.append("{\"line\":").append(i).append("}\r\n");
+        content.append("\n  \n{\"last\":true}");
+
+        //when
+        var lines = readAll(new TrickleInputStream(content.toString()), 64);
+
+        //then
+        assertThat(lines).hasSize(10_001);
+        assertThat(lines.get(0)).isEqualTo("{\"line\":0}");
+        assertThat(lines.get(9_999)).isEqualTo("{\"line\":9999}");
+        assertThat(lines.get(10_000)).isEqualTo("{\"last\":true}");
+    }
+
+    @Test
+    @Timeout(1)
+    void tooLongLine_shouldBe_Skipped() throws IOException {
+        //given
+        var content = "{\"a\":1}\n" + "x".repeat(200_000) + "\n{\"b\":2}\n";
+
+        //when
+        var lines = readAll(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), 1_000);
+
+        //then
+        assertThat(lines).containsExactly("{\"a\":1}", null, "{\"b\":2}");
+    }
+
+    private static List<String> readAll(InputStream input, int maxLineLength) throws IOException {
+        var reader = new NdjsonReader(input, maxLineLength);
+        List<String> lines = new ArrayList<>();
+        while (reader.next()) {
+            lines.add(reader.isTooLong() ? null : new String(reader.getBuffer(), reader.getLineStart(),
+                    reader.getLineLength(), StandardCharsets.UTF_8));
+        }
+        return lines;
+    }
+
+    /**
+     * Returns at most 7 bytes per read, so lines end up split between reads.
+     */
+    private static final class TrickleInputStream extends ByteArrayInputStream {
+
+        TrickleInputStream(String content) {
+            super(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 7));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package efs.task.todoapp.logging;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestLogTest {
+
+    @Test
+    @Timeout(1)
+    void loggedEvents_shouldBeWritten_asJsonLines() {
+        //given
+        var output = new StringWriter();
+        var requestLog = new RequestLog(16, RequestLog.OverflowPolicy.DROP, output);
+
+        //when
+        requestLog.log("GET", "/todo/task", 200, "user\"name", 1_500_000);
+        requestLog.log("POST", "/todo/user", 409, null, 2_000);
+        requestLog.close();
+
+        //then
+        var lines = output.toString().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).matches("\\{\"ts\":\\d+,\"method\":\"GET\",\"route\":\"/todo/task\",\"status\":200,"
+                + "\"user\":\"user\\\\\"name\",\"latencyMicros\":1500}");
+        assertThat(lines[1]).endsWith("\"status\":409,\"user\":null,\"latencyMicros\":2}");
+    }
+
+    @Test
+    @Timeout(1)
+    void fullBuffer_withDropPolicy_shouldDrop_andCountEvents() {
+        //given
+        var requestLog = new RequestLog(2, RequestLog.OverflowPolicy.DROP, new StringWriter());
+        requestLog.close();
+
+        //when
+        var first = requestLog.log("GET", "/todo/task", 200, null, 0);
+        var second = requestLog.log("GET", "/todo/task", 200, null, 0);
+        var third = requestLog.log("GET", "/todo/task", 200, null, 0);
+
+        //then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+        assertThat(requestLog.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Timeout(1)
+    void methodAndRoute_shouldBe_Escaped() {
+        //given
+        var output = new StringWriter();
+        var requestLog = new RequestLog(16, RequestLog.OverflowPolicy.DROP, output);
+
+        //when
+        requestLog.log("GE\"T", "/todo/task\n\\", 200, null, 0);
+        requestLog.close();
+
+        //then
+        assertThat(output.toString()).contains("\"method\":\"GE\\\"T\",\"route\":\"/todo/task\\u000a\\\\\"");
+    }
+
+    @Test
+    @Timeout(1)
+    void failingOutput_shouldDrop_andCountEvent() {
+        //given
+        var output = new StringWriter();
+        var failing = new Writer() {
+            boolean failNext = true;
+
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                if (failNext) {
+                    failNext = false;
+                    throw new IOException("Disk full");
+                }
+                output.write(buffer, offset, length);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        var requestLog = new RequestLog(16, RequestLog.OverflowPolicy.DROP, failing);
+
+        //when
+        requestLog.log("GET", "/todo/task", 200, null, 0);
+        requestLog.log("POST", "/todo/task", 201, null, 0);
+        requestLog.close();
+
+        //then
+        assertThat(requestLog.getFailedCount()).isEqualTo(1);
+        assertThat(requestLog.getPendingCount()).isZero();
+        assertThat(output.toString()).contains("\"method\":\"POST\"").doesNotContain("\"method\":\"GET\"");
+    }
+}
@@ -0,0 +1,38 @@
+package efs.task.todoapp.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HistogramTest {
+
+    @Test
+    @Timeout(1)
+    void quantiles_shouldBeWithinBucketPrecision() {
+        //given
+        var histogram = new Histogram();
+
+        //when
+        for (long value = 1; value <= 10_000; value++)
+            histogram.record(value * 1_000);
+
+        //then
+        assertThat(histogram.getCount()).isEqualTo(10_000);
+        assertThat((double) histogram.getValueAtQuantile(0.5)).isCloseTo(5_000_000, within(5_000_000 * 0.125));
+        assertThat((double) histogram.getValueAtQuantile(0.99)).isCloseTo(9_900_000, within(9_900_000 * 0.125));
+        assertThat(histogram.getValueAtQuantile(1.0)).isGreaterThanOrEqualTo(10_000_000);
+    }
+
+    @Test
+    @Timeout(1)
+    void bucketBounds_shouldContainRecordedValue() {
+        for (long value : new long[]{0, 7, 8, 15, 16, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            int index = Histogram.indexOf(value);
+            assertThat(Histogram.lowerBound(index)).isLessThanOrEqualTo(value);
+            if (value != Long.MAX_VALUE)
+                assertThat(Histogram.lowerBound(index + 1)).isGreaterThan(value);
+        }
+    }
+}
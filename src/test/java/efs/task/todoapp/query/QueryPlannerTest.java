@@ -0,0 +1,74 @@
+package efs.task.todoapp.query;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.service.Exceptions.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryPlannerTest {
+
+    private final TaskRepository repository = new TaskRepository();
+
+    @BeforeEach
+    void setUp() {
+        save("Kup mleko", "2021-06-30", "username");
+        save("Kup chleb", null, "username");
+        save("Kup masło", "2021-06-01", "username");
+        save("Kup jajka", "2021-07-15", "username");
+        save("Kup mleko", "2021-06-30", "other");
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "due>=2021-06-01 and due<2021-07-01 | IndexScan(due, 2021-06-01..2021-06-30) | Kup masło,Kup mleko",
+            "hasDue and description~mleko | IndexScan(due, ..) filter description~\"mleko\" | Kup mleko",
+            "description~kup and hasDue=false | OwnerScan filter description~\"kup\" and hasDue=false | Kup chleb",
+            "due<2021-06-15 or due>2021-07-01 | Union(IndexScan(due, ..2021-06-14), IndexScan(due, 2021-07-02..)) | Kup masło,Kup jajka",
+            "due=2021-06-30 or hasDue=false | OwnerScan filter due=2021-06-30 or hasDue=false | Kup mleko,Kup chleb",
+            "owner=username and due>2021-07-01 | IndexScan(due, 2021-07-02..) | Kup jajka",
+            "owner=other and hasDue | Empty(tasks of another owner) | ''",
+            "due>2021-07-01 and due<2021-06-01 | Empty(empty due range) | ''"
+    })
+    @Timeout(1)
+    void filters_shouldBe_PlannedAndAnswered(String expression, String explained, String descriptions)
+            throws BadRequestException {
+        //when
+        var plan = QueryPlanner.plan(TaskFilter.parse(expression), "username");
+        var tasks = plan.execute(repository);
+
+        //then
+        assertThat(plan.explain()).isEqualTo(explained);
+        assertThat(tasks).extracting(TaskEntity::getDescription)
+                .containsExactlyElementsOf(descriptions.isEmpty() ? Arrays.asList() : Arrays.asList(descriptions.split(",")));
+    }
+
+    @Test
+    @Timeout(1)
+    void plans_shouldReturn_SameTasksAsFullScan() throws BadRequestException {
+        //given
+        var filter = TaskFilter.parse("due>=2021-06-02 and due<=2021-07-15 or description~chleb");
+
+        //when
+        var planned = QueryPlanner.plan(filter, "username").execute(repository);
+
+        //then
+        assertThat(planned).containsExactlyInAnyOrderElementsOf(
+                repository.query(task -> task.getOwner().equals("username") && filter.test(task)));
+    }
+
+    private void save(String description, String due, String owner) {
+        var task = new TaskEntity(description, due);
+        task.setId(UUID.randomUUID());
+        task.setOwner(owner);
+        repository.save(task);
+    }
+}
@@ -0,0 +1,67 @@
+package efs.task.todoapp.query;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.service.Exceptions.BadRequestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskFilterTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "due>=2021-06-01 AND due<2021-07-01 | due>=2021-06-01 and due<=2021-06-30",
+            "due=2021-06-30 or hasDue=false | due=2021-06-30 or hasDue=false",
+            "description~\"kup \\\"mleko\\\"\" and (owner=ala or hasDue) | description~\"kup \\\"mleko\\\"\" and (owner=\"ala\" or hasDue)",
+            "((due>2021-06-29)) and (description~a and description~b) | due>=2021-06-30 and description~\"a\" and description~\"b\"",
+            "description~\"\\u017c\u00f3\u0142w\" | description~\"\\u017c\\u00f3\\u0142w\""
+    })
+    @Timeout(1)
+    void filters_shouldBe_ParsedIntoCanonicalForm(String expression, String canonical) throws BadRequestException {
+        //when
+        var filter = TaskFilter.parse(expression);
+
+        //then
+        assertThat(filter).hasToString(canonical);
+        assertThat(TaskFilter.parse(filter.toString())).hasToString(canonical);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "due", "due>=30.06.2021", "title~mleko", "hasDue=maybe", "(hasDue", "hasDue)",
+            "hasDue and", "description~\"mleko", "description~\"\\x\"", "owner=ala or or owner=ola",
+            "due>+999999999-12-31", "due<-999999999-01-01"})
+    @Timeout(1)
+    void invalidFilters_shouldBe_Rejected(String expression) {
+        assertThatThrownBy(() -> TaskFilter.parse(expression)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    @Timeout(1)
+    void deeplyNestedFilter_shouldBe_Rejected() {
+        //given
+        var expression = "(".repeat(100) + "hasDue" + ")".repeat(100);
+
+        //when then
+        assertThatThrownBy(() -> TaskFilter.parse(expression)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    @Timeout(1)
+    void filter_shouldMatch_Tasks() throws BadRequestException {
+        //given
+        var filter = TaskFilter.parse("description~MLEKO and due<=2021-06-30 or hasDue=false");
+        var dueMilk = new TaskEntity("Kup mleko", "2021-06-30");
+        var lateMilk = new TaskEntity("Kup mleko", "2021-07-01");
+        var undated = new TaskEntity("Kup chleb");
+
+        //when then
+        assertThat(filter.test(dueMilk)).isTrue();
+        assertThat(filter.test(lateMilk)).isFalse();
+        assertThat(filter.test(undated)).isTrue();
+    }
+}
@@ -0,0 +1,95 @@
+package efs.task.todoapp.reminder;
+
+import efs.task.todoapp.repository.TaskEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReminderSchedulerTest {
+
+    @Test
+    @Timeout(1)
+    void dueTasks_shouldBeSent_ToSinksInOrder() throws Exception {
+        //given
+        var reminded = new LinkedBlockingQueue<TaskEntity>();
+        var first = newTask("Kup mleko");
+        var second = newTask("Kup chleb");
+        var cancelled = newTask("Kup masło");
+        long now = System.currentTimeMillis();
+
+        try (var scheduler = new ReminderScheduler(ZoneOffset.UTC, 10)) {
+            scheduler.addSink(reminded::add);
+            scheduler.start();
+
+            //when
+            scheduler.schedule(second, now + 150);
+            scheduler.schedule(first, now + 50);
+            scheduler.schedule(cancelled, now + 100);
+            scheduler.taskDeleted(cancelled);
+
+            //then
+            assertThat(reminded.poll(500, TimeUnit.MILLISECONDS)).isSameAs(first);
+            assertThat(System.currentTimeMillis()).isGreaterThanOrEqualTo(now + 50);
+            assertThat(reminded.poll(500, TimeUnit.MILLISECONDS)).isSameAs(second);
+            assertThat(reminded.poll(100, TimeUnit.MILLISECONDS)).isNull();
+            assertThat(scheduler.getScheduledCount()).isZero();
+            assertThat(scheduler.getFiredCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @Timeout(1)
+    void savingTask_shouldReschedule_ItsReminder() throws Exception {
+        //given
+        try (var scheduler = new ReminderScheduler(ZoneOffset.UTC, 1_000)) {
+            var task = newTask("Kup mleko");
+            task.setDue(LocalDate.now(ZoneOffset.UTC).plusDays(2).toString());
+            var past = newTask("Kup chleb");
+            past.setDue("2021-06-30");
+
+            //when
+            scheduler.taskSaved(task);
+            task.setDue(LocalDate.now(ZoneOffset.UTC).plusDays(3).toString());
+            scheduler.taskSaved(task);
+            scheduler.taskSaved(past);
+
+            //then
+            assertThat(scheduler.getScheduledCount()).isEqualTo(1);
+            scheduler.taskDeleted(task);
+            assertThat(scheduler.getScheduledCount()).isZero();
+        }
+    }
+
+    @Test
+    @Timeout(1)
+    void dueTime_shouldBe_StartOfDueDate() throws Exception {
+        //given
+        try (var scheduler = new ReminderScheduler(ZoneId.of("Europe/Warsaw"), 1_000)) {
+
+            //when
+            var local = scheduler.dueMillis("2021-06-30");
+            var withOffset = scheduler.dueMillis("2021-06-30Z");
+            var invalid = scheduler.dueMillis("30.06.2021");
+
+            //then
+            assertThat(local).isEqualTo(LocalDate.of(2021, 6, 29).atTime(22, 0).toInstant(ZoneOffset.UTC).toEpochMilli());
+            assertThat(withOffset).isEqualTo(LocalDate.of(2021, 6, 30).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli());
+            assertThat(invalid).isEqualTo(-1);
+        }
+    }
+
+    private static TaskEntity newTask(String description) {
+        var task = new TaskEntity(description);
+        task.setId(UUID.randomUUID());
+        task.setOwner("username");
+        return task;
+    }
+}
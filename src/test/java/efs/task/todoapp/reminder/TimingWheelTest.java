@@ -0,0 +1,93 @@
+package efs.task.todoapp.reminder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    @Test
+    @Timeout(1)
+    void timers_shouldExpire_AtTheirDeadlines_AcrossAllLevels() {
+        //given
+        var wheel = new TimingWheel<Long>(1_000);
+        long[] deadlines = {1_001, 1_063, 1_064, 1_100, 4_096, 5_000, 300_000, 1_000_000_000L, 1L << 40};
+        for (int i = deadlines.length - 1; i >= 0; i--)
+            wheel.schedule(deadlines[i], deadlines[i]);
+        List<long[]> expired = new ArrayList<>();
+
+        //when
+        for (long tick = 1_000; tick < 1L << 41; tick = tick < 1_000_000 ? tick + 7 : tick * 3 / 2)
+            wheel.advance(tick, deadline -> expired.add(new long[]{deadline, wheel.getCurrentTick()}));
+        wheel.advance(1L << 41, deadline -> expired.add(new long[]{deadline, wheel.getCurrentTick()}));
+
+        //then
+        assertThat(expired).extracting(pair -> pair[0]).containsExactly(1_001L, 1_063L, 1_064L, 1_100L, 4_096L,
+                5_000L, 300_000L, 1_000_000_000L, 1L << 40);
+        assertThat(expired).allSatisfy(pair -> assertThat(pair[1]).isEqualTo(pair[0]));
+        assertThat(wheel.size()).isZero();
+        assertThat(wheel.nextTick()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    @Timeout(1)
+    void nextTick_shouldPoint_ToDeadlineOrToSlotOfHigherLevel() {
+        //given
+        var wheel = new TimingWheel<String>(100);
+
+        //when
+        wheel.schedule(120, "near");
+        var nearTick = wheel.nextTick();
+        wheel.schedule(130, "next rotation");
+        var withNextRotation = wheel.nextTick();
+        wheel.advance(130, value -> { });
+        wheel.schedule(10_000, "far");
+
+        //then
+        assertThat(nearTick).isEqualTo(120);
+        assertThat(withNextRotation).isEqualTo(120);
+        assertThat(wheel.nextTick()).isEqualTo(8_192);
+    }
+
+    @Test
+    @Timeout(1)
+    void cancelledTimers_shouldNotExpire() {
+        //given
+        var wheel = new TimingWheel<String>(0);
+        var cancelled = wheel.schedule(70, "cancelled");
+        wheel.schedule(70, "kept");
+        var alone = wheel.schedule(5_000, "alone");
+        List<String> expired = new ArrayList<>();
+
+        //when
+        var first = wheel.cancel(cancelled);
+        var second = wheel.cancel(cancelled);
+        wheel.cancel(alone);
+        wheel.advance(10_000, expired::add);
+
+        //then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(expired).containsExactly("kept");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @Timeout(1)
+    void pastDeadlines_shouldExpire_OnNextAdvance() {
+        //given
+        var wheel = new TimingWheel<String>(1_000);
+        List<String> expired = new ArrayList<>();
+
+        //when
+        wheel.schedule(10, "late");
+        wheel.advance(1_001, expired::add);
+
+        //then
+        assertThat(expired).containsExactly("late");
+    }
+}
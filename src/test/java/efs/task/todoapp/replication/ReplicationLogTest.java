@@ -0,0 +1,57 @@
+package efs.task.todoapp.replication;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicationLogTest {
+
+    @Test
+    @Timeout(1)
+    void repositoryChanges_shouldBe_LoggedInOrder() {
+        //given
+        var log = new ReplicationLog(16);
+        var repository = new TaskRepository();
+        repository.setMutationListener(log);
+        var task = new TaskEntity("Kup mleko");
+        task.setId(UUID.randomUUID());
+        task.setOwner("username");
+
+        //when
+        repository.save(task);
+        repository.update(task.getId(), "username", 1, new TaskEntity("Kup chleb"));
+        repository.update(task.getId(), "username", 1, new TaskEntity("Kup masło"));
+        repository.delete(task.getId());
+
+        //then
+        var entries = log.readAfter(0, 16);
+        assertThat(entries).extracting(Mutation::getOffset).containsExactly(1L, 2L, 3L);
+        assertThat(entries).extracting(Mutation::getType)
+                .containsExactly(Mutation.TASK_SAVED, Mutation.TASK_SAVED, Mutation.TASK_DELETED);
+        assertThat(entries.get(1).getTask().getDescription()).isEqualTo("Kup chleb");
+        assertThat(entries.get(1).getTask().getVersion()).isEqualTo(2);
+        assertThat(log.readAfter(3, 16)).isEmpty();
+    }
+
+    @Test
+    @Timeout(1)
+    void readingOffsetNoLongerRetained_shouldRequire_Snapshot() {
+        //given
+        var log = new ReplicationLog(4);
+
+        //when
+        for (int i = 0; i < 10; i++)
+            log.taskSaved(new TaskEntity("task" + i));
+
+        //then
+        assertThat(log.readAfter(5, 16)).isNull();
+        assertThat(log.readAfter(6, 16)).extracting(Mutation::getOffset).containsExactly(7L, 8L, 9L, 10L);
+        assertThat(log.readAfter(-1, 16)).isNull();
+        assertThat(log.readAfter(11, 16)).isNull();
+    }
+}
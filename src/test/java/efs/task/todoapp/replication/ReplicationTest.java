@@ -0,0 +1,118 @@
+package efs.task.todoapp.replication;
+
+import com.google.gson.Gson;
+import efs.task.todoapp.ToDoApplication;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.UserEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Predicate;
+
+import static efs.task.todoapp.web.HttpCode.*;
+import static java.net.http.HttpResponse.BodyHandlers.ofString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs leader and followers as separate processes.
+ */
+class ReplicationTest {
+
+    private static final int LEADER_PORT = 8100;
+    private static final int REPLICATION_PORT = 8110;
+    private static final String AUTH = "dXNlcm5hbWU=:cGFzc3dvcmQ=";
+    private static final long WAIT_MILLIS = 10_000;
+    private static final Gson gson = new Gson();
+
+    private final List<Process> processes = new ArrayList<>();
+    private HttpClient httpClient;
+
+    @BeforeEach
+    void setUp() {
+        httpClient = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        processes.forEach(Process::destroyForcibly);
+    }
+
+    @Test
+    @Timeout(30)
+    void followers_shouldServe_LeadersChanges() throws Exception {
+        //given
+        start(LEADER_PORT, "-Dtodoapp.replication.port=" + REPLICATION_PORT);
+        start(8101, "-Dtodoapp.replication.leader=localhost:" + REPLICATION_PORT);
+
+        send(LEADER_PORT, "user", "POST", gson.toJson(new UserEntity("username", "password")));
+        var created = send(LEADER_PORT, "task", "POST", gson.toJson(new TaskEntity("Kup mleko")));
+        var id = gson.fromJson(created.body(), Properties.class).getProperty("id");
+        start(8102, "-Dtodoapp.replication.leader=localhost:" + REPLICATION_PORT);
+
+        //when
+        var updated = send(LEADER_PORT, "task/" + id, "PUT", gson.toJson(new TaskEntity("Kup chleb")));
+        var fromLogFollower = await(8101, "task/" + id, response -> response.body().contains("Kup chleb"));
+        var fromSnapshotFollower = await(8102, "task/" + id, response -> response.body().contains("Kup chleb"));
+        var writeToFollower = send(8101, "task", "POST", gson.toJson(new TaskEntity("Kup masło")));
+
+        //then
+        assertThat(updated.statusCode()).isEqualTo(OK.getCode());
+        assertThat(fromLogFollower.statusCode()).isEqualTo(OK.getCode());
+        assertThat(fromLogFollower.headers().firstValue("ETag")).hasValue("\"2\"");
+        assertThat(fromSnapshotFollower.statusCode()).isEqualTo(OK.getCode());
+        assertThat(fromSnapshotFollower.headers().firstValue("ETag")).hasValue("\"2\"");
+        assertThat(writeToFollower.statusCode()).isEqualTo(METHOD_NOT_ALLOWED.getCode());
+    }
+
+    private void start(int port, String replication) throws Exception {
+        var java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        var process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "-Dtodoapp.port=" + port, replication, ToDoApplication.class.getName())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        processes.add(process);
+        await(port, "metrics", response -> response.statusCode() == OK.getCode());
+    }
+
+    private HttpResponse<String> send(int port, String path, String method, String body)
+            throws IOException, InterruptedException {
+        return httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + port + "/todo/" + path))
+                .header("auth", AUTH)
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build(), ofString());
+    }
+
+    private HttpResponse<String> await(int port, String path, Predicate<HttpResponse<String>> condition)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        HttpResponse<String> response = null;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                response = httpClient.send(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:" + port + "/todo/" + path))
+                        .header("auth", AUTH)
+                        .GET()
+                        .build(), ofString());
+                if (condition.test(response))
+                    return response;
+            } catch (IOException e) {
+                // the process is still starting
+            }
+            Thread.sleep(50);
+        }
+        return response;
+    }
+}
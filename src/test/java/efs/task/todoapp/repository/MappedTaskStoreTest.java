@@ -0,0 +1,146 @@
+package efs.task.todoapp.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedTaskStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @Timeout(1)
+    void tasks_shouldSurvive_Reopening() throws IOException {
+        //given
+        var path = directory.resolve("tasks.store");
+        var task = newTask("Kup mleko", "2021-06-30");
+        var updated = new TaskEntity("Kup chleb", "2021-07-01");
+        updated.setOwner("username");
+        updated.setVersion(2);
+        var deleted = newTask("Kup masło", null);
+        try (var store = new MappedTaskStore(path, 16)) {
+            store.save(task);
+            store.save(deleted);
+            store.update(task.getId(), updated);
+            store.delete(deleted.getId());
+        }
+
+        //when
+        try (var store = new MappedTaskStore(path, 1)) {
+            var reopened = store.query(task.getId());
+
+            //then
+            assertThat(store.getCapacity()).isEqualTo(16);
+            assertThat(store.size()).isEqualTo(1);
+            assertThat(store.query(deleted.getId())).isNull();
+            assertThat(reopened.getDescription()).isEqualTo("Kup chleb");
+            assertThat(reopened.getDue()).isEqualTo("2021-07-01");
+            assertThat(reopened.getOwner()).isEqualTo("username");
+            assertThat(reopened.getVersion()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    @Timeout(1)
+    void longStrings_shouldBe_StoredInOverflowChunks() throws IOException {
+        //given
+        var description = "Kup żółty ser ".repeat(100);
+        var task = newTask(description, null);
+        task.setOwner("o".repeat(100));
+
+        try (var store = new MappedTaskStore(directory.resolve("tasks.store"), 16)) {
+            //when
+            store.save(task);
+            var stored = store.query(task.getId());
+            store.delete(task.getId());
+
+            //then
+            assertThat(stored.getDescription()).isEqualTo(description);
+            assertThat(stored.getOwner()).isEqualTo(task.getOwner());
+            assertThat(stored.getDue()).isNull();
+            assertThat(store.getChunkHighWater()).isEqualTo(8);
+            store.save(newTask(description, null));
+            assertThat(store.getChunkHighWater()).isEqualTo(8);
+        }
+    }
+
+    @Test
+    @Timeout(1)
+    void deletedSlots_shouldBe_Reused() throws IOException {
+        try (var store = new MappedTaskStore(directory.resolve("tasks.store"), 2)) {
+            //given
+            var first = newTask("Kup mleko", null);
+            store.save(first);
+            store.save(newTask("Kup chleb", null));
+
+            //when
+            var rejected = store.save(newTask("Kup masło", null));
+            store.delete(first.getId());
+            var accepted = store.save(newTask("Kup jajka", null));
+
+            //then
+            assertThat(rejected).isNull();
+            assertThat(accepted).isNotNull();
+            assertThat(store.getSlotHighWater()).isEqualTo(2);
+            assertThat(store.query(task -> true)).extracting(TaskEntity::getDescription)
+                    .containsExactlyInAnyOrder("Kup chleb", "Kup jajka");
+        }
+    }
+
+    @Test
+    @Timeout(1)
+    void updateInterruptedBeforeFreeingOldSlot_shouldRecover_NewTask() throws IOException {
+        //given
+        var path = directory.resolve("tasks.store");
+        var task = newTask("Kup mleko", null);
+        var updated = newTask("Kup chleb", null);
+        updated.setVersion(1);
+        try (var store = new MappedTaskStore(path, 16)) {
+            store.save(task);
+            store.update(task.getId(), updated);
+        }
+        crashBeforeFreeing(path, 0);
+
+        //when
+        try (var store = new MappedTaskStore(path, 16)) {
+            var recovered = store.query(task.getId());
+
+            //then
+            assertThat(recovered.getDescription()).isEqualTo("Kup chleb");
+            assertThat(recovered.getVersion()).isEqualTo(2);
+            assertThat(store.size()).isEqualTo(1);
+        }
+    }
+
+    /**
+     * Turns the file into the state left by a crash after an update has published its new slot, but before it freed
+     * the old one, and marks the index dirty so that opening the store rebuilds it from the slots.
+     */
+    private static void crashBeforeFreeing(Path path, int oldSlot) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int slotsStart = MappedTaskStore.HEADER_BYTES + 4 * buffer.getInt(MappedTaskStore.H_BUCKETS);
+            buffer.put(slotsStart + MappedTaskStore.SLOT_BYTES * oldSlot + MappedTaskStore.S_STATE,
+                    MappedTaskStore.USED);
+            buffer.putInt(MappedTaskStore.H_FREE_SLOT, -1);
+            buffer.putInt(MappedTaskStore.H_INDEX_DIRTY, 1);
+            buffer.force();
+        }
+    }
+
+    private static TaskEntity newTask(String description, String due) {
+        var task = new TaskEntity(description, due);
+        task.setId(UUID.randomUUID());
+        task.setOwner("username");
+        return task;
+    }
+}
@@ -0,0 +1,149 @@
+package efs.task.todoapp.repository;
+
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OwnedTaskRepositoryTest {
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    @Timeout(1)
+    void queryByOwner_shouldReturn_OwnerTasksInInsertionOrder(Supplier<OwnedTaskRepository> repositories) {
+        //given
+        var repository = repositories.get();
+        var first = newTask("Kup mleko", "username");
+        var second = newTask("Kup chleb", "username");
+        var foreign = newTask("Kup masło", "other");
+
+        //when
+        repository.save(first);
+        repository.save(foreign);
+        repository.save(second);
+
+        //then
+        assertThat(repository.queryByOwner("username")).containsExactly(first, second);
+        assertThat(repository.queryByOwner("other")).containsExactly(foreign);
+        assertThat(repository.queryByOwner("nobody")).isEmpty();
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    @Timeout(1)
+    void snapshot_shouldNotChange_AfterLaterWrites(Supplier<OwnedTaskRepository> repositories) {
+        //given
+        var repository = repositories.get();
+        var first = newTask("Kup mleko", "username");
+        var second = newTask("Kup chleb", "username");
+        repository.save(first);
+        repository.save(second);
+        var snapshot = repository.queryByOwner("username");
+
+        //when
+        var updated = new TaskEntity("Kup masło");
+        repository.update(first.getId(), "username", 1, updated);
+        repository.delete(second.getId());
+        repository.save(newTask("Kup jajka", "username"));
+
+        //then
+        assertThat(snapshot).containsExactly(first, second);
+        assertThat(repository.queryByOwner("username")).extracting(TaskEntity::getDescription)
+                .containsExactly("Kup masło", "Kup jajka");
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    @Timeout(1)
+    void restoringTask_withAnotherOwner_shouldMove_ItBetweenSnapshots(Supplier<OwnedTaskRepository> repositories) {
+        //given
+        var repository = repositories.get();
+        var task = newTask("Kup mleko", "username");
+        repository.save(task);
+
+        //when
+        var moved = new TaskEntity("Kup mleko");
+        moved.setId(task.getId());
+        moved.setOwner("other");
+        moved.setVersion(1);
+        repository.restore(moved);
+        repository.delete(UUID.randomUUID());
+
+        //then
+        assertThat(repository.queryByOwner("username")).isEmpty();
+        assertThat(repository.queryByOwner("other")).containsExactly(moved);
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    @Timeout(1)
+    void changesByAnotherOwner_shouldBe_Refused(Supplier<OwnedTaskRepository> repositories) {
+        //given
+        var repository = repositories.get();
+        var task = newTask("Kup mleko", "username");
+        repository.save(task);
+
+        //when
+        var updated = repository.update(task.getId(), "other", -1, new TaskEntity("Kup chleb"));
+        var deleted = repository.delete(task.getId(), "other");
+        var missing = repository.delete(UUID.randomUUID(), "username");
+
+        //then
+        assertThat(updated).isSameAs(task);
+        assertThat(deleted).isSameAs(task);
+        assertThat(missing).isNull();
+        assertThat(repository.query(task.getId())).isSameAs(task);
+        assertThat(repository.queryByOwner("other")).isEmpty();
+    }
+
+    @ParameterizedTest
+    @MethodSource("repositories")
+    @Timeout(1)
+    void deletingByOwner_shouldRemove_Task(Supplier<OwnedTaskRepository> repositories) {
+        //given
+        var repository = repositories.get();
+        var task = newTask("Kup mleko", "username");
+        var kept = newTask("Kup chleb", "username");
+        repository.save(task);
+        repository.save(kept);
+
+        //when
+        var deleted = repository.delete(task.getId(), "username");
+
+        //then
+        assertThat(deleted).isSameAs(task);
+        assertThat(repository.query(task.getId())).isNull();
+        assertThat(repository.queryByOwner("username")).containsExactly(kept);
+        assertThat(repository.values()).containsExactly(kept);
+        assertThat(repository.delete(task.getId())).isFalse();
+    }
+
+    static Stream<Supplier<OwnedTaskRepository>> repositories() {
+        return Stream.of(TaskRepository::new, PartitionedTaskRepository::new, () -> tieredRepository(1L << 20));
+    }
+
+    static TieredTaskRepository tieredRepository(long budgetBytes) {
+        try {
+            var path = Files.createTempFile("tasks", ".segment");
+            path.toFile().deleteOnExit();
+            return new TieredTaskRepository(path, budgetBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static TaskEntity newTask(String description, String owner) {
+        var task = new TaskEntity(description);
+        task.setId(UUID.randomUUID());
+        task.setOwner(owner);
+        return task;
+    }
+}
@@ -0,0 +1,85 @@
+package efs.task.todoapp.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static efs.task.todoapp.repository.OwnedTaskRepositoryTest.newTask;
+import static efs.task.todoapp.repository.OwnedTaskRepositoryTest.tieredRepository;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TieredTaskRepositoryTest {
+
+    private final TieredTaskRepository repository = tieredRepository(2_000);
+
+    @AfterEach
+    void tearDown() throws IOException {
+        repository.close();
+    }
+
+    @Test
+    @Timeout(1)
+    void leastRecentlyUsedOwners_shouldBe_SpilledAndFaultedBackIn() {
+        //given
+        for (int i = 0; i < 10; i++)
+            repository.save(newTask("Kup mleko " + i, "owner" + i));
+        var first = newTask("Kup chleb", "owner0");
+        first.setDue("2021-06-30");
+
+        //when
+        repository.save(first);
+
+        //then
+        assertThat(repository.getResidentBytes()).isLessThanOrEqualTo(2_000);
+        assertThat(repository.getResidentOwnerCount()).isLessThan(10);
+        assertThat(repository.queryByOwner("owner1")).extracting(TaskEntity::getDescription)
+                .containsExactly("Kup mleko 1");
+        assertThat(repository.getFaultCount()).isPositive();
+        assertThat(repository.queryByOwnerAndDue("owner0", LocalDate.of(2021, 6, 1), null))
+                .extracting(TaskEntity::getDescription).containsExactly("Kup chleb");
+    }
+
+    @Test
+    @Timeout(1)
+    void spilledTasks_shouldKeep_TheirData() {
+        //given
+        var task = newTask("Kup mleko", "username");
+        task.setDue("2021-06-30");
+        repository.save(task);
+        repository.update(task.getId(), "username", 1, new TaskEntity("Kup \"chleb\"", "2021-07-01"));
+
+        //when
+        for (int i = 0; i < 10; i++)
+            repository.save(newTask("Kup masło " + i, "other" + i));
+        var faultedIn = repository.query(task.getId());
+
+        //then
+        assertThat(faultedIn).isNotSameAs(task);
+        assertThat(faultedIn.getDescription()).isEqualTo("Kup \"chleb\"");
+        assertThat(faultedIn.getDue()).isEqualTo("2021-07-01");
+        assertThat(faultedIn.getOwner()).isEqualTo("username");
+        assertThat(faultedIn.getVersion()).isEqualTo(2);
+        assertThat(new String(faultedIn.getEncoded(), StandardCharsets.UTF_8)).contains("Kup \\\"chleb\\\"");
+    }
+
+    @Test
+    @Timeout(1)
+    void values_shouldInclude_SpilledTasks_WithoutFaultingThemIn() {
+        //given
+        for (int i = 0; i < 10; i++)
+            repository.save(newTask("Kup mleko " + i, "owner" + i));
+        long faults = repository.getFaultCount();
+
+        //when
+        var values = repository.values();
+
+        //then
+        assertThat(values).hasSize(10);
+        assertThat(values).extracting(TaskEntity::getDescription).hasSize(10).doesNotHaveDuplicates();
+        assertThat(repository.getFaultCount()).isEqualTo(faults);
+    }
+}
@@ -0,0 +1,129 @@
+package efs.task.todoapp.service;
+
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionTokensTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    @Timeout(1)
+    void token_shouldResolveToUser_UntilItExpires() {
+        //given
+        var sessions = new SessionTokens(Duration.ofSeconds(10), 1_000);
+        var token = sessions.issue("username", 0);
+
+        //when then
+        assertThat(SessionTokens.isWellFormed(token)).isTrue();
+        assertThat(SessionTokens.ownerOf(token)).isEqualTo("username");
+        assertThat(sessions.lookup(token, 9 * SECOND)).isEqualTo("username");
+        assertThat(sessions.lookup(token, 10 * SECOND)).isNull();
+        assertThat(sessions.size()).isZero();
+    }
+
+    @Test
+    @Timeout(1)
+    void sweep_shouldRemove_OnlyExpiredTokens() {
+        //given
+        var sessions = new SessionTokens(Duration.ofSeconds(10), 1_000);
+        var old = sessions.issue("username", 0);
+        var fresh = sessions.issue("username", 5 * SECOND);
+
+        //when
+        var removed = sessions.sweep(12 * SECOND);
+
+        //then
+        assertThat(removed).isEqualTo(1);
+        assertThat(sessions.lookup(old, 12 * SECOND)).isNull();
+        assertThat(sessions.lookup(fresh, 12 * SECOND)).isEqualTo("username");
+    }
+
+    @Test
+    @Timeout(1)
+    void revokingUser_shouldRemove_AllTokensOfTheUser() {
+        //given
+        var sessions = new SessionTokens(Duration.ofSeconds(10), 1_000);
+        var first = sessions.issue("username", 0);
+        var second = sessions.issue("username", 0);
+        var other = sessions.issue("other", 0);
+
+        //when
+        sessions.revokeUser("username");
+
+        //then
+        assertThat(sessions.lookup(first, 0)).isNull();
+        assertThat(sessions.lookup(second, 0)).isNull();
+        assertThat(sessions.lookup(other, 0)).isEqualTo("other");
+        assertThat(SessionTokens.isWellFormed("invalidAuthHeader")).isFalse();
+        assertThat(SessionTokens.isWellFormed("A".repeat(43))).isFalse();
+    }
+
+    @Test
+    @Timeout(1)
+    void loginOverLimit_shouldRevoke_OldestTokenOfTheUser() {
+        //given
+        var sessions = new SessionTokens(Duration.ofSeconds(10), 1_000, 2);
+        var first = sessions.issue("username", 0);
+        var second = sessions.issue("username", 0);
+        var other = sessions.issue("other", 0);
+
+        //when
+        var third = sessions.issue("username", 0);
+
+        //then
+        assertThat(sessions.lookup(first, 0)).isNull();
+        assertThat(sessions.lookup(second, 0)).isEqualTo("username");
+        assertThat(sessions.lookup(third, 0)).isEqualTo("username");
+        assertThat(sessions.lookup(other, 0)).isEqualTo("other");
+        assertThat(sessions.getTokenCount("username")).isEqualTo(2);
+        assertThat(sessions.size()).isEqualTo(3);
+    }
+
+    @Test
+    @Timeout(1)
+    void expiredAndRevokedTokens_shouldBeRemoved_FromTokensOfTheUser() {
+        //given
+        var sessions = new SessionTokens(Duration.ofSeconds(10), 1_000, 2);
+        var old = sessions.issue("username", 0);
+        var fresh = sessions.issue("username", 5 * SECOND);
+
+        //when
+        sessions.sweep(12 * SECOND);
+        sessions.revoke(fresh);
+
+        //then
+        assertThat(sessions.lookup(old, 12 * SECOND)).isNull();
+        assertThat(sessions.getTokenCount("username")).isZero();
+        assertThat(sessions.size()).isZero();
+    }
+
+    @Test
+    @Timeout(1)
+    void replicatedPasswordChange_shouldRevoke_TokensOfTheUser() throws Exception {
+        //given
+        var sessions = new SessionTokens(Duration.ofSeconds(10), 1_000);
+        var service = new ToDoService(new UserRepository(), new TaskRepository(), new TaskListCache(16),
+                TaskQuotas.UNLIMITED, sessions);
+        service.saveUser(new UserEntity("username", "password"));
+        var unchanged = service.login(List.of("username", "password"));
+        service.applyReplicatedUser(new UserEntity("username", "password"));
+        var afterUnchanged = sessions.lookup(unchanged);
+
+        //when
+        service.importBatch(List.of(new UserEntity("username", "changed")), List.of());
+
+        //then
+        assertThat(afterUnchanged).isEqualTo("username");
+        assertThat(sessions.lookup(unchanged)).isNull();
+        assertThat(sessions.size()).isZero();
+    }
+}
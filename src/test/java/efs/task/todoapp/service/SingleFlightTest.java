@@ -0,0 +1,87 @@
+package efs.task.todoapp.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    @Test
+    @Timeout(1)
+    void callAfterForget_shouldNotJoin_RunningComputation() throws Exception {
+        //given
+        var singleFlight = new SingleFlight<String, String>();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var before = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", key -> {
+            started.countDown();
+            await(release);
+            return "before write";
+        }));
+        started.await();
+
+        //when
+        singleFlight.forget("key");
+        var after = singleFlight.execute("key", key -> "after write");
+        release.countDown();
+
+        //then
+        assertThat(before.get()).isEqualTo("before write");
+        assertThat(after).isEqualTo("after write");
+        assertThat(singleFlight.getExecutedCount()).isEqualTo(2);
+        assertThat(singleFlight.getSharedCount()).isZero();
+    }
+
+    @Test
+    @Timeout(1)
+    void failedComputation_shouldNotBe_Reused() {
+        //given
+        var singleFlight = new SingleFlight<String, String>();
+
+        //when
+        //then
+        assertThatThrownBy(() -> singleFlight.execute("key", key -> {
+            throw new IllegalStateException("failed");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(singleFlight.execute("key", key -> "value")).isEqualTo("value");
+    }
+
+    @Test
+    @Timeout(1)
+    void errorInComputation_shouldBe_ThrownToWaitingCaller() throws Exception {
+        //given
+        var singleFlight = new SingleFlight<String, String>();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var first = CompletableFuture.runAsync(() -> singleFlight.execute("key", key -> {
+            started.countDown();
+            await(release);
+            throw new StackOverflowError();
+        }));
+        started.await();
+
+        //when
+        var waiting = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", key -> "value"));
+        while (singleFlight.getSharedCount() == 0)
+            Thread.sleep(1);
+        release.countDown();
+
+        //then
+        assertThatThrownBy(waiting::join).hasCauseInstanceOf(StackOverflowError.class);
+        assertThatThrownBy(first::join).hasCauseInstanceOf(StackOverflowError.class);
+        assertThat(singleFlight.execute("key", key -> "value")).isEqualTo("value");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
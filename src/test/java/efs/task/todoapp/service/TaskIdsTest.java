@@ -0,0 +1,68 @@
+package efs.task.todoapp.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskIdsTest {
+
+    @Test
+    @Timeout(1)
+    void ids_shouldBe_Version7WithCurrentTimestamp() {
+        //given
+        long before = System.currentTimeMillis();
+
+        //when
+        var id = TaskIds.next();
+
+        //then
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(TaskIds.timestampOf(id)).isBetween(before, System.currentTimeMillis());
+        assertThat(id.toString()).matches("[0-9a-f]{8}-[0-9a-f]{4}-7[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}");
+    }
+
+    @Test
+    @Timeout(1)
+    void idsOfOneThread_shouldIncrease() {
+        //given
+        List<UUID> ids = new ArrayList<>();
+
+        //when
+        for (int i = 0; i < 100_000; i++)
+            ids.add(TaskIds.next());
+
+        //then
+        for (int i = 1; i < ids.size(); i++)
+            assertThat(ids.get(i).toString()).isGreaterThan(ids.get(i - 1).toString());
+    }
+
+    @Test
+    @Timeout(1)
+    void idsOfConcurrentThreads_shouldBeUnique() throws InterruptedException {
+        //given
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 25_000; i++)
+                    ids.add(TaskIds.next());
+            }));
+        }
+
+        //when
+        threads.forEach(Thread::start);
+        for (Thread thread : threads)
+            thread.join();
+
+        //then
+        assertThat(ids).hasSize(100_000);
+    }
+}
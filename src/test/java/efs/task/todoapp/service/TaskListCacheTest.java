@@ -0,0 +1,84 @@
+package efs.task.todoapp.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskListCacheTest {
+
+    @Test
+    @Timeout(1)
+    void concurrentMisses_shouldBe_CoalescedIntoOneComputation() throws Exception {
+        //given
+        var cache = new TaskListCache(16);
+        var computations = new AtomicInteger();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        //when
+        var first = CompletableFuture.supplyAsync(() -> cache.get("username", owner -> {
+            computations.incrementAndGet();
+            started.countDown();
+            await(release);
+            return new byte[]{1};
+        }));
+        started.await();
+        var second = CompletableFuture.supplyAsync(() -> cache.get("username", owner -> {
+            computations.incrementAndGet();
+            return new byte[]{2};
+        }));
+        Thread.sleep(50); // lets the second reader join the running computation
+        release.countDown();
+
+        //then
+        assertThat(first.get()).containsExactly(1);
+        assertThat(second.get()).containsExactly(1);
+        assertThat(computations).hasValue(1);
+        assertThat(cache.get("username", owner -> new byte[]{3})).containsExactly(1);
+    }
+
+    @Test
+    @Timeout(1)
+    void invalidationDuringComputation_shouldNotCache_StaleResult() {
+        //given
+        var cache = new TaskListCache(16);
+
+        //when
+        var stale = cache.get("username", owner -> {
+            cache.invalidate(owner);
+            return new byte[]{1};
+        });
+        var current = cache.get("username", owner -> new byte[]{2});
+
+        //then
+        assertThat(stale).containsExactly(1);
+        assertThat(current).containsExactly(2);
+    }
+
+    @Test
+    @Timeout(1)
+    void exceedingCapacity_shouldEvict_LeastRecentlyUsedOwner() {
+        //given
+        var cache = new TaskListCache(1);
+
+        //when
+        for (int i = 0; i < 20; i++)
+            cache.get("user" + i, owner -> new byte[0]);
+
+        //then
+        assertThat(cache.size()).isLessThanOrEqualTo(16);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package efs.task.todoapp.service;
+
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.UserRepository;
+import efs.task.todoapp.service.Exceptions.ForbiddenException;
+import efs.task.todoapp.service.Exceptions.QuotaExceededException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TaskQuotasTest {
+
+    @Test
+    @Timeout(1)
+    void tasksOverUserLimit_shouldBe_Refused() throws Exception {
+        //given
+        var quotas = new TaskQuotas(2, Long.MAX_VALUE, Long.MAX_VALUE);
+        var service = new ToDoService(new UserRepository(), new TaskRepository(), new TaskListCache(16), quotas);
+        var first = service.saveTask(new TaskEntity("Kup mleko"), "username");
+        service.saveTask(new TaskEntity("Kup chleb"), "username");
+
+        //when then
+        assertThatThrownBy(() -> service.saveTask(new TaskEntity("Kup masło"), "username"))
+                .isInstanceOf(QuotaExceededException.class);
+        service.saveTask(new TaskEntity("Kup masło"), "other");
+        service.deleteTask(first, "username");
+        service.saveTask(new TaskEntity("Kup jajka"), "username");
+        assertThat(service.getTasks("username")).extracting(TaskEntity::getDescription)
+                .containsExactly("Kup chleb", "Kup jajka");
+        assertThat(quotas.getTaskCount("username")).isEqualTo(2);
+    }
+
+    @Test
+    @Timeout(1)
+    void updates_shouldBe_CountedByTheirGrowth() throws Exception {
+        //given
+        var small = new TaskEntity("Kup mleko");
+        var limit = 2 * TaskQuotas.sizeOf(small);
+        var quotas = new TaskQuotas(Integer.MAX_VALUE, limit, Long.MAX_VALUE);
+        var service = new ToDoService(new UserRepository(), new TaskRepository(), new TaskListCache(16), quotas);
+        var id = service.saveTask(small, "username");
+
+        //when
+        var tooLarge = new TaskEntity("Kup mleko".repeat(100));
+        var shrunk = new TaskEntity("Kup");
+
+        //then
+        assertThatThrownBy(() -> service.updateTask(tooLarge, "username", id, -1))
+                .isInstanceOf(QuotaExceededException.class);
+        assertThat(quotas.getBytes("username")).isEqualTo(TaskQuotas.sizeOf(small));
+        service.updateTask(shrunk, "username", id, -1);
+        assertThat(quotas.getBytes("username")).isEqualTo(TaskQuotas.sizeOf(shrunk));
+        assertThat(quotas.getUsedBytes()).isEqualTo(TaskQuotas.sizeOf(shrunk));
+    }
+
+    @Test
+    @Timeout(1)
+    void updatingForeignTask_atLimit_shouldBe_Forbidden() throws Exception {
+        //given
+        var task = new TaskEntity("Kup mleko");
+        var quotas = new TaskQuotas(Integer.MAX_VALUE, TaskQuotas.sizeOf(task), Long.MAX_VALUE);
+        var service = new ToDoService(new UserRepository(), new TaskRepository(), new TaskListCache(16), quotas);
+        service.saveTask(task, "username");
+        var foreign = service.saveTask(new TaskEntity("Kup chleb"), "other");
+
+        //when then
+        assertThatThrownBy(() -> service.updateTask(new TaskEntity("Kup chleb i masło"), "username", foreign, -1))
+                .isInstanceOf(ForbiddenException.class);
+        assertThat(quotas.getBytes("username")).isEqualTo(TaskQuotas.sizeOf(task));
+    }
+
+    @Test
+    @Timeout(1)
+    void globalBudget_shouldBe_SharedByAllUsers() throws Exception {
+        //given
+        var task = new TaskEntity("Kup mleko");
+        var quotas = new TaskQuotas(Integer.MAX_VALUE, Long.MAX_VALUE, 2 * TaskQuotas.sizeOf(task));
+        quotas.reserve("username", 1, TaskQuotas.sizeOf(task));
+        quotas.reserve("other", 1, TaskQuotas.sizeOf(task));
+
+        //when then
+        assertThatThrownBy(() -> quotas.reserve("third", 1, TaskQuotas.sizeOf(task)))
+                .isInstanceOf(QuotaExceededException.class);
+        assertThat(quotas.getTaskCount("third")).isZero();
+        quotas.adjust("other", -1, -TaskQuotas.sizeOf(task));
+        quotas.reserve("third", 1, TaskQuotas.sizeOf(task));
+        assertThat(quotas.getUsedBytes()).isEqualTo(2 * TaskQuotas.sizeOf(task));
+    }
+}
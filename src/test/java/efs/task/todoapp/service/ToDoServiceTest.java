@@ -0,0 +1,37 @@
+package efs.task.todoapp.service;
+
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.repository.UserRepository;
+import efs.task.todoapp.service.Exceptions.ConflictException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ToDoServiceTest {
+
+    @Test
+    @Timeout(1)
+    void registrationLosingRace_shouldBe_Conflict() throws Exception {
+        //given
+        var userRepository = new UserRepository() {
+            @Override
+            public boolean doesUserExists(String username) {
+                // the other registration lands right after the check
+                return false;
+            }
+        };
+        var service = new ToDoService(userRepository, new TaskRepository());
+        service.saveUser(new UserEntity("username", "first"));
+
+        //when then
+        assertThatThrownBy(() -> service.saveUser(new UserEntity("username", "second")))
+                .isInstanceOf(ConflictException.class);
+        service.validateUser(List.of("username", "first"));
+        assertThat(userRepository.query("username").getPassword()).isEqualTo("first");
+    }
+}
@@ -0,0 +1,134 @@
+package efs.task.todoapp.web;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.TimeUnit;
+
+import static efs.task.todoapp.web.AdmissionController.INTERVAL_NANOS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControllerTest {
+
+    private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long ABOVE_TARGET = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long START = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @Timeout(1)
+    void singleDelayedRequest_shouldBe_Admitted() {
+        //given
+        var controller = new AdmissionController(5, 100, 1, 100);
+
+        //when
+        var admitted = controller.tryAcquire(ABOVE_TARGET, START);
+
+        //then
+        assertThat(admitted).isTrue();
+        assertThat(controller.isDropping()).isFalse();
+        assertThat(controller.getShedCount()).isZero();
+    }
+
+    @Test
+    @Timeout(1)
+    void queueStandingForInterval_shouldBe_ShedUntilDelayDrops() {
+        //given
+        var controller = new AdmissionController(5, 100, 1, 100);
+        controller.tryAcquire(ABOVE_TARGET, START);
+
+        //when
+        var shedWithinInterval = !controller.tryAcquire(ABOVE_TARGET, START + INTERVAL_NANOS / 2);
+        var shedAfterInterval = !controller.tryAcquire(ABOVE_TARGET, START + INTERVAL_NANOS);
+        var admittedBelowTarget = controller.tryAcquire(TARGET / 2, START + INTERVAL_NANOS + 1);
+
+        //then
+        assertThat(shedWithinInterval).isFalse();
+        assertThat(shedAfterInterval).isTrue();
+        assertThat(admittedBelowTarget).isTrue();
+        assertThat(controller.isDropping()).isFalse();
+        assertThat(controller.getShedCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Timeout(1)
+    void burstOfShedRequests_shouldDecreaseLimit_OncePerInterval() {
+        //given
+        var controller = new AdmissionController(5, 100, 1, 100);
+        controller.tryAcquire(ABOVE_TARGET, START);
+        long dropping = START + INTERVAL_NANOS;
+
+        //when
+        for (int i = 0; i < 1_000; i++)
+            controller.tryAcquire(ABOVE_TARGET, dropping + i);
+        var limitAfterBurst = controller.getLimit();
+        controller.tryAcquire(ABOVE_TARGET, dropping + INTERVAL_NANOS);
+
+        //then
+        assertThat(controller.getShedCount()).isEqualTo(1_001);
+        assertThat(limitAfterBurst).isEqualTo(90);
+        assertThat(controller.getLimit()).isEqualTo(81);
+    }
+
+    @Test
+    @Timeout(1)
+    void requestsOverLimit_shouldBe_Shed() {
+        //given
+        var controller = new AdmissionController(5, 100, 1, 2);
+
+        //when
+        var first = controller.tryAcquire(0, START);
+        var second = controller.tryAcquire(0, START);
+        var third = controller.tryAcquire(0, START);
+        controller.release(0);
+        var afterRelease = controller.tryAcquire(0, START);
+
+        //then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+        assertThat(afterRelease).isTrue();
+        assertThat(controller.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    @Timeout(1)
+    void slowRequests_shouldDecreaseLimit_AndFastOnesIncreaseIt() {
+        //given
+        var controller = new AdmissionController(5, 100, 1, 10);
+
+        //when
+        controller.tryAcquire(0, START);
+        controller.release(TimeUnit.MILLISECONDS.toNanos(200), START);
+        var decreased = controller.getLimit();
+        for (int i = 0; i < 100; i++) {
+            controller.tryAcquire(0, START);
+            controller.release(0, START);
+        }
+
+        //then
+        assertThat(decreased).isEqualTo(9);
+        assertThat(controller.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    @Timeout(1)
+    void burstOfSlowRequests_shouldDecreaseLimit_OncePerInterval() {
+        //given
+        var controller = new AdmissionController(5, 100, 1, 100);
+        var slow = TimeUnit.MILLISECONDS.toNanos(200);
+
+        //when
+        for (int i = 0; i < 50; i++) {
+            controller.tryAcquire(0, START + i);
+            controller.release(slow, START + i);
+        }
+        var limitAfterBurst = controller.getLimit();
+        controller.tryAcquire(0, START + INTERVAL_NANOS);
+        controller.release(slow, START + INTERVAL_NANOS);
+
+        //then
+        assertThat(limitAfterBurst).isEqualTo(90);
+        assertThat(controller.getLimit()).isEqualTo(81);
+        assertThat(controller.getInFlight()).isZero();
+    }
+}
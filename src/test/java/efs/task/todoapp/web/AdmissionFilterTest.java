@@ -0,0 +1,78 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static efs.task.todoapp.web.HttpCode.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionFilterTest {
+
+    private final AdmissionController controller = new AdmissionController(1_000, 1_000, 1, 1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ExecutorService workers = Executors.newFixedThreadPool(2);
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(new TimedExecutor(workers));
+        var context = server.createContext("/todo/task", exchange -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(OK.getCode(), -1);
+            exchange.close();
+        });
+        context.getFilters().add(new AdmissionFilter(controller));
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        server.stop(0);
+        workers.shutdown();
+    }
+
+    @Test
+    @Timeout(2)
+    void requestOverLimit_shouldBe_Rejected_WithRetryAfter() throws Exception {
+        //given
+        var first = httpClient.sendAsync(request(), HttpResponse.BodyHandlers.discarding());
+        while (controller.getInFlight() == 0)
+            Thread.sleep(1);
+
+        //when
+        var second = httpClient.send(request(), HttpResponse.BodyHandlers.discarding());
+        release.countDown();
+
+        //then
+        assertThat(second.statusCode()).isEqualTo(SERVICE_UNAVAILABLE.getCode());
+        assertThat(second.headers().firstValue("Retry-After")).hasValue("1");
+        assertThat(first.get().statusCode()).isEqualTo(OK.getCode());
+    }
+
+    private HttpRequest request() {
+        return HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:" + server.getAddress().getPort() + "/todo/task"))
+                .GET()
+                .build();
+    }
+}
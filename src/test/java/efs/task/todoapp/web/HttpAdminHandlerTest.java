@@ -0,0 +1,130 @@
+package efs.task.todoapp.web;
+
+import com.google.gson.Gson;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.util.ToDoServerExtension;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.util.Properties;
+
+import static efs.task.todoapp.web.HttpCode.*;
+import static java.net.http.HttpResponse.BodyHandlers.ofString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(ToDoServerExtension.class)
+class HttpAdminHandlerTest {
+
+    private static final String TODO_APP_PATH = "http://localhost:8080/todo/";
+    private static final String ADMIN_TOKEN = "secret";
+    private static final String AUTH = "dXNlcm5hbWU=:cGFzc3dvcmQ=";
+    private static final String responseCode = "Response status code";
+    private static final Gson gson = new Gson();
+
+    private HttpClient httpClient;
+
+    @BeforeAll
+    static void enableAdmin() {
+        System.setProperty("todoapp.admin.token", ADMIN_TOKEN);
+    }
+
+    @AfterAll
+    static void disableAdmin() {
+        System.clearProperty("todoapp.admin.token");
+    }
+
+    @BeforeEach
+    void setUp() {
+        httpClient = HttpClient.newHttpClient();
+    }
+
+    @Test
+    @Timeout(1)
+    void exporting_shouldStream_UsersAndTasks() throws IOException, InterruptedException {
+        //given
+        send("user", gson.toJson(new UserEntity("username", "password")));
+        var created = send("task", gson.toJson(new TaskEntity("Kup mleko", "2021-06-30")));
+        var id = gson.fromJson(created.body(), Properties.class).getProperty("id");
+
+        //when
+        var export = httpClient.send(admin("export").GET().build(), ofString());
+
+        //then
+        assertThat(export.statusCode()).as(responseCode).isEqualTo(OK.getCode());
+        assertThat(export.body().split("\n")).containsExactly(
+                "{\"type\":\"user\",\"username\":\"username\",\"password\":\"password\"}",
+                "{\"type\":\"task\",\"id\":\"" + id + "\",\"owner\":\"username\",\"description\":\"Kup mleko\","
+                        + "\"due\":\"2021-06-30\",\"version\":1}");
+    }
+
+    @Test
+    @Timeout(1)
+    void importing_shouldStore_RecordsAndReport_Rejected() throws IOException, InterruptedException {
+        //given
+        var id = "237e9877-e79b-42d4-a765-321741963000";
+        var records = "{\"type\":\"user\",\"username\":\"username\",\"password\":\"password\"}\n"
+                + "{\"type\":\"task\",\"id\":\"" + id + "\",\"owner\":\"username\",\"description\":\"Kup mleko\","
+                + "\"version\":3}\n"
+                + "{\"type\":\"task\",\"id\":\"237e9877-e79b-42d4-a765-321741963001\",\"owner\":\"unknown\","
+                + "\"description\":\"Kup chleb\"}\n"
+                + "not json\n";
+
+        //when
+        var imported = httpClient.send(admin("import").POST(HttpRequest.BodyPublishers.ofString(records)).build(),
+                ofString());
+        var task = httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/" + id))
+                .header("auth", AUTH)
+                .GET()
+                .build(), ofString());
+
+        //then
+        assertThat(imported.statusCode()).as(responseCode).isEqualTo(OK.getCode());
+        var summary = gson.fromJson(imported.body(), Properties.class);
+        assertThat(summary.getProperty("users")).isEqualTo("1");
+        assertThat(summary.getProperty("tasks")).isEqualTo("1");
+        assertThat(summary.getProperty("rejected")).isEqualTo("2");
+        assertThat(task.statusCode()).as(responseCode).isEqualTo(OK.getCode());
+        assertThat(task.headers().firstValue("ETag")).hasValue("\"3\"");
+    }
+
+    @Test
+    @Timeout(1)
+    void exportingWithoutToken_shouldReturn_UNAUTHORIZED_StatusCode() throws IOException, InterruptedException {
+        //given
+        var request = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "admin/export"))
+                .GET()
+                .build();
+
+        //when
+        var export = httpClient.send(request, ofString());
+
+        //then
+        assertThat(export.statusCode()).as(responseCode).isEqualTo(UNAUTHORIZED.getCode());
+    }
+
+    private HttpRequest.Builder admin(String path) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "admin/" + path))
+                .header("X-Admin-Token", ADMIN_TOKEN);
+    }
+
+    private java.net.http.HttpResponse<String> send(String path, String body)
+            throws IOException, InterruptedException {
+        return httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + path))
+                .header("auth", AUTH)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), ofString());
+    }
+}
@@ -0,0 +1,102 @@
+package efs.task.todoapp.web;
+
+import com.google.gson.Gson;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.util.ToDoServerExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Properties;
+
+import static efs.task.todoapp.web.HttpCode.*;
+import static java.net.http.HttpResponse.BodyHandlers.ofString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(ToDoServerExtension.class)
+class HttpMetricsHandlerTest {
+
+    private HttpClient httpClient;
+    private static final String TODO_APP_PATH = "http://localhost:8080/todo/";
+    private static final String responseCode = "Response status code";
+    private static final Gson gson = new Gson();
+
+    @BeforeEach
+    void setUp() {
+        httpClient = HttpClient.newHttpClient();
+    }
+
+    @Test
+    @Timeout(1)
+    void gettingMetrics_shouldReturn_AdmissionMetrics() throws IOException, InterruptedException {
+        //given
+        String bodyUser = gson.toJson(new UserEntity("username","password"));
+
+        var httpRequestUser = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "user"))
+                .POST(HttpRequest.BodyPublishers.ofString(bodyUser))
+                .build();
+
+        var httpRequestMetrics = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "metrics"))
+                .GET()
+                .build();
+
+        //when
+        var httpResponseUser = httpClient.send(httpRequestUser, ofString());
+        var httpResponseMetrics = httpClient.send(httpRequestMetrics, ofString());
+
+        var metrics = gson.fromJson(httpResponseMetrics.body(), Properties.class);
+
+        //then
+        assertThat(httpResponseUser.statusCode()).as(responseCode).isEqualTo(CREATED.getCode());
+        assertThat(httpResponseMetrics.statusCode()).as(responseCode).isEqualTo(OK.getCode());
+        assertThat(metrics).containsKeys("admission.limit", "admission.shed");
+        assertThat(Double.parseDouble(metrics.getProperty("admission.admitted"))).isEqualTo(1.0);
+    }
+
+    @Test
+    @Timeout(1)
+    void gettingMetrics_afterTaskRequest_shouldReturn_StageTimings() throws IOException, InterruptedException {
+        //given
+        String bodyUser = gson.toJson(new UserEntity("username","password"));
+        var encoder = Base64.getEncoder();
+        var token = encoder.encodeToString("username".getBytes(StandardCharsets.UTF_8)) + ":"
+                + encoder.encodeToString("password".getBytes(StandardCharsets.UTF_8));
+
+        var httpRequestUser = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "user"))
+                .POST(HttpRequest.BodyPublishers.ofString(bodyUser))
+                .build();
+
+        var httpRequestTask_GET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .GET()
+                .header("auth",token)
+                .build();
+
+        var httpRequestMetrics = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "metrics"))
+                .GET()
+                .build();
+
+        //when
+        httpClient.send(httpRequestUser, ofString());
+        var httpResponseTask_GET = httpClient.send(httpRequestTask_GET, ofString());
+        var httpResponseMetrics = httpClient.send(httpRequestMetrics, ofString());
+
+        var metrics = gson.fromJson(httpResponseMetrics.body(), Properties.class);
+
+        //then
+        assertThat(httpResponseTask_GET.statusCode()).as(responseCode).isEqualTo(OK.getCode());
+        assertThat(metrics).containsKeys("timing.auth.p99Micros", "timing.parse.p99Micros",
+                "timing.repository.p99Micros", "timing.serialize.p99Micros", "timing.total.count");
+    }
+}
@@ -0,0 +1,91 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.HttpServer;
+import efs.task.todoapp.repository.TaskEntity;
+import efs.task.todoapp.repository.TaskRepository;
+import efs.task.todoapp.repository.UserEntity;
+import efs.task.todoapp.repository.UserRepository;
+import efs.task.todoapp.service.ToDoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HttpReminderHandlerTest {
+
+    private HttpServer server;
+    private HttpReminderHandler handler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var service = new ToDoService(new UserRepository(), new TaskRepository());
+        service.saveUser(new UserEntity("username", "password"));
+        handler = new HttpReminderHandler(service);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/todo/reminders", handler);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        handler.close();
+        server.stop(0);
+    }
+
+    @Test
+    @Timeout(2)
+    void clientNotReading_shouldNotBlock_RemindersAndBeDropped() throws Exception {
+        //given
+        try (var socket = subscribe()) {
+            var task = new TaskEntity("Kup mleko ".repeat(10_000), "2021-06-30");
+            task.setId(UUID.randomUUID());
+            task.setOwner("username");
+            task.setEncoded(("\"" + task.getDescription() + "\"").getBytes(StandardCharsets.UTF_8));
+
+            //when
+            for (int i = 0; i < 1_000; i++)
+                handler.remind(task);
+
+            //then
+            assertThat(handler.getSubscriberCount("username")).isZero();
+        }
+    }
+
+    /**
+     * Opens a stream and waits until it is subscribed, but never reads the events.
+     */
+    private Socket subscribe() throws IOException, InterruptedException {
+        var socket = new Socket("localhost", server.getAddress().getPort());
+        var auth = encode("username") + ":" + encode("password");
+        socket.getOutputStream().write(("GET /todo/reminders HTTP/1.1\r\nHost: localhost\r\nauth: " + auth + "\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        readUntil(socket.getInputStream(), ": connected");
+        while (handler.getSubscriberCount("username") == 0)
+            Thread.sleep(1);
+        return socket;
+    }
+
+    private static void readUntil(InputStream input, String marker) throws IOException {
+        var received = new StringBuilder();
+        while (received.indexOf(marker) < 0) {
+            int b = input.read();
+            if (b < 0)
+                throw new IOException("Stream ended");
+            received.append((char) b);
+        }
+    }
+
+    private static String encode(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
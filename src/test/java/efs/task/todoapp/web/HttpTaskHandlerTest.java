@@ -1,6 +1,9 @@
 package efs.task.todoapp.web;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import efs.task.todoapp.codec.CborCodec;
+import efs.task.todoapp.codec.CborOutput;
 import efs.task.todoapp.repository.TaskEntity;
 import efs.task.todoapp.repository.UserEntity;
 import efs.task.todoapp.util.ToDoServerExtension;
@@ -19,6 +22,7 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Properties;
 import static java.net.http.HttpResponse.BodyHandlers.ofString;
@@ -207,6 +211,63 @@ class HttpTaskHandlerTest {
     }
 
 
+    @Test
+    @Timeout(1)
+    void gettingListOfTasks_afterChanges_shouldReturn_CurrentTasks() throws IOException, InterruptedException {
+
+        //given
+        String username="username",password="password";
+        String bodyUser = gson.toJson(new UserEntity(username,password));
+        String bodyTask = gson.toJson(new TaskEntity("buy milk","2021-06-30"));
+        String bodyUpdatedTask = gson.toJson(new TaskEntity("new description","2021-07-02"));
+
+        var token = getToken(username,password);
+
+        var httpRequestUser = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "user"))
+                .POST(HttpRequest.BodyPublishers.ofString(bodyUser))
+                .build();
+
+        var httpRequestTask_POST = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .POST(HttpRequest.BodyPublishers.ofString(bodyTask))
+                .header(auth,token)
+                .build();
+
+        var httpRequestTask_GET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .GET()
+                .header(auth,token)
+                .build();
+
+        //when
+        httpClient.send(httpRequestUser, ofString());
+        var httpResponseTask_GET_empty = httpClient.send(httpRequestTask_GET, ofString());
+        var httpResponseTask_POST = httpClient.send(httpRequestTask_POST, ofString());
+        var httpResponseTask_GET_added = httpClient.send(httpRequestTask_GET, ofString());
+
+        var id = gson.fromJson(httpResponseTask_POST.body(), Properties.class).getProperty("id");
+        httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/"+id))
+                .PUT(HttpRequest.BodyPublishers.ofString(bodyUpdatedTask))
+                .header(auth,token)
+                .build(), ofString());
+        var httpResponseTask_GET_updated = httpClient.send(httpRequestTask_GET, ofString());
+
+        httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/"+id))
+                .DELETE()
+                .header(auth,token)
+                .build(), ofString());
+        var httpResponseTask_GET_deleted = httpClient.send(httpRequestTask_GET, ofString());
+
+        //then
+        assertThat(httpResponseTask_GET_empty.body()).isEqualTo("[]");
+        assertThat(httpResponseTask_GET_added.body()).contains(id, "buy milk");
+        assertThat(httpResponseTask_GET_updated.body()).contains(id, "new description").doesNotContain("buy milk");
+        assertThat(httpResponseTask_GET_deleted.body()).isEqualTo("[]");
+    }
+
     @ParameterizedTest(name = "{index}: header={0}")
     @CsvSource({"invalidAuthHeader","anotherInvalidAuthHeader"})
     @Timeout(1)
@@ -787,6 +848,122 @@ class HttpTaskHandlerTest {
         assertThat(httpResponseTask_PUT.statusCode()).as(responseCode).isEqualTo(NOT_FOUND.getCode());
     }
 
+    @Test
+    @Timeout(1)
+    void updatingTask_withMatchingIfMatch_shouldReturn_OK_StatusCode_and_NextETag()
+            throws IOException, InterruptedException {
+        //given
+        String username="username",password="password";
+
+        String bodyUser = gson.toJson(new UserEntity(username,password));
+        String bodyTask = gson.toJson(new TaskEntity("buy milk","2021-06-30"));
+        String bodyUpdatedTask = gson.toJson(new TaskEntity("new description","2021-07-02"));
+
+        var token = getToken(username,password);
+
+        var httpRequestUser = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "user"))
+                .POST(HttpRequest.BodyPublishers.ofString(bodyUser))
+                .build();
+
+        var httpRequestTask_POST = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .POST(HttpRequest.BodyPublishers.ofString(bodyTask))
+                .header(auth,token)
+                .build();
+
+        //when
+        var httpResponseUser = httpClient.send(httpRequestUser,ofString());
+        var httpResponseTask_POST = httpClient.send(httpRequestTask_POST,ofString());
+
+        var properties = gson.fromJson(httpResponseTask_POST.body(), Properties.class);
+        String id = properties.getProperty("id");
+
+        var httpRequestTask_GET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/"+id))
+                .GET()
+                .header(auth,token)
+                .build();
+
+        var httpResponseTask_GET = httpClient.send(httpRequestTask_GET, ofString());
+        var eTag = httpResponseTask_GET.headers().firstValue("ETag").orElse("");
+
+        var httpRequestTask_PUT = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/"+id))
+                .PUT(HttpRequest.BodyPublishers.ofString(bodyUpdatedTask))
+                .header(auth,token)
+                .header("If-Match",eTag)
+                .build();
+
+        var httpResponseTask_PUT = httpClient.send(httpRequestTask_PUT, ofString());
+        var httpResponseTask_PUT2 = httpClient.send(httpRequestTask_PUT, ofString());
+
+        //then
+        assertThat(httpResponseUser.statusCode()).as(responseCode).isEqualTo(CREATED.getCode());
+        assertThat(eTag).isEqualTo("\"1\"");
+        assertThat(httpResponseTask_PUT.statusCode()).as(responseCode).isEqualTo(OK.getCode());
+        assertThat(httpResponseTask_PUT.headers().firstValue("ETag")).hasValue("\"2\"");
+        assertThat(httpResponseTask_PUT2.statusCode()).as(responseCode).isEqualTo(PRECONDITION_FAILED.getCode());
+    }
+
+    @Test
+    @Timeout(1)
+    void updatingDeletedTask_shouldReturn_NOT_FOUND_StatusCode() throws IOException, InterruptedException {
+
+        //given
+        String username="username",password="password";
+
+        String bodyUser = gson.toJson(new UserEntity(username,password));
+        String bodyTask = gson.toJson(new TaskEntity("buy milk","2021-06-30"));
+        String bodyUpdatedTask = gson.toJson(new TaskEntity("new description","2021-07-02"));
+
+        var token = getToken(username,password);
+
+        var httpRequestUser = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "user"))
+                .POST(HttpRequest.BodyPublishers.ofString(bodyUser))
+                .build();
+
+        var httpRequestTask_POST = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .POST(HttpRequest.BodyPublishers.ofString(bodyTask))
+                .header(auth,token)
+                .build();
+
+        //when
+        var httpResponseUser = httpClient.send(httpRequestUser,ofString());
+        var httpResponseTask_POST = httpClient.send(httpRequestTask_POST,ofString());
+
+        var properties = gson.fromJson(httpResponseTask_POST.body(), Properties.class);
+        String id = properties.getProperty("id");
+
+        var httpRequestTask_DELETE = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/"+id))
+                .DELETE()
+                .header(auth,token)
+                .build();
+
+        var httpRequestTask_PUT = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/"+id))
+                .PUT(HttpRequest.BodyPublishers.ofString(bodyUpdatedTask))
+                .header(auth,token)
+                .build();
+
+        var httpResponseTask_DELETE = httpClient.send(httpRequestTask_DELETE,ofString());
+        var httpResponseTask_PUT = httpClient.send(httpRequestTask_PUT,ofString());
+        var httpResponseTask_GET = httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task/"+id))
+                .GET()
+                .header(auth,token)
+                .build(),ofString());
+
+        //then
+        assertThat(httpResponseUser.statusCode()).as(responseCode).isEqualTo(CREATED.getCode());
+        assertThat(httpResponseTask_DELETE.statusCode()).as(responseCode).isEqualTo(OK.getCode());
+        assertThat(httpResponseTask_PUT.statusCode()).as(responseCode).isEqualTo(NOT_FOUND.getCode());
+        assertThat(httpResponseTask_GET.statusCode()).as(responseCode).isEqualTo(NOT_FOUND.getCode());
+    }
+
     @Test
     @Timeout(1)
     void deletingTask_shouldReturn_OK_StatusCode() throws IOException, InterruptedException {
@@ -1051,6 +1228,131 @@ class HttpTaskHandlerTest {
         assertThat(httpResponseTask_DELETE2.statusCode()).as(responseCode).isEqualTo(NOT_FOUND.getCode());
     }
 
+    @Test
+    @Timeout(1)
+    void savingAndGettingTask_inCbor_shouldReturn_CborPayloads() throws Exception {
+        //given
+        String bodyUser = gson.toJson(new UserEntity("username","password"));
+        var bodyTask = CborOutput.forThread().writeMapHeader(2)
+                .writeText("description").writeText("Kup mleko")
+                .writeText("due").writeText("2021-06-30")
+                .toByteArray();
+        var token = getToken("username","password");
+
+        var httpRequestUser = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "user"))
+                .POST(HttpRequest.BodyPublishers.ofString(bodyUser))
+                .build();
+
+        var httpRequestTask_POST = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .header(auth,token)
+                .header("Content-Type","application/cbor")
+                .header("Accept","application/cbor")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(bodyTask))
+                .build();
+
+        var httpRequestTask_GET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .header(auth,token)
+                .header("Accept","application/cbor")
+                .GET()
+                .build();
+
+        //when
+        var httpResponseUser = httpClient.send(httpRequestUser,ofString());
+        var httpResponseTask_POST = httpClient.send(httpRequestTask_POST,HttpResponse.BodyHandlers.ofByteArray());
+        var httpResponseTask_GET = httpClient.send(httpRequestTask_GET,HttpResponse.BodyHandlers.ofByteArray());
+
+        //then
+        assertThat(httpResponseUser.statusCode()).as(responseCode).isEqualTo(CREATED.getCode());
+        assertThat(httpResponseTask_POST.statusCode()).as(responseCode).isEqualTo(CREATED.getCode());
+        assertThat(httpResponseTask_POST.headers().firstValue("Content-Type")).hasValue("application/cbor");
+        assertThat(httpResponseTask_POST.body()).hasSize(23);
+        assertThat(httpResponseTask_GET.statusCode()).as(responseCode).isEqualTo(OK.getCode());
+        assertThat(httpResponseTask_GET.headers().firstValue("Content-Type")).hasValue("application/cbor");
+        assertThat(httpResponseTask_GET.body()[0]).isEqualTo((byte) 0x81);
+        var listed = Arrays.copyOfRange(httpResponseTask_GET.body(), 1, httpResponseTask_GET.body().length);
+        assertThat(CborCodec.readTask(listed, listed.length).getDescription()).isEqualTo("Kup mleko");
+    }
+
+    @Test
+    @Timeout(1)
+    void savingTask_withOversizedBody_shouldReturn_PAYLOAD_TOO_LARGE_StatusCode() throws IOException, InterruptedException {
+        //given
+        String bodyUser = gson.toJson(new UserEntity("username","password"));
+        String bodyTask = gson.toJson(new TaskEntity("Kup mleko ".repeat(7_000),"2021-06-30"));
+        var token = getToken("username","password");
+
+        var httpRequestUser = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "user"))
+                .POST(HttpRequest.BodyPublishers.ofString(bodyUser))
+                .build();
+
+        var httpRequestTask_POST = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .POST(HttpRequest.BodyPublishers.ofString(bodyTask))
+                .header(auth,token)
+                .build();
+
+        var httpRequestTask_GET = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .header(auth,token)
+                .GET()
+                .build();
+
+        //when
+        var httpResponseUser = httpClient.send(httpRequestUser, ofString());
+        var httpResponseTask_POST = httpClient.send(httpRequestTask_POST, ofString());
+        var httpResponseTask_GET = httpClient.send(httpRequestTask_GET, ofString());
+
+        //then
+        assertThat(httpResponseUser.statusCode()).as(responseCode).isEqualTo(CREATED.getCode());
+        assertThat(httpResponseTask_POST.statusCode()).as(responseCode).isEqualTo(PAYLOAD_TOO_LARGE.getCode());
+        assertThat(httpResponseTask_GET.body()).isEqualTo("[]");
+    }
+
+    @Test
+    @Timeout(1)
+    void savingTask_withSessionToken_shouldReturn_CREATED_StatusCode() throws IOException, InterruptedException {
+        //given
+        String bodyUser = gson.toJson(new UserEntity("username","password"));
+        String bodyTask = gson.toJson(new TaskEntity("buy milk","2021-06-30"));
+
+        var httpRequestUser = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "user"))
+                .POST(HttpRequest.BodyPublishers.ofString(bodyUser))
+                .build();
+
+        var httpRequestLogin = HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "login"))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .header(auth,getToken("username","password"))
+                .build();
+
+        //when
+        var httpResponseUser = httpClient.send(httpRequestUser, ofString());
+        var httpResponseLogin = httpClient.send(httpRequestLogin, ofString());
+        var sessionToken = gson.fromJson(httpResponseLogin.body(), JsonObject.class).get("token").getAsString();
+
+        var httpResponseTask_POST = httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .POST(HttpRequest.BodyPublishers.ofString(bodyTask))
+                .header(auth,sessionToken)
+                .build(), ofString());
+        var httpResponseUnknownToken = httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create(TODO_APP_PATH + "task"))
+                .header(auth,"x".repeat(sessionToken.length()))
+                .GET()
+                .build(), ofString());
+
+        //then
+        assertThat(httpResponseUser.statusCode()).as(responseCode).isEqualTo(CREATED.getCode());
+        assertThat(httpResponseLogin.statusCode()).as(responseCode).isEqualTo(OK.getCode());
+        assertThat(httpResponseTask_POST.statusCode()).as(responseCode).isEqualTo(CREATED.getCode());
+        assertThat(httpResponseUnknownToken.statusCode()).as(responseCode).isEqualTo(UNAUTHORIZED.getCode());
+    }
+
     private String getToken(String username,String password){
         var encodedUsername = new String(encoder.encode(username.getBytes(StandardCharsets.UTF_8)));
         var encodedPassword = new String(encoder.encode(password.getBytes(StandardCharsets.UTF_8)));
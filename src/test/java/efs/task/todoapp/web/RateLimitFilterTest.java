@@ -0,0 +1,87 @@
+package efs.task.todoapp.web;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static efs.task.todoapp.web.HttpCode.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private static final String TOKEN = "A".repeat(43) + ".dXNlcm5hbWU";
+
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        var context = server.createContext("/todo/task", exchange -> {
+            exchange.sendResponseHeaders(OK.getCode(), -1);
+            exchange.close();
+        });
+        context.getFilters().add(new RateLimitFilter(new RateLimiter(1, 0.001, 100), true));
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @Timeout(1)
+    void forgedUsername_fromOtherHost_shouldNotDrain_BucketOfTheUser() throws IOException {
+        //when
+        var forged = send("127.0.0.2", encode("victim") + ":" + encode("guess"));
+        var forgedAgain = send("127.0.0.2", encode("victim") + ":" + encode("guess"));
+        var victim = send("127.0.0.1", encode("victim") + ":" + encode("password"));
+        var victimAgain = send("127.0.0.1", encode("victim") + ":" + encode("password"));
+
+        //then
+        assertThat(forged).isEqualTo(OK.getCode());
+        assertThat(forgedAgain).isEqualTo(TOO_MANY_REQUESTS.getCode());
+        assertThat(victim).isEqualTo(OK.getCode());
+        assertThat(victimAgain).isEqualTo(TOO_MANY_REQUESTS.getCode());
+    }
+
+    @Test
+    @Timeout(1)
+    void sessionToken_shouldBe_LimitedPerToken() throws IOException {
+        //when
+        var first = send("127.0.0.1", TOKEN);
+        var again = send("127.0.0.2", TOKEN);
+        var other = send("127.0.0.1", "B".repeat(43) + ".dXNlcm5hbWU");
+
+        //then
+        assertThat(first).isEqualTo(OK.getCode());
+        assertThat(again).isEqualTo(TOO_MANY_REQUESTS.getCode());
+        assertThat(other).isEqualTo(OK.getCode());
+    }
+
+    /**
+     * Sends the request from the given loopback address, so that requests of different hosts can be told apart.
+     */
+    private int send(String from, String auth) throws IOException {
+        try (var socket = new Socket(InetAddress.getByName("127.0.0.1"), server.getAddress().getPort(),
+                InetAddress.getByName(from), 0)) {
+            socket.getOutputStream().write(("GET /todo/task HTTP/1.1\r\nHost: localhost\r\nauth: " + auth
+                    + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            var status = new String(socket.getInputStream().readNBytes(12), StandardCharsets.US_ASCII);
+            return Integer.parseInt(status.substring(9, 12));
+        }
+    }
+
+    private static String encode(String value) {
+        return Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,48 @@
+package efs.task.todoapp.web;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+
+    @Test
+    @Timeout(1)
+    void exceedingCapacity_shouldReturn_WaitTime() {
+        //given
+        var limiter = new RateLimiter(3, 1, 10);
+
+        //when
+        var first = limiter.tryAcquire("username");
+        var second = limiter.tryAcquire("username");
+        var third = limiter.tryAcquire("username");
+        var fourth = limiter.tryAcquire("username");
+        var anotherUser = limiter.tryAcquire("anotherUsername");
+
+        //then
+        assertThat(first).isZero();
+        assertThat(second).isZero();
+        assertThat(third).isZero();
+        assertThat(fourth).isPositive().isLessThanOrEqualTo(1_000_000_000L);
+        assertThat(anotherUser).isZero();
+    }
+
+    @Test
+    @Timeout(1)
+    void exceedingMaxBuckets_shouldShare_OverflowBucket() {
+        //given
+        var limiter = new RateLimiter(1, 1, 2);
+
+        //when
+        limiter.tryAcquire("a");
+        limiter.tryAcquire("b");
+        var firstOverflow = limiter.tryAcquire("c");
+        var secondOverflow = limiter.tryAcquire("d");
+
+        //then
+        assertThat(limiter.size()).isEqualTo(2);
+        assertThat(firstOverflow).isZero();
+        assertThat(secondOverflow).isPositive();
+    }
+}
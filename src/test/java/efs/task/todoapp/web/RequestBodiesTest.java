@@ -0,0 +1,71 @@
+package efs.task.todoapp.web;
+
+import efs.task.todoapp.service.Exceptions.PayloadTooLargeException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestBodiesTest {
+
+    @Test
+    @Timeout(1)
+    void bodies_shouldBe_ReadIntoReusedBuffer() throws Exception {
+        //given
+        var first = "{\"description\":\"Kup żółty ser\"}";
+        var second = "{\"description\":\"Kup mleko\"}";
+
+        //when
+        var firstBody = RequestBodies.read(stream(first), 1024);
+        var firstText = firstBody.asString();
+        var firstBytes = firstBody.bytes();
+        var secondBody = RequestBodies.read(stream(second), 1024);
+
+        //then
+        assertThat(firstText).isEqualTo(first);
+        assertThat(secondBody.asString()).isEqualTo(second);
+        assertThat(secondBody.bytes()).isSameAs(firstBytes);
+    }
+
+    @Test
+    @Timeout(1)
+    void bodyOverLimit_shouldBe_Refused() throws Exception {
+        //given
+        var limit = 10_000;
+        var exact = "x".repeat(limit);
+
+        //when then
+        assertThat(RequestBodies.read(stream(exact), limit).length()).isEqualTo(limit);
+        assertThatThrownBy(() -> RequestBodies.read(stream(exact + "x"), limit))
+                .isInstanceOf(PayloadTooLargeException.class);
+    }
+
+    @Test
+    @Timeout(1)
+    void endlessBody_shouldBe_RefusedAfterLimit() {
+        //given
+        var endless = new InputStream() {
+            long read;
+
+            @Override
+            public int read() {
+                read++;
+                return 'x';
+            }
+        };
+
+        //when then
+        assertThatThrownBy(() -> RequestBodies.read(endless, 100_000))
+                .isInstanceOf(PayloadTooLargeException.class);
+        assertThat(endless.read).isLessThanOrEqualTo(2 * 100_000);
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
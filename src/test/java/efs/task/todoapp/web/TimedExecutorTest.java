@@ -0,0 +1,40 @@
+package efs.task.todoapp.web;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimedExecutorTest {
+
+    @Test
+    @Timeout(1)
+    void queueDelay_shouldBe_TimeWaitedForWorker() throws Exception {
+        //given
+        var executor = new TimedExecutor(Executors.newSingleThreadExecutor());
+        var release = new CountDownLatch(1);
+        var delay = new CompletableFuture<Long>();
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        //when
+        executor.execute(() -> delay.complete(TimedExecutor.queueDelayNanos()));
+        Thread.sleep(50);
+        release.countDown();
+
+        //then
+        assertThat(delay.get()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(TimedExecutor.queueDelayNanos()).isZero();
+        executor.shutdown();
+    }
+}
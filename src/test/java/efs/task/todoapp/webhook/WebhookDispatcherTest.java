@@ -0,0 +1,177 @@
+package efs.task.todoapp.webhook;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpServer;
+import efs.task.todoapp.repository.TaskEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebhookDispatcherTest {
+
+    private static final int PORT = 8120;
+    private static final URI ENDPOINT = URI.create("http://localhost:" + PORT + "/hook");
+
+    private HttpServer receiver;
+    private final BlockingQueue<JsonArray> received = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Integer> statuses = new LinkedBlockingQueue<>();
+    private volatile long delayMillis;
+
+    @BeforeEach
+    void startReceiver() throws IOException {
+        receiver = HttpServer.create(new InetSocketAddress("localhost", PORT), 0);
+        receiver.createContext("/hook", exchange -> {
+            var body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            var status = statuses.poll();
+            if (status == null || status == 200)
+                received.add(JsonParser.parseString(body).getAsJsonArray());
+            exchange.sendResponseHeaders(status == null ? 200 : status, -1);
+            exchange.close();
+        });
+        receiver.start();
+    }
+
+    @AfterEach
+    void stopReceiver() {
+        receiver.stop(0);
+    }
+
+    @Test
+    @Timeout(1)
+    void eventsInQuickSuccession_shouldBeSent_InOneBatch() throws Exception {
+        //given
+        try (var dispatcher = new WebhookDispatcher(List.of(ENDPOINT), 100, 1_000, 50, 10, 100)) {
+            var task = newTask("Kup mleko");
+
+            //when
+            dispatcher.taskSaved(task);
+            dispatcher.taskSaved(newTask("Kup chleb"));
+            dispatcher.taskDeleted(task);
+
+            //then
+            var batch = received.poll(500, TimeUnit.MILLISECONDS);
+            assertThat(batch).hasSize(3);
+            assertThat(batch.get(0).getAsJsonObject().get("event").getAsString()).isEqualTo("saved");
+            assertThat(batch.get(2).getAsJsonObject().get("event").getAsString()).isEqualTo("deleted");
+            assertThat(batch.get(0).getAsJsonObject().getAsJsonObject("task").get("owner").getAsString())
+                    .isEqualTo("username");
+            assertThat(received.poll(100, TimeUnit.MILLISECONDS)).isNull();
+            awaitDelivered(dispatcher, 3);
+        }
+    }
+
+    @Test
+    @Timeout(1)
+    void failedBatch_shouldBeRetried_WithBackoff() throws Exception {
+        //given
+        statuses.add(503);
+        statuses.add(500);
+        try (var dispatcher = new WebhookDispatcher(List.of(ENDPOINT), 100, 1_000, 10, 20, 100)) {
+
+            //when
+            dispatcher.taskSaved(newTask("Kup mleko"));
+
+            //then
+            var batch = received.poll(800, TimeUnit.MILLISECONDS);
+            assertThat(batch).hasSize(1);
+            awaitDelivered(dispatcher, 1);
+            assertThat(dispatcher.getFailedAttemptCount()).isEqualTo(2);
+            assertThat(dispatcher.getDeliveredCount()).isEqualTo(1);
+            assertThat(dispatcher.getDroppedCount()).isZero();
+        }
+    }
+
+    @Test
+    @Timeout(1)
+    void rejectedBatch_shouldBeDropped() throws Exception {
+        //given
+        statuses.add(400);
+        try (var dispatcher = new WebhookDispatcher(List.of(ENDPOINT), 100, 1_000, 10, 20, 100)) {
+
+            //when
+            dispatcher.taskSaved(newTask("Kup mleko"));
+            Thread.sleep(200);
+
+            //then
+            assertThat(received).isEmpty();
+            assertThat(dispatcher.getDroppedCount()).isEqualTo(1);
+            assertThat(dispatcher.getPendingCount()).isZero();
+        }
+    }
+
+    @Test
+    @Timeout(1)
+    void batchFailingToEncode_shouldBeDropped_AndNotStopDelivery() throws Exception {
+        //given
+        var broken = newTask("Kup mleko");
+        broken.setId(null);
+        try (var dispatcher = new WebhookDispatcher(List.of(ENDPOINT), 1, 1_000, 0, 20, 100)) {
+
+            //when
+            dispatcher.taskSaved(broken);
+            dispatcher.taskSaved(newTask("Kup chleb"));
+
+            //then
+            var batch = received.poll(500, TimeUnit.MILLISECONDS);
+            assertThat(batch).hasSize(1);
+            awaitDelivered(dispatcher, 1);
+            assertThat(dispatcher.getDroppedCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @Timeout(1)
+    void slowEndpoint_shouldNotBlock_AndBufferShouldStayBounded() {
+        //given
+        delayMillis = 300;
+        try (var dispatcher = new WebhookDispatcher(List.of(ENDPOINT), 10, 100, 0, 20, 100)) {
+
+            //when
+            long start = System.nanoTime();
+            for (int i = 0; i < 10_000; i++)
+                dispatcher.taskSaved(newTask("Kup mleko " + i));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            //then
+            assertThat(elapsedMillis).isLessThan(200);
+            assertThat(dispatcher.getPendingCount()).isLessThanOrEqualTo(100);
+            assertThat(dispatcher.getDroppedCount()).isGreaterThanOrEqualTo(10_000 - 100 - 10);
+        }
+    }
+
+    /**
+     * The receiver records a batch before it responds, so the dispatcher counts it a moment later.
+     */
+    private static void awaitDelivered(WebhookDispatcher dispatcher, long count) throws InterruptedException {
+        while (dispatcher.getDeliveredCount() < count)
+            Thread.sleep(5);
+        assertThat(dispatcher.getDeliveredCount()).isEqualTo(count);
+    }
+
+    private static TaskEntity newTask(String description) {
+        var task = new TaskEntity(description, "2021-06-30");
+        task.setId(UUID.randomUUID());
+        task.setOwner("username");
+        task.setVersion(1);
+        return task;
+    }
+}